@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backupv2.ColumnfamilyResult;
+import com.netflix.priam.backupv2.FileUploadResult;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Generates the fixtures shared by the benchmarks. Everything is seeded to be reproducible. */
+final class BenchmarkFixtures {
+    static final String KEYSPACE = "keyspace1";
+    static final String PREFIX = "casstestbackup/1049_fake-app/1808575600";
+    private static final String[] COMPONENTS = {
+        "Data.db", "Index.db", "Summary.db", "Filter.db", "Statistics.db", "CompressionInfo.db",
+        "Digest.crc32", "TOC.txt"
+    };
+
+    private BenchmarkFixtures() {}
+
+    /** @return an injector with the fakes used by the priam tests, i.e. without AWS. */
+    static Injector injector() {
+        return Guice.createInjector(new BRTestModule());
+    }
+
+    /**
+     * Bytes which compress like an SSTable Data.db file: rows of repeated column names and
+     * timestamps mixed with random values.
+     */
+    static byte[] sstableContent(int size) {
+        Random random = new Random(42);
+        byte[] content = new byte[size];
+        int position = 0;
+        long timestamp = 1546300800000000L;
+        while (position < size) {
+            byte[] row =
+                    String.format(
+                                    "user_id:%016x|first_name:%s|last_name:%s|ts:%d|",
+                                    random.nextLong(),
+                                    Long.toString(random.nextInt(1_000_000), 36),
+                                    Long.toString(random.nextInt(1_000_000), 36),
+                                    timestamp += random.nextInt(1000))
+                            .getBytes(StandardCharsets.UTF_8);
+            byte[] value = new byte[random.nextInt(64)];
+            random.nextBytes(value);
+            for (byte[] part : new byte[][] {row, value}) {
+                int length = Math.min(part.length, size - position);
+                System.arraycopy(part, 0, content, position, length);
+                position += length;
+            }
+        }
+        return content;
+    }
+
+    /** Write an SSTable like file of the given size. */
+    static Path sstableFile(Path directory, int size) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(KEYSPACE + "-table1-ka-1-Data.db");
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+            os.write(sstableContent(size));
+        }
+        return file;
+    }
+
+    /** @return remote paths of SST_V2 files as they are listed from the remote file system. */
+    static List<String> sstV2RemotePaths(int count) {
+        List<String> remotePaths = new ArrayList<>(count);
+        long lastModified = 1859817645000L;
+        for (int i = 0; i < count; i++) {
+            remotePaths.add(
+                    Paths.get(
+                                    PREFIX,
+                                    "SST_V2",
+                                    Long.toString(lastModified + i * 1000L),
+                                    KEYSPACE,
+                                    "table" + (i % 100),
+                                    "SNAPPY",
+                                    "PLAINTEXT",
+                                    "mc-" + (i / COMPONENTS.length) + "-big-"
+                                            + COMPONENTS[i % COMPONENTS.length])
+                            .toString());
+        }
+        return remotePaths;
+    }
+
+    /**
+     * @return column family results referencing <code>entries</code> SSTable components spread
+     *     over 100 column families, as found in a meta file.
+     */
+    static List<ColumnfamilyResult> columnfamilyResults(int entries) {
+        List<ColumnfamilyResult> results = new ArrayList<>();
+        List<String> remotePaths = sstV2RemotePaths(entries);
+        Instant now = Instant.ofEpochMilli(1859817645000L);
+        for (int cf = 0; cf < 100; cf++)
+            results.add(new ColumnfamilyResult(KEYSPACE, "table" + cf));
+        for (int i = 0; i < entries; i++) {
+            ColumnfamilyResult result = results.get(i % 100);
+            // Start a new SSTable every time all the components were added to the previous one.
+            if ((i / 100) % COMPONENTS.length == 0) {
+                ColumnfamilyResult.SSTableResult ssTableResult =
+                        new ColumnfamilyResult.SSTableResult();
+                ssTableResult.setSstableComponents(new ArrayList<>());
+                result.addSstable(ssTableResult);
+            }
+            List<ColumnfamilyResult.SSTableResult> sstables = result.getSstables();
+            ColumnfamilyResult.SSTableResult ssTableResult = sstables.get(sstables.size() - 1);
+            String remotePath = remotePaths.get(i);
+            FileUploadResult fileUploadResult =
+                    new FileUploadResult(
+                            Paths.get(remotePath).getFileName(),
+                            KEYSPACE,
+                            result.getColumnfamilyName(),
+                            now,
+                            now,
+                            1024L * 1024 * 160);
+            fileUploadResult.setBackupPath(remotePath);
+            fileUploadResult.setUploaded(true);
+            ssTableResult.getSstableComponents().add(fileUploadResult);
+        }
+        return results;
+    }
+}
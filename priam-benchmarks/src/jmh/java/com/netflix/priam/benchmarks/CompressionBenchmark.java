@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.netflix.priam.compress.Chunk;
+import com.netflix.priam.compress.ChunkBufferPool;
+import com.netflix.priam.compress.ICompression;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compression of an SSTable sized file into pooled chunks (ChunkedStream) as done for every upload,
+ * and its decompression as done for every download.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompressionBenchmark {
+    // Default chunk size of the uploads.
+    private static final long CHUNK_SIZE = 10 * 1024 * 1024L;
+
+    @Param({"SNAPPY", "LZ4", "ZSTD"})
+    public String algorithm;
+
+    @Param({"67108864"})
+    public int fileSize;
+
+    private ICompression compression;
+    private ChunkBufferPool pool;
+    private byte[] content;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        compression =
+                ICompression.getCompression(ICompression.CompressionAlgorithm.valueOf(algorithm));
+        pool = new ChunkBufferPool(4);
+        content = BenchmarkFixtures.sstableContent(fileSize);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Iterator<Chunk> chunks =
+                compression.compress(new ByteArrayInputStream(content), CHUNK_SIZE, pool);
+        while (chunks.hasNext()) {
+            Chunk chunk = chunks.next();
+            bos.write(chunk.getBuffer(), 0, chunk.getLength());
+            chunk.release();
+        }
+        compressed = bos.toByteArray();
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        long compressedSize = 0;
+        Iterator<Chunk> chunks =
+                compression.compress(new ByteArrayInputStream(content), CHUNK_SIZE, pool);
+        while (chunks.hasNext()) {
+            Chunk chunk = chunks.next();
+            compressedSize += chunk.getLength();
+            chunk.release();
+        }
+        return compressedSize;
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        CountingOutputStream output = new CountingOutputStream(new NullOutputStream());
+        compression.decompressAndClose(new ByteArrayInputStream(compressed), output);
+        return output.getByteCount();
+    }
+}
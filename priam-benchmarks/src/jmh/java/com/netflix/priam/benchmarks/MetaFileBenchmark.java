@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.google.inject.Injector;
+import com.netflix.priam.backupv2.ColumnfamilyResult;
+import com.netflix.priam.backupv2.MetaFileReader;
+import com.netflix.priam.backupv2.MetaFileWriterBuilder;
+import com.netflix.priam.config.IConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Streaming write and read of a meta file, as done by every snapshot and every restore. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetaFileBenchmark {
+    private static final Instant SNAPSHOT_TIME = Instant.ofEpochMilli(1859817645000L);
+
+    @Param({"100000"})
+    public int entries;
+
+    private MetaFileWriterBuilder metaFileWriterBuilder;
+    private List<ColumnfamilyResult> columnfamilyResults;
+    private Path metaFile;
+
+    @Setup
+    public void setup() throws IOException {
+        Injector injector = BenchmarkFixtures.injector();
+        Files.createDirectories(
+                Paths.get(injector.getInstance(IConfiguration.class).getDataFileLocation()));
+        metaFileWriterBuilder = injector.getInstance(MetaFileWriterBuilder.class);
+        columnfamilyResults = BenchmarkFixtures.columnfamilyResults(entries);
+        metaFile = write();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(metaFile);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        MetaFileWriterBuilder.DataStep dataStep =
+                metaFileWriterBuilder.newBuilder().startMetaFileGeneration(SNAPSHOT_TIME);
+        for (ColumnfamilyResult columnfamilyResult : columnfamilyResults)
+            dataStep.addColumnfamilyResult(columnfamilyResult);
+        return dataStep.endMetaFileGeneration().getMetaFilePath();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        CountingMetaFileReader reader = new CountingMetaFileReader();
+        reader.readMeta(metaFile);
+        return reader.components;
+    }
+
+    private static class CountingMetaFileReader extends MetaFileReader {
+        private int components = 0;
+
+        @Override
+        public void process(ColumnfamilyResult columnfamilyResult) {
+            for (ColumnfamilyResult.SSTableResult ssTableResult : columnfamilyResult.getSstables())
+                components += ssTableResult.getSstableComponents().size();
+        }
+    }
+}
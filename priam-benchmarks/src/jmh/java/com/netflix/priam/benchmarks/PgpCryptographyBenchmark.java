@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.priam.cryptography.pgp.PgpCryptography;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.openpgp.PGPEncryptedData;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** PGP encryption and decryption of an SSTable sized stream with a generated key pair. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PgpCryptographyBenchmark {
+    private static final String PASSPHRASE = "priam-benchmark";
+
+    @Param({"16777216"})
+    public int fileSize;
+
+    private Path keyDirectory;
+    private PgpCryptography cryptography;
+    private byte[] content;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        keyDirectory = Files.createTempDirectory("pgp-benchmark");
+        Path secretKeyFile = keyDirectory.resolve("secret.asc");
+        Path publicKeyFile = keyDirectory.resolve("public.asc");
+        // PgpCryptography registers the BouncyCastle provider.
+        cryptography =
+                new PgpCryptography(
+                        new FakeConfiguration("fake-app") {
+                            @Override
+                            public String getPrivateKeyLocation() {
+                                return secretKeyFile.toString();
+                            }
+
+                            @Override
+                            public String getPgpPublicKeyLoc() {
+                                return publicKeyFile.toString();
+                            }
+
+                            @Override
+                            public String getPgpPasswordPhrase() {
+                                return PASSPHRASE;
+                            }
+                        });
+        generateKeys(secretKeyFile, publicKeyFile);
+
+        content = BenchmarkFixtures.sstableContent(fileSize);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Iterator<byte[]> chunks =
+                cryptography.encryptStream(new ByteArrayInputStream(content), "benchmark");
+        while (chunks.hasNext()) bos.write(chunks.next());
+        encrypted = bos.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(keyDirectory.toFile());
+    }
+
+    @Benchmark
+    public long encrypt() {
+        long encryptedSize = 0;
+        Iterator<byte[]> chunks =
+                cryptography.encryptStream(new ByteArrayInputStream(content), "benchmark");
+        while (chunks.hasNext()) encryptedSize += chunks.next().length;
+        return encryptedSize;
+    }
+
+    @Benchmark
+    public long decrypt() throws Exception {
+        InputStream in = new ByteArrayInputStream(encrypted);
+        try (InputStream decrypted =
+                cryptography.decryptStream(in, PASSPHRASE.toCharArray(), "benchmark")) {
+            return IOUtils.copyLarge(decrypted, new NullOutputStream());
+        }
+    }
+
+    private static void generateKeys(Path secretKeyFile, Path publicKeyFile) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        PGPSecretKey secretKey =
+                new PGPSecretKey(
+                        PGPSignature.DEFAULT_CERTIFICATION,
+                        PGPPublicKey.RSA_GENERAL,
+                        keyPair.getPublic(),
+                        keyPair.getPrivate(),
+                        new Date(),
+                        PASSPHRASE,
+                        PGPEncryptedData.CAST5,
+                        PASSPHRASE.toCharArray(),
+                        null,
+                        null,
+                        new SecureRandom(),
+                        "BC");
+        try (OutputStream out = new ArmoredOutputStream(Files.newOutputStream(secretKeyFile))) {
+            secretKey.encode(out);
+        }
+        try (OutputStream out = new ArmoredOutputStream(Files.newOutputStream(publicKeyFile))) {
+            secretKey.getPublicKey().encode(out);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.google.inject.Provider;
+import com.netflix.priam.backup.AbstractBackupPath;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of the remote paths listed from the remote file system and generation of the remote
+ * paths for upload, as done for every file by backup, TTL, verification and restore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RemoteBackupPathBenchmark {
+    private static final int PATHS = 10000;
+
+    private Provider<AbstractBackupPath> pathProvider;
+    private List<String> remotePaths;
+    private List<AbstractBackupPath> backupPaths;
+
+    @Setup
+    public void setup() {
+        pathProvider = BenchmarkFixtures.injector().getProvider(AbstractBackupPath.class);
+        remotePaths = BenchmarkFixtures.sstV2RemotePaths(PATHS);
+        backupPaths = new ArrayList<>(PATHS);
+        for (String remotePath : remotePaths) {
+            AbstractBackupPath backupPath = pathProvider.get();
+            backupPath.parseRemote(remotePath);
+            backupPaths.add(backupPath);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public void parseRemote(Blackhole blackhole) {
+        for (String remotePath : remotePaths) {
+            AbstractBackupPath backupPath = pathProvider.get();
+            backupPath.parseRemote(remotePath);
+            blackhole.consume(backupPath);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PATHS)
+    public void getRemotePath(Blackhole blackhole) {
+        for (AbstractBackupPath backupPath : backupPaths)
+            blackhole.consume(backupPath.getRemotePath());
+    }
+}
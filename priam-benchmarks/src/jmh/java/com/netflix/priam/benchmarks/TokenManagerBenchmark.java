@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.benchmarks;
+
+import com.netflix.priam.utils.ITokenManager;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Token generation and lookup of the closest token in a ring, as done on instance replacement. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenManagerBenchmark {
+    private static final String REGION = "us-east-1";
+    private static final int RAC_COUNT = 3;
+
+    @Param({"1000", "100000"})
+    public int ringSize;
+
+    private ITokenManager tokenManager;
+    private List<BigInteger> tokens;
+    private BigInteger[] tokensToSearch;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        tokenManager = BenchmarkFixtures.injector().getInstance(ITokenManager.class);
+        tokens = new ArrayList<>(ringSize);
+        for (int slot = 0; slot < ringSize; slot++)
+            tokens.add(
+                    new BigInteger(
+                            tokenManager.createToken(
+                                    slot, RAC_COUNT, ringSize / RAC_COUNT, REGION)));
+        Random random = new Random(42);
+        tokensToSearch = new BigInteger[1024];
+        for (int i = 0; i < tokensToSearch.length; i++)
+            tokensToSearch[i] = tokens.get(random.nextInt(ringSize)).add(BigInteger.ONE);
+    }
+
+    @Benchmark
+    public String createToken() {
+        next = (next + 1) % ringSize;
+        return tokenManager.createToken(next, RAC_COUNT, ringSize / RAC_COUNT, REGION);
+    }
+
+    @Benchmark
+    public BigInteger findClosestToken() {
+        next = (next + 1) % tokensToSearch.length;
+        return tokenManager.findClosestToken(tokensToSearch[next], tokens);
+    }
+}
@@ -16,7 +16,9 @@
  */
 package com.netflix.priam.aws;
 
+import com.netflix.priam.compress.Chunk;
 import com.netflix.priam.utils.SystemUtils;
+import java.io.InputStream;
 
 /** Class for holding part data of a backup file, which will be used for multi-part uploading */
 public class DataPart {
@@ -24,7 +26,7 @@ public class DataPart {
     private final String uploadID;
     private final String s3key;
     private int partNo;
-    private byte[] partData;
+    private Chunk partData;
     private byte[] md5;
 
     public DataPart(String bucket, String s3key, String mUploadId) {
@@ -34,10 +36,14 @@ public class DataPart {
     }
 
     public DataPart(int partNumber, byte[] data, String bucket, String s3key, String mUploadId) {
+        this(partNumber, Chunk.wrap(data), bucket, s3key, mUploadId);
+    }
+
+    public DataPart(int partNumber, Chunk data, String bucket, String s3key, String mUploadId) {
         this(bucket, s3key, mUploadId);
         this.partNo = partNumber;
         this.partData = data;
-        this.md5 = SystemUtils.md5(data);
+        this.md5 = SystemUtils.md5(data.getBuffer(), 0, data.getLength());
     }
 
     public String getBucketName() {
@@ -56,8 +62,18 @@ public class DataPart {
         return partNo;
     }
 
-    public byte[] getPartData() {
-        return partData;
+    public int getPartSize() {
+        return partData.getLength();
+    }
+
+    /** @return a new stream over the data of the part. The data is not copied. */
+    public InputStream getPartInputStream() {
+        return partData.getInputStream();
+    }
+
+    /** Hand the buffer holding the data back to its pool. The part cannot be uploaded anymore. */
+    public void release() {
+        if (partData != null) partData.release();
     }
 
     public byte[] getMd5() {
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.aws;
+
+import com.amazonaws.services.s3.model.PartETag;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk journal of the multipart uploads in flight, so that an upload interrupted by a restart
+ * of Priam or by a failed part can continue from the last acknowledged part instead of starting
+ * again from the first byte.
+ *
+ * <p>There is one journal file per upload in the journal directory. The first line holds the
+ * upload id and the identity of the source file and of its chunks:
+ * <code>bucket, key, upload id, local path, size, last modified, chunk size, compression</code>,
+ * tab separated. Every part acknowledged by the remote file system is then appended as <code>
+ * part number, etag</code>. A line which was only partly written, e.g. on a crash, is ignored. The
+ * journal file is deleted once the upload is completed or aborted.
+ */
+public class MultipartUploadJournal {
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploadJournal.class);
+    private static final String SEPARATOR = "\t";
+    private static final String SUFFIX = ".upload";
+    private final Path directory;
+
+    public MultipartUploadJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Start journaling a new multipart upload. Any previous journal of the same remote file is
+     * replaced.
+     */
+    public Upload start(
+            String bucket,
+            String key,
+            String uploadId,
+            File localFile,
+            long chunkSize,
+            String compression)
+            throws IOException {
+        Upload upload =
+                new Upload(
+                        getJournalFile(bucket, key),
+                        bucket,
+                        key,
+                        uploadId,
+                        localFile.getAbsolutePath(),
+                        localFile.length(),
+                        localFile.lastModified(),
+                        chunkSize,
+                        compression);
+        Files.createDirectories(directory);
+        Files.write(
+                upload.journalFile,
+                (upload.getHeader() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        return upload;
+    }
+
+    /** @return the journaled upload of the remote file or null if there is none. */
+    public Upload get(String bucket, String key) {
+        Path journalFile = getJournalFile(bucket, key);
+        if (!Files.exists(journalFile)) return null;
+        return load(journalFile);
+    }
+
+    /** @return all the journaled uploads. */
+    public List<Upload> list() {
+        List<Upload> uploads = new ArrayList<>();
+        File[] journalFiles = directory.toFile().listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (journalFiles == null) return uploads;
+        for (File journalFile : journalFiles) {
+            Upload upload = load(journalFile.toPath());
+            if (upload != null) uploads.add(upload);
+        }
+        return uploads;
+    }
+
+    private Upload load(Path journalFile) {
+        try {
+            List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+            String[] header = lines.isEmpty() ? new String[0] : lines.get(0).split(SEPARATOR);
+            if (header.length != 8) {
+                logger.warn("Ignoring invalid multipart upload journal: {}", journalFile);
+                FileUtils.deleteQuietly(journalFile.toFile());
+                return null;
+            }
+            Upload upload =
+                    new Upload(
+                            journalFile,
+                            header[0],
+                            header[1],
+                            header[2],
+                            header[3],
+                            Long.parseLong(header[4]),
+                            Long.parseLong(header[5]),
+                            Long.parseLong(header[6]),
+                            header[7]);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] part = line.split(SEPARATOR);
+                if (part.length == 2 && !part[1].isEmpty())
+                    upload.parts.put(Integer.parseInt(part[0]), part[1]);
+            }
+            return upload;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable multipart upload journal: {}", journalFile, e);
+            FileUtils.deleteQuietly(journalFile.toFile());
+            return null;
+        }
+    }
+
+    private Path getJournalFile(String bucket, String key) {
+        return directory.resolve(
+                Hashing.sha256()
+                                .hashString(bucket + "/" + key, StandardCharsets.UTF_8)
+                                .toString()
+                        + SUFFIX);
+    }
+
+    /** A multipart upload in flight and the parts which were acknowledged so far. */
+    public static class Upload {
+        private final Path journalFile;
+        private final String bucket;
+        private final String key;
+        private final String uploadId;
+        private final String localPath;
+        private final long fileSize;
+        private final long lastModified;
+        private final long chunkSize;
+        private final String compression;
+        private final Map<Integer, String> parts = new ConcurrentHashMap<>();
+
+        private Upload(
+                Path journalFile,
+                String bucket,
+                String key,
+                String uploadId,
+                String localPath,
+                long fileSize,
+                long lastModified,
+                long chunkSize,
+                String compression) {
+            this.journalFile = journalFile;
+            this.bucket = bucket;
+            this.key = key;
+            this.uploadId = uploadId;
+            this.localPath = localPath;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.chunkSize = chunkSize;
+            this.compression = compression;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        /**
+         * @return true if the upload was started from the same, unmodified, local file with the
+         *     same chunk size and compression, i.e. if the file would be split into the same
+         *     parts.
+         */
+        public boolean isSameSource(File localFile, long chunkSize, String compression) {
+            return localPath.equals(localFile.getAbsolutePath())
+                    && fileSize == localFile.length()
+                    && lastModified == localFile.lastModified()
+                    && this.chunkSize == chunkSize
+                    && this.compression.equals(compression);
+        }
+
+        /** @return true if the local file still exists and was not modified. */
+        public boolean isSourceAvailable() {
+            File localFile = new File(localPath);
+            return localFile.exists()
+                    && fileSize == localFile.length()
+                    && lastModified == localFile.lastModified();
+        }
+
+        /** @return the etag of the part if it was acknowledged, null otherwise. */
+        public String getETag(int partNumber) {
+            return parts.get(partNumber);
+        }
+
+        /** @return number of parts acknowledged so far. */
+        public int getPartCount() {
+            return parts.size();
+        }
+
+        /** Record an acknowledged part. */
+        public synchronized void addPart(PartETag partETag) throws IOException {
+            try (Writer writer =
+                    Files.newBufferedWriter(
+                            journalFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                writer.write(
+                        partETag.getPartNumber()
+                                + SEPARATOR
+                                + partETag.getETag()
+                                + System.lineSeparator());
+            }
+            parts.put(partETag.getPartNumber(), partETag.getETag());
+        }
+
+        /** Forget the upload, once it is completed or aborted. */
+        public synchronized void delete() {
+            FileUtils.deleteQuietly(journalFile.toFile());
+        }
+
+        private String getHeader() {
+            return String.join(
+                    SEPARATOR,
+                    bucket,
+                    key,
+                    uploadId,
+                    localPath,
+                    Long.toString(fileSize),
+                    Long.toString(lastModified),
+                    Long.toString(chunkSize),
+                    compression);
+        }
+    }
+}
@@ -18,21 +18,23 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.PartETag;
-import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.BackupRestoreException;
-import com.netflix.priam.backup.RangeReadInputStream;
-import com.netflix.priam.compress.ICompression;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.RemoteObjectIndex;
+import com.netflix.priam.compress.CompressedInputStream;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cred.ICredential;
 import com.netflix.priam.cryptography.IFileCryptography;
 import com.netflix.priam.identity.config.InstanceInfo;
 import java.io.*;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import org.apache.commons.io.IOUtils;
@@ -49,15 +51,16 @@ public class S3EncryptedFileSystem extends S3FileSystemBase {
     @Inject
     public S3EncryptedFileSystem(
             Provider<AbstractBackupPath> pathProvider,
-            ICompression compress,
             final IConfiguration config,
             ICredential cred,
             @Named("filecryptoalgorithm") IFileCryptography fileCryptography,
             // BackupMetrics backupMetrics,
             // BackupNotificationMgr backupNotificationMgr,
-            InstanceInfo instanceInfo) {
+            InstanceInfo instanceInfo,
+            RemoteObjectIndex remoteObjectIndex,
+            BandwidthGovernor bandwidthGovernor) {
 
-        super(pathProvider, compress, config);
+        super(pathProvider, config, remoteObjectIndex, bandwidthGovernor);
         this.encryptor = fileCryptography;
         super.s3Client =
                 AmazonS3Client.builder()
@@ -69,12 +72,7 @@ public class S3EncryptedFileSystem extends S3FileSystemBase {
     @Override
     protected void downloadFileImpl(Path remotePath, Path localPath) throws BackupRestoreException {
         try (OutputStream os = new FileOutputStream(localPath.toFile());
-                RangeReadInputStream rris =
-                        new RangeReadInputStream(
-                                s3Client,
-                                getShard(),
-                                super.getFileSize(remotePath),
-                                remotePath.toString())) {
+                InputStream rris = openRemoteStream(remotePath)) {
             /*
              * To handle use cases where decompression should be done outside of the download.  For example, the file have been compressed and then encrypted.
              * Hence, decompressing it here would compromise the decryption.
@@ -93,7 +91,9 @@ public class S3EncryptedFileSystem extends S3FileSystemBase {
     }
 
     @Override
-    protected long uploadFileImpl(Path localPath, Path remotePath) throws BackupRestoreException {
+    protected long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         long chunkSize = getChunkSize(localPath);
         // initialize chunking request to aws
         InitiateMultipartUploadRequest initRequest =
@@ -105,58 +105,48 @@ public class S3EncryptedFileSystem extends S3FileSystemBase {
                         config.getBackupPrefix(),
                         remotePath.toString(),
                         initResponse.getUploadId());
-        // Metadata on number of parts to be uploaded
-        List<PartETag> partETags = Lists.newArrayList();
+        // Metadata on number of parts to be uploaded. Parts are uploaded concurrently.
+        List<PartETag> partETags = Collections.synchronizedList(new ArrayList<PartETag>());
 
-        // Read chunks from src, compress it, and write to temp file
-        File compressedDstFile = new File(localPath.toString() + ".compressed");
         if (logger.isDebugEnabled())
-            logger.debug(
-                    "Compressing {} with chunk size {}",
-                    compressedDstFile.getAbsolutePath(),
-                    chunkSize);
+            logger.debug("Compressing {} with chunk size {}", localPath, chunkSize);
 
-        try (InputStream in = new FileInputStream(localPath.toFile());
-                BufferedOutputStream compressedBos =
-                        new BufferedOutputStream(new FileOutputStream(compressedDstFile))) {
-            Iterator<byte[]> compressedChunks = this.compress.compress(in, chunkSize);
-            while (compressedChunks.hasNext()) {
-                byte[] compressedChunk = compressedChunks.next();
-                compressedBos.write(compressedChunk);
-            }
-        } catch (Exception e) {
-            String message =
-                    "Exception in compressing the input data during upload to EncryptedStore  Msg: "
-                            + e.getMessage();
-            logger.error(message, e);
-            throw new BackupRestoreException(message);
-        }
-
-        // == Read compressed data, encrypt each chunk, upload it to aws
-        try (BufferedInputStream compressedBis =
-                new BufferedInputStream(new FileInputStream(compressedDstFile))) {
+        // == Compress the source as it is read, encrypt each chunk, upload it to aws. Nothing is
+        // written to disk. Memory is bounded as the executor blocks the submission of new parts
+        // till there is room in its queue.
+        try (InputStream compressedStream =
+                new CompressedInputStream(
+                        getCompression(remotePath),
+                        new BufferedInputStream(new FileInputStream(localPath.toFile())),
+                        chunkSize,
+                        chunkBufferPool)) {
             Iterator<byte[]> chunks =
-                    this.encryptor.encryptStream(compressedBis, remotePath.toString());
+                    this.encryptor.encryptStream(compressedStream, remotePath.toString());
 
             // identifies this part position in the object we are uploading
             int partNum = 0;
             long encryptedFileSize = 0;
 
-            while (chunks.hasNext()) {
-                byte[] chunk = chunks.next();
-                // throttle upload to endpoint
-                rateLimiter.acquire(chunk.length);
+            try {
+                while (chunks.hasNext()) {
+                    byte[] chunk = chunks.next();
+                    // throttle upload to endpoint
+                    throttleUpload(transferClass, chunk.length);
 
-                DataPart dp =
-                        new DataPart(
-                                ++partNum,
-                                chunk,
-                                config.getBackupPrefix(),
-                                remotePath.toString(),
-                                initResponse.getUploadId());
-                S3PartUploader partUploader = new S3PartUploader(s3Client, dp, partETags);
-                encryptedFileSize += chunk.length;
-                executor.submit(partUploader);
+                    DataPart dp =
+                            new DataPart(
+                                    ++partNum,
+                                    chunk,
+                                    config.getBackupPrefix(),
+                                    remotePath.toString(),
+                                    initResponse.getUploadId());
+                    S3PartUploader partUploader = new S3PartUploader(s3Client, dp, partETags);
+                    encryptedFileSize += chunk.length;
+                    executor.submit(partUploader);
+                }
+            } finally {
+                // The encryption may run on another thread, stop it before the source is closed.
+                if (chunks instanceof Closeable) ((Closeable) chunks).close();
             }
 
             executor.sleepTillEmpty();
@@ -178,8 +168,6 @@ public class S3EncryptedFileSystem extends S3FileSystemBase {
         } catch (Exception e) {
             new S3PartUploader(s3Client, part, partETags).abortUpload();
             throw new BackupRestoreException("Error uploading file: " + localPath, e);
-        } finally {
-            if (compressedDstFile.exists()) compressedDstFile.delete();
         }
     }
 }
@@ -17,7 +17,6 @@
 package com.netflix.priam.aws;
 
 import com.amazonaws.services.s3.AmazonS3Client;
-import com.amazonaws.services.s3.S3ResponseMetadata;
 import com.amazonaws.services.s3.model.*;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -26,19 +25,27 @@ import com.google.inject.name.Named;
 import com.netflix.priam.aws.auth.IS3Credential;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.BackupRestoreException;
-import com.netflix.priam.backup.RangeReadInputStream;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.RemoteObjectIndex;
+import com.netflix.priam.compress.Chunk;
 import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.config.InstanceInfo;
 import com.netflix.priam.utils.BoundedExponentialRetryCallable;
+import com.netflix.priam.utils.SystemUtils;
 import java.io.*;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,36 +53,35 @@ import org.slf4j.LoggerFactory;
 @Singleton
 public class S3FileSystem extends S3FileSystemBase {
     private static final Logger logger = LoggerFactory.getLogger(S3FileSystem.class);
+    private static final long STALE_UPLOAD_CHECK_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    private final MultipartUploadJournal uploadJournal;
+    private final AtomicLong lastStaleUploadCheck = new AtomicLong(0);
 
     @Inject
     public S3FileSystem(
             @Named("awss3roleassumption") IS3Credential cred,
             Provider<AbstractBackupPath> pathProvider,
-            ICompression compress,
             final IConfiguration config,
-            InstanceInfo instanceInfo) {
-        super(pathProvider, compress, config);
+            InstanceInfo instanceInfo,
+            RemoteObjectIndex remoteObjectIndex,
+            BandwidthGovernor bandwidthGovernor) {
+        super(pathProvider, config, remoteObjectIndex, bandwidthGovernor);
         s3Client =
                 AmazonS3Client.builder()
                         .withCredentials(cred.getAwsCredentialProvider())
                         .withRegion(instanceInfo.getRegion())
                         .build();
+        uploadJournal =
+                new MultipartUploadJournal(Paths.get(config.getMultipartUploadJournalLoc()));
     }
 
     @Override
     protected void downloadFileImpl(Path remotePath, Path localPath) throws BackupRestoreException {
         try {
-            long remoteFileSize = super.getFileSize(remotePath);
-            RangeReadInputStream rris =
-                    new RangeReadInputStream(
-                            s3Client, getShard(), remoteFileSize, remotePath.toString());
-            final long bufSize =
-                    MAX_BUFFERED_IN_STREAM_SIZE > remoteFileSize
-                            ? remoteFileSize
-                            : MAX_BUFFERED_IN_STREAM_SIZE;
-            compress.decompressAndClose(
-                    new BufferedInputStream(rris, (int) bufSize),
-                    new BufferedOutputStream(new FileOutputStream(localPath.toFile())));
+            getCompression(remotePath)
+                    .decompressAndClose(
+                            openRemoteStream(remotePath),
+                            new BufferedOutputStream(new FileOutputStream(localPath.toFile())));
         } catch (Exception e) {
             throw new BackupRestoreException(
                     "Exception encountered downloading "
@@ -103,7 +109,9 @@ public class S3FileSystem extends S3FileSystemBase {
         return ret;
     }
 
-    private long uploadMultipart(Path localPath, Path remotePath) throws BackupRestoreException {
+    private long uploadMultipart(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         long chunkSize = getChunkSize(localPath);
         if (logger.isDebugEnabled())
             logger.debug(
@@ -111,37 +119,46 @@ public class S3FileSystem extends S3FileSystemBase {
                     config.getBackupPrefix(),
                     remotePath,
                     chunkSize);
-        InitiateMultipartUploadRequest initRequest =
-                new InitiateMultipartUploadRequest(config.getBackupPrefix(), remotePath.toString());
-        initRequest.withObjectMetadata(getObjectMetadata(localPath));
-        InitiateMultipartUploadResult initResponse = s3Client.initiateMultipartUpload(initRequest);
+        ICompression compression = getCompression(remotePath);
+        abortStaleUploads();
+        MultipartUploadJournal.Upload upload =
+                resumeOrInitiateUpload(localPath, remotePath, chunkSize, compression);
         DataPart part =
-                new DataPart(
-                        config.getBackupPrefix(),
-                        remotePath.toString(),
-                        initResponse.getUploadId());
+                new DataPart(config.getBackupPrefix(), remotePath.toString(), upload.getUploadId());
         List<PartETag> partETags = Collections.synchronizedList(new ArrayList<PartETag>());
 
         try (InputStream in = new FileInputStream(localPath.toFile())) {
-            Iterator<byte[]> chunks = compress.compress(in, chunkSize);
+            Iterator<Chunk> chunks = compression.compress(in, chunkSize, chunkBufferPool);
             // Upload parts.
             int partNum = 0;
+            int partsResumed = 0;
             AtomicInteger partsUploaded = new AtomicInteger(0);
             long compressedFileSize = 0;
 
             while (chunks.hasNext()) {
-                byte[] chunk = chunks.next();
-                rateLimiter.acquire(chunk.length);
+                Chunk chunk = chunks.next();
                 DataPart dp =
                         new DataPart(
                                 ++partNum,
                                 chunk,
                                 config.getBackupPrefix(),
                                 remotePath.toString(),
-                                initResponse.getUploadId());
+                                upload.getUploadId());
+                compressedFileSize += chunk.getLength();
+
+                // Skip the parts acknowledged before the upload was interrupted. The etag of a
+                // part is the MD5 of its data, so a part is only skipped if its data is the same.
+                String eTag = upload.getETag(partNum);
+                if (eTag != null && eTag.equals(SystemUtils.toHex(dp.getMd5()))) {
+                    partETags.add(new PartETag(partNum, eTag));
+                    dp.release();
+                    partsResumed++;
+                    continue;
+                }
+
+                throttleUpload(transferClass, chunk.getLength());
                 S3PartUploader partUploader =
-                        new S3PartUploader(s3Client, dp, partETags, partsUploaded);
-                compressedFileSize += chunk.length;
+                        new S3PartUploader(s3Client, dp, partETags, partsUploaded, upload);
                 // TODO: Get the future over here and create a new arraylist.
                 Future<Void> future = executor.submit(partUploader);
             }
@@ -150,10 +167,11 @@ public class S3FileSystem extends S3FileSystemBase {
             // futures to finish.
             executor.sleepTillEmpty();
             logger.info(
-                    "All chunks uploaded for file {}, num of expected parts:{}, num of actual uploaded parts: {}",
+                    "All chunks uploaded for file {}, num of expected parts:{}, num of actual uploaded parts: {}, num of parts resumed: {}",
                     localPath.toFile().getName(),
                     partNum,
-                    partsUploaded.get());
+                    partsUploaded.get(),
+                    partsResumed);
 
             if (partNum != partETags.size())
                 throw new BackupRestoreException(
@@ -163,32 +181,116 @@ public class S3FileSystem extends S3FileSystemBase {
                                 + partETags.size()
                                 + ")");
 
+            // Parts may be acknowledged out of order.
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
             CompleteMultipartUploadResult resultS3MultiPartUploadComplete =
                     new S3PartUploader(s3Client, part, partETags).completeUpload();
+            upload.delete();
             checkSuccessfulUpload(resultS3MultiPartUploadComplete, localPath);
 
-            if (logger.isDebugEnabled()) {
-                final S3ResponseMetadata responseMetadata =
-                        s3Client.getCachedResponseMetadata(initRequest);
-                final String requestId =
-                        responseMetadata.getRequestId(); // "x-amz-request-id" header
-                final String hostId = responseMetadata.getHostId(); // "x-amz-id-2" header
-                logger.debug(
-                        "S3 AWS x-amz-request-id["
-                                + requestId
-                                + "], and x-amz-id-2["
-                                + hostId
-                                + "]");
-            }
-
             return compressedFileSize;
         } catch (Exception e) {
-            new S3PartUploader(s3Client, part, partETags).abortUpload();
+            // Keep the upload and its journal so that the next attempt continues from the parts
+            // which were acknowledged, unless the local file cannot be uploaded anymore.
+            if (!localPath.toFile().exists()) abortUpload(upload);
             throw new BackupRestoreException("Error uploading file: " + localPath.toString(), e);
         }
     }
 
-    protected long uploadFileImpl(Path localPath, Path remotePath) throws BackupRestoreException {
+    /**
+     * Continue the journaled multipart upload of the file if it was started from the same local
+     * file and the upload still exists on S3. Otherwise, initiate a new multipart upload.
+     */
+    private MultipartUploadJournal.Upload resumeOrInitiateUpload(
+            Path localPath, Path remotePath, long chunkSize, ICompression compression)
+            throws BackupRestoreException {
+        String bucket = config.getBackupPrefix();
+        String algorithm = compression.getAlgorithm().name();
+        MultipartUploadJournal.Upload upload = uploadJournal.get(bucket, remotePath.toString());
+        if (upload != null) {
+            if (upload.isSameSource(localPath.toFile(), chunkSize, algorithm)
+                    && uploadExists(upload)) {
+                logger.info(
+                        "Resuming upload of file {} with {} parts already uploaded",
+                        localPath,
+                        upload.getPartCount());
+                return upload;
+            }
+            abortUpload(upload);
+        }
+
+        InitiateMultipartUploadRequest initRequest =
+                new InitiateMultipartUploadRequest(bucket, remotePath.toString());
+        initRequest.withObjectMetadata(getObjectMetadata(localPath));
+        InitiateMultipartUploadResult initResponse = s3Client.initiateMultipartUpload(initRequest);
+        try {
+            return uploadJournal.start(
+                    bucket,
+                    remotePath.toString(),
+                    initResponse.getUploadId(),
+                    localPath.toFile(),
+                    chunkSize,
+                    algorithm);
+        } catch (IOException e) {
+            new S3PartUploader(
+                            s3Client,
+                            new DataPart(
+                                    bucket, remotePath.toString(), initResponse.getUploadId()),
+                            null)
+                    .abortUpload();
+            throw new BackupRestoreException(
+                    "Unable to journal the multipart upload of file: " + localPath, e);
+        }
+    }
+
+    private boolean uploadExists(MultipartUploadJournal.Upload upload) {
+        try {
+            s3Client.listParts(
+                    new ListPartsRequest(
+                                    upload.getBucket(), upload.getKey(), upload.getUploadId())
+                            .withMaxParts(1));
+            return true;
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) return false;
+            throw e;
+        }
+    }
+
+    private void abortUpload(MultipartUploadJournal.Upload upload) {
+        try {
+            new S3PartUploader(
+                            s3Client,
+                            new DataPart(upload.getBucket(), upload.getKey(), upload.getUploadId()),
+                            null)
+                    .abortUpload();
+        } catch (Exception e) {
+            // Lifecycle rules will clean up the upload eventually.
+            logger.warn("Unable to abort the multipart upload of {}", upload.getKey(), e);
+        }
+        upload.delete();
+    }
+
+    /**
+     * Abort the journaled uploads whose local file was modified or deleted, e.g. by compaction, as
+     * they can never be resumed. This runs at most once an hour.
+     */
+    private void abortStaleUploads() {
+        long now = System.currentTimeMillis();
+        long lastRun = lastStaleUploadCheck.get();
+        if (now - lastRun < STALE_UPLOAD_CHECK_INTERVAL_MS
+                || !lastStaleUploadCheck.compareAndSet(lastRun, now)) return;
+
+        for (MultipartUploadJournal.Upload upload : uploadJournal.list()) {
+            if (!upload.isSourceAvailable()) {
+                logger.info("Aborting the stale multipart upload of {}", upload.getKey());
+                abortUpload(upload);
+            }
+        }
+    }
+
+    protected long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         long chunkSize = config.getBackupChunkSize();
         long fileSize = localPath.toFile().length();
 
@@ -200,30 +302,39 @@ public class S3FileSystem extends S3FileSystemBase {
                         config.getBackupPrefix(),
                         remotePath);
 
-            try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                    InputStream in =
-                            new BufferedInputStream(new FileInputStream(localPath.toFile()))) {
-                Iterator<byte[]> chunkedStream = compress.compress(in, chunkSize);
+            // Incompressible data can be a little larger than the chunk size once compressed.
+            List<Chunk> chunks = new ArrayList<>();
+            try (InputStream in =
+                    new BufferedInputStream(new FileInputStream(localPath.toFile()))) {
+                Iterator<Chunk> chunkedStream =
+                        getCompression(remotePath).compress(in, chunkSize, chunkBufferPool);
+                long compressedFileSize = 0;
                 while (chunkedStream.hasNext()) {
-                    byteArrayOutputStream.write(chunkedStream.next());
+                    Chunk chunk = chunkedStream.next();
+                    chunks.add(chunk);
+                    compressedFileSize += chunk.getLength();
                 }
-                byte[] chunk = byteArrayOutputStream.toByteArray();
-                long compressedFileSize = chunk.length;
-                rateLimiter.acquire(chunk.length);
+                throttleUpload(transferClass, compressedFileSize);
                 ObjectMetadata objectMetadata = getObjectMetadata(localPath);
-                objectMetadata.setContentLength(chunk.length);
-                PutObjectRequest putObjectRequest =
-                        new PutObjectRequest(
-                                config.getBackupPrefix(),
-                                remotePath.toString(),
-                                new ByteArrayInputStream(chunk),
-                                objectMetadata);
+                objectMetadata.setContentLength(compressedFileSize);
                 // Retry if failed.
                 PutObjectResult upload =
                         new BoundedExponentialRetryCallable<PutObjectResult>(1000, 10000, 5) {
                             @Override
                             public PutObjectResult retriableCall() throws Exception {
-                                return s3Client.putObject(putObjectRequest);
+                                // A new stream for every attempt, the chunks are not copied.
+                                InputStream data =
+                                        new SequenceInputStream(
+                                                Collections.enumeration(
+                                                        chunks.stream()
+                                                                .map(Chunk::getInputStream)
+                                                                .collect(Collectors.toList())));
+                                return s3Client.putObject(
+                                        new PutObjectRequest(
+                                                config.getBackupPrefix(),
+                                                remotePath.toString(),
+                                                data,
+                                                objectMetadata));
                             }
                         }.call();
 
@@ -237,7 +348,9 @@ public class S3FileSystem extends S3FileSystemBase {
             } catch (Exception e) {
                 throw new BackupRestoreException(
                         "Error uploading file: " + localPath.toFile().getName(), e);
+            } finally {
+                chunks.forEach(Chunk::release);
             }
-        } else return uploadMultipart(localPath, remotePath);
+        } else return uploadMultipart(localPath, remotePath, transferClass);
     }
 }
@@ -26,17 +26,25 @@ import com.amazonaws.services.s3.model.lifecycle.LifecyclePrefixPredicate;
 import com.amazonaws.services.s3.model.lifecycle.LifecycleTagPredicate;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.AbstractFileSystem;
 import com.netflix.priam.backup.BackupRestoreException;
-import com.netflix.priam.compress.ICompression;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.ParallelRangeReadInputStream;
+import com.netflix.priam.backup.RemoteObjectIndex;
+import com.netflix.priam.compress.ChunkBufferPool;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.scheduler.BlockingSubmitThreadPoolExecutor;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
+import com.netflix.spectator.api.Registry;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -44,30 +52,43 @@ import org.slf4j.LoggerFactory;
 
 public abstract class S3FileSystemBase extends AbstractFileSystem {
     private static final int MAX_CHUNKS = 10000;
-    static final long MAX_BUFFERED_IN_STREAM_SIZE = 5 * 1024 * 1024;
     private static final Logger logger = LoggerFactory.getLogger(S3FileSystemBase.class);
     AmazonS3 s3Client;
     final IConfiguration config;
-    final ICompression compress;
     final BlockingSubmitThreadPoolExecutor executor;
+    final ChunkBufferPool chunkBufferPool;
+    private final ExecutorService rangeDownloadExecutor;
     final RateLimiter rateLimiter;
     private final RateLimiter objectExistLimiter;
+    private final BandwidthGovernor bandwidthGovernor;
 
     S3FileSystemBase(
             Provider<AbstractBackupPath> pathProvider,
-            ICompression compress,
-            final IConfiguration config
+            final IConfiguration config,
+            RemoteObjectIndex remoteObjectIndex,
+            BandwidthGovernor bandwidthGovernor
             // BackupMetrics backupMetrics,
             // BackupNotificationMgr backupNotificationMgr
             ) {
-        super(config, pathProvider);
-        this.compress = compress;
+        super(config, pathProvider, remoteObjectIndex);
         this.config = config;
+        this.bandwidthGovernor = bandwidthGovernor;
 
         int threads = config.getBackupThreads();
         LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(threads);
         this.executor =
                 new BlockingSubmitThreadPoolExecutor(threads, queue, config.getUploadTimeout());
+        // A chunk is either queued, being uploaded, or being filled by one of the file uploads, so
+        // this many buffers are enough for all the parts in flight to reuse memory.
+        this.chunkBufferPool = new ChunkBufferPool(3 * threads);
+
+        // Ranges of a file being restored are fetched in parallel. Every download thread can have
+        // at most getRestoreRangeConcurrency() ranges in flight, so size the pool accordingly.
+        this.rangeDownloadExecutor =
+                new NamedThreadPoolExecutor(
+                        Math.max(1, config.getRestoreThreads())
+                                * Math.max(1, config.getRestoreRangeConcurrency()),
+                        "s3-range-download");
 
         // a throttling mechanism, we can limit the amount of bytes uploaded to endpoint per second.
         this.rateLimiter = RateLimiter.create(1);
@@ -76,6 +97,11 @@ public abstract class S3FileSystemBase extends AbstractFileSystem {
         configChangeListener();
     }
 
+    @Inject
+    void registerPartUploadMetrics(Registry registry) {
+        executor.registerMetrics(registry, "part-upload");
+    }
+
     /*
        Call this method to change the configuration in runtime via callback.
     */
@@ -92,6 +118,16 @@ public abstract class S3FileSystemBase extends AbstractFileSystem {
                 objectExistLimiter.getRate());
     }
 
+    /**
+     * Wait for the upload throttle and for the share of the bandwidth of the transfer before
+     * sending the bytes.
+     */
+    void throttleUpload(BandwidthGovernor.TransferClass transferClass, long bytes) {
+        if (bytes <= 0) return;
+        rateLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+        bandwidthGovernor.acquire(transferClass, bytes);
+    }
+
     private AmazonS3 getS3Client() {
         return s3Client;
     }
@@ -224,6 +260,24 @@ public abstract class S3FileSystemBase extends AbstractFileSystem {
         }
     }
 
+    /**
+     * Open a stream on the remote file which downloads multiple byte ranges of the file in parallel
+     * and returns them in order.
+     */
+    @Override
+    public final InputStream openRemoteStream(Path remotePath) throws BackupRestoreException {
+        return bandwidthGovernor.throttle(
+                new ParallelRangeReadInputStream(
+                        s3Client,
+                        getShard(),
+                        getFileSize(remotePath),
+                        remotePath.toString(),
+                        config.getRestoreRangeSize(),
+                        config.getRestoreRangeConcurrency(),
+                        rangeDownloadExecutor),
+                getTransferClass(remotePath, false));
+    }
+
     @Override
     public long getFileSize(Path remotePath) throws BackupRestoreException {
         return s3Client.getObjectMetadata(getShard(), remotePath.toString()).getContentLength();
@@ -249,6 +303,7 @@ public abstract class S3FileSystemBase extends AbstractFileSystem {
     @Override
     public void shutdown() {
         if (executor != null) executor.shutdown();
+        if (rangeDownloadExecutor != null) rangeDownloadExecutor.shutdownNow();
     }
 
     @Override
@@ -285,12 +340,14 @@ public abstract class S3FileSystemBase extends AbstractFileSystem {
         long chunkSize = config.getBackupChunkSize();
         long fileSize = localPath.toFile().length();
 
-        // compute the size of each block we will upload to endpoint
-        if (fileSize > 0)
-            chunkSize =
-                    (fileSize / chunkSize >= MAX_CHUNKS)
-                            ? (fileSize / (MAX_CHUNKS - 1))
-                            : chunkSize;
+        // compute the size of each block we will upload to endpoint. Large files need bigger blocks
+        // to stay under the part limit; round those up to a power of two times the configured size
+        // so that only a few distinct sizes of buffers are pooled.
+        if (fileSize > 0) {
+            while (fileSize / chunkSize >= MAX_CHUNKS && chunkSize <= Integer.MAX_VALUE / 2)
+                chunkSize *= 2;
+            if (fileSize / chunkSize >= MAX_CHUNKS) chunkSize = fileSize / (MAX_CHUNKS - 1);
+        }
 
         return chunkSize;
     }
@@ -22,7 +22,7 @@ import com.amazonaws.services.s3.model.*;
 import com.netflix.priam.backup.BackupRestoreException;
 import com.netflix.priam.utils.BoundedExponentialRetryCallable;
 import com.netflix.priam.utils.SystemUtils;
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
@@ -33,6 +33,7 @@ public class S3PartUploader extends BoundedExponentialRetryCallable<Void> {
     private final DataPart dataPart;
     private final List<PartETag> partETags;
     private AtomicInteger partsUploaded = null; // num of data parts successfully uploaded
+    private MultipartUploadJournal.Upload journal = null;
 
     private static final Logger logger = LoggerFactory.getLogger(S3PartUploader.class);
     private static final int MAX_RETRIES = 5;
@@ -54,21 +55,41 @@ public class S3PartUploader extends BoundedExponentialRetryCallable<Void> {
         this.partsUploaded = partsUploaded;
     }
 
+    public S3PartUploader(
+            AmazonS3 client,
+            DataPart dp,
+            List<PartETag> partETags,
+            AtomicInteger partsUploaded,
+            MultipartUploadJournal.Upload journal) {
+        this(client, dp, partETags, partsUploaded);
+        this.journal = journal;
+    }
+
     private Void uploadPart() throws AmazonClientException, BackupRestoreException {
         UploadPartRequest req = new UploadPartRequest();
         req.setBucketName(dataPart.getBucketName());
         req.setKey(dataPart.getS3key());
         req.setUploadId(dataPart.getUploadID());
         req.setPartNumber(dataPart.getPartNo());
-        req.setPartSize(dataPart.getPartData().length);
+        req.setPartSize(dataPart.getPartSize());
         req.setMd5Digest(SystemUtils.toBase64(dataPart.getMd5()));
-        req.setInputStream(new ByteArrayInputStream(dataPart.getPartData()));
+        req.setInputStream(dataPart.getPartInputStream());
         UploadPartResult res = client.uploadPart(req);
         PartETag partETag = res.getPartETag();
         if (!partETag.getETag().equals(SystemUtils.toHex(dataPart.getMd5())))
             throw new BackupRestoreException(
                     "Unable to match MD5 for part " + dataPart.getPartNo());
         partETags.add(partETag);
+        // The part is acknowledged, its buffer can be reused for the next chunk.
+        dataPart.release();
+        if (journal != null) {
+            try {
+                journal.addPart(partETag);
+            } catch (IOException e) {
+                // The part will be uploaded again if the upload is resumed.
+                logger.warn("Unable to journal part {}", dataPart.getPartNo(), e);
+            }
+        }
         if (this.partsUploaded != null) this.partsUploaded.incrementAndGet();
         return null;
     }
@@ -94,7 +115,7 @@ public class S3PartUploader extends BoundedExponentialRetryCallable<Void> {
     @Override
     public Void retriableCall() throws AmazonClientException, BackupRestoreException {
         logger.debug(
-                "Picked up part {} size {}", dataPart.getPartNo(), dataPart.getPartData().length);
+                "Picked up part {} size {}", dataPart.getPartNo(), dataPart.getPartSize());
         return uploadPart();
     }
 }
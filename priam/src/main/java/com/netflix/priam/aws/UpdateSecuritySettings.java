@@ -21,9 +21,9 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.IMembership;
-import com.netflix.priam.identity.IPriamInstanceFactory;
 import com.netflix.priam.identity.InstanceIdentity;
 import com.netflix.priam.identity.PriamInstance;
+import com.netflix.priam.identity.PriamInstanceRegistry;
 import com.netflix.priam.scheduler.SimpleTimer;
 import com.netflix.priam.scheduler.Task;
 import com.netflix.priam.scheduler.TaskTimer;
@@ -52,16 +52,16 @@ public class UpdateSecuritySettings extends Task {
 
     private static final Random ran = new Random();
     private final IMembership membership;
-    private final IPriamInstanceFactory<PriamInstance> factory;
+    private final PriamInstanceRegistry instanceRegistry;
 
     @Inject
-    // Note: do not parameterized the generic type variable to an implementation as it confuses
-    // Guice in the binding.
     public UpdateSecuritySettings(
-            IConfiguration config, IMembership membership, IPriamInstanceFactory factory) {
+            IConfiguration config,
+            IMembership membership,
+            PriamInstanceRegistry instanceRegistry) {
         super(config);
         this.membership = membership;
-        this.factory = factory;
+        this.instanceRegistry = instanceRegistry;
     }
 
     /**
@@ -73,12 +73,11 @@ public class UpdateSecuritySettings extends Task {
         // if seed dont execute.
         int port = config.getSSLStoragePort();
         List<String> acls = membership.listACL(port, port);
-        List<PriamInstance> instances = factory.getAllIds(config.getAppName());
+        List<PriamInstance> instances = instanceRegistry.getAllIds(config.getAppName());
 
         // iterate to add...
         Set<String> add = new HashSet<>();
-        List<PriamInstance> allInstances = factory.getAllIds(config.getAppName());
-        for (PriamInstance instance : allInstances) {
+        for (PriamInstance instance : instances) {
             String range = instance.getHostIP() + "/32";
             if (!acls.contains(range)) add.add(range);
         }
@@ -74,6 +74,8 @@ public abstract class AbstractBackup extends Task {
      *
      * @param parent Parent dir
      * @param type Type of file (META, SST, SNAP etc)
+     * @param transferClass class of the uploads in the bandwidth shared by the transfers, as files
+     *     of the same type are uploaded by both the snapshots and the incremental backups.
      * @param async Upload the file(s) in async fashion if enabled.
      * @param waitForCompletion wait for completion for all files to upload if using async API. If
      *     `false` it will queue the files and return with no guarantee to upload.
@@ -81,7 +83,11 @@ public abstract class AbstractBackup extends Task {
      * @throws Exception when there is failure in uploading files.
      */
     protected List<AbstractBackupPath> upload(
-            final File parent, final BackupFileType type, boolean async, boolean waitForCompletion)
+            final File parent,
+            final BackupFileType type,
+            final BandwidthGovernor.TransferClass transferClass,
+            boolean async,
+            boolean waitForCompletion)
             throws Exception {
         final List<AbstractBackupPath> bps = Lists.newArrayList();
         final List<Future<Path>> futures = Lists.newArrayList();
@@ -99,6 +105,7 @@ public abstract class AbstractBackup extends Task {
                                     Paths.get(bp.getBackupFile().getAbsolutePath()),
                                     Paths.get(bp.getRemotePath()),
                                     bp,
+                                    transferClass,
                                     10,
                                     true));
                 else
@@ -106,6 +113,7 @@ public abstract class AbstractBackup extends Task {
                             Paths.get(bp.getBackupFile().getAbsolutePath()),
                             Paths.get(bp.getRemotePath()),
                             bp,
+                            transferClass,
                             10,
                             true);
 
@@ -132,35 +140,23 @@ public abstract class AbstractBackup extends Task {
                             + config.getDataFileLocation());
         }
         logger.debug("Scanning for backup in: {}", dataDir.getAbsolutePath());
-        File[] keyspaceDirectories = dataDir.listFiles();
-        if (keyspaceDirectories == null) return;
-
-        for (File keyspaceDir : keyspaceDirectories) {
-            if (keyspaceDir.isFile()) continue;
-
-            logger.debug("Entering {} keyspace..", keyspaceDir.getName());
-            File[] columnFamilyDirectories = keyspaceDir.listFiles();
-            if (columnFamilyDirectories == null) continue;
-
-            for (File columnFamilyDir : columnFamilyDirectories) {
-                File backupDir = new File(columnFamilyDir, monitoringFolder);
-
-                if (!isValidBackupDir(keyspaceDir, backupDir)) {
-                    continue;
-                }
-
-                String columnFamilyName = columnFamilyDir.getName().split("-")[0];
-
-                if (backupRestoreUtil.isFiltered(
-                        keyspaceDir.getName(), columnFamilyDir.getName())) {
-                    // Clean the backup/snapshot directory else files will keep getting accumulated.
-                    SystemUtils.cleanupDir(backupDir.getAbsolutePath(), null);
-                    continue;
-                }
-
-                processColumnFamily(keyspaceDir.getName(), columnFamilyName, backupDir);
-            } // end processing all CFs for keyspace
-        } // end processing keyspaces under the C* data dir
+        // The directories are listed in parallel, and the columnfamilies are processed on this
+        // thread as they are found.
+        BackupDirectoryWalker walker =
+                new BackupDirectoryWalker(
+                        dataDir.toPath(),
+                        monitoringFolder,
+                        config.getBackupDirectoryWalkerThreads());
+        walker.walk(
+                (keyspace, columnFamilyDir, backupDir) -> {
+                    if (backupRestoreUtil.isFiltered(keyspace, columnFamilyDir)) {
+                        // Clean the backup/snapshot directory else files will keep getting
+                        // accumulated.
+                        SystemUtils.cleanupDir(backupDir.getAbsolutePath(), null);
+                        return;
+                    }
+                    processColumnFamily(keyspace, columnFamilyDir.split("-")[0], backupDir);
+                });
     }
 
     /**
@@ -207,18 +203,4 @@ public abstract class AbstractBackup extends Task {
             }
         return backupPaths;
     }
-
-    /** Filters unwanted keyspaces */
-    private boolean isValidBackupDir(File keyspaceDir, File backupDir) {
-        if (backupDir == null || !backupDir.isDirectory() || !backupDir.exists()) return false;
-        String keyspaceName = keyspaceDir.getName();
-        if (BackupRestoreUtil.FILTER_KEYSPACE.contains(keyspaceName)) {
-            logger.debug(
-                    "{} is not consider a valid keyspace backup directory, will be bypass.",
-                    keyspaceName);
-            return false;
-        }
-
-        return true;
-    }
 }
@@ -116,6 +116,10 @@ public abstract class AbstractBackupPath implements Comparable<AbstractBackupPat
         this.lastModified = Instant.ofEpochMilli(file.lastModified());
         this.fileName = file.getName();
         this.size = file.length();
+
+        // Only backup version 2.0 records the compression in the remote path.
+        if (type == BackupFileType.SST_V2 || type == BackupFileType.META_V2)
+            this.compression = config.getBackupCompression();
     }
 
     /** Given a date range, find a common string prefix Eg: 20120212, 20120213 = 2012021 */
@@ -22,21 +22,25 @@ import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
+import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.notification.BackupEvent;
 import com.netflix.priam.notification.EventGenerator;
 import com.netflix.priam.notification.EventObserver;
 import com.netflix.priam.scheduler.BlockingSubmitThreadPoolExecutor;
 import com.netflix.priam.utils.BoundedExponentialRetryCallable;
+import com.netflix.spectator.api.Registry;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.iterators.FilterIterator;
 import org.apache.commons.collections4.iterators.TransformIterator;
 import org.apache.commons.io.FileUtils;
@@ -58,20 +62,33 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
     private final IConfiguration configuration;
     // protected final BackupMetrics backupMetrics;
     private final Set<Path> tasksQueued;
-    private final ThreadPoolExecutor fileUploadExecutor;
-    private final ThreadPoolExecutor fileDownloadExecutor;
+    private final BlockingSubmitThreadPoolExecutor fileUploadExecutor;
+    private final BlockingSubmitThreadPoolExecutor fileDownloadExecutor;
 
     // This is going to be a write-thru cache containing the most frequently used items from remote
     // file system. This is to ensure that we don't make too many API calls to remote file system.
     private final Cache<Path, Boolean> objectCache;
+    // Persistent index of the remote files, so we don't have to ask remote file system about every
+    // file even after a restart.
+    private final RemoteObjectIndex remoteObjectIndex;
 
-    @Inject
     public AbstractFileSystem(
             IConfiguration configuration,
             // BackupMetrics backupMetrics,
             // BackupNotificationMgr backupNotificationMgr,
             Provider<AbstractBackupPath> pathProvider) {
+        this(configuration, pathProvider, RemoteObjectIndex.disabled());
+    }
+
+    @Inject
+    public AbstractFileSystem(
+            IConfiguration configuration,
+            // BackupMetrics backupMetrics,
+            // BackupNotificationMgr backupNotificationMgr,
+            Provider<AbstractBackupPath> pathProvider,
+            RemoteObjectIndex remoteObjectIndex) {
         this.configuration = configuration;
+        this.remoteObjectIndex = remoteObjectIndex;
         // this.backupMetrics = backupMetrics;
         this.pathProvider = pathProvider;
         // Add notifications.
@@ -109,6 +126,12 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
                         configuration.getDownloadTimeout());
     }
 
+    @Inject
+    void registerExecutorMetrics(Registry registry) {
+        fileUploadExecutor.registerMetrics(registry, "upload");
+        fileDownloadExecutor.registerMetrics(registry, "download");
+    }
+
     @Override
     public Future<Path> asyncDownloadFile(
             final Path remotePath, final Path localPath, final int retry)
@@ -156,12 +179,19 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
             final Path localPath,
             final Path remotePath,
             final AbstractBackupPath path,
+            final BandwidthGovernor.TransferClass transferClass,
             final int retry,
             final boolean deleteAfterSuccessfulUpload)
             throws FileNotFoundException, RejectedExecutionException, BackupRestoreException {
         return fileUploadExecutor.submit(
                 () -> {
-                    uploadFile(localPath, remotePath, path, retry, deleteAfterSuccessfulUpload);
+                    uploadFile(
+                            localPath,
+                            remotePath,
+                            path,
+                            transferClass,
+                            retry,
+                            deleteAfterSuccessfulUpload);
                     return localPath;
                 });
     }
@@ -171,6 +201,7 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
             final Path localPath,
             final Path remotePath,
             final AbstractBackupPath path,
+            final BandwidthGovernor.TransferClass transferClass,
             final int retry,
             final boolean deleteAfterSuccessfulUpload)
             throws FileNotFoundException, BackupRestoreException {
@@ -196,7 +227,7 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
                             new BoundedExponentialRetryCallable<Long>(500, 10000, retry) {
                                 @Override
                                 public Long retriableCall() throws Exception {
-                                    return uploadFileImpl(localPath, remotePath);
+                                    return uploadFileImpl(localPath, remotePath, transferClass);
                                 }
                             }.call();
 
@@ -204,6 +235,15 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
                     // We only add SST_V2 as other file types are usually not checked, so no point
                     // evicting our SST_V2 results.
                     if (path.getType() == BackupFileType.SST_V2) addObjectCache(remotePath);
+                    // Only backup version 2.0 files are reconciled with the remote file system.
+                    if (path.getType() == BackupFileType.SST_V2
+                            || path.getType() == BackupFileType.META_V2)
+                        remoteObjectIndex.add(
+                                getIndexKey(remotePath.toString()),
+                                uploadedFileSize,
+                                path.getLastModified() == null
+                                        ? RemoteObjectIndex.UNKNOWN
+                                        : path.getLastModified().toEpochMilli());
 
                     // backupMetrics.recordUploadRate(uploadedFileSize);
                     // backupMetrics.incrementValidUploads();
@@ -252,14 +292,45 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
         // Cache hit. Return the value.
         if (cacheResult != null) return cacheResult;
 
+        // Check in the local index of remote file system.
+        String indexKey = getIndexKey(remotePath.toString());
+        if (remoteObjectIndex.get(indexKey) != null) {
+            addObjectCache(remotePath);
+            return true;
+        }
+
+        // Index knows about all the files under this location, so there is no such file.
+        if (remoteObjectIndex.isComplete(indexKey)) return false;
+
         // Cache miss - Check remote file system if object exist.
         boolean remoteFileExist = doesRemoteFileExist(remotePath);
 
-        if (remoteFileExist) addObjectCache(remotePath);
+        if (remoteFileExist) {
+            addObjectCache(remotePath);
+            remoteObjectIndex.add(indexKey, RemoteObjectIndex.UNKNOWN, RemoteObjectIndex.UNKNOWN);
+        }
 
         return remoteFileExist;
     }
 
+    @Override
+    public void reconcileObjectIndex() {
+        if (!remoteObjectIndex.isEnabled()) return;
+
+        for (BackupFileType type : Arrays.asList(BackupFileType.SST_V2, BackupFileType.META_V2)) {
+            String prefix = pathProvider.get().remoteV2Prefix(getPrefix(), type).toString();
+            Iterator<String> remoteFiles = listFileSystem(prefix, null, null);
+            remoteObjectIndex.reconcile(
+                    getIndexKey(prefix),
+                    new TransformIterator<>(remoteFiles, this::getIndexKey));
+        }
+    }
+
+    /** Qualify the remote path with the bucket, as the index is shared by all the buckets. */
+    private String getIndexKey(String remotePath) {
+        return getShard() + ":" + remotePath;
+    }
+
     @Override
     public void deleteRemoteFiles(List<Path> remotePaths) throws BackupRestoreException {
         if (remotePaths == null) return;
@@ -270,6 +341,11 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
         // help in ensuring that our validation job fails if there are any error caused due to TTL
         // of a file.
         objectCache.invalidateAll(remotePaths);
+        remoteObjectIndex.remove(
+                remotePaths
+                        .stream()
+                        .map(remotePath -> getIndexKey(remotePath.toString()))
+                        .collect(Collectors.toList()));
         deleteFiles(remotePaths);
     }
 
@@ -277,9 +353,52 @@ public abstract class AbstractFileSystem implements IBackupFileSystem, EventGene
 
     protected abstract boolean doesRemoteFileExist(Path remotePath);
 
-    protected abstract long uploadFileImpl(final Path localPath, final Path remotePath)
+    protected abstract long uploadFileImpl(
+            final Path localPath,
+            final Path remotePath,
+            final BandwidthGovernor.TransferClass transferClass)
             throws BackupRestoreException;
 
+    /**
+     * Get the compression for the remote file. Backup version 2.0 records the compression algorithm
+     * in the remote path, anything else is always compressed using SNAPPY.
+     *
+     * @param remotePath location of the file on remote file system.
+     * @return the compression to use while uploading or downloading the file.
+     */
+    protected ICompression getCompression(final Path remotePath) {
+        ICompression.CompressionAlgorithm algorithm = ICompression.CompressionAlgorithm.SNAPPY;
+        try {
+            AbstractBackupPath path = pathProvider.get();
+            path.parseRemote(remotePath.toString());
+            algorithm = path.getCompression();
+        } catch (Exception e) {
+            logger.debug(
+                    "Unable to parse remote path: {}. Using compression: {}",
+                    remotePath,
+                    algorithm);
+        }
+        return ICompression.getCompression(algorithm);
+    }
+
+    /**
+     * @param remotePath remote file being transferred.
+     * @param upload true for an upload, false for a download.
+     * @return the class of the transfer for the {@link BandwidthGovernor}.
+     */
+    protected BandwidthGovernor.TransferClass getTransferClass(
+            final Path remotePath, boolean upload) {
+        AbstractBackupPath.BackupFileType type = null;
+        try {
+            AbstractBackupPath path = pathProvider.get();
+            path.parseRemote(remotePath.toString());
+            type = path.getType();
+        } catch (Exception e) {
+            logger.debug("Unable to parse remote path: {}", remotePath);
+        }
+        return BandwidthGovernor.TransferClass.of(type, upload);
+    }
+
     @Override
     public String getShard() {
         return getPrefix().getName(0).toString();
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the backup directories of all the columnfamilies under the Cassandra data directory, i.e.
+ * data_dir/keyspace/columnfamily/monitoring_folder.
+ *
+ * <p>The keyspace and columnfamily directories are listed by a bounded pool of threads, and every
+ * backup directory is handed to the visitor as soon as it is found, so the processing of the first
+ * columnfamilies overlaps the discovery of the rest. The visitor is always called on the thread
+ * calling {@link #walk(Visitor)}, one directory at a time, so it does not need to be thread safe.
+ *
+ * <p>A walker is meant to be used for a single walk.
+ */
+public class BackupDirectoryWalker {
+    private static final Logger logger = LoggerFactory.getLogger(BackupDirectoryWalker.class);
+    // Bounds the backup directories found but not yet visited.
+    private static final int MAX_PENDING_DIRECTORIES = 1024;
+    private static final BackupDirectory END = new BackupDirectory(null, null, null);
+
+    private final Path dataDir;
+    private final String monitoringFolder;
+    private final int parallelism;
+    private final BlockingQueue<BackupDirectory> found =
+            new LinkedBlockingQueue<>(MAX_PENDING_DIRECTORIES);
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private ExecutorService executor;
+
+    /** Visits the backup directory of a columnfamily. */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param keyspace Name of the keyspace
+         * @param columnFamilyDir Name of the columnfamily directory, i.e. name-id
+         * @param backupDir Location of the backup/snapshot directory in that columnfamily.
+         * @throws Exception to stop the walk.
+         */
+        void visit(String keyspace, String columnFamilyDir, File backupDir) throws Exception;
+    }
+
+    /**
+     * @param dataDir the Cassandra data directory.
+     * @param monitoringFolder the name of the backup directory in a columnfamily directory.
+     * @param parallelism maximum number of directories listed at the same time.
+     */
+    public BackupDirectoryWalker(Path dataDir, String monitoringFolder, int parallelism) {
+        this.dataDir = dataDir;
+        this.monitoringFolder = monitoringFolder;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Walk the data directory and visit all the backup directories found, in no particular order.
+     * Directories which cannot be listed are skipped. The walk stops at the first exception thrown
+     * by the visitor.
+     *
+     * @param visitor called for every backup directory.
+     * @throws Exception the exception thrown by the visitor.
+     */
+    public void walk(Visitor visitor) throws Exception {
+        if (executor != null) throw new IllegalStateException("The walk was already done");
+        executor = new NamedThreadPoolExecutor(parallelism, "BackupDirectoryWalker");
+        try {
+            submit(this::listKeyspaces);
+            for (BackupDirectory dir = found.take(); dir != END; dir = found.take()) {
+                visitor.visit(dir.keyspace, dir.columnFamilyDir, dir.backupDir);
+            }
+        } finally {
+            // Stops the listing if the visitor failed.
+            executor.shutdownNow();
+        }
+    }
+
+    private void listKeyspaces() throws IOException {
+        try (DirectoryStream<Path> keyspaceDirs = Files.newDirectoryStream(dataDir)) {
+            for (Path keyspaceDir : keyspaceDirs) {
+                String keyspace = keyspaceDir.getFileName().toString();
+                if (BackupRestoreUtil.FILTER_KEYSPACE.contains(keyspace)) {
+                    logger.debug("Skipping the backup directories of keyspace: {}", keyspace);
+                    continue;
+                }
+                submit(() -> listColumnFamilies(keyspaceDir));
+            }
+        }
+    }
+
+    private void listColumnFamilies(Path keyspaceDir) throws IOException {
+        if (!Files.isDirectory(keyspaceDir)) return;
+        logger.debug("Entering {} keyspace..", keyspaceDir.getFileName());
+        try (DirectoryStream<Path> columnFamilyDirs = Files.newDirectoryStream(keyspaceDir)) {
+            for (Path columnFamilyDir : columnFamilyDirs) {
+                submit(() -> checkBackupDir(keyspaceDir, columnFamilyDir));
+            }
+        }
+    }
+
+    private void checkBackupDir(Path keyspaceDir, Path columnFamilyDir)
+            throws InterruptedException {
+        File backupDir = columnFamilyDir.resolve(monitoringFolder).toFile();
+        if (!backupDir.isDirectory()) return;
+        found.put(
+                new BackupDirectory(
+                        keyspaceDir.getFileName().toString(),
+                        columnFamilyDir.getFileName().toString(),
+                        backupDir));
+    }
+
+    private void submit(ListingTask task) {
+        pendingTasks.incrementAndGet();
+        try {
+            executor.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            // The walk was stopped.
+            pendingTasks.decrementAndGet();
+        }
+    }
+
+    private void run(ListingTask task) {
+        try {
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Skipping the directory which could not be listed: {}", e.getMessage());
+        } catch (DirectoryIteratorException e) {
+            logger.warn(
+                    "Skipping the directory which could not be listed: {}",
+                    e.getCause().getMessage());
+        } finally {
+            // The last task to finish ends the walk. Tasks submitted by a task are counted before
+            // it finishes, so this cannot happen before all the directories are listed.
+            if (pendingTasks.decrementAndGet() == 0 && !executor.isShutdown()) {
+                try {
+                    found.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ListingTask {
+        void run() throws IOException, InterruptedException;
+    }
+
+    private static class BackupDirectory {
+        private final String keyspace;
+        private final String columnFamilyDir;
+        private final File backupDir;
+
+        BackupDirectory(String keyspace, String columnFamilyDir, File backupDir) {
+            this.keyspace = keyspace;
+            this.columnFamilyDir = columnFamilyDir;
+            this.backupDir = backupDir;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches backup directories for new files using the {@link WatchService} of the file system (i.e.
+ * inotify on Linux). Only the registered directories are watched, not their sub directories nor
+ * their parents, so new backup directories have to be registered by the caller, e.g. on a periodic
+ * scan of the data directory.
+ *
+ * <p>A directory is reported as changed if files were created in it or if the events for it were
+ * lost because of an overflow. Callers are expected to process all the files in a changed
+ * directory, not only the new ones.
+ */
+public class BackupDirectoryWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(BackupDirectoryWatcher.class);
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+
+    public BackupDirectoryWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Start watching the directory for new files. This is a no-op if the directory is already
+     * watched.
+     *
+     * @param directory the backup directory to watch.
+     * @throws IOException if the directory cannot be watched, e.g. if it does not exist.
+     */
+    public void register(Path directory) throws IOException {
+        WatchKey watchKey = watchedDirectories.get(directory);
+        if (watchKey != null && watchKey.isValid()) return;
+        watchedDirectories.put(
+                directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE));
+        logger.debug("Watching backup directory: {}", directory);
+    }
+
+    /** @return number of directories currently watched. */
+    public int getWatchedDirectoryCount() {
+        return watchedDirectories.size();
+    }
+
+    /**
+     * Wait for changes in any of the watched directories.
+     *
+     * @param timeout how long to wait for the first change.
+     * @param unit unit of the timeout.
+     * @return the directories which changed. The set is empty if nothing changed before the timeout
+     *     or if the watcher was closed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Set<Path> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Set<Path> changedDirectories = new LinkedHashSet<>();
+        try {
+            WatchKey watchKey = watchService.poll(timeout, unit);
+            // Drain all the changes available at this time so every directory is processed once.
+            while (watchKey != null) {
+                Path directory = (Path) watchKey.watchable();
+                // Events are not required as the whole directory will be processed. This also
+                // covers the OVERFLOW event where the individual events are lost.
+                if (!watchKey.pollEvents().isEmpty()) changedDirectories.add(directory);
+                if (!watchKey.reset()) {
+                    // Directory is not accessible anymore, e.g. column family was dropped.
+                    watchedDirectories.remove(directory, watchKey);
+                    changedDirectories.remove(directory);
+                    logger.debug("Stopped watching backup directory: {}", directory);
+                }
+                watchKey = watchService.poll();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Watch service is closed");
+        }
+        return changedDirectories;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watchedDirectories.clear();
+    }
+}
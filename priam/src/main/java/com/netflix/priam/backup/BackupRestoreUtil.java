@@ -18,6 +18,8 @@
 package com.netflix.priam.backup;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.netflix.priam.backupv2.IMetaProxy;
@@ -27,7 +29,6 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -66,14 +67,7 @@ public class BackupRestoreUtil {
         List<AbstractBackupPath> metas = metaProxy.findMetaFiles(dateRange);
 
         // Find a valid manifest file.
-        for (AbstractBackupPath meta : metas) {
-            BackupVerificationResult result = metaProxy.isMetaFileValid(meta);
-            if (result.valid) {
-                return Optional.of(meta);
-            }
-        }
-
-        return Optional.empty();
+        return metaProxy.findLatestValidMetaFile(metas);
     }
 
     public static List<AbstractBackupPath> getAllFiles(
@@ -82,23 +76,65 @@ public class BackupRestoreUtil {
             IMetaProxy metaProxy,
             Provider<AbstractBackupPath> pathProvider)
             throws Exception {
+        return Lists.newArrayList(
+                iterateAllFiles(latestValidMetaFile, dateRange, metaProxy, pathProvider));
+    }
+
+    /**
+     * Same as {@link #getAllFiles(AbstractBackupPath, DateUtil.DateRange, IMetaProxy, Provider)}
+     * but the paths are only parsed, and the incremental files only paged in from the remote file
+     * system, as the caller walks the returned iterator. The order of the files is stable for a
+     * given meta file and date range.
+     */
+    public static Iterator<AbstractBackupPath> iterateAllFiles(
+            AbstractBackupPath latestValidMetaFile,
+            DateUtil.DateRange dateRange,
+            IMetaProxy metaProxy,
+            Provider<AbstractBackupPath> pathProvider)
+            throws Exception {
+        Iterator<AbstractBackupPath> snapshot =
+                iterateSnapshotFiles(latestValidMetaFile, metaProxy, pathProvider);
+        return Iterators.concat(
+                snapshot, iterateIncrementals(latestValidMetaFile, dateRange, metaProxy, null));
+    }
+
+    /**
+     * @return the files of the snapshot listed in the meta file, which is downloaded and parsed
+     *     before this method returns.
+     */
+    public static Iterator<AbstractBackupPath> iterateSnapshotFiles(
+            AbstractBackupPath latestValidMetaFile,
+            IMetaProxy metaProxy,
+            Provider<AbstractBackupPath> pathProvider)
+            throws Exception {
         // Download the meta.json file.
         Path metaFile = metaProxy.downloadMetaFile(latestValidMetaFile);
-        // Parse meta.json file to find the files required to download from this snapshot.
-        List<AbstractBackupPath> allFiles =
-                metaProxy
-                        .getSSTFilesFromMeta(metaFile)
-                        .stream()
-                        .map(
-                                value -> {
-                                    AbstractBackupPath path = pathProvider.get();
-                                    path.parseRemote(value);
-                                    return path;
-                                })
-                        .collect(Collectors.toList());
-
+        // Parse meta.json file to find the files required to download from this snapshot, with
+        // their size when the meta file records it.
+        Map<String, Long> snapshotFiles = metaProxy.getSSTFileSizesFromMeta(metaFile);
         FileUtils.deleteQuietly(metaFile.toFile());
+        return Iterators.transform(
+                snapshotFiles.entrySet().iterator(),
+                entry -> {
+                    AbstractBackupPath path = pathProvider.get();
+                    path.parseRemote(entry.getKey());
+                    path.setSize(entry.getValue());
+                    return path;
+                });
+    }
 
+    /**
+     * @param marker remote path of the last incremental file already seen, or null to list the
+     *     incremental files from the start.
+     * @return the incremental files uploaded after the snapshot of the meta file, in the date
+     *     range, in the order of {@link IMetaProxy#getIncrementals(DateUtil.DateRange, String)}.
+     */
+    public static Iterator<AbstractBackupPath> iterateIncrementals(
+            AbstractBackupPath latestValidMetaFile,
+            DateUtil.DateRange dateRange,
+            IMetaProxy metaProxy,
+            String marker)
+            throws BackupRestoreException {
         // Download incremental SSTables after the snapshot meta file.
         Instant snapshotTime;
         if (metaProxy instanceof MetaV2Proxy) snapshotTime = latestValidMetaFile.getLastModified();
@@ -106,10 +142,7 @@ public class BackupRestoreUtil {
 
         DateUtil.DateRange incrementalDateRange =
                 new DateUtil.DateRange(snapshotTime, dateRange.getEndTime());
-        Iterator<AbstractBackupPath> incremental = metaProxy.getIncrementals(incrementalDateRange);
-        while (incremental.hasNext()) allFiles.add(incremental.next());
-
-        return allFiles;
+        return metaProxy.getIncrementals(incrementalDateRange, marker);
     }
 
     public static final Map<String, List<String>> getFilter(String inputFilter)
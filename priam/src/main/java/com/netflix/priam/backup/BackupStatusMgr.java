@@ -191,17 +191,7 @@ public abstract class BackupStatusMgr implements IBackupStatusMgr {
         Instant startDay = dateRange.getStartTime().truncatedTo(ChronoUnit.DAYS);
         Instant endDay = dateRange.getEndTime().truncatedTo(ChronoUnit.DAYS);
 
-        List<BackupMetadata> allBackups = new ArrayList<>();
-        Instant previousDay = endDay;
-        do {
-            // We need to find the latest backupmetadata in this date range.
-            logger.info(
-                    "Will try to find snapshot for : {}",
-                    DateUtil.formatInstant(DateUtil.yyyyMMddHHmm, previousDay));
-            List<BackupMetadata> backupsForDate = locate(new Date(previousDay.toEpochMilli()));
-            if (backupsForDate != null) allBackups.addAll(backupsForDate);
-            previousDay = previousDay.minus(1, ChronoUnit.DAYS);
-        } while (!previousDay.isBefore(startDay));
+        List<BackupMetadata> allBackups = getBackupMetadata(startDay, endDay);
 
         // Return all the backups which are FINISHED and were "started" in the dateRange provided.
         // Do not compare the end time of snapshot as it may take random amount of time to finish
@@ -227,6 +217,29 @@ public abstract class BackupStatusMgr implements IBackupStatusMgr {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Find all the backups started between the given days. By default every day in the range is
+     * located one by one.
+     *
+     * @param startDay first day of the range, inclusive.
+     * @param endDay last day of the range, inclusive.
+     * @return the backups started on the days in the range, in any order.
+     */
+    protected List<BackupMetadata> getBackupMetadata(Instant startDay, Instant endDay) {
+        List<BackupMetadata> allBackups = new ArrayList<>();
+        Instant previousDay = endDay;
+        do {
+            // We need to find the latest backupmetadata in this date range.
+            logger.info(
+                    "Will try to find snapshot for : {}",
+                    DateUtil.formatInstant(DateUtil.yyyyMMddHHmm, previousDay));
+            List<BackupMetadata> backupsForDate = locate(new Date(previousDay.toEpochMilli()));
+            if (backupsForDate != null) allBackups.addAll(backupsForDate);
+            previousDay = previousDay.minus(1, ChronoUnit.DAYS);
+        } while (!previousDay.isBefore(startDay));
+        return allBackups;
+    }
+
     @Override
     public String toString() {
         return "BackupStatusMgr{"
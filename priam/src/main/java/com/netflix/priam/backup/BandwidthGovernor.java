@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.connection.JMXConnectionPool;
+import com.netflix.priam.connection.JMXNodeTool;
+import com.netflix.priam.merics.Metrics;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bandwidth limit shared by all the transfers of backup and restore files, configured via {@link
+ * IConfiguration#getTransferThrottle()}.
+ *
+ * <p>The bandwidth is split between the classes of transfers which are active, in proportion to
+ * their weight, so e.g. incremental uploads are not starved by a large snapshot upload. A class is
+ * active if it transferred data in the last couple of seconds, and an idle class gets the share it
+ * would have if it became active.
+ *
+ * <p>If {@link IConfiguration#getTransferThrottleLatencyTargetMs()} is set, the 99th percentile
+ * latency of the Cassandra client requests is checked periodically while transfers are active. The
+ * bandwidth is decreased multiplicatively while the latency is above the target and increased
+ * back linearly to the configured limit otherwise.
+ */
+@Singleton
+public class BandwidthGovernor {
+    private static final Logger logger = LoggerFactory.getLogger(BandwidthGovernor.class);
+    private static final long ACTIVE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int LATENCY_CHECK_PERIOD_SEC = 5;
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final double INCREASE_FRACTION = 0.05;
+    private static final double MIN_RATE_FRACTION = 0.1;
+
+    /** The classes of transfers sharing the bandwidth. */
+    public enum TransferClass {
+        RESTORE(8),
+        META(8),
+        INCREMENTAL(8),
+        COMMIT_LOG(8),
+        SNAPSHOT(4),
+        TTL(1);
+
+        private final int weight;
+
+        TransferClass(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Class of a transfer by the type of the file, for the callers which do not know better.
+         * The files of the V2 snapshots have the same type as the incremental files, so the backups
+         * pass the class of their uploads instead.
+         *
+         * @param type type of the file transferred, or null if not known.
+         * @param upload true for an upload, false for a download.
+         * @return the class of the transfer.
+         */
+        public static TransferClass of(AbstractBackupPath.BackupFileType type, boolean upload) {
+            if (type == AbstractBackupPath.BackupFileType.META
+                    || type == AbstractBackupPath.BackupFileType.META_V2
+                    || type == AbstractBackupPath.BackupFileType.SNAPSHOT_VERIFIED) return META;
+            if (!upload) return RESTORE;
+            if (type == AbstractBackupPath.BackupFileType.CL) return COMMIT_LOG;
+            if (type == AbstractBackupPath.BackupFileType.SST
+                    || type == AbstractBackupPath.BackupFileType.SST_V2) return INCREMENTAL;
+            return SNAPSHOT;
+        }
+    }
+
+    /** Source of the latency of the Cassandra client requests. */
+    @FunctionalInterface
+    interface LatencySource {
+        /** @return the 99th percentile latency of the client requests in microseconds. */
+        double get99thPercentileMicros() throws Exception;
+    }
+
+    private final IConfiguration config;
+    private final LatencySource latencySource;
+    private final Map<TransferClass, RateLimiter> limiters = new EnumMap<>(TransferClass.class);
+    private final Map<TransferClass, AtomicLong> lastActive = new EnumMap<>(TransferClass.class);
+    private final Map<TransferClass, AtomicLong> bytesTransferred =
+            new EnumMap<>(TransferClass.class);
+    private final AtomicLong allowedRate = new AtomicLong(-1);
+    private final AtomicLong clientLatencyMicros = new AtomicLong(-1);
+    private volatile double maxRate = 0;
+    // Zero if the transfers are not throttled.
+    private volatile double currentRate = 0;
+    private long ticks = 0;
+
+    @Inject
+    public BandwidthGovernor(IConfiguration config, Registry registry) {
+        this(
+                config,
+                registry,
+                () -> JMXConnectionPool.getInstance(config).call(BandwidthGovernor::readLatency));
+        ScheduledExecutorService adjuster =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setDaemon(true)
+                                .setNameFormat("BandwidthGovernor")
+                                .build());
+        adjuster.scheduleWithFixedDelay(this::adjust, 1, 1, TimeUnit.SECONDS);
+    }
+
+    BandwidthGovernor(IConfiguration config, Registry registry, LatencySource latencySource) {
+        this.config = config;
+        this.latencySource = latencySource;
+        long now = System.nanoTime();
+        for (TransferClass transferClass : TransferClass.values()) {
+            limiters.put(transferClass, RateLimiter.create(Double.MAX_VALUE));
+            lastActive.put(transferClass, new AtomicLong(now - 2 * ACTIVE_WINDOW_NANOS));
+            bytesTransferred.put(
+                    transferClass,
+                    PolledMeter.using(registry)
+                            .withName(Metrics.METRIC_PREFIX + "transfer.bytes")
+                            .withTag("class", transferClass.name().toLowerCase())
+                            .monitorMonotonicCounter(new AtomicLong()));
+        }
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "transfer.rate.allowed")
+                .monitorValue(allowedRate);
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "transfer.client.latency")
+                .monitorValue(clientLatencyMicros);
+        adjust();
+    }
+
+    private static double readLatency(JMXNodeTool nodeTool) throws Exception {
+        return Math.max(
+                nodeTool.getClientRequestLatency99thPercentile("Read"),
+                nodeTool.getClientRequestLatency99thPercentile("Write"));
+    }
+
+    /**
+     * Wait till the bytes can be transferred within the share of the bandwidth of the class.
+     *
+     * @param transferClass class of the transfer.
+     * @param bytes number of bytes about to be, or just, transferred.
+     */
+    public void acquire(TransferClass transferClass, long bytes) {
+        if (bytes <= 0) return;
+        bytesTransferred.get(transferClass).addAndGet(bytes);
+        long now = System.nanoTime();
+        // Give the class its share right away instead of at the next adjustment.
+        if (now - lastActive.get(transferClass).getAndSet(now) > ACTIVE_WINDOW_NANOS)
+            rebalance();
+        if (currentRate <= 0) return;
+
+        RateLimiter limiter = limiters.get(transferClass);
+        while (bytes > 0) {
+            int permits = (int) Math.min(bytes, Integer.MAX_VALUE);
+            limiter.acquire(permits);
+            bytes -= permits;
+        }
+    }
+
+    /**
+     * @param in the stream of the transferred data.
+     * @param transferClass class of the transfer.
+     * @return a stream which waits for the bandwidth of the class as bytes are read.
+     */
+    public InputStream throttle(InputStream in, TransferClass transferClass) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) acquire(transferClass, 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                acquire(transferClass, count);
+                return count;
+            }
+        };
+    }
+
+    /** @return the bandwidth currently shared by all the transfers in bytes/sec, or 0 if none. */
+    public double getCurrentRate() {
+        return currentRate;
+    }
+
+    /** @return the bandwidth currently available to the class in bytes/sec. */
+    public double getRate(TransferClass transferClass) {
+        return limiters.get(transferClass).getRate();
+    }
+
+    /** @return number of bytes transferred by the class. */
+    public long getBytesTransferred(TransferClass transferClass) {
+        return bytesTransferred.get(transferClass).get();
+    }
+
+    /** Follow the configuration and the client latency, and split the bandwidth again. */
+    synchronized void adjust() {
+        try {
+            double max = config.getTransferThrottle();
+            if (max < 1) {
+                maxRate = 0;
+                currentRate = 0;
+                allowedRate.set(-1);
+                return;
+            }
+            if (max != maxRate) {
+                logger.info("Setting the bandwidth for the transfers to {} bytes/sec", (long) max);
+                maxRate = max;
+                currentRate = max;
+            }
+            if (++ticks % LATENCY_CHECK_PERIOD_SEC == 0 && isAnyActive()) adjustToLatency();
+            allowedRate.set((long) currentRate);
+            rebalance();
+        } catch (Exception e) {
+            logger.error("Error while adjusting the bandwidth of the transfers", e);
+        }
+    }
+
+    private void adjustToLatency() {
+        int targetMs = config.getTransferThrottleLatencyTargetMs();
+        if (targetMs < 1) {
+            currentRate = maxRate;
+            return;
+        }
+        double latencyMicros;
+        try {
+            latencyMicros = latencySource.get99thPercentileMicros();
+        } catch (Exception e) {
+            // Keep the current bandwidth until Cassandra can be asked again.
+            logger.debug("Unable to get the client latency: {}", e.getMessage());
+            return;
+        }
+        clientLatencyMicros.set((long) latencyMicros);
+        if (latencyMicros > targetMs * 1000.0)
+            currentRate = Math.max(maxRate * MIN_RATE_FRACTION, currentRate * DECREASE_FACTOR);
+        else currentRate = Math.min(maxRate, currentRate + maxRate * INCREASE_FRACTION);
+    }
+
+    private boolean isAnyActive() {
+        long now = System.nanoTime();
+        return lastActive.values().stream().anyMatch(t -> now - t.get() <= ACTIVE_WINDOW_NANOS);
+    }
+
+    private synchronized void rebalance() {
+        double rate = currentRate;
+        if (rate <= 0) return;
+        long now = System.nanoTime();
+        int activeWeight = 0;
+        for (TransferClass transferClass : TransferClass.values())
+            if (now - lastActive.get(transferClass).get() <= ACTIVE_WINDOW_NANOS)
+                activeWeight += transferClass.getWeight();
+        for (TransferClass transferClass : TransferClass.values()) {
+            int weight = transferClass.getWeight();
+            boolean active = now - lastActive.get(transferClass).get() <= ACTIVE_WINDOW_NANOS;
+            int totalWeight = active ? activeWeight : activeWeight + weight;
+            limiters.get(transferClass).setRate(rate * weight / totalWeight);
+        }
+    }
+}
@@ -16,32 +16,68 @@ package com.netflix.priam.backup;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.merics.Metrics;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
 import com.netflix.priam.utils.DateUtil;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import java.io.File;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Uploads the archived commit log segments. Segments are uploaded concurrently, but an upload is
+ * recorded, and the archived segment deleted, only once all the older segments in the archive are
+ * uploaded. A segment which fails to upload holds back the newer ones, which are not uploaded
+ * again, till it is uploaded by a later run. This way the uploaded segments never have a gap
+ * for point in time recovery.
+ */
 // Providing this if we want to use it outside Quart
+@Singleton
 public class CommitLogBackup {
     private static final Logger logger = LoggerFactory.getLogger(CommitLogBackup.class);
+    // Segments archived by Cassandra are named CommitLog-<version>-<segment id>.log
+    private static final Pattern SEGMENT_NAME = Pattern.compile("CommitLog-\\d+-(\\d+)\\.log");
     private final Provider<AbstractBackupPath> pathFactory;
     private final List<String> clRemotePaths = Lists.newArrayList();
     private final IBackupFileSystem fs;
+    private final ExecutorService uploadExecutor;
+    // Segments uploaded while an older segment is still to be uploaded.
+    private final Set<File> uploadedOutOfOrder = ConcurrentHashMap.newKeySet();
+    // Last modified time of the oldest segment not uploaded yet, or 0 if none.
+    private volatile long oldestPendingSegment = 0;
 
     @Inject
     public CommitLogBackup(
-            Provider<AbstractBackupPath> pathFactory, @Named("backup") IBackupFileSystem fs) {
+            Provider<AbstractBackupPath> pathFactory,
+            @Named("backup") IBackupFileSystem fs,
+            IConfiguration config,
+            Registry registry) {
         this.pathFactory = pathFactory;
         this.fs = fs;
+        this.uploadExecutor =
+                new NamedThreadPoolExecutor(config.getCommitLogBackupThreads(), "CommitLogBackup");
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "commitlog.upload.lag")
+                .monitorValue(this, CommitLogBackup::getUploadLagMillis);
     }
 
-    public List<AbstractBackupPath> upload(String archivedDir, final String snapshotName)
-            throws Exception {
+    public synchronized List<AbstractBackupPath> upload(
+            String archivedDir, final String snapshotName) throws Exception {
         logger.info("Inside upload CommitLog files");
 
         if (StringUtils.isBlank(archivedDir)) {
@@ -57,33 +93,90 @@ public class CommitLogBackup {
         if (logger.isDebugEnabled()) {
             logger.debug("Scanning for backup in: {}", archivedCommitLogDir.getAbsolutePath());
         }
+        List<File> segments = getSegmentsInOrder(archivedCommitLogDir);
+        uploadedOutOfOrder.retainAll(segments);
+        oldestPendingSegment = segments.isEmpty() ? 0 : segments.get(0).lastModified();
+
+        List<Future<AbstractBackupPath>> uploads = new ArrayList<>(segments.size());
+        for (final File file : segments)
+            uploads.add(uploadExecutor.submit(() -> uploadSegment(file, snapshotName)));
+
+        // Record the uploads in the order of the segments, up to the first one which failed.
         List<AbstractBackupPath> bps = Lists.newArrayList();
-        for (final File file : archivedCommitLogDir.listFiles()) {
-            logger.debug("Uploading commit log {} for backup", file.getCanonicalFile());
+        boolean inOrder = true;
+        for (int i = 0; i < segments.size(); i++) {
+            File file = segments.get(i);
             try {
-                AbstractBackupPath bp = pathFactory.get();
-                bp.parseLocal(file, BackupFileType.CL);
-
-                if (snapshotName != null) bp.time = DateUtil.getDate(snapshotName);
-
-                fs.uploadFile(
-                        Paths.get(bp.getBackupFile().getAbsolutePath()),
-                        Paths.get(bp.getRemotePath()),
-                        bp,
-                        10,
-                        true);
-                bps.add(bp);
-                addToRemotePath(bp.getRemotePath());
-            } catch (Exception e) {
+                AbstractBackupPath bp = uploads.get(i).get();
+                if (inOrder) {
+                    uploadedOutOfOrder.remove(file);
+                    if (!FileUtils.deleteQuietly(file))
+                        logger.warn("Failed to delete local file {}.", file.getAbsolutePath());
+                    bps.add(bp);
+                    addToRemotePath(bp.getRemotePath());
+                    oldestPendingSegment =
+                            i + 1 < segments.size() ? segments.get(i + 1).lastModified() : 0;
+                } else {
+                    uploadedOutOfOrder.add(file);
+                }
+            } catch (ExecutionException e) {
+                inOrder = false;
                 logger.error(
                         "Failed to upload local file {}. Ignoring to continue with rest of backup.",
                         file,
-                        e);
+                        e.getCause());
             }
         }
+        if (!inOrder)
+            logger.warn(
+                    "{} commit log segments are uploaded and waiting for older segments",
+                    uploadedOutOfOrder.size());
         return bps;
     }
 
+    /** @return age in millis of the oldest archived segment which is not uploaded yet. */
+    public long getUploadLagMillis() {
+        long oldest = oldestPendingSegment;
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    private AbstractBackupPath uploadSegment(File file, String snapshotName) throws Exception {
+        AbstractBackupPath bp = pathFactory.get();
+        bp.parseLocal(file, BackupFileType.CL);
+
+        if (snapshotName != null) bp.time = DateUtil.getDate(snapshotName);
+
+        if (!uploadedOutOfOrder.contains(file)) {
+            logger.debug("Uploading commit log {} for backup", file.getCanonicalFile());
+            // The segment is deleted once the older segments are uploaded.
+            fs.uploadFile(
+                    Paths.get(bp.getBackupFile().getAbsolutePath()),
+                    Paths.get(bp.getRemotePath()),
+                    bp,
+                    10,
+                    false);
+        }
+        return bp;
+    }
+
+    /** @return the files in the directory, oldest segment first. */
+    private static List<File> getSegmentsInOrder(File archivedCommitLogDir) {
+        File[] files = archivedCommitLogDir.listFiles();
+        if (files == null) return Collections.emptyList();
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(
+                Comparator.comparingLong(CommitLogBackup::getSegmentId)
+                        .thenComparing(File::getName));
+        return segments;
+    }
+
+    /** @return the id of the segment, which grows with every new segment. */
+    private static long getSegmentId(File file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+        // Not a segment file name, fall back to the time it was archived.
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : file.lastModified();
+    }
+
     private void addToRemotePath(String remotePath) {
         this.clRemotePaths.add(remotePath);
     }
@@ -17,26 +17,55 @@
 
 package com.netflix.priam.backup;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.google.inject.Inject;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.health.InstanceState;
-import com.netflix.priam.utils.MaxSizeHashMap;
+import com.netflix.priam.utils.DateUtil;
 import java.io.*;
-import java.util.LinkedList;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
 import javax.inject.Singleton;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Default implementation for {@link IBackupStatusMgr}. This will save the snapshot status in local
  * file. Created by aagrawal on 7/11/17.
+ *
+ * <p>The file is an append-only journal with one JSON record per line. Every change of the status
+ * of a snapshot appends the latest state of that snapshot and the last record of a snapshot wins
+ * when the journal is replayed at startup. A record torn by a crash is skipped. The journal is
+ * rewritten with only the live records every {@link #COMPACTION_INTERVAL} appends, and when it is
+ * found to hold a torn record or a status file written by older versions of Priam.
+ *
+ * <p>All the snapshot status is held in memory, sorted by the day of the snapshot, so that a range
+ * of days can be looked up without going through every day in the range.
  */
 @Singleton
 public class FileSnapshotStatusMgr extends BackupStatusMgr {
     private static final Logger logger = LoggerFactory.getLogger(FileSnapshotStatusMgr.class);
-    private static final int IN_MEMORY_SNAPSHOT_CAPACITY = 60;
-    private final String filename;
+    static final int COMPACTION_INTERVAL = 1000;
+    // Dates are kept to the millisecond as the start date is a part of the identity of a snapshot.
+    private static final Gson gson =
+            new GsonBuilder().registerTypeAdapter(Date.class, new EpochDateTypeAdapter()).create();
+    private final Path journal;
+    private final ConcurrentSkipListMap<String, LinkedList<BackupMetadata>> statusByDay =
+            new ConcurrentSkipListMap<>();
+    private int appendsSinceCompaction;
 
     /**
      * Constructor to initialize the file based snapshot status manager.
@@ -47,74 +76,220 @@ public class FileSnapshotStatusMgr extends BackupStatusMgr {
      */
     @Inject
     public FileSnapshotStatusMgr(IConfiguration config, InstanceState instanceState) {
-        super(
-                IN_MEMORY_SNAPSHOT_CAPACITY,
-                instanceState); // Fetch capacity from properties, if required.
-        this.filename = config.getBackupStatusFileLoc();
+        super(config.getBackupStatusCapacity(), instanceState);
+        this.journal = Paths.get(config.getBackupStatusFileLoc());
+        this.backupMetadataMap = statusByDay;
         init();
     }
 
-    private void init() {
-        // Retrieve entire file and re-populate the list.
-        File snapshotFile = new File(filename);
-        if (!snapshotFile.exists()) {
-            snapshotFile.getParentFile().mkdirs();
+    private synchronized void init() {
+        if (!Files.exists(journal)) {
+            journal.toFile().getParentFile().mkdirs();
             logger.info(
                     "Snapshot status file do not exist on system. Bypassing initilization phase.");
-            backupMetadataMap = new MaxSizeHashMap<>(capacity);
             return;
         }
 
-        try (final ObjectInputStream inputStream =
-                new ObjectInputStream(new FileInputStream(snapshotFile))) {
-            backupMetadataMap = (Map<String, LinkedList<BackupMetadata>>) inputStream.readObject();
+        boolean compact = true;
+        try {
+            if (isLegacyFile()) {
+                logger.info("Converting the snapshot status in {} to a journal", journal);
+                readLegacyFile();
+            } else {
+                compact = replay();
+            }
             logger.info(
                     "Snapshot status of size {} fetched successfully from {}",
-                    backupMetadataMap.size(),
-                    filename);
-        } catch (IOException e) {
-            logger.error(
-                    "Error while trying to fetch snapshot status from {}. Error: {}. If this is first time after upgrading Priam, ignore this.",
-                    filename,
-                    e.getLocalizedMessage());
-            e.printStackTrace();
+                    statusByDay.size(),
+                    journal);
         } catch (Exception e) {
             logger.error(
                     "Error while trying to fetch snapshot status from {}. Error: {}.",
-                    filename,
+                    journal,
                     e.getLocalizedMessage());
-            e.printStackTrace();
         }
 
-        if (backupMetadataMap == null) backupMetadataMap = new MaxSizeHashMap<>(capacity);
+        trim(null);
+        if (compact) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.error(
+                        "Error while trying to compact snapshot status in {}. Error: {}",
+                        journal,
+                        e.getLocalizedMessage());
+            }
+        }
     }
 
     @Override
-    public void save(BackupMetadata backupMetadata) {
-        File snapshotFile = new File(filename);
-        if (!snapshotFile.exists()) snapshotFile.getParentFile().mkdirs();
-
-        // Will save entire list to file.
-        try (final ObjectOutputStream out =
-                new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(backupMetadataMap);
-            out.flush();
-            logger.info(
-                    "Snapshot status of size {} is saved to {}",
-                    backupMetadataMap.size(),
-                    filename);
+    public synchronized void save(BackupMetadata backupMetadata) {
+        trim(backupMetadata.getSnapshotDate());
+        try {
+            append(backupMetadata);
+            if (++appendsSinceCompaction >= COMPACTION_INTERVAL) compact();
         } catch (IOException e) {
             logger.error(
                     "Error while trying to persist snapshot status to {}. Error: {}",
-                    filename,
+                    journal,
                     e.getLocalizedMessage());
         }
     }
 
+    @Override
+    public LinkedList<BackupMetadata> locate(String snapshotDate) {
+        // Everything on the disk is in memory already.
+        if (StringUtils.isEmpty(snapshotDate)) return null;
+        return statusByDay.get(snapshotDate);
+    }
+
     @Override
     public LinkedList<BackupMetadata> fetch(String snapshotDate) {
         // No need to fetch from local machine as it was read once at start. No point reading again
         // and again.
-        return backupMetadataMap.get(snapshotDate);
+        return statusByDay.get(snapshotDate);
+    }
+
+    @Override
+    protected List<BackupMetadata> getBackupMetadata(Instant startDay, Instant endDay) {
+        if (endDay.isBefore(startDay)) return Collections.emptyList();
+        return statusByDay
+                .subMap(
+                        DateUtil.formatyyyyMMdd(Date.from(startDay)),
+                        true,
+                        DateUtil.formatyyyyMMdd(Date.from(endDay)),
+                        true)
+                .values()
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Drop the status of the oldest days beyond the capacity.
+     *
+     * @param keepDay day of the status being saved, which is kept even if it is the oldest one.
+     */
+    private void trim(String keepDay) {
+        while (statusByDay.size() > capacity) {
+            String oldest = statusByDay.firstKey();
+            statusByDay.remove(oldest.equals(keepDay) ? statusByDay.higherKey(oldest) : oldest);
+        }
+    }
+
+    /** Add the latest state of the snapshot to the in-memory status, replacing the older one. */
+    private void apply(BackupMetadata backupMetadata) {
+        LinkedList<BackupMetadata> metadataLinkedList =
+                statusByDay.computeIfAbsent(
+                        backupMetadata.getSnapshotDate(), day -> new LinkedList<>());
+        metadataLinkedList.remove(backupMetadata);
+        metadataLinkedList.addFirst(backupMetadata);
+    }
+
+    /** @return true if the journal holds a torn record and needs to be compacted. */
+    private boolean replay() throws IOException {
+        boolean torn = false;
+        int records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                BackupMetadata backupMetadata = null;
+                try {
+                    backupMetadata = gson.fromJson(line, BackupMetadata.class);
+                } catch (RuntimeException e) {
+                    // A partial line does not parse, it is skipped below.
+                }
+                if (backupMetadata == null
+                        || backupMetadata.getSnapshotDate() == null
+                        || backupMetadata.getToken() == null
+                        || backupMetadata.getStart() == null
+                        || backupMetadata.getBackupVersion() == null) {
+                    logger.warn("Skipping a torn snapshot status record in {}: {}", journal, line);
+                    torn = true;
+                    continue;
+                }
+                apply(backupMetadata);
+                records++;
+            }
+        }
+
+        // Keep every day in the descending order of snapshot start time.
+        Comparator<BackupMetadata> latestFirst =
+                Comparator.comparing(BackupMetadata::getStart).reversed();
+        statusByDay.values().forEach(metadataLinkedList -> metadataLinkedList.sort(latestFirst));
+        int liveRecords = statusByDay.values().stream().mapToInt(List::size).sum();
+        return torn || records - liveRecords >= COMPACTION_INTERVAL;
+    }
+
+    private boolean isLegacyFile() throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(journal))) {
+            return in.readShort() == ObjectStreamConstants.STREAM_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readLegacyFile() throws IOException, ClassNotFoundException {
+        try (final ObjectInputStream inputStream =
+                new ObjectInputStream(Files.newInputStream(journal))) {
+            Map<String, LinkedList<BackupMetadata>> legacy =
+                    (Map<String, LinkedList<BackupMetadata>>) inputStream.readObject();
+            // Each list is in the descending order of start time, so apply the oldest first.
+            for (LinkedList<BackupMetadata> metadataLinkedList : legacy.values())
+                if (metadataLinkedList != null)
+                    metadataLinkedList.descendingIterator().forEachRemaining(this::apply);
+        }
+    }
+
+    private void append(BackupMetadata backupMetadata) throws IOException {
+        byte[] record = (gson.toJson(backupMetadata) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(journal.toFile(), true)) {
+            out.write(record);
+            out.getFD().sync();
+        }
+    }
+
+    /** Rewrite the journal with the live records and swap it in atomically. */
+    private void compact() throws IOException {
+        Path compacted = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(compacted.toFile())) {
+            Writer writer =
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (LinkedList<BackupMetadata> metadataLinkedList : statusByDay.values()) {
+                Iterator<BackupMetadata> oldestFirst = metadataLinkedList.descendingIterator();
+                while (oldestFirst.hasNext()) {
+                    writer.write(gson.toJson(oldestFirst.next()));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(
+                compacted,
+                journal,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        appendsSinceCompaction = 0;
+        logger.info("Compacted snapshot status of size {} in {}", statusByDay.size(), journal);
+    }
+
+    private static class EpochDateTypeAdapter extends TypeAdapter<Date> {
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            if (value == null) out.nullValue();
+            else out.value(value.getTime());
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return new Date(in.nextLong());
+        }
     }
 }
@@ -17,6 +17,7 @@
 package com.netflix.priam.backup;
 
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Date;
 import java.util.Iterator;
@@ -55,6 +56,18 @@ public interface IBackupFileSystem {
     Future<Path> asyncDownloadFile(final Path remotePath, final Path localPath, final int retry)
             throws BackupRestoreException, RejectedExecutionException;
 
+    /**
+     * Open a stream on the file denoted by remotePath. The bytes are returned as they are stored on
+     * the remote file system i.e. they are neither decompressed nor decrypted. This allows the
+     * caller to chain its own transformations without writing an intermediate copy to disk.
+     *
+     * @param remotePath fully qualified location of the file on remote file system.
+     * @return stream over the stored bytes of the remote file. Caller is responsible to close it.
+     * @throws BackupRestoreException if file is not available or any other error from remote file
+     *     system.
+     */
+    InputStream openRemoteStream(Path remotePath) throws BackupRestoreException;
+
     /**
      * Upload the local file denoted by localPath to the remote file system at location denoted by
      * remotePath. De-duping of the file to upload will always be done by comparing the
@@ -67,6 +80,8 @@ public interface IBackupFileSystem {
      * @param remotePath Fully qualified path on the remote file system where file should be
      *     uploaded.
      * @param path AbstractBackupPath to be used to send backup notifications only.
+     * @param transferClass class of the transfer in the bandwidth shared by the transfers, see
+     *     {@link BandwidthGovernor}.
      * @param retry No of times to retry to upload a file. If &lt;1, it will try to upload file
      *     exactly once.
      * @param deleteAfterSuccessfulUpload If true, delete the file denoted by localPath after it is
@@ -81,10 +96,31 @@ public interface IBackupFileSystem {
             Path localPath,
             Path remotePath,
             AbstractBackupPath path,
+            BandwidthGovernor.TransferClass transferClass,
             int retry,
             boolean deleteAfterSuccessfulUpload)
             throws FileNotFoundException, BackupRestoreException;
 
+    /**
+     * Same as {@link #uploadFile(Path, Path, AbstractBackupPath, BandwidthGovernor.TransferClass,
+     * int, boolean)}, with the class of the transfer derived from the type of the file.
+     */
+    default void uploadFile(
+            Path localPath,
+            Path remotePath,
+            AbstractBackupPath path,
+            int retry,
+            boolean deleteAfterSuccessfulUpload)
+            throws FileNotFoundException, BackupRestoreException {
+        uploadFile(
+                localPath,
+                remotePath,
+                path,
+                BandwidthGovernor.TransferClass.of(path == null ? null : path.getType(), true),
+                retry,
+                deleteAfterSuccessfulUpload);
+    }
+
     /**
      * Upload the local file denoted by localPath in async fashion to the remote file system at
      * location denoted by remotePath.
@@ -93,6 +129,8 @@ public interface IBackupFileSystem {
      * @param remotePath Fully qualified path on the remote file system where file should be
      *     uploaded.
      * @param path AbstractBackupPath to be used to send backup notifications only.
+     * @param transferClass class of the transfer in the bandwidth shared by the transfers, see
+     *     {@link BandwidthGovernor}.
      * @param retry No of times to retry to upload a file. If &lt;1, it will try to upload file
      *     exactly once.
      * @param deleteAfterSuccessfulUpload If true, delete the file denoted by localPath after it is
@@ -111,10 +149,32 @@ public interface IBackupFileSystem {
             final Path localPath,
             final Path remotePath,
             final AbstractBackupPath path,
+            final BandwidthGovernor.TransferClass transferClass,
             final int retry,
             final boolean deleteAfterSuccessfulUpload)
             throws FileNotFoundException, RejectedExecutionException, BackupRestoreException;
 
+    /**
+     * Same as {@link #asyncUploadFile(Path, Path, AbstractBackupPath,
+     * BandwidthGovernor.TransferClass, int, boolean)}, with the class of the transfer derived from
+     * the type of the file.
+     */
+    default Future<Path> asyncUploadFile(
+            final Path localPath,
+            final Path remotePath,
+            final AbstractBackupPath path,
+            final int retry,
+            final boolean deleteAfterSuccessfulUpload)
+            throws FileNotFoundException, RejectedExecutionException, BackupRestoreException {
+        return asyncUploadFile(
+                localPath,
+                remotePath,
+                path,
+                BandwidthGovernor.TransferClass.of(path == null ? null : path.getType(), true),
+                retry,
+                deleteAfterSuccessfulUpload);
+    }
+
     /**
      * Get the shard where this object should be stored. For local file system this should be empty
      * or null. For S3, it would be the location of the bucket.
@@ -185,6 +245,13 @@ public interface IBackupFileSystem {
         return false;
     }
 
+    /**
+     * Reconcile the local index of the remote files, used by {@link #checkObjectExists(Path)}, with
+     * a listing of the backup version 2.0 files of this node on the remote file system. This picks
+     * up the files which were deleted or uploaded outside of Priam.
+     */
+    default void reconcileObjectIndex() {}
+
     /**
      * Delete list of remote files from the remote file system. It should throw exception if there
      * is anything wrong in processing the request. If the remotePath passed do not exist, then it
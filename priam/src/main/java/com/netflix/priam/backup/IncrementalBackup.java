@@ -16,6 +16,7 @@
  */
 package com.netflix.priam.backup;
 
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -23,24 +24,41 @@ import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
 import com.netflix.priam.backupv2.SnapshotMetaTask;
 import com.netflix.priam.config.IBackupRestoreConfig;
 import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
 import com.netflix.priam.scheduler.SimpleTimer;
 import com.netflix.priam.scheduler.TaskTimer;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Path;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /*
- * Incremental/SSTable backup
+ * Incremental/SSTable backup. By default all the backup directories are scanned every 10 seconds.
+ * If incremental backups are driven by file system notifications, then the backup directories are
+ * watched and uploaded as soon as new SSTables are linked in them, while the full scan only runs
+ * every few minutes as a safety net.
  */
 @Singleton
 public class IncrementalBackup extends AbstractBackup {
     private static final Logger logger = LoggerFactory.getLogger(IncrementalBackup.class);
     public static final String JOBNAME = "IncrementalBackup";
+    private static final int UPLOAD_LOCK_STRIPES = 1024;
     private final BackupRestoreUtil backupRestoreUtil;
     private final IBackupRestoreConfig backupRestoreConfig;
+    // Make sure that the watcher and the full scan do not upload the same directory concurrently.
+    // The locks are only kept while in use, so the directories of dropped column families do not
+    // hold on to them. Directories sharing a stripe are merely uploaded one after the other.
+    private final Striped<Lock> uploadLocks = Striped.lazyWeakLock(UPLOAD_LOCK_STRIPES);
+    private volatile BackupDirectoryWatcher watcher;
+    private ExecutorService watchExecutor;
+    private volatile long lastExecution;
 
     @Inject
     public IncrementalBackup(
@@ -59,18 +77,91 @@ public class IncrementalBackup extends AbstractBackup {
 
     @Override
     public void execute() throws Exception {
+        lastExecution = System.currentTimeMillis();
+        if (config.enableIncrementalBackupWatch()) startWatcher();
+        else stopWatcher();
         // Clearing remotePath List
         initiateBackup(INCREMENTAL_BACKUP_FOLDER, backupRestoreUtil);
     }
 
-    /** Run every 10 Sec */
+    /**
+     * Run every 10 Sec, or every {@link IConfiguration#getIncrementalBackupRescanIntervalInSec()}
+     * if the backup directories are watched.
+     */
     public static TaskTimer getTimer(
             IConfiguration config, IBackupRestoreConfig backupRestoreConfig) {
-        if (IncrementalBackup.isEnabled(config, backupRestoreConfig))
+        if (IncrementalBackup.isEnabled(config, backupRestoreConfig)) {
+            if (config.enableIncrementalBackupWatch())
+                return new SimpleTimer(
+                        JOBNAME, config.getIncrementalBackupRescanIntervalInSec() * 1000L);
             return new SimpleTimer(JOBNAME, 10L * 1000);
+        }
         return null;
     }
 
+    private synchronized void startWatcher() throws IOException {
+        if (watcher != null) return;
+        watcher = new BackupDirectoryWatcher();
+        watchExecutor = new NamedThreadPoolExecutor(1, "IncrementalBackupWatcher");
+        watchExecutor.submit(this::watch);
+        logger.info("Started watching the incremental backup directories");
+    }
+
+    /**
+     * Stop watching the backup directories, if they are watched. The files are then only uploaded
+     * by the full scan.
+     */
+    public synchronized void stopWatcher() {
+        if (watcher == null) return;
+        watchExecutor.shutdownNow();
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing the incremental backup watcher", e);
+        }
+        watcher = null;
+        watchExecutor = null;
+        logger.info("Stopped watching the incremental backup directories");
+    }
+
+    /**
+     * @return true if this task has not run for a few rescan intervals, i.e. it is no longer
+     *     scheduled, so nothing would stop the watcher otherwise.
+     */
+    private boolean isUnscheduled() {
+        long rescanIntervalMillis = config.getIncrementalBackupRescanIntervalInSec() * 1000L;
+        return System.currentTimeMillis() - lastExecution > 3 * rescanIntervalMillis;
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            BackupDirectoryWatcher current = watcher;
+            if (current == null) return;
+            if (isUnscheduled()) {
+                synchronized (this) {
+                    if (watcher == current) stopWatcher();
+                }
+                return;
+            }
+            try {
+                for (Path backupDir : current.poll(1, TimeUnit.SECONDS)) {
+                    Path columnFamilyDir = backupDir.getParent();
+                    String keyspace = columnFamilyDir.getParent().getFileName().toString();
+                    String columnFamilyDirName = columnFamilyDir.getFileName().toString();
+                    // Filtered directories are cleaned up by the full scan.
+                    if (backupRestoreUtil.isFiltered(keyspace, columnFamilyDirName)) continue;
+                    processColumnFamily(
+                            keyspace, columnFamilyDirName.split("-")[0], backupDir.toFile());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // The full scan will retry the files which could not be uploaded.
+                logger.error("Error while uploading the incremental backup files", e);
+            }
+        }
+    }
+
     private static void cleanOldBackups(IConfiguration configuration) throws Exception {
         Set<Path> backupPaths =
                 AbstractBackup.getBackupDirectories(configuration, INCREMENTAL_BACKUP_FOLDER);
@@ -115,6 +206,27 @@ public class IncrementalBackup extends AbstractBackup {
         BackupFileType fileType = BackupFileType.SST;
         if (backupRestoreConfig.enableV2Backups()) fileType = BackupFileType.SST_V2;
 
-        upload(backupDir, fileType, config.enableAsyncIncremental(), true);
+        // New backup directories are only found by the full scan, so watch them from now on.
+        BackupDirectoryWatcher current = watcher;
+        if (current != null) {
+            try {
+                current.register(backupDir.toPath());
+            } catch (ClosedWatchServiceException e) {
+                // Watching was stopped in the meantime.
+            }
+        }
+
+        Lock uploadLock = uploadLocks.get(backupDir.toPath());
+        uploadLock.lock();
+        try {
+            upload(
+                    backupDir,
+                    fileType,
+                    BandwidthGovernor.TransferClass.INCREMENTAL,
+                    config.enableAsyncIncremental(),
+                    true);
+        } finally {
+            uploadLock.unlock();
+        }
     }
 }
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.netflix.priam.compress.Chunk;
+import com.netflix.priam.compress.ChunkBufferPool;
+import com.netflix.priam.config.IConfiguration;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A backup file system which stores the objects as files under a directory on a local or network
+ * mounted (e.g. NFS) file system. The objects of a bucket are stored under
+ * <code>root/bucket/key</code>, i.e. the key layout is the same as on S3, so a backup can be copied
+ * to or from an object store as is.
+ *
+ * <p>An object is first written to a temporary file next to its final location and then atomically
+ * renamed, so, like a multipart upload on S3, an object is either visible completely or not at all.
+ * Listing returns the keys in lexicographic order and honors the prefix, delimiter and marker the
+ * same way as S3. The temporary files of uploads which never completed are removed by {@link
+ * #cleanup()}.
+ *
+ * <p>This implementation is bound as <code>@Named("localbackup")</code>, bind it as
+ * <code>@Named("backup")</code> to use it as the backup file system.
+ */
+@Singleton
+public class LocalFileSystem extends AbstractFileSystem {
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileSystem.class);
+    private static final String TEMP_SUFFIX = ".priam-upload";
+    private static final String SEPARATOR = "/";
+    private static final long STALE_UPLOAD_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final IConfiguration config;
+    private final Path root;
+    private final ChunkBufferPool chunkBufferPool;
+    private final BandwidthGovernor bandwidthGovernor;
+
+    @Inject
+    public LocalFileSystem(
+            IConfiguration config,
+            Provider<AbstractBackupPath> pathProvider,
+            RemoteObjectIndex remoteObjectIndex,
+            BandwidthGovernor bandwidthGovernor) {
+        super(config, pathProvider, remoteObjectIndex);
+        this.config = config;
+        this.bandwidthGovernor = bandwidthGovernor;
+        this.root = getRoot(config);
+        this.chunkBufferPool = new ChunkBufferPool(config.getBackupThreads());
+    }
+
+    /**
+     * @return the validated root of the backups.
+     * @throws IllegalStateException if the root is not configured or is under the data dir, where
+     *     a restore would delete the backups before reading them.
+     */
+    private static Path getRoot(IConfiguration config) {
+        if (StringUtils.isBlank(config.getLocalBackupRoot()))
+            throw new IllegalStateException(
+                    "Local backup root is not configured. Set priam.backup.local.root");
+        Path root = Paths.get(config.getLocalBackupRoot()).toAbsolutePath().normalize();
+        Path dataDir = Paths.get(config.getDataFileLocation()).toAbsolutePath().normalize();
+        if (root.startsWith(dataDir))
+            throw new IllegalStateException(
+                    String.format(
+                            "Local backup root: %s must not be under the data dir: %s",
+                            root, dataDir));
+        return root;
+    }
+
+    @Override
+    protected long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
+        Path objectPath = getObjectPath(remotePath);
+        Path tempPath =
+                objectPath.resolveSibling(
+                        objectPath.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(objectPath.getParent());
+            long compressedFileSize = 0;
+            try (InputStream in =
+                            new BufferedInputStream(new FileInputStream(localPath.toFile()));
+                    FileChannel out =
+                            FileChannel.open(
+                                    tempPath,
+                                    StandardOpenOption.CREATE_NEW,
+                                    StandardOpenOption.WRITE)) {
+                Iterator<Chunk> chunkedStream =
+                        getCompression(remotePath)
+                                .compress(in, config.getBackupChunkSize(), chunkBufferPool);
+                while (chunkedStream.hasNext()) {
+                    Chunk chunk = chunkedStream.next();
+                    try {
+                        bandwidthGovernor.acquire(transferClass, chunk.getLength());
+                        ByteBuffer buffer =
+                                ByteBuffer.wrap(chunk.getBuffer(), 0, chunk.getLength());
+                        while (buffer.hasRemaining()) out.write(buffer);
+                        compressedFileSize += chunk.getLength();
+                    } finally {
+                        chunk.release();
+                    }
+                }
+                // Make sure the data is on disk before the object becomes visible.
+                out.force(true);
+            }
+            Files.move(tempPath, objectPath, StandardCopyOption.ATOMIC_MOVE);
+            return compressedFileSize;
+        } catch (IOException | RuntimeException e) {
+            throw new BackupRestoreException(
+                    "Exception encountered uploading "
+                            + localPath
+                            + " to "
+                            + objectPath
+                            + ", Msg: "
+                            + e.getMessage(),
+                    e);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+
+    @Override
+    protected void downloadFileImpl(Path remotePath, Path localPath) throws BackupRestoreException {
+        try {
+            getCompression(remotePath)
+                    .decompressAndClose(
+                            openRemoteStream(remotePath),
+                            new BufferedOutputStream(new FileOutputStream(localPath.toFile())));
+        } catch (IOException e) {
+            throw new BackupRestoreException(
+                    "Exception encountered downloading "
+                            + remotePath
+                            + " from "
+                            + getShardRoot()
+                            + ", Msg: "
+                            + e.getMessage(),
+                    e);
+        }
+    }
+
+    @Override
+    public InputStream openRemoteStream(Path remotePath) throws BackupRestoreException {
+        Path objectPath = getObjectPath(remotePath);
+        try {
+            return bandwidthGovernor.throttle(
+                    new BufferedInputStream(Files.newInputStream(objectPath)),
+                    getTransferClass(remotePath, false));
+        } catch (IOException e) {
+            throw new BackupRestoreException("Unable to open remote file: " + objectPath, e);
+        }
+    }
+
+    @Override
+    public long getFileSize(Path remotePath) throws BackupRestoreException {
+        Path objectPath = getObjectPath(remotePath);
+        try {
+            return Files.size(objectPath);
+        } catch (IOException e) {
+            throw new BackupRestoreException("Unable to get the size of file: " + objectPath, e);
+        }
+    }
+
+    @Override
+    protected boolean doesRemoteFileExist(Path remotePath) {
+        return Files.isRegularFile(getObjectPath(remotePath));
+    }
+
+    @Override
+    protected void deleteFiles(List<Path> remotePaths) throws BackupRestoreException {
+        if (remotePaths.isEmpty()) return;
+
+        int failed = 0;
+        for (Path remotePath : remotePaths) {
+            Path objectPath = getObjectPath(remotePath);
+            try {
+                Files.deleteIfExists(objectPath);
+                deleteEmptyParents(objectPath);
+            } catch (IOException e) {
+                failed++;
+                logger.error("Error while trying to delete file: {}", objectPath, e);
+            }
+        }
+
+        if (failed > 0)
+            throw new BackupRestoreException(
+                    "Failed to delete " + failed + " of " + remotePaths.size() + " files");
+        logger.info("Deleted {} objects from {}", remotePaths.size(), getShardRoot());
+    }
+
+    /**
+     * Remove the directories which became empty after the deletion of a file, so deleted backups do
+     * not leave behind a tree of empty directories. The bucket directory itself is never removed.
+     */
+    private void deleteEmptyParents(Path objectPath) throws IOException {
+        Path shardRoot = getShardRoot();
+        for (Path dir = objectPath.getParent();
+                dir != null && dir.startsWith(shardRoot) && !dir.equals(shardRoot);
+                dir = dir.getParent()) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (DirectoryNotEmptyException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<String> listFileSystem(String prefix, String delimiter, String marker) {
+        return new ObjectKeyIterator(getShardRoot(), prefix, delimiter, marker);
+    }
+
+    /** Remove the temporary files of the uploads which were interrupted, e.g. by a restart. */
+    @Override
+    public void cleanup() {
+        if (!Files.isDirectory(root)) return;
+
+        long cutoff = System.currentTimeMillis() - STALE_UPLOAD_AGE_MS;
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)
+                        && file.toFile().lastModified() < cutoff
+                        && deleteQuietly(file)) deleted++;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error while removing stale uploads from: {}", root, e);
+        }
+        if (deleted > 0) logger.info("Removed {} stale uploads from: {}", deleted, root);
+    }
+
+    @Override
+    public void shutdown() {
+        // Nothing to release, there are no connections to a remote service.
+    }
+
+    private Path getShardRoot() {
+        return root.resolve(getShard());
+    }
+
+    private Path getObjectPath(Path remotePath) {
+        Path shardRoot = getShardRoot();
+        Path objectPath = shardRoot.resolve(remotePath.toString()).normalize();
+        if (!objectPath.startsWith(shardRoot) || objectPath.equals(shardRoot))
+            throw new IllegalArgumentException("Invalid remote path: " + remotePath);
+        return objectPath;
+    }
+
+    private static boolean deleteQuietly(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Unable to delete file: {}", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Iterates over the keys under a prefix in lexicographic order, walking the directories lazily
+     * so only one listing per directory level is held in memory. The entries of a directory are
+     * sorted on their key, with a trailing separator for sub directories, which is exactly the
+     * order of the keys of all the files under them.
+     */
+    private static class ObjectKeyIterator extends AbstractIterator<String> {
+        private final Path shardRoot;
+        private final String prefix;
+        private final String delimiter;
+        private final String marker;
+        private final Deque<Iterator<Entry>> directories = new ArrayDeque<>();
+
+        ObjectKeyIterator(Path shardRoot, String prefix, String delimiter, String marker) {
+            this.shardRoot = shardRoot;
+            this.prefix = prefix == null ? "" : prefix;
+            this.delimiter = StringUtils.isNotBlank(delimiter) ? delimiter : null;
+            this.marker = StringUtils.isNotBlank(marker) ? marker : null;
+            // Start from the deepest directory which contains all the keys with the prefix.
+            openDirectory(this.prefix.substring(0, this.prefix.lastIndexOf(SEPARATOR) + 1));
+        }
+
+        @Override
+        protected String computeNext() {
+            while (!directories.isEmpty()) {
+                Iterator<Entry> entries = directories.peek();
+                if (!entries.hasNext()) {
+                    directories.pop();
+                    continue;
+                }
+                Entry entry = entries.next();
+                if (!isCandidate(entry.key)) continue;
+                if (entry.isDirectory) openDirectory(entry.key);
+                else if (entry.key.startsWith(prefix)
+                        && (marker == null || entry.key.compareTo(marker) > 0)) return entry.key;
+            }
+            return endOfData();
+        }
+
+        /**
+         * @return false if none of the keys under the entry can be returned. For a directory the
+         *     key ends with the separator, and all the keys under it start with it.
+         */
+        private boolean isCandidate(String key) {
+            // A directory above the prefix, e.g. "a/" for the prefix "a/b", is walked.
+            if (!key.startsWith(prefix) && !prefix.startsWith(key)) return false;
+            // Like S3, keys containing the delimiter after the prefix are rolled up and are not
+            // returned as objects.
+            if (delimiter != null
+                    && key.length() > prefix.length()
+                    && key.substring(prefix.length()).contains(delimiter)) return false;
+            // All the keys under this entry are before the marker.
+            return marker == null || key.compareTo(marker) > 0 || marker.startsWith(key);
+        }
+
+        private void openDirectory(String directoryKey) {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream =
+                    Files.newDirectoryStream(shardRoot.resolve(directoryKey))) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) continue;
+                    boolean isDirectory = Files.isDirectory(path);
+                    entries.add(
+                            new Entry(
+                                    directoryKey + name + (isDirectory ? SEPARATOR : ""),
+                                    isDirectory));
+                }
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // Nothing stored under this prefix.
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.sort(Comparator.comparing(entry -> entry.key));
+            directories.push(entries.iterator());
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final boolean isDirectory;
+
+        Entry(String key, boolean isDirectory) {
+            this.key = key;
+            this.isDirectory = isDirectory;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.netflix.priam.utils.RetryableCallable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An InputStream over a remote object which fetches several byte ranges of the object at the same
+ * time and hands them back to the reader in order. At most <code>maxRangesInFlight</code> ranges of
+ * <code>rangeSize</code> bytes are held in memory at any time, so the memory used per stream is
+ * bounded irrespective of the size of the object. Each range is retried independently, so a failed
+ * read does not require the whole object to be downloaded again.
+ */
+public class ParallelRangeReadInputStream extends InputStream {
+    private static final Logger logger =
+            LoggerFactory.getLogger(ParallelRangeReadInputStream.class);
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final long fileSize;
+    private final String remotePath;
+    private final long rangeSize;
+    private final int maxRangesInFlight;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> rangesInFlight = new ArrayDeque<>();
+    private long nextRangeOffset = 0;
+    private byte[] currentRange;
+    private int currentPosition;
+    private boolean closed = false;
+
+    public ParallelRangeReadInputStream(
+            AmazonS3 s3Client,
+            String bucketName,
+            long fileSize,
+            String remotePath,
+            long rangeSize,
+            int maxRangesInFlight,
+            ExecutorService executor) {
+        if (rangeSize < 1 || rangeSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid range size: " + rangeSize);
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.fileSize = fileSize;
+        this.remotePath = remotePath;
+        this.rangeSize = rangeSize;
+        this.maxRangesInFlight = Math.max(1, maxRangesInFlight);
+        this.executor = executor;
+    }
+
+    @Override
+    public int read(final byte b[], final int off, final int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fillCurrentRange()) return -1;
+        int count = Math.min(len, currentRange.length - currentPosition);
+        System.arraycopy(currentRange, currentPosition, b, off, count);
+        currentPosition += count;
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillCurrentRange()) return -1;
+        return currentRange[currentPosition++] & 0xff;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return currentRange == null ? 0 : currentRange.length - currentPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        // Cancel the ranges which were not consumed, e.g. because of an error in the reader.
+        rangesInFlight.forEach(future -> future.cancel(true));
+        rangesInFlight.clear();
+        currentRange = null;
+    }
+
+    /**
+     * Ensure that there are bytes available to read in the current range, waiting for the next
+     * range if required, and keep the window of ranges in flight full.
+     *
+     * @return false if all the bytes of the remote object have been consumed.
+     */
+    private boolean fillCurrentRange() throws IOException {
+        if (closed) throw new IOException("Stream closed for remote file: " + remotePath);
+
+        while (currentRange == null || currentPosition >= currentRange.length) {
+            scheduleRanges();
+            Future<byte[]> next = rangesInFlight.poll();
+            if (next == null) return false;
+            currentRange = awaitRange(next);
+            currentPosition = 0;
+        }
+
+        scheduleRanges();
+        return true;
+    }
+
+    private void scheduleRanges() {
+        while (rangesInFlight.size() < maxRangesInFlight && nextRangeOffset < fileSize) {
+            final long firstByte = nextRangeOffset;
+            // need to subtract one as the call to getRange is inclusive
+            // meaning if you want to download the first 10 bytes of a file, request bytes 0..9
+            final long lastByte = Math.min(firstByte + rangeSize, fileSize) - 1;
+            rangesInFlight.add(executor.submit(() -> downloadRange(firstByte, lastByte)));
+            nextRangeOffset = lastByte + 1;
+        }
+    }
+
+    private byte[] awaitRange(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading remote file: " + remotePath, e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private byte[] downloadRange(final long firstByte, final long lastByte) throws IOException {
+        try {
+            return new RetryableCallable<byte[]>() {
+                public byte[] retriableCall() throws IOException {
+                    GetObjectRequest req = new GetObjectRequest(bucketName, remotePath);
+                    req.setRange(firstByte, lastByte);
+                    byte[] range = new byte[(int) (lastByte - firstByte + 1)];
+                    try (S3ObjectInputStream is = s3Client.getObject(req).getObjectContent()) {
+                        IOUtils.readFully(is, range);
+                    }
+                    return range;
+                }
+            }.call();
+        } catch (Exception e) {
+            String msg =
+                    String.format(
+                            "failed to read offset range %d-%d of file %s whose size is %d",
+                            firstByte, lastByte, remotePath, fileSize);
+            logger.error(msg);
+            throw new IOException(msg, e);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.IBackupRestoreConfig;
+import com.netflix.priam.config.IConfiguration;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local index of the objects known to be present on the remote file system. This allows to
+ * answer {@link IBackupFileSystem#checkObjectExists(Path)} without a call to the remote file system
+ * for every file.
+ *
+ * <p>The index is kept in memory, sorted by key, and every change is appended to a journal on local
+ * disk, so the index survives a restart of Priam. Additions are flushed to the journal in batches;
+ * losing the last few of them in a crash only costs a remote check, or an upload, again later.
+ * Removals are flushed right away, as a stale entry would make Priam skip an upload. The journal is
+ * compacted on startup and whenever it has grown much larger than the index.
+ *
+ * <p>The index is kept up to date on upload and on delete of the files through Priam and is
+ * reconciled periodically with a listing of the remote file system to catch any changes made
+ * outside of Priam. Reconciling walks the sorted listing alongside the sorted index, so it needs no
+ * memory beyond the index itself. Once a prefix has been reconciled, the index is complete for
+ * that prefix and a miss means that the object does not exist.
+ *
+ * <p>Keys are opaque strings and callers are expected to qualify them with the bucket.
+ */
+@Singleton
+public class RemoteObjectIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteObjectIndex.class);
+    private static final String ADD = "+";
+    private static final String REMOVE = "-";
+    private static final String COMPLETE = "*";
+    private static final String SEPARATOR = "\t";
+    private static final int MIN_RECORDS_TO_COMPACT = 100000;
+    private static final int MAX_UNFLUSHED_RECORDS = 1000;
+    private static final long MAX_UNFLUSHED_MILLIS = 1000;
+    public static final long UNKNOWN = -1;
+
+    private final Path journalPath;
+    private final boolean enabled;
+    private final NavigableMap<String, RemoteObject> objects = new ConcurrentSkipListMap<>();
+    private final Set<String> completePrefixes = ConcurrentHashMap.newKeySet();
+    private BufferedWriter journal;
+    private long journalRecords;
+    private int unflushedRecords;
+    private long lastFlush;
+
+    @Inject
+    public RemoteObjectIndex(IConfiguration config, IBackupRestoreConfig backupRestoreConfig) {
+        this(
+                Paths.get(config.getRemoteObjectIndexFileLoc()),
+                backupRestoreConfig.enableRemoteObjectIndex());
+    }
+
+    public RemoteObjectIndex(Path journalPath, boolean enabled) {
+        this.journalPath = journalPath;
+        this.enabled = enabled;
+        if (enabled) load();
+    }
+
+    /** @return an index which does not know about any object. */
+    public static RemoteObjectIndex disabled() {
+        return new RemoteObjectIndex(null, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param key key of the object.
+     * @return the indexed object or null if the object is not known.
+     */
+    public RemoteObject get(String key) {
+        return objects.get(key);
+    }
+
+    /**
+     * @param key key of the object.
+     * @return true if the index holds every object under a prefix of the key i.e. the object does
+     *     not exist if it is not in the index.
+     */
+    public boolean isComplete(String key) {
+        return completePrefixes.stream().anyMatch(key::startsWith);
+    }
+
+    /**
+     * Record an object which is present on the remote file system.
+     *
+     * @param key key of the object.
+     * @param size size of the object on remote file system in bytes or {@link #UNKNOWN}.
+     * @param lastModified last modified time of the file in epoch millis or {@link #UNKNOWN}.
+     */
+    public void add(String key, long size, long lastModified) {
+        if (!enabled) return;
+        synchronized (this) {
+            addRecord(key, new RemoteObject(size, lastModified, System.currentTimeMillis()));
+            if (unflushedRecords >= MAX_UNFLUSHED_RECORDS
+                    || System.currentTimeMillis() - lastFlush >= MAX_UNFLUSHED_MILLIS) flush();
+        }
+    }
+
+    /**
+     * Forget the objects which are deleted from the remote file system.
+     *
+     * @param keys keys of the objects.
+     */
+    public void remove(Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) return;
+        synchronized (this) {
+            keys.forEach(this::removeRecord);
+            flush();
+        }
+    }
+
+    /**
+     * Make the index match the listing of a prefix on the remote file system. The objects which
+     * are listed are added and the objects which are not listed are removed, unless they were
+     * added while the listing was in progress. The index is complete for the prefix afterwards.
+     *
+     * @param prefix prefix which was listed.
+     * @param listedKeys keys of all the objects under the prefix, in ascending order like the
+     *     listing of the remote file systems. If they are not, the index is not marked complete
+     *     for the prefix and some of the objects which were not listed may be kept.
+     */
+    public void reconcile(String prefix, Iterator<String> listedKeys) {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        Iterator<Map.Entry<String, RemoteObject>> indexed =
+                objects.tailMap(prefix, true).entrySet().iterator();
+        Map.Entry<String, RemoteObject> current = nextUnder(indexed, prefix);
+        String previous = null;
+        boolean sorted = true;
+        int listed = 0;
+        int added = 0;
+        int removed = 0;
+        while (listedKeys.hasNext()) {
+            String key = listedKeys.next();
+            listed++;
+            if (previous != null && previous.compareTo(key) > 0) sorted = false;
+            previous = key;
+            if (sorted) {
+                // The indexed objects before the listed key are gone from the remote file system.
+                while (current != null && current.getKey().compareTo(key) < 0) {
+                    if (removeIfStale(current, start)) removed++;
+                    current = nextUnder(indexed, prefix);
+                }
+                if (current != null && current.getKey().equals(key)) {
+                    current = nextUnder(indexed, prefix);
+                    continue;
+                }
+            }
+            if (!objects.containsKey(key)) {
+                synchronized (this) {
+                    addRecord(key, new RemoteObject(UNKNOWN, UNKNOWN, start));
+                }
+                added++;
+            }
+        }
+        while (sorted && current != null) {
+            if (removeIfStale(current, start)) removed++;
+            current = nextUnder(indexed, prefix);
+        }
+
+        synchronized (this) {
+            if (sorted && completePrefixes.add(prefix))
+                appendRecord(COMPLETE + SEPARATOR + prefix);
+            flush();
+            if (journalRecords > Math.max(MIN_RECORDS_TO_COMPACT, 2L * objects.size())) compact();
+        }
+        if (!sorted)
+            logger.warn(
+                    "Listing of prefix: {} is not sorted. Stale objects are kept in the index.",
+                    prefix);
+        logger.info(
+                "Reconciled remote object index for prefix: {}. Listed: {}, added: {}, removed: {}",
+                prefix,
+                listed,
+                added,
+                removed);
+    }
+
+    private static Map.Entry<String, RemoteObject> nextUnder(
+            Iterator<Map.Entry<String, RemoteObject>> entries, String prefix) {
+        if (!entries.hasNext()) return null;
+        Map.Entry<String, RemoteObject> entry = entries.next();
+        return entry.getKey().startsWith(prefix) ? entry : null;
+    }
+
+    /** Remove the object unless it was indexed after the listing started. */
+    private synchronized boolean removeIfStale(Map.Entry<String, RemoteObject> entry, long start) {
+        if (entry.getValue().getIndexedAt() > start
+                || !objects.remove(entry.getKey(), entry.getValue())) return false;
+        appendRecord(REMOVE + SEPARATOR + entry.getKey());
+        return true;
+    }
+
+    /** @return number of objects in the index. */
+    public int size() {
+        return objects.size();
+    }
+
+    private void addRecord(String key, RemoteObject object) {
+        objects.put(key, object);
+        addRecordToJournal(key, object);
+    }
+
+    private void removeRecord(String key) {
+        if (objects.remove(key) != null) appendRecord(REMOVE + SEPARATOR + key);
+    }
+
+    private void appendRecord(String record) {
+        if (journal == null) return;
+        try {
+            journal.write(record);
+            journal.newLine();
+            journalRecords++;
+            unflushedRecords++;
+        } catch (IOException e) {
+            // The in-memory index is still correct; only persistence across restart is lost.
+            logger.error("Unable to write to remote object index: {}", journalPath, e);
+            closeJournal();
+        }
+    }
+
+    private void flush() {
+        lastFlush = System.currentTimeMillis();
+        unflushedRecords = 0;
+        if (journal == null) return;
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            logger.error("Unable to write to remote object index: {}", journalPath, e);
+            closeJournal();
+        }
+    }
+
+    private synchronized void load() {
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader =
+                    Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) replay(line);
+            } catch (IOException e) {
+                // The index can always be rebuilt from the remote file system.
+                logger.error(
+                        "Unable to read remote object index: {}. Starting empty.", journalPath);
+                objects.clear();
+                completePrefixes.clear();
+            }
+        }
+        compact();
+        logger.info("Loaded remote object index: {} with {} objects", journalPath, objects.size());
+    }
+
+    private void replay(String line) {
+        String[] fields = line.split(SEPARATOR, 5);
+        try {
+            switch (fields[0]) {
+                case ADD:
+                    objects.put(
+                            fields[4],
+                            new RemoteObject(
+                                    Long.parseLong(fields[1]),
+                                    Long.parseLong(fields[2]),
+                                    Long.parseLong(fields[3])));
+                    break;
+                case REMOVE:
+                    objects.remove(fields[1]);
+                    break;
+                case COMPLETE:
+                    completePrefixes.add(fields[1]);
+                    break;
+                default:
+                    logger.warn("Ignoring unknown record in remote object index: {}", line);
+            }
+        } catch (RuntimeException e) {
+            // Most likely the last record was only partially written before Priam went down.
+            logger.warn("Ignoring corrupt record in remote object index: {}", line);
+        }
+    }
+
+    /** Rewrite the journal with only the current state of the index. */
+    private void compact() {
+        closeJournal();
+        Path tmp = Paths.get(journalPath + ".tmp");
+        try {
+            if (journalPath.getParent() != null) Files.createDirectories(journalPath.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                journal = writer;
+                journalRecords = 0;
+                completePrefixes.forEach(prefix -> appendRecord(COMPLETE + SEPARATOR + prefix));
+                objects.forEach(this::addRecordToJournal);
+            } finally {
+                journal = null;
+            }
+            Files.move(
+                    tmp,
+                    journalPath,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            journal =
+                    Files.newBufferedWriter(
+                            journalPath,
+                            StandardCharsets.UTF_8,
+                            StandardOpenOption.APPEND,
+                            StandardOpenOption.CREATE);
+        } catch (IOException e) {
+            logger.error(
+                    "Unable to write remote object index: {}. Index will not be persisted.",
+                    journalPath,
+                    e);
+        }
+    }
+
+    private void addRecordToJournal(String key, RemoteObject object) {
+        appendRecord(
+                String.join(
+                        SEPARATOR,
+                        ADD,
+                        Long.toString(object.getSize()),
+                        Long.toString(object.getLastModified()),
+                        Long.toString(object.getIndexedAt()),
+                        key));
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close remote object index: {}", journalPath);
+        }
+        journal = null;
+    }
+
+    /** An object present on the remote file system. */
+    public static class RemoteObject {
+        private final long size;
+        private final long lastModified;
+        private final long indexedAt;
+
+        RemoteObject(long size, long lastModified, long indexedAt) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.indexedAt = indexedAt;
+        }
+
+        /** @return size of the object on remote file system in bytes or {@link #UNKNOWN}. */
+        public long getSize() {
+            return size;
+        }
+
+        /** @return last modified time of the file in epoch millis or {@link #UNKNOWN}. */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /** @return time at which the object was added to the index in epoch millis. */
+        public long getIndexedAt() {
+            return indexedAt;
+        }
+    }
+}
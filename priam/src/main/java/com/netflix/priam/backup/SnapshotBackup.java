@@ -211,7 +211,12 @@ public class SnapshotBackup extends AbstractBackup {
         forgottenFilesManager.findAndMoveForgottenFiles(snapshotInstant, snapshotDir);
         // Add files to this dir
         abstractBackupPaths.addAll(
-                upload(snapshotDir, BackupFileType.SNAP, config.enableAsyncSnapshot(), true));
+                upload(
+                        snapshotDir,
+                        BackupFileType.SNAP,
+                        BandwidthGovernor.TransferClass.SNAPSHOT,
+                        config.enableAsyncSnapshot(),
+                        true));
     }
 
     private static boolean isValidBackupDir(Path backupDir) {
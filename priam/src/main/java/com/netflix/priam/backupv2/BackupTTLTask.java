@@ -22,6 +22,7 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.BackupRestoreException;
+import com.netflix.priam.backup.BandwidthGovernor;
 import com.netflix.priam.backup.IBackupFileSystem;
 import com.netflix.priam.backup.IFileSystemContext;
 import com.netflix.priam.backup.Status;
@@ -63,11 +64,14 @@ public class BackupTTLTask extends Task {
     private IBackupFileSystem fileSystem;
     private Provider<AbstractBackupPath> abstractBackupPathProvider;
     private InstanceState instanceState;
+    private BandwidthGovernor bandwidthGovernor;
     public static final String JOBNAME = "BackupTTLService";
-    private Map<String, Boolean> filesInMeta = new HashMap<>();
+    private FileReferenceSet filesInMeta;
     private List<Path> filesToDelete = new ArrayList<>();
     private static final Lock lock = new ReentrantLock();
     private final int BATCH_SIZE = 1000;
+    // Approximate size of a key in the response of a listing, to share the bandwidth.
+    private static final int LISTED_KEY_BYTES = 512;
     private final Instant start_of_feature = DateUtil.parseInstant("201801010000");
 
     @Inject
@@ -77,13 +81,15 @@ public class BackupTTLTask extends Task {
             @Named("v2") IMetaProxy metaProxy,
             IFileSystemContext backupFileSystemCtx,
             Provider<AbstractBackupPath> abstractBackupPathProvider,
-            InstanceState instanceState) {
+            InstanceState instanceState,
+            BandwidthGovernor bandwidthGovernor) {
         super(configuration);
         this.backupRestoreConfig = backupRestoreConfig;
         this.metaProxy = metaProxy;
         this.fileSystem = backupFileSystemCtx.getFileStrategy(configuration);
         this.abstractBackupPathProvider = abstractBackupPathProvider;
         this.instanceState = instanceState;
+        this.bandwidthGovernor = bandwidthGovernor;
     }
 
     @Override
@@ -103,7 +109,7 @@ public class BackupTTLTask extends Task {
         }
 
         try {
-            filesInMeta.clear();
+            filesInMeta = new FileReferenceSet();
             filesToDelete.clear();
 
             Instant dateToTtl =
@@ -158,8 +164,9 @@ public class BackupTTLTask extends Task {
                 }
             }
 
+            String sstPrefix = getSSTPrefix();
             Iterator<String> remoteFileLocations =
-                    fileSystem.listFileSystem(getSSTPrefix(), null, null);
+                    fileSystem.listFileSystem(sstPrefix, null, null);
 
             /*
             We really cannot delete the files until the TTL period.
@@ -176,25 +183,37 @@ public class BackupTTLTask extends Task {
                     config.getBackupRetentionDays(),
                     config.getGracePeriodDaysForCompaction());
 
+            // Keys are streamed from the remote file system and only parsed into a backup path if
+            // they are not in the expected format, so that the memory used does not grow with the
+            // number of files in the remote file system.
+            long ttlEpochMilli = dateToTtl.toEpochMilli();
             while (remoteFileLocations.hasNext()) {
-                AbstractBackupPath abstractBackupPath = abstractBackupPathProvider.get();
-                abstractBackupPath.parseRemote(remoteFileLocations.next());
+                String remotePath = remoteFileLocations.next();
+                bandwidthGovernor.acquire(BandwidthGovernor.TransferClass.TTL, LISTED_KEY_BYTES);
+                long lastModified = getLastModified(sstPrefix, remotePath);
+                if (lastModified < 0) {
+                    AbstractBackupPath abstractBackupPath = abstractBackupPathProvider.get();
+                    abstractBackupPath.parseRemote(remotePath);
+                    remotePath = abstractBackupPath.getRemotePath();
+                    lastModified = abstractBackupPath.getLastModified().toEpochMilli();
+                }
+
                 // If lastModifiedTime is after the dateToTTL, we should get out of this loop as
                 // remote file systems always give locations which are sorted.
-                if (abstractBackupPath.getLastModified().isAfter(dateToTtl)) {
+                if (lastModified > ttlEpochMilli) {
                     logger.info(
                             "Breaking from TTL. Got a key which is after the TTL time: {}",
-                            abstractBackupPath.getRemotePath());
+                            remotePath);
                     break;
                 }
 
-                if (!filesInMeta.containsKey(abstractBackupPath.getRemotePath())) {
-                    deleteFile(abstractBackupPath, false);
+                if (!filesInMeta.contains(remotePath)) {
+                    deleteFile(remotePath);
                 } else {
                     if (logger.isDebugEnabled())
                         logger.debug(
                                 "Not deleting this key as it is referenced in backups: {}",
-                                abstractBackupPath.getRemotePath());
+                                remotePath);
                 }
             }
 
@@ -203,10 +222,34 @@ public class BackupTTLTask extends Task {
 
             logger.info("Finished processing files for TTL service");
         } finally {
+            filesInMeta = null;
             lock.unlock();
         }
     }
 
+    /**
+     * Read the last modified time of an SST_V2 file directly from its remote key, i.e.
+     * SST_PREFIX/[last_modified_time_ms]/KEYSPACE/COLUMNFAMILY/...
+     *
+     * @return last modified time in epoch millis or -1 if the key is not in the expected format.
+     */
+    private static long getLastModified(String sstPrefix, String remotePath) {
+        if (!remotePath.startsWith(sstPrefix + "/")) return -1;
+        int start = sstPrefix.length() + 1;
+        int end = remotePath.indexOf('/', start);
+        if (end < 0) return -1;
+        try {
+            return Long.parseLong(remotePath.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void deleteFile(String remotePath) throws BackupRestoreException {
+        filesToDelete.add(Paths.get(remotePath));
+        if (filesToDelete.size() >= BATCH_SIZE) deleteFile(null, true);
+    }
+
     private void deleteFile(AbstractBackupPath path, boolean forceClear)
             throws BackupRestoreException {
         if (path != null) filesToDelete.add(Paths.get(path.getRemotePath()));
@@ -255,10 +298,9 @@ public class BackupTTLTask extends Task {
                                             .getSstableComponents()
                                             .forEach(
                                                     fileUploadResult ->
-                                                            filesInMeta.put(
+                                                            filesInMeta.add(
                                                                     fileUploadResult
-                                                                            .getBackupPath(),
-                                                                    null)));
+                                                                            .getBackupPath())));
         }
     }
 }
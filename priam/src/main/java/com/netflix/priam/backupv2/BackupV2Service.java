@@ -73,9 +73,16 @@ public class BackupV2Service implements IService {
                     scheduler,
                     BackupVerificationTask.class,
                     BackupVerificationTask.getTimer(backupRestoreConfig));
+
+            // Schedule the reconciliation of the local index of remote file system
+            scheduleTask(
+                    scheduler,
+                    RemoteObjectIndexTask.class,
+                    RemoteObjectIndexTask.getTimer(backupRestoreConfig));
         } else {
             scheduler.deleteTask(BackupTTLTask.JOBNAME);
             scheduler.deleteTask(BackupVerificationTask.JOBNAME);
+            scheduler.deleteTask(RemoteObjectIndexTask.JOBNAME);
         }
 
         // Start the Incremental backup schedule if enabled
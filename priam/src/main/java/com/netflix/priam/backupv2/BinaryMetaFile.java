@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backupv2;
+
+import com.google.common.io.CountingOutputStream;
+import com.netflix.priam.compress.ICompression;
+import com.netflix.priam.cryptography.IFileCryptography;
+import com.netflix.priam.utils.GsonJsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.xerial.snappy.Snappy;
+
+/**
+ * A compact binary encoding of the meta file, as an alternative to JSON for clusters with a large
+ * number of SSTables. The layout is:
+ *
+ * <pre>
+ * header:  MAGIC, format version (int), length prefixed {@link MetaFileInfo} as JSON
+ * data:    for every columnfamily: 1 (byte), length (int), snappy compressed columnfamily
+ *          0 (byte) after the last columnfamily
+ * index:   number of columnfamilies (int), for every columnfamily: keyspace (UTF),
+ *          columnfamily (UTF), offset of its length (long), length (int)
+ * footer:  offset of the index (long), MAGIC
+ * </pre>
+ *
+ * The columnfamilies can be streamed one at a time from the start of the file, or a single
+ * columnfamily can be read directly using the index at the end of the file.
+ */
+public class BinaryMetaFile {
+    private static final byte[] MAGIC = "PRIAMMV2".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int FOOTER_LENGTH = Long.BYTES + MAGIC.length;
+    private static final byte MORE_DATA = 1;
+    private static final byte END_OF_DATA = 0;
+
+    private BinaryMetaFile() {}
+
+    /**
+     * @param metaFilePath local meta file.
+     * @return true if the file is a binary meta file, false if it is a JSON meta file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isBinaryMetaFile(Path metaFilePath) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(metaFilePath)) {
+            int read = 0;
+            while (read < magic.length) {
+                int count = in.read(magic, read, magic.length - read);
+                if (count < 0) return false;
+                read += count;
+            }
+        }
+        return Arrays.equals(MAGIC, magic);
+    }
+
+    /** Writes a binary meta file, one columnfamily at a time. */
+    public static class Writer implements Closeable {
+        private final CountingOutputStream counter;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final DataOutputStream blockOut = new DataOutputStream(block);
+        private final List<IndexEntry> index = new ArrayList<>();
+        private boolean finished = false;
+
+        public Writer(Path metaFilePath, MetaFileInfo metaFileInfo) throws IOException {
+            counter =
+                    new CountingOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(metaFilePath.toFile())));
+            out = new DataOutputStream(counter);
+            out.write(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            byte[] info = metaFileInfo.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(info.length);
+            out.write(info);
+        }
+
+        public void addColumnfamilyResult(ColumnfamilyResult columnfamilyResult)
+                throws IOException {
+            block.reset();
+            writeColumnfamilyResult(blockOut, columnfamilyResult);
+            blockOut.flush();
+            byte[] compressed = Snappy.compress(block.toByteArray());
+            out.writeByte(MORE_DATA);
+            index.add(
+                    new IndexEntry(
+                            columnfamilyResult.getKeyspaceName(),
+                            columnfamilyResult.getColumnfamilyName(),
+                            counter.getCount(),
+                            compressed.length));
+            out.writeInt(compressed.length);
+            out.write(compressed);
+        }
+
+        /** Write the index and the footer. The file is closed. */
+        public void finish() throws IOException {
+            out.writeByte(END_OF_DATA);
+            long indexOffset = counter.getCount();
+            out.writeInt(index.size());
+            for (IndexEntry entry : index) {
+                out.writeUTF(entry.keyspace);
+                out.writeUTF(entry.columnfamily);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+            }
+            out.writeLong(indexOffset);
+            out.write(MAGIC);
+            finished = true;
+            out.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // A file closed without finish() has no index and is not a valid meta file.
+            if (!finished) out.close();
+        }
+    }
+
+    /**
+     * Stream all the columnfamilies of the binary meta file.
+     *
+     * @param metaFilePath local meta file.
+     * @param reader gets the {@link MetaFileInfo} and then all the columnfamilies in the file.
+     * @throws IOException if the file cannot be read or is not a valid binary meta file.
+     */
+    public static void read(Path metaFilePath, MetaFileReader reader) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(metaFilePath)))) {
+            reader.setMetaFileInfo(readHeader(in, metaFilePath));
+            byte[] compressed = new byte[0];
+            byte[] uncompressed = new byte[0];
+            while (in.readByte() == MORE_DATA) {
+                int length = in.readInt();
+                if (compressed.length < length) compressed = new byte[length];
+                in.readFully(compressed, 0, length);
+                int uncompressedLength = Snappy.uncompressedLength(compressed, 0, length);
+                if (uncompressed.length < uncompressedLength)
+                    uncompressed = new byte[uncompressedLength];
+                Snappy.uncompress(compressed, 0, length, uncompressed, 0);
+                reader.process(
+                        readColumnfamilyResult(
+                                new DataInputStream(
+                                        new ByteArrayInputStream(
+                                                uncompressed, 0, uncompressedLength))));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated meta file: " + metaFilePath, e);
+        }
+    }
+
+    /**
+     * Read a single columnfamily of the binary meta file using the index, without reading the
+     * others.
+     *
+     * @param metaFilePath local meta file.
+     * @param keyspace name of the keyspace.
+     * @param columnfamily name of the columnfamily.
+     * @return the columnfamily, or empty if it is not in the meta file.
+     * @throws IOException if the file cannot be read or is not a valid binary meta file.
+     */
+    public static Optional<ColumnfamilyResult> readColumnfamily(
+            Path metaFilePath, String keyspace, String columnfamily) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(metaFilePath.toFile(), "r")) {
+            if (file.length() < MAGIC.length + FOOTER_LENGTH)
+                throw new IOException("Truncated meta file: " + metaFilePath);
+            file.seek(file.length() - FOOTER_LENGTH);
+            long indexOffset = file.readLong();
+            checkMagic(file, metaFilePath);
+
+            // Read the whole index at once, as RandomAccessFile is not buffered.
+            long indexLength = file.length() - FOOTER_LENGTH - indexOffset;
+            if (indexOffset < MAGIC.length || indexLength < Integer.BYTES)
+                throw new IOException("Invalid index in the meta file: " + metaFilePath);
+            byte[] indexBytes = new byte[(int) indexLength];
+            file.seek(indexOffset);
+            file.readFully(indexBytes);
+            DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+            int entries = index.readInt();
+            for (int i = 0; i < entries; i++) {
+                String entryKeyspace = index.readUTF();
+                String entryColumnfamily = index.readUTF();
+                long offset = index.readLong();
+                int length = index.readInt();
+                if (!entryKeyspace.equals(keyspace) || !entryColumnfamily.equals(columnfamily))
+                    continue;
+
+                byte[] compressed = new byte[length];
+                file.seek(offset + Integer.BYTES);
+                file.readFully(compressed);
+                return Optional.of(
+                        readColumnfamilyResult(
+                                new DataInputStream(
+                                        new ByteArrayInputStream(Snappy.uncompress(compressed)))));
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static MetaFileInfo readHeader(DataInputStream in, Path metaFilePath)
+            throws IOException {
+        checkMagic(in, metaFilePath);
+        int version = in.readInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException(
+                    "Unsupported version " + version + " of the meta file: " + metaFilePath);
+        byte[] info = new byte[in.readInt()];
+        in.readFully(info);
+        return GsonJsonSerializer.getGson()
+                .fromJson(new String(info, StandardCharsets.UTF_8), MetaFileInfo.class);
+    }
+
+    private static void checkMagic(DataInput in, Path metaFilePath) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic))
+            throw new IOException("Not a binary meta file: " + metaFilePath);
+    }
+
+    private static void writeColumnfamilyResult(DataOutput out, ColumnfamilyResult result)
+            throws IOException {
+        out.writeUTF(result.getKeyspaceName());
+        out.writeUTF(result.getColumnfamilyName());
+        List<ColumnfamilyResult.SSTableResult> sstables = result.getSstables();
+        out.writeInt(sstables == null ? 0 : sstables.size());
+        if (sstables == null) return;
+        for (ColumnfamilyResult.SSTableResult sstable : sstables) {
+            writeNullableString(out, sstable.getPrefix());
+            List<FileUploadResult> components = sstable.getSstableComponents();
+            out.writeInt(components == null ? 0 : components.size());
+            if (components == null) continue;
+            for (FileUploadResult component : components) {
+                out.writeUTF(component.getFileName().toString());
+                writeNullableInstant(out, component.getLastModifiedTime());
+                writeNullableInstant(out, component.getFileCreationTime());
+                out.writeLong(component.getFileSizeOnDisk());
+                Boolean uploaded = component.getUploaded();
+                out.writeByte(uploaded == null ? -1 : (uploaded ? 1 : 0));
+                out.writeUTF(component.getCompression().name());
+                out.writeUTF(component.getEncryption().name());
+                writeNullableString(out, component.getBackupPath());
+            }
+        }
+    }
+
+    private static ColumnfamilyResult readColumnfamilyResult(DataInput in) throws IOException {
+        String keyspace = in.readUTF();
+        String columnfamily = in.readUTF();
+        ColumnfamilyResult result = new ColumnfamilyResult(keyspace, columnfamily);
+        int sstables = in.readInt();
+        for (int i = 0; i < sstables; i++) {
+            ColumnfamilyResult.SSTableResult sstable = new ColumnfamilyResult.SSTableResult();
+            sstable.setPrefix(readNullableString(in));
+            int componentCount = in.readInt();
+            List<FileUploadResult> components = new ArrayList<>(componentCount);
+            for (int j = 0; j < componentCount; j++) {
+                Path fileName = Paths.get(in.readUTF());
+                Instant lastModifiedTime = readNullableInstant(in);
+                Instant fileCreationTime = readNullableInstant(in);
+                FileUploadResult component =
+                        new FileUploadResult(
+                                fileName,
+                                keyspace,
+                                columnfamily,
+                                lastModifiedTime,
+                                fileCreationTime,
+                                in.readLong());
+                byte uploaded = in.readByte();
+                component.setUploaded(uploaded < 0 ? null : uploaded == 1);
+                component.setCompression(ICompression.CompressionAlgorithm.valueOf(in.readUTF()));
+                component.setEncryption(
+                        IFileCryptography.CryptographyAlgorithm.valueOf(in.readUTF()));
+                component.setBackupPath(readNullableString(in));
+                components.add(component);
+            }
+            sstable.setSstableComponents(components);
+            result.addSstable(sstable);
+        }
+        return result;
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Same precision as the JSON meta file.
+    private static void writeNullableInstant(DataOutput out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value.toEpochMilli());
+    }
+
+    private static Instant readNullableInstant(DataInput in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochMilli(in.readLong()) : null;
+    }
+
+    private static class IndexEntry {
+        private final String keyspace;
+        private final String columnfamily;
+        private final long offset;
+        private final int length;
+
+        IndexEntry(String keyspace, String columnfamily, long offset, int length) {
+            this.keyspace = keyspace;
+            this.columnfamily = columnfamily;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
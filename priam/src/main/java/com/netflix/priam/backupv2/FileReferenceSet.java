@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backupv2;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A memory compact set of remote file paths. Only a 64 bit hash of every path is kept in a sorted
+ * primitive array, so each path takes 8 bytes of heap irrespective of its length and no object is
+ * allocated per path. A meta file referencing millions of files thus fits in a few megabytes.
+ *
+ * <p>As only the hash is kept, {@link #contains(String)} can return true for a path which was never
+ * added if its hash collides with one of the added paths. The probability of that is negligible
+ * but callers must only use this set where such a false positive is safe, e.g. to find the files
+ * which must be retained.
+ */
+public class FileReferenceSet {
+    private static final HashFunction hashFunction = Hashing.murmur3_128();
+    private long[] hashes = new long[1024];
+    private int size = 0;
+    private boolean sorted = true;
+
+    public void add(String path) {
+        if (size == hashes.length) hashes = Arrays.copyOf(hashes, size * 2);
+        hashes[size++] = hash(path);
+        sorted = false;
+    }
+
+    public boolean contains(String path) {
+        sort();
+        return Arrays.binarySearch(hashes, 0, size, hash(path)) >= 0;
+    }
+
+    /** @return the number of distinct paths in the set. */
+    public int size() {
+        sort();
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void sort() {
+        if (sorted) return;
+        Arrays.sort(hashes, 0, size);
+        // Remove the duplicates as the same file can be referenced more than once.
+        int distinct = 0;
+        for (int i = 0; i < size; i++)
+            if (distinct == 0 || hashes[i] != hashes[distinct - 1]) hashes[distinct++] = hashes[i];
+        size = distinct;
+        sorted = true;
+    }
+
+    private static long hash(String path) {
+        return hashFunction.hashString(path, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -36,7 +36,7 @@ public class FileUploadResult {
     private final Instant fileCreationTime;
     private final long fileSizeOnDisk; // Size on disk in bytes
     private Boolean isUploaded;
-    // Valid compression technique for now is SNAPPY only. Future we need to support LZ4 and NONE
+    // Compression used for the file. Configured via IConfiguration#getBackupCompression.
     private ICompression.CompressionAlgorithm compression =
             ICompression.CompressionAlgorithm.SNAPPY;
     // Valid encryption technique for now is PLAINTEXT only. In future we will support pgp and more.
@@ -23,7 +23,10 @@ import com.netflix.priam.backup.BackupVerificationResult;
 import com.netflix.priam.utils.DateUtil;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /** Proxy to do management tasks for meta files. Created by aagrawal on 12/18/18. */
 public interface IMetaProxy {
@@ -72,6 +75,21 @@ public interface IMetaProxy {
      */
     List<String> getSSTFilesFromMeta(Path localMetaPath) throws Exception;
 
+    /**
+     * Same as {@link #getSSTFilesFromMeta(Path)} but with the size of the sstable components, so
+     * they do not have to be looked up on the remote file system.
+     *
+     * @param localMetaPath location of the manifest file on disk.
+     * @return map of the remote locations of the sstable components, in the order of the manifest,
+     *     to their size on disk in bytes or 0 if the manifest does not record it.
+     * @throws Exception if file is not found on local system or is corrupt.
+     */
+    default Map<String, Long> getSSTFileSizesFromMeta(Path localMetaPath) throws Exception {
+        Map<String, Long> fileSizes = new LinkedHashMap<>();
+        for (String remotePath : getSSTFilesFromMeta(localMetaPath)) fileSizes.put(remotePath, 0L);
+        return fileSizes;
+    }
+
     /**
      * Get the list of incremental files given the daterange.
      *
@@ -82,6 +100,31 @@ public interface IMetaProxy {
     Iterator<AbstractBackupPath> getIncrementals(DateUtil.DateRange dateRange)
             throws BackupRestoreException;
 
+    /**
+     * Same as {@link #getIncrementals(DateUtil.DateRange)}, but resuming after a file returned by
+     * an earlier listing, so a caller can page through the incremental files without listing them
+     * all again.
+     *
+     * @param dateRange the time period to scan in the remote file system for incremental files.
+     * @param marker remote path of the last incremental file already seen, or null to list from
+     *     the start.
+     * @return iterator containing the list of path on the remote file system satisfying criteria,
+     *     after the marker.
+     * @throws BackupRestoreException if there is an issue contacting remote file system.
+     * @throws IllegalArgumentException if the marker is not one of the incremental files in the
+     *     date range.
+     */
+    default Iterator<AbstractBackupPath> getIncrementals(
+            DateUtil.DateRange dateRange, String marker) throws BackupRestoreException {
+        Iterator<AbstractBackupPath> incrementals = getIncrementals(dateRange);
+        if (marker == null) return incrementals;
+        // The listing cannot be resumed, skip the files already seen.
+        while (incrementals.hasNext())
+            if (marker.equals(incrementals.next().getRemotePath())) return incrementals;
+        // Nothing tells which files were seen, returning none would silently end the listing.
+        throw new IllegalArgumentException("Incremental file not found: " + marker);
+    }
+
     /**
      * Validate that all the files mentioned in the meta file actually exists on remote file system.
      *
@@ -92,6 +135,22 @@ public interface IMetaProxy {
      */
     BackupVerificationResult isMetaFileValid(AbstractBackupPath metaBackupPath);
 
+    /**
+     * Find the first valid meta file from the list of candidates.
+     *
+     * @param metas candidate meta files sorted by preference, newest first.
+     * @return the first meta file in the list for which {@link #isMetaFileValid} is true, if any.
+     */
+    default Optional<AbstractBackupPath> findLatestValidMetaFile(List<AbstractBackupPath> metas) {
+        for (AbstractBackupPath meta : metas) {
+            if (isMetaFileValid(meta).valid) return Optional.of(meta);
+        }
+        return Optional.empty();
+    }
+
     /** Delete the old meta files, if any present in the metaFileDirectory */
     void cleanupOldMetaFiles();
+
+    /** Stop the threads, if any, used by the proxy. The proxy cannot be used afterwards. */
+    default void shutdown() {}
 }
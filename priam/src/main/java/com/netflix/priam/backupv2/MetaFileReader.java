@@ -23,6 +23,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,10 @@ public abstract class MetaFileReader {
         return metaFileInfo;
     }
 
+    void setMetaFileInfo(MetaFileInfo metaFileInfo) {
+        this.metaFileInfo = metaFileInfo;
+    }
+
     /**
      * Reads the local meta file as denoted by metaFilePath.
      *
@@ -57,6 +62,11 @@ public abstract class MetaFileReader {
 
         // Read the meta file.
         logger.info("Trying to read the meta file: {}", metaFilePath);
+        if (BinaryMetaFile.isBinaryMetaFile(metaFilePath)) {
+            BinaryMetaFile.read(metaFilePath, this);
+            logger.info("Finished reading the binary meta file: {}", metaFilePath);
+            return;
+        }
         JsonReader jsonReader = new JsonReader(new FileReader(metaFilePath.toFile()));
         jsonReader.beginObject();
         while (jsonReader.hasNext()) {
@@ -79,6 +89,34 @@ public abstract class MetaFileReader {
         logger.info("Finished reading the meta file: {}", metaFilePath);
     }
 
+    /**
+     * Read the entry of a single columnfamily from the local meta file. This uses the index of a
+     * binary meta file, and has to go through the whole file if it is a JSON meta file.
+     *
+     * @param metaFilePath local file path for the meta file.
+     * @param keyspace name of the keyspace.
+     * @param columnfamily name of the columnfamily.
+     * @return the columnfamily result, or empty if the columnfamily is not in the meta file.
+     * @throws IOException if not enough permissions or file is not valid format.
+     */
+    public static Optional<ColumnfamilyResult> readColumnfamily(
+            Path metaFilePath, String keyspace, String columnfamily) throws IOException {
+        if (BinaryMetaFile.isBinaryMetaFile(metaFilePath))
+            return BinaryMetaFile.readColumnfamily(metaFilePath, keyspace, columnfamily);
+
+        final ColumnfamilyResult[] found = new ColumnfamilyResult[1];
+        new MetaFileReader() {
+            @Override
+            public void process(ColumnfamilyResult columnfamilyResult) {
+                if (found[0] == null
+                        && columnfamilyResult.getKeyspaceName().equals(keyspace)
+                        && columnfamilyResult.getColumnfamilyName().equals(columnfamily))
+                    found[0] = columnfamilyResult;
+            }
+        }.readMeta(metaFilePath);
+        return Optional.ofNullable(found[0]);
+    }
+
     /**
      * Process the columnfamily result obtained after reading meta file.
      *
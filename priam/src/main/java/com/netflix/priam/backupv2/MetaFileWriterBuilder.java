@@ -21,6 +21,7 @@ import com.google.inject.Provider;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.IBackupFileSystem;
 import com.netflix.priam.backup.IFileSystemContext;
+import com.netflix.priam.config.IBackupRestoreConfig;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.InstanceIdentity;
 import java.io.FileWriter;
@@ -40,8 +41,9 @@ import org.slf4j.LoggerFactory;
  * that were there on the file system. This will write the meta.json file as a JSON blob. NOTE: We
  * want to ensure that it is done via streaming JSON write to ensure we do not consume memory to
  * load all these objects in memory. With multi-tenant clusters or LCS enabled on large number of
- * CF's it is easy to have 1000's of SSTables (thus 1000's of SSTable components) across CF's.
- * Created by aagrawal on 6/12/18.
+ * CF's it is easy to have 1000's of SSTables (thus 1000's of SSTable components) across CF's. If
+ * {@link IBackupRestoreConfig#enableBinaryMetaFile()} is set, the meta file is written in the
+ * format of {@link BinaryMetaFile} instead, under the same name. Created by aagrawal on 6/12/18.
  */
 public class MetaFileWriterBuilder {
     private final MetaFileWriter metaFileWriter;
@@ -80,13 +82,16 @@ public class MetaFileWriterBuilder {
 
         private final MetaFileInfo metaFileInfo;
         private final IMetaProxy metaProxy;
+        private final boolean binaryMetaFile;
         private JsonWriter jsonWriter;
+        private BinaryMetaFile.Writer binaryWriter;
         private Instant snapshotInstant;
         private Path metaFilePath;
 
         @Inject
         private MetaFileWriter(
                 IConfiguration configuration,
+                IBackupRestoreConfig backupRestoreConfig,
                 InstanceIdentity instanceIdentity,
                 Provider<AbstractBackupPath> pathFactory,
                 IFileSystemContext backupFileSystemCtx,
@@ -94,6 +99,7 @@ public class MetaFileWriterBuilder {
             this.pathFactory = pathFactory;
             this.backupFileSystem = backupFileSystemCtx.getFileStrategy(configuration);
             this.metaProxy = metaProxy;
+            this.binaryMetaFile = backupRestoreConfig.enableBinaryMetaFile();
             List<String> backupIdentifier = new ArrayList<>();
             backupIdentifier.add(instanceIdentity.getInstance().getToken());
             metaFileInfo =
@@ -119,6 +125,10 @@ public class MetaFileWriterBuilder {
 
             logger.info("Starting to write a new meta file: {}", metaFilePath);
 
+            if (binaryMetaFile) {
+                binaryWriter = new BinaryMetaFile.Writer(tempMetaFilePath, metaFileInfo);
+                return this;
+            }
             jsonWriter = new JsonWriter(new FileWriter(tempMetaFilePath.toFile()));
             jsonWriter.beginObject();
             jsonWriter.name(MetaFileInfo.META_FILE_INFO);
@@ -137,13 +147,14 @@ public class MetaFileWriterBuilder {
          */
         public MetaFileWriterBuilder.DataStep addColumnfamilyResult(
                 ColumnfamilyResult columnfamilyResult) throws IOException {
-            if (jsonWriter == null)
+            if (jsonWriter == null && binaryWriter == null)
                 throw new NullPointerException(
                         "addColumnfamilyResult: Json Writer in MetaFileWriter is null. This should not happen!");
             if (columnfamilyResult == null)
                 throw new NullPointerException(
                         "Column family result is null in MetaFileWriter. This should not happen!");
-            jsonWriter.jsonValue(columnfamilyResult.toString());
+            if (binaryWriter != null) binaryWriter.addColumnfamilyResult(columnfamilyResult);
+            else jsonWriter.jsonValue(columnfamilyResult.toString());
             return this;
         }
 
@@ -154,13 +165,17 @@ public class MetaFileWriterBuilder {
          * @throws IOException if unable to write to file or if JSON is not valid
          */
         public MetaFileWriterBuilder.UploadStep endMetaFileGeneration() throws IOException {
-            if (jsonWriter == null)
+            if (jsonWriter == null && binaryWriter == null)
                 throw new NullPointerException(
                         "endMetaFileGeneration: Json Writer in MetaFileWriter is null. This should not happen!");
 
-            jsonWriter.endArray();
-            jsonWriter.endObject();
-            jsonWriter.close();
+            if (binaryWriter != null) {
+                binaryWriter.finish();
+            } else {
+                jsonWriter.endArray();
+                jsonWriter.endObject();
+                jsonWriter.close();
+            }
 
             Path tempMetaFilePath =
                     Paths.get(
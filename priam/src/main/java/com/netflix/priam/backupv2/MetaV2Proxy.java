@@ -19,7 +19,9 @@ package com.netflix.priam.backupv2;
 
 import com.google.inject.Provider;
 import com.netflix.priam.backup.*;
+import com.netflix.priam.config.IBackupRestoreConfig;
 import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
 import com.netflix.priam.utils.DateUtil;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -27,7 +29,11 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import org.apache.commons.collections4.iterators.FilterIterator;
 import org.apache.commons.collections4.iterators.TransformIterator;
 import org.apache.commons.io.FileUtils;
@@ -38,20 +44,44 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /** Do any management task for meta files. Created by aagrawal on 8/2/18. */
+@Singleton
 public class MetaV2Proxy implements IMetaProxy {
     private static final Logger logger = LoggerFactory.getLogger(MetaV2Proxy.class);
     private final Path metaFileDirectory;
     private final IBackupFileSystem fs;
     private final Provider<AbstractBackupPath> abstractBackupPathProvider;
+    private final int maxChecksInFlight;
+    private final int metaValidationConcurrency;
+    private final ExecutorService objectCheckExecutor;
+    private final ExecutorService metaValidationExecutor;
 
     @Inject
     MetaV2Proxy(
             IConfiguration configuration,
+            IBackupRestoreConfig backupRestoreConfig,
             IFileSystemContext backupFileSystemCtx,
             Provider<AbstractBackupPath> abstractBackupPathProvider) {
         fs = backupFileSystemCtx.getFileStrategy(configuration);
         this.abstractBackupPathProvider = abstractBackupPathProvider;
         metaFileDirectory = Paths.get(configuration.getDataFileLocation());
+        maxChecksInFlight = Math.max(1, backupRestoreConfig.getMetaValidationThreads());
+        metaValidationConcurrency = Math.max(1, backupRestoreConfig.getMetaValidationConcurrency());
+        // Candidate validations wait on the existence checks, so they need their own pool. The
+        // pools are only busy while validating, so their (daemon) threads exit when idle.
+        objectCheckExecutor = newIdlePool(maxChecksInFlight, "MetaObjectCheck");
+        metaValidationExecutor = newIdlePool(metaValidationConcurrency, "MetaValidation");
+    }
+
+    private static ExecutorService newIdlePool(int threads, String name) {
+        NamedThreadPoolExecutor executor = new NamedThreadPoolExecutor(threads, name);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void shutdown() {
+        objectCheckExecutor.shutdownNow();
+        metaValidationExecutor.shutdownNow();
     }
 
     @Override
@@ -81,11 +111,21 @@ public class MetaV2Proxy implements IMetaProxy {
     @Override
     public Iterator<AbstractBackupPath> getIncrementals(DateUtil.DateRange dateRange)
             throws BackupRestoreException {
+        return getIncrementals(dateRange, null);
+    }
+
+    @Override
+    public Iterator<AbstractBackupPath> getIncrementals(
+            DateUtil.DateRange dateRange, String lastSeen) throws BackupRestoreException {
         String incrementalPrefix = getMatch(dateRange, AbstractBackupPath.BackupFileType.SST_V2);
+        // The remote file system lists in the order of the paths, so resume after the last one
+        // seen.
         String marker =
-                getMatch(
-                        new DateUtil.DateRange(dateRange.getStartTime(), null),
-                        AbstractBackupPath.BackupFileType.SST_V2);
+                lastSeen != null
+                        ? lastSeen
+                        : getMatch(
+                                new DateUtil.DateRange(dateRange.getStartTime(), null),
+                                AbstractBackupPath.BackupFileType.SST_V2);
         logger.info(
                 "Listing filesystem with prefix: {}, marker: {}, daterange: {}",
                 incrementalPrefix,
@@ -186,6 +226,13 @@ public class MetaV2Proxy implements IMetaProxy {
         return metaFileBackupWalker.backupRemotePaths;
     }
 
+    @Override
+    public Map<String, Long> getSSTFileSizesFromMeta(Path localMetaPath) throws Exception {
+        MetaFileBackupWalker metaFileBackupWalker = new MetaFileBackupWalker();
+        metaFileBackupWalker.readMeta(localMetaPath);
+        return metaFileBackupWalker.backupFileSizes;
+    }
+
     @Override
     public BackupVerificationResult isMetaFileValid(AbstractBackupPath metaBackupPath) {
         MetaFileBackupValidator metaFileBackupValidator = new MetaFileBackupValidator();
@@ -198,8 +245,7 @@ public class MetaV2Proxy implements IMetaProxy {
             metaFile = downloadMetaFile(metaBackupPath);
             result.manifestAvailable = true;
 
-            metaFileBackupValidator.readMeta(metaFile);
-            result.valid = (result.filesInMetaOnly.isEmpty());
+            metaFileBackupValidator.validate(metaFile);
         } catch (FileNotFoundException fne) {
             logger.error(fne.getLocalizedMessage());
         } catch (IOException ioe) {
@@ -214,26 +260,116 @@ public class MetaV2Proxy implements IMetaProxy {
         return result;
     }
 
+    /**
+     * Validates the candidate meta files a few at a time, newest first. The candidates are
+     * validated concurrently, but the result is the same as validating them one after the other:
+     * the first valid meta file in the list is returned and the validations of the older candidates
+     * still in progress are cancelled.
+     */
+    @Override
+    public Optional<AbstractBackupPath> findLatestValidMetaFile(List<AbstractBackupPath> metas) {
+        if (metaValidationConcurrency == 1 || metas.size() <= 1)
+            return IMetaProxy.super.findLatestValidMetaFile(metas);
+
+        Iterator<AbstractBackupPath> candidates = metas.iterator();
+        Deque<AbstractBackupPath> metasInFlight = new ArrayDeque<>();
+        Deque<Future<BackupVerificationResult>> validationsInFlight = new ArrayDeque<>();
+        try {
+            while (candidates.hasNext() || !validationsInFlight.isEmpty()) {
+                while (candidates.hasNext()
+                        && validationsInFlight.size() < metaValidationConcurrency) {
+                    AbstractBackupPath candidate = candidates.next();
+                    metasInFlight.add(candidate);
+                    validationsInFlight.add(
+                            metaValidationExecutor.submit(() -> isMetaFileValid(candidate)));
+                }
+
+                AbstractBackupPath meta = metasInFlight.poll();
+                try {
+                    if (validationsInFlight.poll().get().valid) return Optional.of(meta);
+                } catch (ExecutionException e) {
+                    logger.error("Error while validating the meta file: {}", meta, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while validating the meta files");
+        } finally {
+            validationsInFlight.forEach(future -> future.cancel(true));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks the existence of the files referenced by the meta file using the shared pool, with at
+     * most <code>maxChecksInFlight</code> checks in flight for this meta file. The first missing
+     * file makes the meta file invalid, so no new checks are started after that and the result
+     * only lists the missing files found until then.
+     */
     private class MetaFileBackupValidator extends MetaFileReader {
-        private BackupVerificationResult verificationResult = new BackupVerificationResult();
+        private final BackupVerificationResult verificationResult = new BackupVerificationResult();
+        private final Semaphore checksInFlight = new Semaphore(maxChecksInFlight);
+        private final AtomicInteger filesMatched = new AtomicInteger();
+        private final Queue<String> filesInMetaOnly = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+        void validate(Path metaFile) throws IOException {
+            try {
+                readMeta(metaFile);
+            } finally {
+                // Wait for the checks in flight to finish.
+                checksInFlight.acquireUninterruptibly(maxChecksInFlight);
+                checksInFlight.release(maxChecksInFlight);
+                verificationResult.filesMatched = filesMatched.get();
+                verificationResult.filesInMetaOnly = new ArrayList<>(filesInMetaOnly);
+            }
+            verificationResult.valid = !stopped.get();
+        }
 
         @Override
         public void process(ColumnfamilyResult columnfamilyResult) {
             for (ColumnfamilyResult.SSTableResult ssTableResult :
                     columnfamilyResult.getSstables()) {
                 for (FileUploadResult fileUploadResult : ssTableResult.getSstableComponents()) {
-                    if (fs.checkObjectExists(Paths.get(fileUploadResult.getBackupPath()))) {
-                        verificationResult.filesMatched++;
-                    } else {
-                        verificationResult.filesInMetaOnly.add(fileUploadResult.getBackupPath());
+                    if (Thread.currentThread().isInterrupted()) stopped.set(true);
+                    if (stopped.get()) return;
+                    checksInFlight.acquireUninterruptibly();
+                    try {
+                        objectCheckExecutor.submit(() -> checkObject(fileUploadResult));
+                    } catch (RejectedExecutionException e) {
+                        checksInFlight.release();
+                        throw e;
                     }
                 }
             }
         }
+
+        private void checkObject(FileUploadResult fileUploadResult) {
+            try {
+                if (stopped.get()) return;
+                if (fs.checkObjectExists(Paths.get(fileUploadResult.getBackupPath()))) {
+                    filesMatched.incrementAndGet();
+                    return;
+                }
+                filesInMetaOnly.add(fileUploadResult.getBackupPath());
+                stopped.set(true);
+            } catch (Exception e) {
+                logger.error(
+                        "Error while checking the remote file: {}",
+                        fileUploadResult.getBackupPath(),
+                        e);
+                filesInMetaOnly.add(fileUploadResult.getBackupPath());
+                stopped.set(true);
+            } finally {
+                // Only after the result is recorded, as validate() reads it once all are released.
+                checksInFlight.release();
+            }
+        }
     }
 
     private class MetaFileBackupWalker extends MetaFileReader {
         private List<String> backupRemotePaths = new ArrayList<>();
+        private Map<String, Long> backupFileSizes = new LinkedHashMap<>();
 
         @Override
         public void process(ColumnfamilyResult columnfamilyResult) {
@@ -241,6 +377,8 @@ public class MetaV2Proxy implements IMetaProxy {
                     columnfamilyResult.getSstables()) {
                 for (FileUploadResult fileUploadResult : ssTableResult.getSstableComponents()) {
                     backupRemotePaths.add(fileUploadResult.getBackupPath());
+                    backupFileSizes.put(
+                            fileUploadResult.getBackupPath(), fileUploadResult.getFileSizeOnDisk());
                 }
             }
         }
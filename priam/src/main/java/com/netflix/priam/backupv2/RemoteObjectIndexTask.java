@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backupv2;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.backup.IBackupFileSystem;
+import com.netflix.priam.backup.IFileSystemContext;
+import com.netflix.priam.backup.Status;
+import com.netflix.priam.config.IBackupRestoreConfig;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.health.InstanceState;
+import com.netflix.priam.scheduler.SimpleTimer;
+import com.netflix.priam.scheduler.Task;
+import com.netflix.priam.scheduler.TaskTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class reconciles the local index of the files on remote file system with a listing of the
+ * remote file system. The index is used to check if a file is already uploaded without asking the
+ * remote file system about every file. It is kept up to date on upload and delete by Priam, and this
+ * task picks up any change made outside of Priam e.g. a lifecycle rule on the bucket. This
+ * operation is executed on interval and is configured via {@link
+ * IBackupRestoreConfig#getRemoteObjectIndexReconcilePeriodInSec()}.
+ */
+@Singleton
+public class RemoteObjectIndexTask extends Task {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteObjectIndexTask.class);
+    public static final String JOBNAME = "RemoteObjectIndexService";
+    private final IBackupFileSystem fileSystem;
+    private final InstanceState instanceState;
+
+    @Inject
+    public RemoteObjectIndexTask(
+            IConfiguration configuration,
+            IFileSystemContext backupFileSystemCtx,
+            InstanceState instanceState) {
+        super(configuration);
+        this.fileSystem = backupFileSystemCtx.getFileStrategy(configuration);
+        this.instanceState = instanceState;
+    }
+
+    @Override
+    public void execute() throws Exception {
+        if (instanceState.getRestoreStatus() != null
+                && instanceState.getRestoreStatus().getStatus() != null
+                && instanceState.getRestoreStatus().getStatus() == Status.STARTED) {
+            logger.info("Not reconciling the remote object index as Priam is in restore mode.");
+            return;
+        }
+
+        fileSystem.reconcileObjectIndex();
+    }
+
+    @Override
+    public String getName() {
+        return JOBNAME;
+    }
+
+    /**
+     * Interval between reconciliations of the local index of remote file system.
+     *
+     * @param backupRestoreConfig {@link
+     *     IBackupRestoreConfig#getRemoteObjectIndexReconcilePeriodInSec()} to get configuration
+     *     details from priam. Use "-1" to disable the service.
+     * @return the timer to be used for remote object index service.
+     * @throws Exception if the configuration is not set correctly or are not valid. This is to
+     *     ensure we fail-fast.
+     */
+    public static TaskTimer getTimer(IBackupRestoreConfig backupRestoreConfig) throws Exception {
+        if (!backupRestoreConfig.enableRemoteObjectIndex()) return null;
+        return SimpleTimer.getSimpleTimer(
+                JOBNAME, backupRestoreConfig.getRemoteObjectIndexReconcilePeriodInSec() * 1000L);
+    }
+}
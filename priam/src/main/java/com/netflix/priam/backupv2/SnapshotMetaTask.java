@@ -286,7 +286,12 @@ public class SnapshotMetaTask extends AbstractBackup {
                 // Process each snapshot of SNAPSHOT_PREFIX
                 // We do not want to wait for completion and we just want to add them to queue. This
                 // is to ensure that next run happens on time.
-                upload(snapshotDirectory, AbstractBackupPath.BackupFileType.SST_V2, true, false);
+                upload(
+                        snapshotDirectory,
+                        AbstractBackupPath.BackupFileType.SST_V2,
+                        BandwidthGovernor.TransferClass.SNAPSHOT,
+                        true,
+                        false);
             }
         }
     }
@@ -346,6 +351,7 @@ public class SnapshotMetaTask extends AbstractBackup {
                     AbstractBackupPath abstractBackupPath = pathFactory.get();
                     abstractBackupPath.parseLocal(file, AbstractBackupPath.BackupFileType.SST_V2);
                     fileUploadResult.setBackupPath(abstractBackupPath.getRemotePath());
+                    fileUploadResult.setCompression(abstractBackupPath.getCompression());
                     fileUploadResult.setUploaded(
                             fs.checkObjectExists(Paths.get(fileUploadResult.getBackupPath())));
                 } catch (Exception e) {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.io.*;
+import java.util.Iterator;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Base class for the compression algorithms which are applied as a stream. Implementations only
+ * need to provide the streams to compress and decompress the data. Chunking and copying of the
+ * data is common to all of them.
+ */
+public abstract class AbstractCompression implements ICompression {
+    private static final int BUFFER = 2 * 1024;
+
+    /**
+     * Wrap the output stream such that any data written to it is compressed. Closing the returned
+     * stream must write any trailing data of the compressed format and close the wrapped stream.
+     *
+     * @param out stream to write the compressed data to.
+     * @return stream accepting the uncompressed data.
+     * @throws IOException if the stream cannot be initialized.
+     */
+    protected abstract OutputStream compressingStream(OutputStream out) throws IOException;
+
+    /**
+     * Wrap the input stream such that any data read from it is decompressed.
+     *
+     * @param in stream providing the compressed data.
+     * @return stream providing the uncompressed data.
+     * @throws IOException if the stream cannot be initialized.
+     */
+    protected abstract InputStream decompressingStream(InputStream in) throws IOException;
+
+    @Override
+    public Iterator<Chunk> compress(InputStream is, long chunkSize, ChunkBufferPool pool)
+            throws IOException {
+        return new ChunkedStream(is, chunkSize, this, pool);
+    }
+
+    @Override
+    public void decompressAndClose(InputStream input, OutputStream output) throws IOException {
+        try {
+            decompress(input, output);
+        } finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    private void decompress(InputStream input, OutputStream output) throws IOException {
+        byte data[] = new byte[BUFFER];
+        try (BufferedOutputStream dest1 = new BufferedOutputStream(output, BUFFER);
+                InputStream is = decompressingStream(new BufferedInputStream(input))) {
+            int c;
+            while ((c = is.read(data, 0, BUFFER)) != -1) {
+                dest1.write(data, 0, c);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A chunk of compressed data held in a buffer borrowed from a {@link ChunkBufferPool}. Only the
+ * first {@link #getLength()} bytes of the buffer are valid. The chunk must be released once its data
+ * has been consumed so the buffer can be reused.
+ */
+public class Chunk {
+    private final byte[] buffer;
+    private final int length;
+    private final ChunkBufferPool pool;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    public Chunk(byte[] buffer, int length, ChunkBufferPool pool) {
+        this.buffer = buffer;
+        this.length = length;
+        this.pool = pool;
+    }
+
+    /** @return a chunk over the given array which is not returned to any pool. */
+    public static Chunk wrap(byte[] data) {
+        return new Chunk(data, data.length, null);
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /** @return a new stream over the data of the chunk. The data is not copied. */
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(buffer, 0, length);
+    }
+
+    /**
+     * Get the data of the chunk as an array of the exact length. A full buffer is handed over to
+     * the caller without a copy and is never returned to the pool; otherwise the data is copied and
+     * the buffer is released.
+     *
+     * @return data of the chunk.
+     */
+    public byte[] toByteArray() {
+        if (length == buffer.length && released.compareAndSet(false, true)) return buffer;
+        byte[] data = Arrays.copyOf(buffer, length);
+        release();
+        return data;
+    }
+
+    /** Return the buffer to the pool. Calling this more than once has no effect. */
+    public void release() {
+        if (pool != null && released.compareAndSet(false, true)) pool.release(buffer);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of the byte arrays used to hold chunks of compressed data. Uploads hand the buffers back
+ * once a chunk has been acknowledged by the remote file system, so that the next chunk can reuse
+ * the memory instead of allocating a new array of several MB for every part.
+ *
+ * <p>The pool only caches buffers; a buffer which is never released is simply garbage collected.
+ * Buffers are plain heap arrays as the remote file system clients consume the data through an
+ * InputStream, which can wrap a heap array without copying it.
+ *
+ * <p>Free buffers are kept by size, so uploads with different chunk sizes do not throw away each
+ * other's buffers. The limit on the free buffers applies across all the sizes.
+ */
+public class ChunkBufferPool {
+    private final int maxPooledBuffers;
+    private final Map<Integer, Queue<byte[]>> buffersBySize = new ConcurrentHashMap<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    /** @param maxPooledBuffers maximum number of free buffers to retain. 0 disables pooling. */
+    public ChunkBufferPool(int maxPooledBuffers) {
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * Get a buffer of the given size, reusing a free buffer if one is available.
+     *
+     * @param size size of the buffer in bytes.
+     * @return buffer of exactly the given size. Contents of the buffer are undefined.
+     */
+    public byte[] acquire(int size) {
+        Queue<byte[]> buffers = buffersBySize.get(size);
+        byte[] buffer = buffers == null ? null : buffers.poll();
+        if (buffer == null) return new byte[size];
+        pooledBuffers.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool. The caller must not use the buffer after releasing it.
+     *
+     * @param buffer buffer acquired from this pool.
+     */
+    public void release(byte[] buffer) {
+        if (pooledBuffers.incrementAndGet() > maxPooledBuffers) {
+            pooledBuffers.decrementAndGet();
+            // Make room by dropping a free buffer of another size, as the sizes in use change.
+            if (maxPooledBuffers < 1 || !evictOtherThan(buffer.length)) return;
+            pooledBuffers.incrementAndGet();
+        }
+        buffersBySize
+                .computeIfAbsent(buffer.length, size -> new ConcurrentLinkedQueue<>())
+                .offer(buffer);
+    }
+
+    private boolean evictOtherThan(int size) {
+        for (Map.Entry<Integer, Queue<byte[]>> entry : buffersBySize.entrySet()) {
+            if (entry.getKey() != size && entry.getValue().poll() != null) {
+                pooledBuffers.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return number of free buffers held by the pool. */
+    public int getPooledBuffers() {
+        return pooledBuffers.get();
+    }
+}
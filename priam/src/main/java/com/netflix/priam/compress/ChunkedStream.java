@@ -16,66 +16,121 @@
  */
 package com.netflix.priam.compress;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import org.apache.commons.io.IOUtils;
-import org.xerial.snappy.SnappyOutputStream;
 
-/** Byte iterator representing compressed data. Uses snappy compression */
-public class ChunkedStream implements Iterator<byte[]> {
-    private boolean hasnext = true;
-    private final ByteArrayOutputStream bos;
-    private final SnappyOutputStream compress;
-    private final InputStream origin;
-    private final long chunkSize;
+/**
+ * Chunk iterator representing compressed data. The compressor writes straight into fixed size
+ * buffers taken from a {@link ChunkBufferPool}, so a chunk is never copied or grown on its way to
+ * the remote file system. Every chunk except the last one is exactly <code>chunkSize</code> bytes.
+ */
+public class ChunkedStream implements Iterator<Chunk> {
     private static final int BYTES_TO_READ = 2048;
+    private final byte[] data = new byte[BYTES_TO_READ];
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private final ChunkOutputStream sink;
+    private final OutputStream compress;
+    private final InputStream origin;
+    private boolean done = false;
 
-    public ChunkedStream(InputStream is, long chunkSize) throws IOException {
+    public ChunkedStream(
+            InputStream is, long chunkSize, AbstractCompression compression, ChunkBufferPool pool)
+            throws IOException {
         this.origin = is;
-        this.bos = new ByteArrayOutputStream();
-        this.compress = new SnappyOutputStream(bos);
-        this.chunkSize = chunkSize;
+        this.sink = new ChunkOutputStream(Math.toIntExact(chunkSize), pool);
+        this.compress = compression.compressingStream(sink);
     }
 
     @Override
     public boolean hasNext() {
-        return hasnext;
+        return !done || !chunks.isEmpty();
     }
 
     @Override
-    public byte[] next() {
+    public Chunk next() {
+        if (!hasNext()) throw new NoSuchElementException();
         try {
-            byte data[] = new byte[BYTES_TO_READ];
-            int count;
-            while ((count = origin.read(data, 0, data.length)) != -1) {
-                compress.write(data, 0, count);
-                if (bos.size() >= chunkSize) return returnSafe();
+            while (chunks.isEmpty() && !done) {
+                int count = origin.read(data, 0, data.length);
+                if (count == -1) done();
+                else compress.write(data, 0, count);
             }
-            // We don't have anything else to read hence set to false.
-            return done();
+            return chunks.poll();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private byte[] done() throws IOException {
-        compress.flush();
-        byte[] return_ = bos.toByteArray();
-        hasnext = false;
-        IOUtils.closeQuietly(compress);
-        IOUtils.closeQuietly(bos);
+    private void done() throws IOException {
+        // Closing the compressor writes out the trailer of the format (e.g. LZ4 end mark or zstd
+        // frame epilogue) and hands over the last partially filled buffer.
+        compress.close();
+        done = true;
         IOUtils.closeQuietly(origin);
-        return return_;
-    }
-
-    private byte[] returnSafe() throws IOException {
-        byte[] return_ = bos.toByteArray();
-        bos.reset();
-        return return_;
     }
 
     @Override
     public void remove() {}
+
+    /** Writes the compressed data into pooled buffers, queueing every buffer once it is full. */
+    private class ChunkOutputStream extends OutputStream {
+        private final int chunkSize;
+        private final ChunkBufferPool pool;
+        private byte[] buffer;
+        private int count;
+        private int chunksProduced = 0;
+
+        ChunkOutputStream(int chunkSize, ChunkBufferPool pool) {
+            this.chunkSize = chunkSize;
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(int b) {
+            if (buffer == null) buffer = pool.acquire(chunkSize);
+            buffer[count++] = (byte) b;
+            if (count == buffer.length) completeChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (buffer == null) buffer = pool.acquire(chunkSize);
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count == buffer.length) completeChunk();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (buffer != null && count > 0) {
+                completeChunk();
+            } else {
+                if (buffer != null) pool.release(buffer);
+                buffer = null;
+                // An empty stream is still represented by a single (empty) chunk.
+                if (chunksProduced == 0) {
+                    chunks.add(Chunk.wrap(new byte[0]));
+                    chunksProduced++;
+                }
+            }
+        }
+
+        private void completeChunk() {
+            chunks.add(new Chunk(buffer, count, pool));
+            chunksProduced++;
+            buffer = null;
+            count = 0;
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * An InputStream over the compressed form of the source stream. Chunks of compressed data are
+ * produced lazily as the reader asks for bytes, so at most one compressed chunk is held in memory
+ * at any time and no intermediate copy of the compressed data is written to disk. Every chunk is
+ * returned to the pool as soon as it has been read.
+ */
+public class CompressedInputStream extends InputStream {
+    private final InputStream source;
+    private final Iterator<Chunk> compressedChunks;
+    private Chunk currentChunk;
+    private int currentPosition;
+
+    /**
+     * @param compress compression to apply on the source stream.
+     * @param source the stream with the plaintext data. This is closed when this stream is closed.
+     * @param chunkSize size of the compressed chunks to be held in memory.
+     * @param pool pool of the buffers to hold the compressed chunks.
+     * @throws IOException if the compression stream cannot be initialized.
+     */
+    public CompressedInputStream(
+            ICompression compress, InputStream source, long chunkSize, ChunkBufferPool pool)
+            throws IOException {
+        this.source = source;
+        this.compressedChunks = compress.compress(source, chunkSize, pool);
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fillCurrentChunk()) return -1;
+        int count = Math.min(len, currentChunk.getLength() - currentPosition);
+        System.arraycopy(currentChunk.getBuffer(), currentPosition, b, off, count);
+        currentPosition += count;
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillCurrentChunk()) return -1;
+        return currentChunk.getBuffer()[currentPosition++] & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentChunk != null) currentChunk.release();
+        currentChunk = null;
+        IOUtils.closeQuietly(source);
+    }
+
+    private boolean fillCurrentChunk() throws IOException {
+        while (currentChunk == null || currentPosition >= currentChunk.getLength()) {
+            if (currentChunk != null) currentChunk.release();
+            currentChunk = null;
+            if (!compressedChunks.hasNext()) return false;
+            try {
+                currentChunk = compressedChunks.next();
+            } catch (RuntimeException e) {
+                // ChunkedStream wraps the IOException of the source.
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw e;
+            }
+            currentPosition = 0;
+        }
+        return true;
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.netflix.priam.compress;
 
+import com.google.common.collect.Iterators;
 import com.google.inject.ImplementedBy;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,9 +29,13 @@ public interface ICompression {
     enum CompressionAlgorithm {
         SNAPPY,
         LZ4,
+        ZSTD,
         NONE
     }
 
+    /** @return the compression algorithm implemented. */
+    CompressionAlgorithm getAlgorithm();
+
     /**
      * Uncompress the input stream and write to the output stream. Closes both input and output
      * streams
@@ -38,12 +43,50 @@ public interface ICompression {
     void decompressAndClose(InputStream input, OutputStream output) throws IOException;
 
     /**
-     * Produces chunks of compressed data.
+     * Produces chunks of compressed data. A new buffer is allocated for every chunk, use {@link
+     * #compress(InputStream, long, ChunkBufferPool)} to reuse the buffers.
      *
      * @param is inputstream to be compressed.
      * @param chunkSize compress the stream and return it in parts of chunk
      * @return compressed byte array iterator
      * @throws IOException
      */
-    Iterator<byte[]> compress(InputStream is, long chunkSize) throws IOException;
+    default Iterator<byte[]> compress(InputStream is, long chunkSize) throws IOException {
+        return Iterators.transform(
+                compress(is, chunkSize, new ChunkBufferPool(0)), Chunk::toByteArray);
+    }
+
+    /**
+     * Produces chunks of compressed data in buffers taken from the pool. Each chunk must be
+     * released once its data has been consumed, so that its buffer can be reused by the next chunk.
+     *
+     * @param is inputstream to be compressed.
+     * @param chunkSize size of the chunks. All the chunks except the last one are of this size.
+     * @param pool pool of the buffers to hold the chunks.
+     * @return compressed chunk iterator
+     * @throws IOException if the compression stream cannot be initialized.
+     */
+    Iterator<Chunk> compress(InputStream is, long chunkSize, ChunkBufferPool pool)
+            throws IOException;
+
+    /**
+     * Get the implementation of the given compression algorithm. This is used to read the files
+     * which were compressed with an algorithm other than the one configured for new backups.
+     *
+     * @param algorithm compression algorithm recorded for a backup file.
+     * @return implementation of the algorithm.
+     */
+    static ICompression getCompression(CompressionAlgorithm algorithm) {
+        switch (algorithm) {
+            case LZ4:
+                return new LZ4Compression();
+            case ZSTD:
+                return new ZstdCompression();
+            case NONE:
+                return new NoCompression();
+            case SNAPPY:
+            default:
+                return new SnappyCompression();
+        }
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+
+/**
+ * Class to generate compressed chunks of data from an input stream using LZ4. LZ4 compresses and
+ * decompresses a lot faster than the other algorithms at the cost of compression ratio, which makes
+ * it a good fit for CPU bound nodes.
+ */
+public class LZ4Compression extends AbstractCompression {
+    // Size of the blocks which are compressed independently.
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Override
+    public CompressionAlgorithm getAlgorithm() {
+        return CompressionAlgorithm.LZ4;
+    }
+
+    @Override
+    protected OutputStream compressingStream(OutputStream out) throws IOException {
+        return new LZ4BlockOutputStream(out, BLOCK_SIZE);
+    }
+
+    @Override
+    protected InputStream decompressingStream(InputStream in) throws IOException {
+        return new LZ4BlockInputStream(in);
+    }
+}
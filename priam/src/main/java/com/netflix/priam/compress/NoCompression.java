@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+/** Class to generate chunks of data from an input stream without compressing the data. */
+public class NoCompression extends AbstractCompression {
+
+    @Override
+    public CompressionAlgorithm getAlgorithm() {
+        return CompressionAlgorithm.NONE;
+    }
+
+    @Override
+    protected OutputStream compressingStream(OutputStream out) {
+        return new ProxyOutputStream(out);
+    }
+
+    @Override
+    protected InputStream decompressingStream(InputStream in) {
+        return in;
+    }
+}
@@ -16,38 +16,27 @@
  */
 package com.netflix.priam.compress;
 
-import java.io.*;
-import java.util.Iterator;
-import org.apache.commons.io.IOUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import org.xerial.snappy.SnappyInputStream;
+import org.xerial.snappy.SnappyOutputStream;
 
 /** Class to generate compressed chunks of data from an input stream using SnappyCompression */
-public class SnappyCompression implements ICompression {
-    private static final int BUFFER = 2 * 1024;
+public class SnappyCompression extends AbstractCompression {
 
     @Override
-    public Iterator<byte[]> compress(InputStream is, long chunkSize) throws IOException {
-        return new ChunkedStream(is, chunkSize);
+    public CompressionAlgorithm getAlgorithm() {
+        return CompressionAlgorithm.SNAPPY;
     }
 
     @Override
-    public void decompressAndClose(InputStream input, OutputStream output) throws IOException {
-        try {
-            decompress(input, output);
-        } finally {
-            IOUtils.closeQuietly(input);
-            IOUtils.closeQuietly(output);
-        }
+    protected OutputStream compressingStream(OutputStream out) throws IOException {
+        return new SnappyOutputStream(out);
     }
 
-    private void decompress(InputStream input, OutputStream output) throws IOException {
-        byte data[] = new byte[BUFFER];
-        try (BufferedOutputStream dest1 = new BufferedOutputStream(output, BUFFER);
-                SnappyInputStream is = new SnappyInputStream(new BufferedInputStream(input))) {
-            int c;
-            while ((c = is.read(data, 0, BUFFER)) != -1) {
-                dest1.write(data, 0, c);
-            }
-        }
+    @Override
+    protected InputStream decompressingStream(InputStream in) throws IOException {
+        return new SnappyInputStream(in);
     }
 }
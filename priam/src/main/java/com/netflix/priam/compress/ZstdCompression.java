@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.compress;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Class to generate compressed chunks of data from an input stream using Zstandard. Zstandard gives
+ * a much better compression ratio than SNAPPY or LZ4 for a moderate CPU cost, which makes it a good
+ * fit for clusters bound by network bandwidth or by the cost of storage.
+ */
+public class ZstdCompression extends AbstractCompression {
+    // Default level of the zstd command line tool. Higher levels cost a lot more CPU for small gains.
+    private static final int COMPRESSION_LEVEL = 3;
+
+    @Override
+    public CompressionAlgorithm getAlgorithm() {
+        return CompressionAlgorithm.ZSTD;
+    }
+
+    @Override
+    protected OutputStream compressingStream(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out, COMPRESSION_LEVEL);
+    }
+
+    @Override
+    protected InputStream decompressingStream(InputStream in) throws IOException {
+        return new ZstdInputStream(in);
+    }
+}
@@ -47,6 +47,31 @@ public class BackupRestoreConfig implements IBackupRestoreConfig {
         return config.get("priam.backupTTLMonitorPeriodInSec", 21600);
     }
 
+    @Override
+    public boolean enableRemoteObjectIndex() {
+        return config.get("priam.enableRemoteObjectIndex", true);
+    }
+
+    @Override
+    public int getRemoteObjectIndexReconcilePeriodInSec() {
+        return config.get("priam.remoteObjectIndexReconcilePeriodInSec", 21600);
+    }
+
+    @Override
+    public int getMetaValidationThreads() {
+        return config.get("priam.metaValidationThreads", 16);
+    }
+
+    @Override
+    public int getMetaValidationConcurrency() {
+        return config.get("priam.metaValidationConcurrency", 3);
+    }
+
+    @Override
+    public boolean enableBinaryMetaFile() {
+        return config.get("priam.enableBinaryMetaFile", false);
+    }
+
     @Override
     public int getBackupVerificationSLOInHours() {
         return config.get("priam.backupVerificationSLOInHours", 24);
@@ -64,6 +64,60 @@ public interface IBackupRestoreConfig {
         return 21600;
     }
 
+    /**
+     * Keep a local index of the backup version 2.0 files present on the remote file system. This
+     * saves a call to the remote file system for every file when generating or validating a meta
+     * file. The index is persisted at {@link IConfiguration#getRemoteObjectIndexFileLoc()}.
+     *
+     * @return true if the local index of remote files should be used. Default: true.
+     */
+    default boolean enableRemoteObjectIndex() {
+        return true;
+    }
+
+    /**
+     * Interval at which the local index of remote files is reconciled with a listing of the remote
+     * file system. This catches the files which were deleted or uploaded outside of Priam. This
+     * service will run only if v2 backups are enabled. Use -1 to disable this service; the index
+     * will then only be used for the files uploaded by Priam.
+     *
+     * @return Interval in seconds between reconciliations of the index. Default: 6 hours.
+     */
+    default int getRemoteObjectIndexReconcilePeriodInSec() {
+        return 21600;
+    }
+
+    /**
+     * Number of threads used to check that the files referenced by a meta file exist on the
+     * remote file system. The pool is shared by all the meta files being validated at a time.
+     *
+     * @return number of threads to check the existence of remote files. Default: 16.
+     */
+    default int getMetaValidationThreads() {
+        return 16;
+    }
+
+    /**
+     * Number of candidate meta files validated at the same time when looking for the latest valid
+     * meta file, e.g. during restore. The newest valid meta file is always chosen irrespective of
+     * the order in which the validations finish.
+     *
+     * @return number of meta files to validate concurrently. Default: 3.
+     */
+    default int getMetaValidationConcurrency() {
+        return 3;
+    }
+
+    /**
+     * Write the meta files of backup V2 in the compact binary format, with an index of the
+     * columnfamilies, instead of JSON. Meta files in both the formats can always be read.
+     *
+     * @return true if the meta files should be written in the binary format. Default: false.
+     */
+    default boolean enableBinaryMetaFile() {
+        return false;
+    }
+
     /**
      * Cron expression to be used for the service which does verification of the backups. This
      * service will run only if v2 backups are enabled.
@@ -19,9 +19,11 @@ package com.netflix.priam.config;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.ImplementedBy;
+import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.scheduler.UnsupportedTypeException;
 import com.netflix.priam.tuner.GCType;
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -105,7 +107,8 @@ public interface IConfiguration {
      *     crash If zero, Priam will restart Cassandra whenever it notices it is crashed If a
      *     positive number, Priam will restart cassandra no more than once in that number of
      *     seconds. For example a value of 60 means that Priam will only restart Cassandra once per
-     *     60 seconds If a negative number, Priam will not restart Cassandra due to crash at all
+     *     60 seconds If a negative number, Priam will not restart Cassandra due to crash at all.
+     *     In any case, Priam waits at least 10 seconds between two attempts to restart Cassandra.
      */
     default int getRemediateDeadCassandraRate() {
         return 3600;
@@ -167,6 +170,14 @@ public interface IConfiguration {
         return getCassandraBaseDirectory() + "/data";
     }
 
+    /**
+     * @return Location of the local state of Priam, e.g. the indexes and journals of the backups.
+     *     This must not be under {@link #getDataFileLocation()} as a restore wipes the data dir.
+     */
+    default String getPriamStateLocation() {
+        return getCassandraBaseDirectory() + "/priam";
+    }
+
     default String getLogDirLocation() {
         return getCassandraBaseDirectory() + "/logs";
     }
@@ -191,6 +202,18 @@ public interface IConfiguration {
         return 10 * 1024 * 1024L;
     }
 
+    /**
+     * Compression algorithm to use for the files uploaded by backup version 2.0. The algorithm is
+     * recorded in the remote path of every file, so it can be changed at any time without affecting
+     * the restore of the files which were already uploaded. Files uploaded by backup version 1.0 are
+     * always compressed using SNAPPY.
+     *
+     * @return compression algorithm for new backup version 2.0 files. Default: SNAPPY
+     */
+    default ICompression.CompressionAlgorithm getBackupCompression() {
+        return ICompression.CompressionAlgorithm.SNAPPY;
+    }
+
     /** @return Cassandra's JMX port */
     default int getJmxPort() {
         return 7199;
@@ -211,6 +234,48 @@ public interface IConfiguration {
         return false;
     }
 
+    /** @return number of long lived JMX connections to C* shared by all the operations. */
+    default int getJmxConnectionPoolSize() {
+        return 2;
+    }
+
+    /** @return interval in seconds at which the pooled JMX connections are checked. */
+    default int getJmxHealthCheckIntervalInSec() {
+        return 30;
+    }
+
+    /**
+     * @return time in seconds after which a short JMX call, e.g. listing the keyspaces, is given
+     *     up. Long running operations like repair are not bounded. Use 0 to wait forever.
+     */
+    default int getJmxCallTimeoutInSec() {
+        return 60;
+    }
+
+    /**
+     * @return number of long running admin operations, e.g. flush or repair, run concurrently on
+     *     behalf of the REST API.
+     */
+    default int getAdminOperationThreads() {
+        return 2;
+    }
+
+    /**
+     * @return number of admin operations which may wait for a thread. Further requests are
+     *     rejected until the queue drains.
+     */
+    default int getAdminOperationQueueSize() {
+        return 16;
+    }
+
+    /**
+     * @return the time in seconds after which the cached instances of the cluster are reloaded in
+     *     the background for the seed and rack lookups. Zero or less disables the cache.
+     */
+    default int getInstanceRegistryCacheTtlInSec() {
+        return 30;
+    }
+
     /** @return Cassandra storage/cluster communication port */
     default int getStoragePort() {
         return 7000;
@@ -424,11 +489,59 @@ public interface IConfiguration {
         return 2;
     }
 
+    /**
+     * @return Number of threads listing the keyspace and columnfamily directories to find the
+     *     files to backup.
+     */
+    default int getBackupDirectoryWalkerThreads() {
+        return 4;
+    }
+
     /** @return Number of download threads for downloading files when using async feature */
     default int getRestoreThreads() {
         return 8;
     }
 
+    /**
+     * @return keyspaces whose files are restored first, in this order. The files of the other
+     *     keyspaces are restored after them.
+     */
+    default List<String> getRestoreKeyspacePriority() {
+        return Arrays.asList("system", "system_schema", "system_auth");
+    }
+
+    /**
+     * @return true to restore the largest files of a keyspace first, so the restore threads finish
+     *     at about the same time. The size of each file is looked up on the remote file system if
+     *     the meta file does not record it.
+     */
+    default boolean isRestoreLargestFileFirst() {
+        return true;
+    }
+
+    /**
+     * Size of a single byte range requested from the remote file system while restoring a file.
+     * Objects larger than this are split into ranges which are fetched in parallel and reassembled
+     * in order.
+     *
+     * @return size in bytes of each ranged read during restore. Default: 2 MB.
+     */
+    default long getRestoreRangeSize() {
+        return 2 * 1024 * 1024L;
+    }
+
+    /**
+     * Number of byte ranges of a single remote file which may be downloaded at the same time. The
+     * memory held per file being restored is bounded by one more than this value times {@link
+     * #getRestoreRangeSize()}, and the memory held by the whole restore by that times {@link
+     * #getRestoreThreads()}. Use 1 to download ranges one after the other.
+     *
+     * @return max ranges of a file in flight during restore. Default: 2
+     */
+    default int getRestoreRangeConcurrency() {
+        return 2;
+    }
+
     /** @return true if restore should search for nearest token if current token is not found */
     default boolean isRestoreClosestToken() {
         return false;
@@ -452,6 +565,24 @@ public interface IConfiguration {
         return true;
     }
 
+    /**
+     * @return Bytes per second shared by all the uploads and downloads of the backup and restore
+     *     files, on top of {@link #getUploadThrottle()}. Zero or less disables the throttle.
+     */
+    default long getTransferThrottle() {
+        return -1;
+    }
+
+    /**
+     * @return Target for the 99th percentile latency of the Cassandra client reads and writes in
+     *     milliseconds. The transfers are slowed down, to as low as a tenth of {@link
+     *     #getTransferThrottle()}, while the latency is above the target. Zero or less disables the
+     *     adjustment.
+     */
+    default int getTransferThrottleLatencyTargetMs() {
+        return 0;
+    }
+
     /** @return Bytes per second to throttle for backups */
     default int getUploadThrottle() {
         return -1;
@@ -550,6 +681,15 @@ public interface IConfiguration {
         return "CassandraDaemon";
     }
 
+    /**
+     * @return location of the file with the pid of the C* process, e.g. as written by <code>
+     *     cassandra -p</code>. If it is not set or stale, the process is looked up by its name in
+     *     /proc.
+     */
+    default String getCassPidFile() {
+        return StringUtils.EMPTY;
+    }
+
     /** Defaults to 'allow all'. */
     default String getAuthenticator() {
         return "org.apache.cassandra.auth.AllowAllAuthenticator";
@@ -600,6 +740,11 @@ public interface IConfiguration {
         return StringUtils.EMPTY;
     }
 
+    /** @return number of archived commit log segments to upload concurrently. */
+    default int getCommitLogBackupThreads() {
+        return 4;
+    }
+
     default int maxCommitLogsRestore() {
         return 10;
     }
@@ -762,6 +907,16 @@ public interface IConfiguration {
         return StringUtils.EMPTY;
     }
 
+    /**
+     * @return number of threads shared by the uploads to encrypt files with PGP. Each file is
+     *     encrypted by a single thread ahead of its upload, for as long as the upload lasts, so an
+     *     upload which does not get a thread waits for another upload to complete. Defaults to
+     *     {@link #getBackupThreads()}, one thread per concurrent file upload.
+     */
+    default int getPgpEncryptionThreads() {
+        return getBackupThreads();
+    }
+
     /**
      * Use this method for adding extra/ dynamic cassandra startup options or env properties
      *
@@ -805,6 +960,32 @@ public interface IConfiguration {
         return false;
     }
 
+    /**
+     * Should incremental backups be driven by file system notifications? If this is true, the
+     * incremental backup directories are watched and new SSTables are uploaded as soon as Cassandra
+     * creates them. All the directories are then only scanned every {@link
+     * #getIncrementalBackupRescanIntervalInSec()} to catch any missed notification and to find the
+     * backup directories of the new column families. If this is false, all the incremental backup
+     * directories are scanned every 10 seconds.
+     *
+     * @return true if incremental backups should be driven by file system notifications.
+     */
+    default boolean enableIncrementalBackupWatch() {
+        return false;
+    }
+
+    /**
+     * Interval between the full scans of the incremental backup directories when incremental
+     * backups are driven by file system notifications. See {@link
+     * #enableIncrementalBackupWatch()}.
+     *
+     * @return interval in seconds between full scans of incremental backup directories. Default:
+     *     300 seconds.
+     */
+    default int getIncrementalBackupRescanIntervalInSec() {
+        return 300;
+    }
+
     /**
      * Should snapshot backup be uploaded in async fashion? If this is false, then snapshot will be
      * in sync fashion.
@@ -900,6 +1081,37 @@ public interface IConfiguration {
         return getDataFileLocation() + File.separator + "backup.status";
     }
 
+    /**
+     * @return number of days of snapshot status to keep in the backup status journal. The status
+     *     of the oldest day is dropped once there are more days than this.
+     */
+    default int getBackupStatusCapacity() {
+        return 365;
+    }
+
+    /** @return the absolute path to store the local index of the remote backup files on disk */
+    default String getRemoteObjectIndexFileLoc() {
+        return getPriamStateLocation() + File.separator + "remote_object.index";
+    }
+
+    /**
+     * @return the absolute path of the directory holding the journals of the multipart uploads in
+     *     flight, which allow an interrupted upload to be resumed.
+     */
+    default String getMultipartUploadJournalLoc() {
+        return getPriamStateLocation() + File.separator + "multipart_uploads";
+    }
+
+    /**
+     * @return the absolute path of the directory holding the backups when they are stored on a
+     *     local or network mounted file system instead of a cloud object store. There is no
+     *     default: it must be set, and must not be under {@link #getDataFileLocation()} as a
+     *     restore wipes the data dir before it reads the backup. Ideally it is on another disk.
+     */
+    default String getLocalBackupRoot() {
+        return StringUtils.EMPTY;
+    }
+
     /** @return Decides whether to use sudo to start C* or not */
     default boolean useSudo() {
         return true;
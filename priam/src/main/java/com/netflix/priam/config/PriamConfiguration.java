@@ -19,11 +19,13 @@ package com.netflix.priam.config;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.configSource.IConfigSource;
 import com.netflix.priam.identity.config.InstanceInfo;
 import com.netflix.priam.scheduler.UnsupportedTypeException;
 import com.netflix.priam.tuner.GCType;
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -112,6 +114,11 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".data.location", getCassandraBaseDirectory() + "/data");
     }
 
+    @Override
+    public String getPriamStateLocation() {
+        return config.get(PRIAM_PRE + ".state.location", getCassandraBaseDirectory() + "/priam");
+    }
+
     @Override
     public String getLogDirLocation() {
         return config.get(PRIAM_PRE + ".logs.location", getCassandraBaseDirectory() + "/logs");
@@ -140,6 +147,12 @@ public class PriamConfiguration implements IConfiguration {
         return size * 1024 * 1024L;
     }
 
+    @Override
+    public ICompression.CompressionAlgorithm getBackupCompression() {
+        return config.get(
+                PRIAM_PRE + ".backup.compression", ICompression.CompressionAlgorithm.SNAPPY);
+    }
+
     @Override
     public int getJmxPort() {
         return config.get(PRIAM_PRE + ".jmx.port", 7199);
@@ -161,6 +174,36 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".jmx.remote.enable", false);
     }
 
+    @Override
+    public int getJmxConnectionPoolSize() {
+        return config.get(PRIAM_PRE + ".jmx.pool.size", 2);
+    }
+
+    @Override
+    public int getJmxHealthCheckIntervalInSec() {
+        return config.get(PRIAM_PRE + ".jmx.healthcheck.interval", 30);
+    }
+
+    @Override
+    public int getJmxCallTimeoutInSec() {
+        return config.get(PRIAM_PRE + ".jmx.call.timeout", 60);
+    }
+
+    @Override
+    public int getAdminOperationThreads() {
+        return config.get(PRIAM_PRE + ".admin.operation.threads", 2);
+    }
+
+    @Override
+    public int getAdminOperationQueueSize() {
+        return config.get(PRIAM_PRE + ".admin.operation.queue.size", 16);
+    }
+
+    @Override
+    public int getInstanceRegistryCacheTtlInSec() {
+        return config.get(PRIAM_PRE + ".instance.registry.cache.ttl", 30);
+    }
+
     public int getNativeTransportPort() {
         return config.get(PRIAM_PRE + ".nativeTransport.port", 9042);
     }
@@ -308,11 +351,39 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".backup.threads", 2);
     }
 
+    @Override
+    public int getBackupDirectoryWalkerThreads() {
+        return config.get(PRIAM_PRE + ".backup.walker.threads", 4);
+    }
+
     @Override
     public int getRestoreThreads() {
         return config.get(PRIAM_PRE + ".restore.threads", 8);
     }
 
+    @Override
+    public List<String> getRestoreKeyspacePriority() {
+        return config.getList(
+                PRIAM_PRE + ".restore.keyspace.priority",
+                Arrays.asList("system", "system_schema", "system_auth"));
+    }
+
+    @Override
+    public boolean isRestoreLargestFileFirst() {
+        return config.get(PRIAM_PRE + ".restore.largest.first", true);
+    }
+
+    @Override
+    public long getRestoreRangeSize() {
+        long size = config.get(PRIAM_PRE + ".restore.rangesizemb", 2);
+        return size * 1024 * 1024L;
+    }
+
+    @Override
+    public int getRestoreRangeConcurrency() {
+        return config.get(PRIAM_PRE + ".restore.range.concurrency", 2);
+    }
+
     @Override
     public boolean isRestoreClosestToken() {
         return config.get(PRIAM_PRE + ".restore.closesttoken", false);
@@ -333,6 +404,16 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".backup.incremental.enable", true);
     }
 
+    @Override
+    public long getTransferThrottle() {
+        return config.get(PRIAM_PRE + ".transfer.throttle", -1L);
+    }
+
+    @Override
+    public int getTransferThrottleLatencyTargetMs() {
+        return config.get(PRIAM_PRE + ".transfer.throttle.latency.target", 0);
+    }
+
     @Override
     public int getUploadThrottle() {
         return config.get(PRIAM_PRE + ".upload.throttle", -1);
@@ -408,6 +489,11 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".cass.process", "CassandraDaemon");
     }
 
+    @Override
+    public String getCassPidFile() {
+        return config.get(PRIAM_PRE + ".cass.pidfile", "");
+    }
+
     public String getYamlLocation() {
         return config.get(PRIAM_PRE + ".yamlLocation", getCassHome() + "/conf/cassandra.yaml");
     }
@@ -474,6 +560,11 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".clbackup.restoreTime", "");
     }
 
+    @Override
+    public int getCommitLogBackupThreads() {
+        return config.get(PRIAM_PRE + ".clbackup.threads", 4);
+    }
+
     @Override
     public int maxCommitLogsRestore() {
         return config.get(PRIAM_PRE + ".clrestore.max", 10);
@@ -633,11 +724,26 @@ public class PriamConfiguration implements IConfiguration {
         return config.get(PRIAM_PRE + ".pgp.pubkey.file.location");
     }
 
+    @Override
+    public int getPgpEncryptionThreads() {
+        return config.get(PRIAM_PRE + ".pgp.encryption.threads", getBackupThreads());
+    }
+
     @Override
     public boolean enableAsyncIncremental() {
         return config.get(PRIAM_PRE + ".async.incremental", false);
     }
 
+    @Override
+    public boolean enableIncrementalBackupWatch() {
+        return config.get(PRIAM_PRE + ".backup.incremental.watch.enable", false);
+    }
+
+    @Override
+    public int getIncrementalBackupRescanIntervalInSec() {
+        return config.get(PRIAM_PRE + ".backup.incremental.rescan.interval", 300);
+    }
+
     @Override
     public boolean enableAsyncSnapshot() {
         return config.get(PRIAM_PRE + ".async.snapshot", false);
@@ -689,6 +795,30 @@ public class PriamConfiguration implements IConfiguration {
                 getDataFileLocation() + File.separator + "backup.status");
     }
 
+    @Override
+    public int getBackupStatusCapacity() {
+        return config.get(PRIAM_PRE + ".backup.status.capacity", 365);
+    }
+
+    @Override
+    public String getRemoteObjectIndexFileLoc() {
+        return config.get(
+                PRIAM_PRE + ".backup.remote.index.location",
+                getPriamStateLocation() + File.separator + "remote_object.index");
+    }
+
+    @Override
+    public String getMultipartUploadJournalLoc() {
+        return config.get(
+                PRIAM_PRE + ".backup.multipart.journal.location",
+                getPriamStateLocation() + File.separator + "multipart_uploads");
+    }
+
+    @Override
+    public String getLocalBackupRoot() {
+        return config.get(PRIAM_PRE + ".backup.local.root", StringUtils.EMPTY);
+    }
+
     @Override
     public boolean useSudo() {
         return config.get(PRIAM_PRE + ".cass.usesudo", true);
@@ -65,9 +65,12 @@ public class CassandraOperations implements ICassandraOperations {
     public void clearSnapshot(final String snapshotTag) throws Exception {
         new RetryableCallable<Void>() {
             public Void retriableCall() throws Exception {
-                JMXNodeTool nodetool = JMXNodeTool.instance(configuration);
-                nodetool.clearSnapshot(snapshotTag);
-                return null;
+                return JMXConnectionPool.getInstance(configuration)
+                        .call(
+                                nodeTool -> {
+                                    nodeTool.clearSnapshot(snapshotTag);
+                                    return null;
+                                });
             }
         }.call();
     }
@@ -76,9 +79,7 @@ public class CassandraOperations implements ICassandraOperations {
     public List<String> getKeyspaces() throws Exception {
         return new RetryableCallable<List<String>>() {
             public List<String> retriableCall() throws Exception {
-                try (JMXNodeTool nodeTool = JMXNodeTool.instance(configuration)) {
-                    return nodeTool.getKeyspaces();
-                }
+                return JMXConnectionPool.getInstance(configuration).call(JMXNodeTool::getKeyspaces);
             }
         }.call();
     }
@@ -87,32 +88,32 @@ public class CassandraOperations implements ICassandraOperations {
     public Map<String, List<String>> getColumnfamilies() throws Exception {
         return new RetryableCallable<Map<String, List<String>>>() {
             public Map<String, List<String>> retriableCall() throws Exception {
-                try (JMXNodeTool nodeTool = JMXNodeTool.instance(configuration)) {
-                    final Map<String, List<String>> columnfamilies = new HashMap<>();
-                    Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> columnfamilyStoreMBean =
-                            nodeTool.getColumnFamilyStoreMBeanProxies();
-                    columnfamilyStoreMBean.forEachRemaining(
-                            entry -> {
-                                columnfamilies.putIfAbsent(entry.getKey(), new ArrayList<>());
-                                columnfamilies
-                                        .get(entry.getKey())
-                                        .add(entry.getValue().getColumnFamilyName());
-                            });
-                    return columnfamilies;
-                }
+                return JMXConnectionPool.getInstance(configuration)
+                        .call(CassandraOperations::listColumnfamilies);
             }
         }.call();
     }
 
+    private static Map<String, List<String>> listColumnfamilies(JMXNodeTool nodeTool) {
+        final Map<String, List<String>> columnfamilies = new HashMap<>();
+        Iterator<Map.Entry<String, ColumnFamilyStoreMBean>> columnfamilyStoreMBean =
+                nodeTool.getColumnFamilyStoreMBeanProxies();
+        columnfamilyStoreMBean.forEachRemaining(
+                entry -> {
+                    columnfamilies.putIfAbsent(entry.getKey(), new ArrayList<>());
+                    columnfamilies.get(entry.getKey()).add(entry.getValue().getColumnFamilyName());
+                });
+        return columnfamilies;
+    }
+
     @Override
     public void forceKeyspaceCompaction(String keyspaceName, String... columnfamilies)
             throws Exception {
         new RetryableCallable<Void>() {
             public Void retriableCall() throws Exception {
-                try (JMXNodeTool nodeTool = JMXNodeTool.instance(configuration)) {
-                    nodeTool.forceKeyspaceCompaction(keyspaceName, columnfamilies);
-                    return null;
-                }
+                JMXNodeTool nodeTool = JMXNodeTool.instance(configuration);
+                nodeTool.forceKeyspaceCompaction(keyspaceName, columnfamilies);
+                return null;
             }
         }.call();
     }
@@ -121,10 +122,9 @@ public class CassandraOperations implements ICassandraOperations {
     public void forceKeyspaceFlush(String keyspaceName) throws Exception {
         new RetryableCallable<Void>() {
             public Void retriableCall() throws Exception {
-                try (JMXNodeTool nodeTool = JMXNodeTool.instance(configuration)) {
-                    nodeTool.forceKeyspaceFlush(keyspaceName);
-                    return null;
-                }
+                JMXNodeTool nodeTool = JMXNodeTool.instance(configuration);
+                nodeTool.forceKeyspaceFlush(keyspaceName);
+                return null;
             }
         }.call();
     }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.connection;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.health.CassandraMonitor;
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small pool of long lived JMX connections to the local Cassandra process. Connections are
+ * handed out round robin and are shared by the callers, as JMX connections can be used by many
+ * threads at once. Instead of testing a connection every time it is handed out, connections are
+ * checked in the background and replaced when they are broken. A connection which cannot be
+ * established is retried with an exponential backoff, so callers fail fast instead of piling up on
+ * a Cassandra process which does not respond.
+ */
+public class JMXConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(JMXConnectionPool.class);
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static volatile JMXConnectionPool pool;
+
+    private final IConfiguration config;
+    private final Slot[] slots;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final ExecutorService callExecutor;
+
+    /** An operation on a JMX connection, see {@link #call(NodeToolCall)}. */
+    public interface NodeToolCall<T> {
+        T call(JMXNodeTool nodeTool) throws Exception;
+    }
+
+    JMXConnectionPool(IConfiguration config) {
+        this.config = config;
+        this.slots = new Slot[Math.max(1, config.getJmxConnectionPoolSize())];
+        for (int i = 0; i < slots.length; i++) slots[i] = new Slot();
+        this.healthChecker =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setDaemon(true)
+                                .setNameFormat("JMXHealthCheck-%d")
+                                .build());
+        long interval = Math.max(1, config.getJmxHealthCheckIntervalInSec());
+        healthChecker.scheduleWithFixedDelay(
+                this::checkHealth, interval, interval, TimeUnit.SECONDS);
+        // Calls which time out may never return, so they must not hold up the next calls.
+        this.callExecutor =
+                Executors.newCachedThreadPool(
+                        new ThreadFactoryBuilder()
+                                .setDaemon(true)
+                                .setNameFormat("JMXCall-%d")
+                                .build());
+    }
+
+    /** @return the pool of JMX connections to the local Cassandra process. */
+    public static JMXConnectionPool getInstance(IConfiguration config) {
+        if (pool == null) {
+            synchronized (JMXConnectionPool.class) {
+                if (pool == null) pool = new JMXConnectionPool(config);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Get one of the healthy connections. If there is none, a connection is established in the
+     * calling thread unless the last attempt failed recently.
+     *
+     * @return a shared connection, which must not be closed by the caller.
+     * @throws JMXConnectionException if there is no healthy connection and a new one cannot be
+     *     established.
+     */
+    public JMXNodeTool getConnection() throws JMXConnectionException {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < slots.length; i++) {
+            JMXNodeTool connection = slots[Math.floorMod(start + i, slots.length)].connection;
+            if (connection != null) return connection;
+        }
+        return connect(slots[Math.floorMod(start, slots.length)]);
+    }
+
+    /**
+     * Run the operation on one of the pooled connections, giving up after {@link
+     * IConfiguration#getJmxCallTimeoutInSec()}. A connection which fails with an I/O error is
+     * replaced.
+     *
+     * @param call the operation to run.
+     * @return the result of the operation.
+     * @throws JMXConnectionException if there is no connection or if the operation timed out.
+     * @throws Exception the exception thrown by the operation.
+     */
+    public <T> T call(NodeToolCall<T> call) throws Exception {
+        final JMXNodeTool nodeTool = getConnection();
+        Future<T> future = callExecutor.submit(() -> call.call(nodeTool));
+        long timeout = config.getJmxCallTimeoutInSec();
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.SECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new JMXConnectionException(
+                    "JMX call did not complete in " + timeout + " seconds", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException || cause instanceof UndeclaredThrowableException)
+                invalidate(nodeTool);
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Remove the connection from the pool and close it, e.g. because an operation on it failed.
+     *
+     * @param connection the broken connection.
+     */
+    public void invalidate(JMXNodeTool connection) {
+        if (connection == null) return;
+        for (Slot slot : slots) {
+            synchronized (slot) {
+                if (slot.connection == connection) slot.connection = null;
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    /** Close all the connections, they are established again on demand. */
+    public void invalidateAll() {
+        for (Slot slot : slots) invalidate(slot.connection);
+    }
+
+    private JMXNodeTool connect(Slot slot) throws JMXConnectionException {
+        synchronized (slot) {
+            if (slot.connection != null) return slot.connection;
+
+            // Not a failure of the connection, there is nothing to connect to yet.
+            if (!CassandraMonitor.hasCassadraStarted())
+                throw new JMXConnectionException(
+                        "Cannot connect to remote jmx agent as Cassandra has not yet started");
+
+            long now = System.currentTimeMillis();
+            if (now < slot.nextAttemptTime)
+                throw new JMXConnectionException(
+                        "Last attempt to connect to remote jmx agent failed, retrying in "
+                                + (slot.nextAttemptTime - now)
+                                + " ms");
+
+            try {
+                slot.connection = JMXNodeTool.createConnection(config);
+                slot.failures = 0;
+                slot.nextAttemptTime = 0;
+                return slot.connection;
+            } catch (JMXConnectionException e) {
+                slot.failures++;
+                slot.nextAttemptTime =
+                        now
+                                + Math.min(
+                                        MAX_BACKOFF_MS,
+                                        MIN_BACKOFF_MS << Math.min(slot.failures - 1, 16));
+                throw e;
+            }
+        }
+    }
+
+    private void checkHealth() {
+        for (Slot slot : slots) {
+            try {
+                JMXNodeTool connection = slot.connection;
+                if (connection != null && !connection.testConnection()) {
+                    logger.warn("JMX connection to Cassandra is broken, reconnecting.");
+                    invalidate(connection);
+                }
+                if (slot.connection == null && CassandraMonitor.hasCassadraStarted())
+                    connect(slot);
+            } catch (Exception e) {
+                logger.debug("Unable to connect to remote jmx agent: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(JMXNodeTool connection) {
+        try {
+            connection.close();
+        } catch (Exception e) {
+            logger.warn("failed to close jmx node tool", e);
+        }
+    }
+
+    private static class Slot {
+        private volatile JMXNodeTool connection;
+        // Guarded by the slot.
+        private int failures;
+        private long nextAttemptTime;
+    }
+}
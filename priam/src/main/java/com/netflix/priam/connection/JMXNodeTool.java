@@ -20,7 +20,6 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.health.CassandraMonitor;
-import com.netflix.priam.utils.BoundedExponentialRetryCallable;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
@@ -32,6 +31,7 @@ import java.text.DecimalFormat;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
+import javax.management.JMException;
 import javax.management.JMX;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
@@ -48,7 +48,6 @@ import org.slf4j.LoggerFactory;
 @Singleton
 public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
     private static final Logger logger = LoggerFactory.getLogger(JMXNodeTool.class);
-    private static volatile JMXNodeTool tool = null;
     private MBeanServerConnection mbeanServerConn = null;
 
     private static final Set<INodeToolObserver> observers = new HashSet<>();
@@ -57,7 +56,8 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
      * Hostname and Port to talk to will be same server for now optionally we might want the ip to
      * poll.
      *
-     * <p>NOTE: This class shouldn't be a singleton and this shouldn't be cached.
+     * <p>NOTE: Connections are long lived and shared, use {@link #instance(IConfiguration)} to get
+     * one from {@link JMXConnectionPool} instead of creating a new one.
      *
      * <p>This will work only if cassandra runs.
      */
@@ -76,13 +76,13 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
     }
 
     /**
-     * try to create if it is null.
+     * Get one of the pooled connections, connecting to Cassandra if there is no healthy connection.
+     * The connection is shared, so it must not be closed by the caller.
      *
      * @throws JMXConnectionException
      */
     public static JMXNodeTool instance(IConfiguration config) throws JMXConnectionException {
-        if (!testConnection()) tool = connect(config);
-        return tool;
+        return JMXConnectionPool.getInstance(config).getConnection();
     }
 
     public static <T> T getRemoteBean(
@@ -112,14 +112,11 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
      * This method will test if you can connect and query something before handing over the
      * connection, This is required for our retry logic.
      *
-     * @return
+     * @return true if the connection can be used.
      */
-    private static boolean testConnection() {
-        // connecting first time hence return false.
-        if (tool == null) return false;
-
+    boolean testConnection() {
         try {
-            MBeanServerConnection serverConn = tool.mbeanServerConn;
+            MBeanServerConnection serverConn = mbeanServerConn;
             if (serverConn == null) {
                 logger.info(
                         "Test connection to remove MBean server failed as there is no connection.");
@@ -133,7 +130,6 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
                 return false;
             }
         } catch (Throwable ex) {
-            closeQuietly(tool);
             logger.error(
                     "Exception while checking JMX connection to C*, msg: {}",
                     ex.getLocalizedMessage());
@@ -142,50 +138,27 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
         return true;
     }
 
-    private static void closeQuietly(JMXNodeTool tool) {
-        try {
-            tool.close();
-        } catch (Exception e) {
-            logger.warn("failed to close jmx node tool", e);
-        }
-    }
-
     /**
-     * A means to clean up existing and recreate the JMX connection to the Cassandra process.
+     * A means to clean up existing and recreate the JMX connections to the Cassandra process.
      *
      * @return the new connection.
      */
-    public static synchronized JMXNodeTool createNewConnection(final IConfiguration config)
+    public static JMXNodeTool createNewConnection(final IConfiguration config)
             throws JMXConnectionException {
-        return createConnection(config);
+        JMXConnectionPool pool = JMXConnectionPool.getInstance(config);
+        pool.invalidateAll();
+        return pool.getConnection();
     }
 
-    public static synchronized JMXNodeTool connect(final IConfiguration config)
-            throws JMXConnectionException {
-        // lets make sure some other monitor didn't sneak in the recreated the connection already
-        if (!testConnection()) {
-
-            if (tool != null) {
-                try {
-                    tool.close(); // Ensure we properly close any existing (even if it's
-                    // corrupted) connection to the remote jmx agent
-                } catch (IOException e) {
-                    logger.warn(
-                            "Exception performing house cleaning -- closing current connection to jmx remote agent.  Msg: {}",
-                            e.getLocalizedMessage(),
-                            e);
-                }
-            }
-
-        } else {
-            // Someone beat you and already created the connection, nothing you need to do..
-            return tool;
-        }
-
-        return createConnection(config);
+    public static JMXNodeTool connect(final IConfiguration config) throws JMXConnectionException {
+        return instance(config);
     }
 
-    private static JMXNodeTool createConnection(final IConfiguration config)
+    /**
+     * Open a new connection to the remote jmx agent. This makes a single attempt, retries are left
+     * to the caller.
+     */
+    static JMXNodeTool createConnection(final IConfiguration config)
             throws JMXConnectionException {
         // If Cassandra is started then only start the monitoring
         if (!CassandraMonitor.hasCassadraStarted()) {
@@ -195,63 +168,42 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
             throw new JMXConnectionException(exceptionMsg);
         }
 
-        if (tool
-                != null) { // lets make sure we properly close any existing (even if it's corrupted)
-            // connection to the remote jmx agent
-            try {
-                tool.close();
-            } catch (IOException e) {
-                logger.warn(
-                        "Exception performing house cleaning -- closing current connection to jmx remote agent.  Msg: {}",
-                        e.getLocalizedMessage(),
-                        e);
-            }
-        }
-
+        JMXNodeTool nodetool;
         try {
+            if ((config.getJmxUsername() == null || config.getJmxUsername().isEmpty())
+                    && (config.getJmxPassword() == null || config.getJmxPassword().isEmpty())) {
+                nodetool = new JMXNodeTool("localhost", config.getJmxPort());
+            } else {
+                nodetool =
+                        new JMXNodeTool(
+                                "localhost",
+                                config.getJmxPort(),
+                                config.getJmxUsername(),
+                                config.getJmxPassword());
+            }
 
-            tool =
-                    new BoundedExponentialRetryCallable<JMXNodeTool>() {
-                        @Override
-                        public JMXNodeTool retriableCall() throws Exception {
-                            JMXNodeTool nodetool;
-                            if ((config.getJmxUsername() == null
-                                            || config.getJmxUsername().isEmpty())
-                                    && (config.getJmxPassword() == null
-                                            || config.getJmxPassword().isEmpty())) {
-                                nodetool = new JMXNodeTool("localhost", config.getJmxPort());
-                            } else {
-                                nodetool =
-                                        new JMXNodeTool(
-                                                "localhost",
-                                                config.getJmxPort(),
-                                                config.getJmxUsername(),
-                                                config.getJmxPassword());
-                            }
-
-                            Field fields[] = NodeProbe.class.getDeclaredFields();
-                            for (Field field : fields) {
-                                if (!field.getName().equals("mbeanServerConn")) continue;
-                                field.setAccessible(true);
-                                nodetool.mbeanServerConn =
-                                        (MBeanServerConnection) field.get(nodetool);
-                            }
-
-                            return nodetool;
-                        }
-                    }.call();
-
+            Field fields[] = NodeProbe.class.getDeclaredFields();
+            for (Field field : fields) {
+                if (!field.getName().equals("mbeanServerConn")) continue;
+                field.setAccessible(true);
+                nodetool.mbeanServerConn = (MBeanServerConnection) field.get(nodetool);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMXConnectionException(e.getMessage(), e);
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
-            throw new JMXConnectionException(e.getMessage());
+            throw new JMXConnectionException(e.getMessage(), e);
         }
 
         logger.info("Connected to remote jmx agent, will notify interested parties!");
-        for (INodeToolObserver observer : observers) {
-            observer.nodeToolHasChanged(tool);
+        synchronized (observers) {
+            for (INodeToolObserver observer : observers) {
+                observer.nodeToolHasChanged(nodetool);
+            }
         }
 
-        return tool;
+        return nodetool;
     }
 
     /**
@@ -416,6 +368,22 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
         // forceKeyspaceCleanup(keyspace, new String[0]);
     }
 
+    /**
+     * @param scope the type of the client requests, i.e. Read or Write.
+     * @return the 99th percentile latency of the client requests of the scope, in microseconds.
+     * @throws IOException if the connection to Cassandra failed.
+     * @throws JMException if the metric is not available.
+     */
+    public double getClientRequestLatency99thPercentile(String scope)
+            throws IOException, JMException {
+        ObjectName name =
+                new ObjectName(
+                        "org.apache.cassandra.metrics:type=ClientRequest,scope="
+                                + scope
+                                + ",name=Latency");
+        return ((Number) mbeanServerConn.getAttribute(name, "99thPercentile")).doubleValue();
+    }
+
     public void setIncrementalBackupsEnabled(boolean enabled) {
         super.setIncrementalBackupsEnabled(enabled);
     }
@@ -438,14 +406,6 @@ public class JMXNodeTool extends NodeProbe implements INodeToolObservable {
         }
     }
 
-    @Override
-    public void close() throws IOException {
-        synchronized (JMXNodeTool.class) {
-            tool = null;
-            super.close();
-        }
-    }
-
     /** @param observer to add to list of internal observers. This behavior is thread-safe. */
     @Override
     public void addObserver(INodeToolObserver observer) {
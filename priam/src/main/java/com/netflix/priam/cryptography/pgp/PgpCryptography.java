@@ -14,24 +14,43 @@
 package com.netflix.priam.cryptography.pgp;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cryptography.IFileCryptography;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
 import java.io.*;
 import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
 import java.security.Security;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@Singleton
 public class PgpCryptography implements IFileCryptography {
     private static final Logger logger = LoggerFactory.getLogger(PgpCryptography.class);
 
-    private IConfiguration config;
+    private final IConfiguration config;
+    // Shared by all the uploads, a file is encrypted on one of these threads ahead of its upload.
+    private final ExecutorService encryptionExecutor;
+    private final CachedKeyFile<PGPSecretKeyRingCollection> secretKeyRings =
+            new CachedKeyFile<>(PgpCryptography::readSecretKeyRings);
+    private final CachedKeyFile<PGPPublicKey> publicKey =
+            new CachedKeyFile<>(PgpCryptography::readPublicKey);
+    // Private keys extracted from privateKeysSource with privateKeysPasswd, by key id.
+    private final Map<Long, PGPPrivateKey> privateKeys = new HashMap<>();
+    private PGPSecretKeyRingCollection privateKeysSource;
+    private char[] privateKeysPasswd;
 
     static {
         // tell the JVM the security provider is PGP
@@ -42,16 +61,17 @@ public class PgpCryptography implements IFileCryptography {
     public PgpCryptography(IConfiguration config) {
 
         this.config = config;
+        this.encryptionExecutor =
+                new NamedThreadPoolExecutor(config.getPgpEncryptionThreads(), "PgpEncryption");
     }
 
-    private PGPSecretKeyRingCollection getPgpSecurityCollection() {
+    private static PGPSecretKeyRingCollection readSecretKeyRings(File file) {
 
         InputStream keyIn;
         try {
-            keyIn = new BufferedInputStream(new FileInputStream(config.getPrivateKeyLocation()));
+            keyIn = new BufferedInputStream(new FileInputStream(file));
         } catch (FileNotFoundException e) {
-            throw new IllegalStateException(
-                    "PGP private key file not found.  file: " + config.getPrivateKeyLocation());
+            throw new IllegalStateException("PGP private key file not found.  file: " + file);
         }
 
         try {
@@ -63,13 +83,15 @@ public class PgpCryptography implements IFileCryptography {
                     "Exception in reading PGP security collection ring.  Msg: {}",
                     e.getLocalizedMessage());
             throw new IllegalStateException("Exception in reading PGP security collection ring", e);
+        } finally {
+            IOUtils.closeQuietly(keyIn);
         }
     }
 
-    private PGPPublicKey getPubKey() {
+    private static PGPPublicKey readPublicKey(File file) {
         InputStream pubKeyIS;
         try {
-            pubKeyIS = new BufferedInputStream(new FileInputStream(config.getPgpPublicKeyLoc()));
+            pubKeyIS = new BufferedInputStream(new FileInputStream(file));
 
         } catch (FileNotFoundException e) {
             logger.error(
@@ -84,9 +106,38 @@ public class PgpCryptography implements IFileCryptography {
 
         } catch (Exception e) {
             throw new RuntimeException("Exception in reading & deriving the PGP public key.", e);
+        } finally {
+            IOUtils.closeQuietly(pubKeyIS);
         }
     }
 
+    private PGPPublicKey getPubKey() {
+        return publicKey.get(config.getPgpPublicKeyLoc());
+    }
+
+    /*
+     * Extracting a private key runs the key derivation of the pass phrase, which is far more
+     * expensive than the decryption of a small file, so the key is extracted once per key ring.
+     *
+     * @return PGP private key, null if not found.
+     */
+    private synchronized PGPPrivateKey getPrivateKey(long keyID, char[] passwd)
+            throws PGPException, NoSuchProviderException {
+        PGPSecretKeyRingCollection keyRings = secretKeyRings.get(config.getPrivateKeyLocation());
+        if (keyRings != privateKeysSource || !Arrays.equals(passwd, privateKeysPasswd)) {
+            privateKeys.clear();
+            privateKeysSource = keyRings;
+            privateKeysPasswd = passwd == null ? null : passwd.clone();
+        }
+
+        PGPPrivateKey privateKey = privateKeys.get(keyID);
+        if (privateKey == null) {
+            privateKey = findSecretKey(keyRings, keyID, passwd);
+            if (privateKey != null) privateKeys.put(keyID, privateKey);
+        }
+        return privateKey;
+    }
+
     /*
      * @param in - a handle to the encrypted, compressed data stream
      * @param pass - pass phrase used to extract the PGP private key from the encrypted content.
@@ -124,11 +175,7 @@ public class PgpCryptography implements IFileCryptography {
             encryptedDataStreamHandle = (PGPPublicKeyEncryptedData) encryptedDataIterator.next();
 
             try {
-                privateKey =
-                        findSecretKey(
-                                getPgpSecurityCollection(),
-                                encryptedDataStreamHandle.getKeyID(),
-                                passwd);
+                privateKey = getPrivateKey(encryptedDataStreamHandle.getKeyID(), passwd);
             } catch (Exception ex) {
                 throw new IllegalStateException(
                         "decryption exception:  object: "
@@ -200,54 +247,56 @@ public class PgpCryptography implements IFileCryptography {
         return new ChunkEncryptorStream(is, fileName, getPubKey());
     }
 
-    public class ChunkEncryptorStream implements Iterator<byte[]> {
+    /*
+     * An iterator over the chunks of ciphertext of a stream. A PGP message is a single cipher
+     * stream which cannot be split, so each stream is encrypted by one of the encryption threads
+     * and its chunks are handed to the reader in order. The next chunk is encrypted while the
+     * reader is busy with the current one. The reader must close the iterator if it stops before
+     * the end, so that the source stream is no longer read.
+     */
+    public class ChunkEncryptorStream implements Iterator<byte[]>, Closeable {
 
         // Chunk sizes of 10 MB
         private static final int MAX_CHUNK = 10 * 1024 * 1024;
+        // Number of chunks encrypted and waiting for the reader.
+        private static final int CHUNKS_AHEAD = 1;
 
-        private boolean hasnext = true;
-        private final InputStream is;
+        private final byte[] end = new byte[0];
         private final InputStream encryptedSrc;
-        private final ByteArrayOutputStream bos;
-        private final BufferedOutputStream pgout;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean closed = false;
+        private volatile Exception error;
+        private byte[] nextChunk;
 
         public ChunkEncryptorStream(InputStream is, String fileName, PGPPublicKey pubKey) {
-            this.is = is;
-
-            this.bos = new ByteArrayOutputStream();
-            this.pgout = new BufferedOutputStream(this.bos);
-            this.encryptedSrc = new EncryptedInputStream(this.is, fileName, pubKey);
+            this.encryptedSrc = new EncryptedInputStream(is, fileName, pubKey);
+            encryptionExecutor.submit(this::encrypt);
         }
 
         @Override
         public boolean hasNext() {
-            return this.hasnext;
+            if (nextChunk == null) nextChunk = take();
+            if (nextChunk == end && error != null)
+                throw new RuntimeException(
+                        "Error encountered returning next chunk of ciphertext.  Msg: "
+                                + error.getLocalizedMessage(),
+                        error);
+            return nextChunk != end;
         }
 
         /*
-         * Fill and return a buffer of the data within encrypted stream.
+         * Return the next buffer of the data within encrypted stream.
          *
          * @return a buffer of ciphertext
          */
         @Override
         public byte[] next() {
-            try {
-
-                byte buffer[] = new byte[2048];
-                int count;
-                while ((count = encryptedSrc.read(buffer, 0, buffer.length)) != -1) {
-                    pgout.write(buffer, 0, count);
-                    if (bos.size() >= MAX_CHUNK) return returnSafe();
-                }
-                // flush remaining data in buffer and close resources.
-                return done();
-
-            } catch (Exception e) {
-                throw new RuntimeException(
-                        "Error encountered returning next chunk of ciphertext.  Msg: "
-                                + e.getLocalizedMessage(),
-                        e);
-            }
+            if (!hasNext()) throw new NoSuchElementException();
+            byte[] chunk = nextChunk;
+            nextChunk = null;
+            return chunk;
         }
 
         @Override
@@ -257,27 +306,65 @@ public class PgpCryptography implements IFileCryptography {
         }
 
         /*
-         * Copy the data in the buffer to the output[] and then reset the buffer to the beginning.
+         * Stop the encryption and wait for it to let go of the source stream.
          */
-        private byte[] returnSafe() {
-            byte[] returnData = this.bos.toByteArray();
-            this.bos.reset();
-            return returnData;
+        @Override
+        public void close() {
+            closed = true;
+            chunks.clear();
+            // If the encryption did not start yet, it never will.
+            if (started.compareAndSet(false, true)) return;
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private byte[] take() {
+            try {
+                return chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for ciphertext", e);
+            }
         }
 
         /*
-         * flush remaining data in buffer and close resources.
+         * Fill buffers of the data within encrypted stream and queue them for the reader.
          */
-        private byte[] done() throws IOException {
-            pgout.flush(); // flush whatever is in the buffer to the output stream
-
-            this.hasnext = false; // tell clients that there is no more data
-
-            byte[] returnData = this.bos.toByteArray();
-            IOUtils.closeQuietly(pgout); // close the handle to the buffered output
-            IOUtils.closeQuietly(bos); // close the handle to the actual output
+        private void encrypt() {
+            if (!started.compareAndSet(false, true)) return;
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                // EncryptedInputStream reads at most 64 KB from the source at a time.
+                byte buffer[] = new byte[1 << 16];
+                boolean queued = false;
+                int count;
+                while (!closed && (count = encryptedSrc.read(buffer, 0, buffer.length)) != -1) {
+                    bos.write(buffer, 0, count);
+                    if (bos.size() >= MAX_CHUNK) {
+                        queue(bos.toByteArray());
+                        bos.reset();
+                        queued = true;
+                    }
+                }
+                if (bos.size() > 0 || !queued) queue(bos.toByteArray());
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                queue(end);
+                finished.countDown();
+            }
+        }
 
-            return returnData;
+        private void queue(byte[] chunk) {
+            try {
+                // Give up on the chunk once the reader is gone.
+                while (!closed) if (chunks.offer(chunk, 1, TimeUnit.SECONDS)) return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
@@ -435,4 +522,36 @@ public class PgpCryptography implements IFileCryptography {
                     "Not supported, invoke read(byte[] bytes, int off, int len) instead.");
         }
     }
+
+    /*
+     * The keys read from a file. The file is read again only when it is changed.
+     */
+    private static class CachedKeyFile<T> {
+        private final Function<File, T> reader;
+        private File file;
+        private long lastModified;
+        private long length;
+        private T keys;
+
+        CachedKeyFile(Function<File, T> reader) {
+            this.reader = reader;
+        }
+
+        synchronized T get(String location) {
+            File current = new File(location);
+            long currentLastModified = current.lastModified();
+            long currentLength = current.length();
+            if (keys == null
+                    || !current.equals(file)
+                    || currentLastModified != lastModified
+                    || currentLength != length) {
+                keys = reader.apply(current);
+                file = current;
+                lastModified = currentLastModified;
+                length = currentLength;
+                logger.info("Read the PGP keys from {}", current);
+            }
+            return keys;
+        }
+    }
 }
@@ -19,10 +19,13 @@ package com.netflix.priam.defaultimpl;
 import com.google.common.collect.Lists;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
+import com.google.inject.name.Names;
 import com.google.inject.servlet.GuiceServletContextListener;
 import com.google.inject.servlet.ServletModule;
 import com.netflix.priam.PriamServer;
+import com.netflix.priam.backupv2.IMetaProxy;
 import com.netflix.priam.config.IConfiguration;
 import com.sun.jersey.api.core.PackagesResourceConfig;
 import com.sun.jersey.guice.spi.container.servlet.GuiceContainer;
@@ -67,6 +70,7 @@ public class InjectedWebListener extends GuiceServletContextListener {
         } catch (SchedulerException e) {
             throw new RuntimeException(e);
         }
+        injector.getInstance(Key.get(IMetaProxy.class, Names.named("v2"))).shutdown();
         super.contextDestroyed(servletContextEvent);
     }
 
@@ -26,6 +26,7 @@ import com.netflix.priam.aws.auth.EC2RoleAssumptionCredential;
 import com.netflix.priam.aws.auth.IS3Credential;
 import com.netflix.priam.aws.auth.S3RoleAssumptionCredential;
 import com.netflix.priam.backup.IBackupFileSystem;
+import com.netflix.priam.backup.LocalFileSystem;
 import com.netflix.priam.backupv2.IMetaProxy;
 import com.netflix.priam.backupv2.MetaV1Proxy;
 import com.netflix.priam.backupv2.MetaV2Proxy;
@@ -58,6 +59,9 @@ public class PriamGuiceModule extends AbstractModule {
                 .to(S3EncryptedFileSystem.class);
 
         bind(S3CrossAccountFileSystem.class);
+        bind(IBackupFileSystem.class)
+                .annotatedWith(Names.named("localbackup"))
+                .to(LocalFileSystem.class);
 
         bind(IBackupFileSystem.class)
                 .annotatedWith(Names.named("gcsencryptedbackup"))
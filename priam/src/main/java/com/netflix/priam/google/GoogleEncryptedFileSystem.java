@@ -27,6 +27,8 @@ import com.google.inject.name.Named;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.AbstractFileSystem;
 import com.netflix.priam.backup.BackupRestoreException;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.RemoteObjectIndex;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cred.ICredentialGeneric;
 import com.netflix.priam.cred.ICredentialGeneric.KEY;
@@ -64,8 +66,9 @@ public class GoogleEncryptedFileSystem extends AbstractFileSystem {
             Provider<AbstractBackupPath> pathProvider,
             final IConfiguration config,
             @Named("gcscredential") ICredentialGeneric credential,
-            BackupMetrics backupMetrics) {
-        super(config, pathProvider);
+            BackupMetrics backupMetrics,
+            RemoteObjectIndex remoteObjectIndex) {
+        super(config, pathProvider, remoteObjectIndex);
         this.backupMetrics = backupMetrics;
         this.config = config;
         this.gcsCredential = credential;
@@ -172,9 +175,8 @@ public class GoogleEncryptedFileSystem extends AbstractFileSystem {
         return this.credential;
     }
 
-    @Override
-    protected void downloadFileImpl(Path remotePath, Path localPath) throws BackupRestoreException {
-        String objectName = parseObjectname(getPrefix().toString());
+    private com.google.api.services.storage.Storage.Objects.Get getObjectHandle(Path remotePath)
+            throws BackupRestoreException {
         com.google.api.services.storage.Storage.Objects.Get get;
 
         try {
@@ -182,7 +184,7 @@ public class GoogleEncryptedFileSystem extends AbstractFileSystem {
         } catch (IOException e) {
             throw new BackupRestoreException(
                     "IO error retrieving metadata for: "
-                            + objectName
+                            + parseObjectname(getPrefix().toString())
                             + " from bucket: "
                             + this.srcBucketName,
                     e);
@@ -191,6 +193,27 @@ public class GoogleEncryptedFileSystem extends AbstractFileSystem {
         // If you're not using GCS' AppEngine, download the whole thing (instead of chunks) in one
         // request, if possible.
         get.getMediaHttpDownloader().setDirectDownloadEnabled(true);
+        return get;
+    }
+
+    @Override
+    public InputStream openRemoteStream(Path remotePath) throws BackupRestoreException {
+        try {
+            return getObjectHandle(remotePath).executeMediaAsInputStream();
+        } catch (IOException e) {
+            throw new BackupRestoreException(
+                    "IO error opening stream on object: "
+                            + remotePath
+                            + " from bucket: "
+                            + this.srcBucketName,
+                    e);
+        }
+    }
+
+    @Override
+    protected void downloadFileImpl(Path remotePath, Path localPath) throws BackupRestoreException {
+        String objectName = parseObjectname(getPrefix().toString());
+        com.google.api.services.storage.Storage.Objects.Get get = getObjectHandle(remotePath);
         try (OutputStream os = new FileOutputStream(localPath.toFile());
                 InputStream is = get.executeMediaAsInputStream()) {
             IOUtils.copyLarge(is, os);
@@ -231,7 +254,9 @@ public class GoogleEncryptedFileSystem extends AbstractFileSystem {
     }
 
     @Override
-    protected long uploadFileImpl(Path localPath, Path remotePath) throws BackupRestoreException {
+    protected long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         throw new UnsupportedOperationException();
     }
 
@@ -25,18 +25,17 @@ import com.netflix.priam.merics.CassMonitorMetrics;
 import com.netflix.priam.scheduler.SimpleTimer;
 import com.netflix.priam.scheduler.Task;
 import com.netflix.priam.scheduler.TaskTimer;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.cassandra.tools.NodeProbe;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /*
- * This task checks if the Cassandra process is running.
+ * This task checks if the Cassandra process is running. The process is checked every second
+ * through the proc file system, while gossip, thrift and native transport are checked over JMX
+ * every 10 seconds, as soon as the process is found, and on every run until a check succeeds.
  */
 @Singleton
 public class CassandraMonitor extends Task {
@@ -44,20 +43,30 @@ public class CassandraMonitor extends Task {
     public static final String JOBNAME = "CASS_MONITOR_THREAD";
     private static final Logger logger = LoggerFactory.getLogger(CassandraMonitor.class);
     private static final AtomicBoolean isCassandraStarted = new AtomicBoolean(false);
+    // Number of runs between the checks of gossip, thrift and native transport over JMX.
+    private static final int STATUS_CHECK_INTERVAL = 10;
+    // Minimum time between two attempts to start Cassandra whatever the configured rate, so a
+    // start still in progress is not started again on the next run.
+    private static final long MIN_REMEDIATION_INTERVAL_MS = 10_000L;
     private final InstanceState instanceState;
     private final ICassandraProcess cassProcess;
     private final CassMonitorMetrics cassMonitorMetrics;
+    private final CassandraProcessTracker processTracker;
+    private int runsSinceStatusCheck = 0;
+    private boolean statusCheckFailed = false;
 
     @Inject
     protected CassandraMonitor(
             IConfiguration config,
             InstanceState instanceState,
             ICassandraProcess cassProcess,
-            CassMonitorMetrics cassMonitorMetrics) {
+            CassMonitorMetrics cassMonitorMetrics,
+            CassandraProcessTracker processTracker) {
         super(config);
         this.instanceState = instanceState;
         this.cassProcess = cassProcess;
         this.cassMonitorMetrics = cassMonitorMetrics;
+        this.processTracker = processTracker;
     }
 
     @Override
@@ -69,47 +78,22 @@ public class CassandraMonitor extends Task {
             instanceState.setIsRequiredDirectoriesExist(false);
         }
 
-        Process process = null;
-        BufferedReader input = null;
-        try {
-            // This returns pid for the Cassandra process
-            // This needs to be sent as command list as "pipe" of results is not allowed. Also, do
-            // not try to change
-            // with pgrep as it has limitation of 4K command list (cassandra command can go upto 5-6
-            // KB as cassandra lists all the libraries in command.
-            final String[] cmd = {
-                "/bin/sh",
-                "-c",
-                "ps -ef |grep -v \"\\sgrep\\s\" | grep " + config.getCassProcessName()
-            };
-            process = Runtime.getRuntime().exec(cmd);
-            input = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line = input.readLine();
-            if (line != null) {
-                // Setting cassandra flag to true
-                instanceState.setCassandraProcessAlive(true);
-                isCassandraStarted.set(true);
-                NodeProbe bean = JMXNodeTool.instance(this.config);
-                instanceState.setIsGossipActive(bean.isGossipRunning());
-                instanceState.setIsNativeTransportActive(bean.isNativeTransportRunning());
-                instanceState.setIsThriftActive(bean.isThriftServerRunning());
-            } else {
-                // Setting cassandra flag to false
-                instanceState.setCassandraProcessAlive(false);
-                isCassandraStarted.set(false);
-            }
-        } catch (Exception e) {
-            logger.warn("Exception thrown while checking if Cassandra is running or not ", e);
-            instanceState.setCassandraProcessAlive(false);
-            isCassandraStarted.set(false);
-        } finally {
-            if (process != null) {
-                IOUtils.closeQuietly(process.getInputStream());
-                IOUtils.closeQuietly(process.getOutputStream());
-                IOUtils.closeQuietly(process.getErrorStream());
+        boolean isAlive = processTracker.isAlive();
+        boolean wasAlive = isCassandraStarted.getAndSet(isAlive);
+        instanceState.setCassandraProcessAlive(isAlive);
+        if (isAlive) {
+            // JMX calls are much more expensive than checking the process, so the status of the
+            // services is refreshed less often than the process is checked.
+            if (!wasAlive
+                    || statusCheckFailed
+                    || ++runsSinceStatusCheck >= STATUS_CHECK_INTERVAL) {
+                runsSinceStatusCheck = 0;
+                statusCheckFailed = !checkServices();
             }
-
-            if (input != null) IOUtils.closeQuietly(input);
+        } else {
+            instanceState.setIsGossipActive(false);
+            instanceState.setIsNativeTransportActive(false);
+            instanceState.setIsThriftActive(false);
         }
 
         try {
@@ -118,9 +102,8 @@ public class CassandraMonitor extends Task {
                 if (instanceState.shouldCassandraBeAlive()
                         && !instanceState.isCassandraProcessAlive()) {
                     long msNow = System.currentTimeMillis();
-                    if (rate == 0
-                            || ((instanceState.getLastAttemptedStartTime() + rate * 1000)
-                                    < msNow)) {
+                    long intervalMs = Math.max(rate * 1000L, MIN_REMEDIATION_INTERVAL_MS);
+                    if (instanceState.getLastAttemptedStartTime() + intervalMs < msNow) {
                         cassMonitorMetrics.incCassAutoStart();
                         cassProcess.start(true);
                         instanceState.markLastAttemptedStartTime();
@@ -132,6 +115,24 @@ public class CassandraMonitor extends Task {
         }
     }
 
+    /** @return false if the services could not be checked. */
+    private boolean checkServices() {
+        try {
+            NodeProbe bean = JMXNodeTool.instance(this.config);
+            instanceState.setIsGossipActive(bean.isGossipRunning());
+            instanceState.setIsNativeTransportActive(bean.isNativeTransportRunning());
+            instanceState.setIsThriftActive(bean.isThriftServerRunning());
+            return true;
+        } catch (Exception e) {
+            // The process is running, but it may not be accepting JMX connections yet.
+            logger.warn("Exception thrown while checking the services of Cassandra ", e);
+            instanceState.setIsGossipActive(false);
+            instanceState.setIsNativeTransportActive(false);
+            instanceState.setIsThriftActive(false);
+            return false;
+        }
+    }
+
     private void checkRequiredDirectories() {
         checkDirectory(config.getDataFileLocation());
         checkDirectory(config.getBackupCommitLogLocation());
@@ -155,7 +156,7 @@ public class CassandraMonitor extends Task {
     }
 
     public static TaskTimer getTimer() {
-        return new SimpleTimer(JOBNAME, 10L * 1000);
+        return new SimpleTimer(JOBNAME, 1000L);
     }
 
     @Override
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.health;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.IConfiguration;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.OptionalLong;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the pid of the Cassandra process using the proc file system, so checking whether Cassandra
+ * is running does not require forking a process. Once found, the pid is remembered and checking it
+ * only reads <code>/proc/[pid]/cmdline</code>, so it is cheap enough to be done every second.
+ *
+ * <p>The pid is read from {@link IConfiguration#getCassPidFile()} if configured, otherwise the
+ * processes are scanned for one with {@link IConfiguration#getCassProcessName()} in its command
+ * line.
+ */
+@Singleton
+public class CassandraProcessTracker {
+    private static final Logger logger = LoggerFactory.getLogger(CassandraProcessTracker.class);
+    private static final long UNKNOWN_PID = -1;
+    private final IConfiguration config;
+    private final Path procRoot;
+    private long pid = UNKNOWN_PID;
+
+    @Inject
+    public CassandraProcessTracker(IConfiguration config) {
+        this(config, Paths.get("/proc"));
+    }
+
+    CassandraProcessTracker(IConfiguration config, Path procRoot) {
+        this.config = config;
+        this.procRoot = procRoot;
+    }
+
+    /** @return true if the Cassandra process is running. */
+    public boolean isAlive() {
+        return getPid().isPresent();
+    }
+
+    /** @return the pid of the Cassandra process, or empty if it is not running. */
+    public synchronized OptionalLong getPid() {
+        if (pid != UNKNOWN_PID && isCassandra(pid)) return OptionalLong.of(pid);
+        if (pid != UNKNOWN_PID) logger.info("Cassandra process with pid {} exited", pid);
+
+        pid = readPidFile();
+        if (pid == UNKNOWN_PID || !isCassandra(pid)) pid = findPid();
+        if (pid != UNKNOWN_PID) logger.info("Found Cassandra process with pid {}", pid);
+        return pid == UNKNOWN_PID ? OptionalLong.empty() : OptionalLong.of(pid);
+    }
+
+    private long readPidFile() {
+        String pidFile = config.getCassPidFile();
+        if (StringUtils.isBlank(pidFile)) return UNKNOWN_PID;
+        try {
+            return Long.parseLong(
+                    new String(Files.readAllBytes(Paths.get(pidFile)), StandardCharsets.US_ASCII)
+                            .trim());
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Unable to read pid file {}: {}", pidFile, e.getMessage());
+            return UNKNOWN_PID;
+        }
+    }
+
+    private long findPid() {
+        try (DirectoryStream<Path> processes =
+                Files.newDirectoryStream(procRoot, path -> isPid(path.getFileName().toString()))) {
+            for (Path process : processes) {
+                long candidate = Long.parseLong(process.getFileName().toString());
+                if (isCassandra(candidate)) return candidate;
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to list the processes in {}: {}", procRoot, e.getMessage());
+        }
+        return UNKNOWN_PID;
+    }
+
+    /**
+     * @return true if the process exists and runs Cassandra. The arguments in cmdline are separated
+     *     by NUL, and it is empty for a zombie process.
+     */
+    private boolean isCassandra(long candidate) {
+        try {
+            byte[] cmdline =
+                    Files.readAllBytes(
+                            procRoot.resolve(Long.toString(candidate)).resolve("cmdline"));
+            for (int i = 0; i < cmdline.length; i++) if (cmdline[i] == 0) cmdline[i] = ' ';
+            return new String(cmdline, StandardCharsets.UTF_8)
+                    .contains(config.getCassProcessName());
+        } catch (IOException e) {
+            // The process exited, or it belongs to someone else.
+            return false;
+        }
+    }
+
+    private static boolean isPid(String name) {
+        return !name.isEmpty() && StringUtils.isNumeric(name);
+    }
+}
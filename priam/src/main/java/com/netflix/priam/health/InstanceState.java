@@ -230,12 +230,23 @@ public class InstanceState {
         private String snapshotMetaFile; // Location of the snapshot meta file selected for restore.
         // the state of a restore.  Note: this is different than the "status" of a Task.
         private Status status;
+        // Progress of the downloads. The bytes of the snapshot files are their size on disk, from
+        // the meta file, and the bytes of the incremental files their size on the remote file
+        // system, so they are reported apart.
+        private int filesToRestore, filesRestored;
+        private long bytesToRestore, bytesRestored;
+        private long incrementalBytesToRestore, incrementalBytesRestored;
+        private LocalDateTime estimatedExecutionEndTime;
 
         public void resetStatus() {
             this.snapshotMetaFile = null;
             this.status = null;
             this.startDateRange = endDateRange = null;
             this.executionStartTime = this.executionEndTime = null;
+            this.filesToRestore = this.filesRestored = 0;
+            this.bytesToRestore = this.bytesRestored = 0;
+            this.incrementalBytesToRestore = this.incrementalBytesRestored = 0;
+            this.estimatedExecutionEndTime = null;
         }
 
         @Override
@@ -286,5 +297,50 @@ public class InstanceState {
         public void setSnapshotMetaFile(String snapshotMetaFile) {
             this.snapshotMetaFile = snapshotMetaFile;
         }
+
+        public int getFilesToRestore() {
+            return filesToRestore;
+        }
+
+        public int getFilesRestored() {
+            return filesRestored;
+        }
+
+        public long getBytesToRestore() {
+            return bytesToRestore;
+        }
+
+        public long getBytesRestored() {
+            return bytesRestored;
+        }
+
+        public long getIncrementalBytesToRestore() {
+            return incrementalBytesToRestore;
+        }
+
+        public long getIncrementalBytesRestored() {
+            return incrementalBytesRestored;
+        }
+
+        public LocalDateTime getEstimatedExecutionEndTime() {
+            return estimatedExecutionEndTime;
+        }
+
+        public void setToRestore(int files, long bytes, long incrementalBytes) {
+            this.filesToRestore = files;
+            this.bytesToRestore = bytes;
+            this.incrementalBytesToRestore = incrementalBytes;
+        }
+
+        public void setRestored(
+                int files,
+                long bytes,
+                long incrementalBytes,
+                LocalDateTime estimatedExecutionEndTime) {
+            this.filesRestored = files;
+            this.bytesRestored = bytes;
+            this.incrementalBytesRestored = incrementalBytes;
+            this.estimatedExecutionEndTime = estimatedExecutionEndTime;
+        }
     }
 }
@@ -94,6 +94,7 @@ public class DoubleRing {
                     null,
                     token);
         }
+        instanceIdentity.getInstanceRegistry().invalidate(config.getAppName());
     }
 
     // filter other DC's
@@ -145,6 +146,8 @@ public class DoubleRing {
             logger.info(
                     "Successfully restored the Instances from the backup: {}",
                     TMP_BACKUP_FILE.getAbsolutePath());
+        } finally {
+            instanceIdentity.getInstanceRegistry().invalidate(config.getAppName());
         }
     }
 }
@@ -55,6 +55,7 @@ public class InstanceIdentity {
     private final ListMultimap<String, PriamInstance> locMap =
             Multimaps.newListMultimap(new HashMap<>(), Lists::newArrayList);
     private final IPriamInstanceFactory<PriamInstance> factory;
+    private final PriamInstanceRegistry instanceRegistry;
     private final IMembership membership;
     private final IConfiguration config;
     private final Sleeper sleeper;
@@ -95,9 +96,11 @@ public class InstanceIdentity {
             IDeadTokenRetriever deadTokenRetriever,
             IPreGeneratedTokenRetriever preGeneratedTokenRetriever,
             INewTokenRetriever newTokenRetriever,
-            InstanceInfo instanceInfo)
+            InstanceInfo instanceInfo,
+            PriamInstanceRegistry instanceRegistry)
             throws Exception {
         this.factory = factory;
+        this.instanceRegistry = instanceRegistry;
         this.membership = membership;
         this.config = config;
         this.sleeper = sleeper;
@@ -117,6 +120,11 @@ public class InstanceIdentity {
         return myInstanceInfo;
     }
 
+    /** @return the cached view of the instances in the cluster. */
+    public PriamInstanceRegistry getInstanceRegistry() {
+        return instanceRegistry;
+    }
+
     public void init() throws Exception {
         // Grab the token which was preassigned.
         logger.info("trying to grab preassigned token.");
@@ -141,6 +149,8 @@ public class InstanceIdentity {
         }
 
         logger.info("My token: {}", myInstance.getToken());
+        // The token assignment may have changed the registry.
+        instanceRegistry.invalidate(config.getAppName());
     }
 
     private PriamInstance grabPreAssignedToken() throws Exception {
@@ -292,30 +302,43 @@ public class InstanceIdentity {
         }
     }
 
+    /**
+     * Group the instances of the cluster by rac, as seen by the instance registry. This does not
+     * touch the locMap, which is only for the token assignment and always reads the registry.
+     */
+    private ListMultimap<String, PriamInstance> getCachedRacMap() {
+        ListMultimap<String, PriamInstance> racMap =
+                Multimaps.newListMultimap(new HashMap<>(), Lists::newArrayList);
+        for (PriamInstance ins : instanceRegistry.getAllIds(config.getAppName())) {
+            racMap.put(ins.getRac(), ins);
+        }
+        return racMap;
+    }
+
     public List<String> getSeeds() throws UnknownHostException {
-        populateRacMap();
+        ListMultimap<String, PriamInstance> racMap = getCachedRacMap();
         List<String> seeds = new LinkedList<>();
         // Handle single zone deployment
         if (config.getRacs().size() == 1) {
             // Return empty list if all nodes are not up
-            if (membership.getRacMembershipSize() != locMap.get(myInstance.getRac()).size())
+            if (membership.getRacMembershipSize() != racMap.get(myInstance.getRac()).size())
                 return seeds;
             // If seed node, return the next node in the list
-            if (locMap.get(myInstance.getRac()).size() > 1
-                    && locMap.get(myInstance.getRac())
+            if (racMap.get(myInstance.getRac()).size() > 1
+                    && racMap.get(myInstance.getRac())
                             .get(0)
                             .getHostIP()
                             .equals(myInstance.getHostIP())) {
-                PriamInstance instance = locMap.get(myInstance.getRac()).get(1);
+                PriamInstance instance = racMap.get(myInstance.getRac()).get(1);
                 if (instance != null && !isInstanceDummy(instance)) {
                     if (config.isMultiDC()) seeds.add(instance.getHostIP());
                     else seeds.add(instance.getHostName());
                 }
             }
         }
-        for (String loc : locMap.keySet()) {
+        for (String loc : racMap.keySet()) {
             PriamInstance instance =
-                    Iterables.tryFind(locMap.get(loc), differentHostPredicate).orNull();
+                    Iterables.tryFind(racMap.get(loc), differentHostPredicate).orNull();
             if (instance != null && !isInstanceDummy(instance)) {
                 if (config.isMultiDC()) seeds.add(instance.getHostIP());
                 else seeds.add(instance.getHostName());
@@ -325,8 +348,8 @@ public class InstanceIdentity {
     }
 
     public boolean isSeed() {
-        populateRacMap();
-        String ip = locMap.get(myInstance.getRac()).get(0).getHostName();
+        ListMultimap<String, PriamInstance> racMap = getCachedRacMap();
+        String ip = racMap.get(myInstance.getRac()).get(0).getHostName();
         return myInstance.getHostName().equals(ip);
     }
 
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.identity;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read through cache of the instances registered with {@link IPriamInstanceFactory}, for the
+ * lookups which are done over and over again, like the seeds and the racks of the cluster.
+ *
+ * <p>The instances of a cluster are reloaded in the background once they are older than {@link
+ * IConfiguration#getInstanceRegistryCacheTtlInSec()}. The cached instances are served while they
+ * are reloaded, and kept if the reload fails, so a slow or unavailable registry does not hold up
+ * the callers. Anything changing the registry should call {@link #invalidate(String)} so the
+ * change is seen right away.
+ *
+ * <p>The token assignment must not use this cache, as it has to see the latest state of the
+ * registry.
+ */
+@Singleton
+public class PriamInstanceRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(PriamInstanceRegistry.class);
+    private final IPriamInstanceFactory<PriamInstance> factory;
+    private final LoadingCache<String, List<PriamInstance>> instances;
+
+    @Inject
+    // Note: do not parameterized the generic type variable to an implementation as it confuses
+    // Guice in the binding.
+    public PriamInstanceRegistry(IPriamInstanceFactory factory, IConfiguration config) {
+        this.factory = factory;
+        int ttl = config.getInstanceRegistryCacheTtlInSec();
+        if (ttl <= 0) {
+            this.instances = null;
+            return;
+        }
+        this.instances =
+                CacheBuilder.newBuilder()
+                        .refreshAfterWrite(ttl, TimeUnit.SECONDS)
+                        .build(
+                                CacheLoader.asyncReloading(
+                                        CacheLoader.from(this::load),
+                                        new NamedThreadPoolExecutor(1, "InstanceRegistryRefresh")));
+    }
+
+    /**
+     * @param appName the cluster name
+     * @return all the instances registered in the cluster. The list must not be modified.
+     */
+    public List<PriamInstance> getAllIds(String appName) {
+        if (instances == null) return factory.getAllIds(appName);
+        try {
+            return instances.getUnchecked(appName);
+        } catch (UncheckedExecutionException e) {
+            // Surface the exception of the registry, as if it was called directly.
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the cached instances of the cluster, e.g. after registering or removing an instance.
+     *
+     * @param appName the cluster name
+     */
+    public void invalidate(String appName) {
+        if (instances != null) instances.invalidate(appName);
+    }
+
+    private List<PriamInstance> load(String appName) {
+        List<PriamInstance> loaded = ImmutableList.copyOf(factory.getAllIds(appName));
+        logger.debug("Loaded {} instances of {}", loaded.size(), appName);
+        return loaded;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.resources;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.priam.config.IConfiguration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the long running admin operations, e.g. flush, compaction or repair, requested over the REST
+ * API on a small bounded pool. The request thread only submits the operation and gets back its id,
+ * which is then polled for the outcome, so a few slow operations cannot take up all the threads of
+ * the web container. An operation submitted while the same operation is still queued or running is
+ * not run twice; the caller gets the pending one instead.
+ */
+@Singleton
+public class AdminOperations {
+    private static final Logger logger = LoggerFactory.getLogger(AdminOperations.class);
+    /** Number of finished operations kept around for the clients to poll. */
+    private static final int FINISHED_RETAINED = 100;
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final Map<String, Operation> pending = new ConcurrentHashMap<>();
+    private final Queue<Operation> finished = new ConcurrentLinkedQueue<>();
+
+    @Inject
+    public AdminOperations(IConfiguration config) {
+        executor =
+                new ThreadPoolExecutor(
+                        config.getAdminOperationThreads(),
+                        config.getAdminOperationThreads(),
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(config.getAdminOperationQueueSize()),
+                        new ThreadFactoryBuilder()
+                                .setDaemon(true)
+                                .setNameFormat("admin-operation-%d")
+                                .build(),
+                        new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Submit the operation to run in the background.
+     *
+     * @param name name of the operation, including its parameters. Operations of the same name are
+     *     de-duped while one of them is queued or running.
+     * @param work the operation.
+     * @return the operation which was submitted, or the pending one of the same name.
+     * @throws RejectedExecutionException if there are too many operations queued already.
+     */
+    public Operation submit(String name, Callable<Response> work) throws RejectedExecutionException {
+        Operation operation =
+                pending.compute(
+                        name,
+                        (key, existing) -> {
+                            if (existing != null && !existing.isDone()) return existing;
+                            Operation created = new Operation(name);
+                            executor.execute(() -> run(created, work));
+                            operations.put(created.getId(), created);
+                            return created;
+                        });
+        logger.info(
+                "Admin operation {} is {}: {}", name, operation.getStatus(), operation.getId());
+        return operation;
+    }
+
+    public Optional<Operation> get(String id) {
+        return Optional.ofNullable(operations.get(id));
+    }
+
+    public Collection<Operation> list() {
+        return new ArrayList<>(operations.values());
+    }
+
+    private void run(Operation operation, Callable<Response> work) {
+        operation.started = Instant.now();
+        operation.status = Status.RUNNING;
+        try {
+            Response response = work.call();
+            operation.result = response;
+            operation.status = response.getStatus() < 400 ? Status.SUCCEEDED : Status.FAILED;
+        } catch (Exception e) {
+            logger.error("Admin operation {} failed: {}", operation.getName(), e.getMessage(), e);
+            operation.error = e.getLocalizedMessage();
+            operation.status = Status.FAILED;
+        } finally {
+            operation.finished = Instant.now();
+            operation.done.countDown();
+            pending.remove(operation.getName(), operation);
+            finished.add(operation);
+            while (finished.size() > FINISHED_RETAINED) {
+                Operation evicted = finished.poll();
+                if (evicted != null) operations.remove(evicted.getId());
+            }
+        }
+    }
+
+    /** An admin operation and its outcome, once it is done. */
+    public static class Operation {
+        private final String id = UUID.randomUUID().toString();
+        private final String name;
+        private final Instant submitted = Instant.now();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant started;
+        private volatile Instant finished;
+        private volatile Response result;
+        private volatile String error;
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Wait for the operation to finish.
+         *
+         * @param timeout maximum time to wait. If &lt;0, wait until the operation is done.
+         * @param unit unit of the timeout.
+         * @return true if the operation is done.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            if (timeout < 0) {
+                done.await();
+                return true;
+            }
+            return done.await(timeout, unit);
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Instant getSubmitted() {
+            return submitted;
+        }
+
+        public Instant getStarted() {
+            return started;
+        }
+
+        public Instant getFinished() {
+            return finished;
+        }
+
+        /** @return the response of the operation once it is done, null if it threw. */
+        public Response getResult() {
+            return result;
+        }
+
+        /** @return the message of the exception if the operation threw, null otherwise. */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -17,9 +17,12 @@
 
 package com.netflix.priam.resources;
 
+import com.google.common.collect.Iterators;
+import com.google.gson.stream.JsonWriter;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.netflix.priam.backup.*;
+import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
 import com.netflix.priam.backupv2.BackupTTLTask;
 import com.netflix.priam.backupv2.BackupV2Service;
 import com.netflix.priam.backupv2.IMetaProxy;
@@ -27,11 +30,17 @@ import com.netflix.priam.backupv2.SnapshotMetaTask;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.utils.DateUtil;
 import com.netflix.priam.utils.DateUtil.DateRange;
+import com.netflix.priam.utils.GsonJsonSerializer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.inject.Named;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -121,11 +130,19 @@ public class BackupServletV2 {
         return Response.ok(metadataList).build();
     }
 
+    /**
+     * Validate the latest backup in the date range. The result is streamed to the client.
+     *
+     * @param daterange date range in which to look for the backup.
+     * @param force if true, validate the backup again even if it was validated earlier.
+     * @param compact if true, the result is written without any whitespace.
+     */
     @GET
     @Path("/validate/{daterange}")
     public Response validateV2SnapshotByDate(
             @PathParam("daterange") String daterange,
-            @DefaultValue("false") @QueryParam("force") boolean force)
+            @DefaultValue("false") @QueryParam("force") boolean force,
+            @DefaultValue("false") @QueryParam("compact") boolean compact)
             throws Exception {
         DateUtil.DateRange dateRange = new DateUtil.DateRange(daterange);
         Optional<BackupVerificationResult> result =
@@ -137,27 +154,226 @@ public class BackupServletV2 {
                     .build();
         }
 
-        return Response.ok(result.get()).build();
+        BackupVerificationResult verificationResult = result.get();
+        return Response.ok(
+                        new JsonStreamingOutput(
+                                compact,
+                                writer ->
+                                        GsonJsonSerializer.getGson()
+                                                .toJson(
+                                                        verificationResult,
+                                                        BackupVerificationResult.class,
+                                                        writer)))
+                .build();
     }
 
+    /**
+     * List the files required to restore the latest valid backup in the date range. The files are
+     * streamed to the client as they are listed.
+     *
+     * <p>Without a cursor and a limit, the response is a JSON array of the remote paths. Otherwise
+     * it is a page of the form <code>{"files": [...], "nextCursor": "..."}</code>. Pass the
+     * nextCursor to get the next page; it is absent on the last page. The cursor pins the meta file
+     * of the first page, so all the pages describe the same backup. Once past the files of the
+     * snapshot, the cursor holds the last incremental file returned, so the next page resumes the
+     * listing of the incremental files there instead of reading the meta file again.
+     *
+     * @param daterange date range in which to look for the backup.
+     * @param cursor cursor returned with the previous page, if any.
+     * @param limit maximum number of files in the page. If &lt;1, all the remaining files are
+     *     returned.
+     * @param compact if true, the result is written without any whitespace.
+     */
     @GET
     @Path("/list/{daterange}")
-    public Response list(@PathParam("daterange") String daterange) throws Exception {
+    public Response list(
+            @PathParam("daterange") String daterange,
+            @QueryParam("cursor") String cursor,
+            @DefaultValue("0") @QueryParam("limit") int limit,
+            @DefaultValue("false") @QueryParam("compact") boolean compact)
+            throws Exception {
         DateUtil.DateRange dateRange = new DateUtil.DateRange(daterange);
-        // Find latest valid meta file.
-        Optional<AbstractBackupPath> latestValidMetaFile =
-                BackupRestoreUtil.getLatestValidMetaPath(metaProxy, dateRange);
-        if (!latestValidMetaFile.isPresent()) {
-            return Response.ok("No valid meta found!").build();
+        ListCursor start;
+        AbstractBackupPath metaFile;
+        if (cursor == null) {
+            // Find latest valid meta file.
+            Optional<AbstractBackupPath> latestValidMetaFile =
+                    BackupRestoreUtil.getLatestValidMetaPath(metaProxy, dateRange);
+            if (!latestValidMetaFile.isPresent()) {
+                return Response.ok("No valid meta found!").build();
+            }
+            metaFile = latestValidMetaFile.get();
+            start = new ListCursor(metaFile.getRemotePath(), 0, null);
+        } else {
+            try {
+                start = ListCursor.decode(cursor);
+                metaFile = parseCursorMetaFile(start, dateRange);
+            } catch (IllegalArgumentException e) {
+                return invalidCursor(cursor, e);
+            }
         }
-        List<AbstractBackupPath> allFiles =
-                BackupRestoreUtil.getAllFiles(
-                        latestValidMetaFile.get(), dateRange, metaProxy, pathProvider);
 
+        // Download and parse the meta file before the response is committed so any failure is
+        // still reported with the right status.
+        Iterator<AbstractBackupPath> snapshot;
+        if (start.incrementalMarker == null) {
+            snapshot = BackupRestoreUtil.iterateSnapshotFiles(metaFile, metaProxy, pathProvider);
+            Iterators.advance(snapshot, start.offset);
+        } else {
+            // All the files of the snapshot were returned already.
+            snapshot = Collections.emptyIterator();
+        }
+        Iterator<AbstractBackupPath> incrementals;
+        try {
+            incrementals =
+                    BackupRestoreUtil.iterateIncrementals(
+                            metaFile, dateRange, metaProxy, start.incrementalMarker);
+        } catch (IllegalArgumentException e) {
+            // The incremental file of the cursor is no longer listed.
+            return invalidCursor(cursor, e);
+        }
+        boolean paged = cursor != null || limit > 0;
         return Response.ok(
-                        allFiles.stream()
-                                .map(AbstractBackupPath::getRemotePath)
-                                .collect(Collectors.toList()))
+                        new JsonStreamingOutput(
+                                compact,
+                                writer ->
+                                        writeList(
+                                                writer,
+                                                snapshot,
+                                                incrementals,
+                                                start,
+                                                limit,
+                                                paged)))
                 .build();
     }
+
+    private static Response invalidCursor(String cursor, IllegalArgumentException e) {
+        logger.warn("Invalid cursor: {}", cursor, e);
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Invalid cursor: " + cursor)
+                .build();
+    }
+
+    /**
+     * The cursor comes from the client, so only a meta file of the backups of this node in the
+     * date range is downloaded, and only the incremental files of this node are listed from it.
+     *
+     * @throws IllegalArgumentException if the cursor points anywhere else.
+     */
+    AbstractBackupPath parseCursorMetaFile(ListCursor cursor, DateRange dateRange) {
+        java.nio.file.Path metaPrefix =
+                pathProvider.get().remoteV2Prefix(fs.getPrefix(), BackupFileType.META_V2);
+        if (!Paths.get(cursor.metaFile).startsWith(metaPrefix))
+            throw new IllegalArgumentException("Not a meta file of this node: " + cursor.metaFile);
+
+        AbstractBackupPath metaFile = pathProvider.get();
+        try {
+            metaFile.parseRemote(cursor.metaFile);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed meta file: " + cursor.metaFile, e);
+        }
+        // The path is rebuilt from the parsed parts, which rules out any relative parts.
+        if (metaFile.getType() != BackupFileType.META_V2
+                || !metaFile.getRemotePath().equals(cursor.metaFile))
+            throw new IllegalArgumentException("Malformed meta file: " + cursor.metaFile);
+        if (metaFile.getLastModified().isBefore(dateRange.getStartTime())
+                || metaFile.getLastModified().isAfter(dateRange.getEndTime()))
+            throw new IllegalArgumentException(
+                    "Meta file out of the date range: " + cursor.metaFile);
+
+        if (cursor.incrementalMarker != null
+                && !Paths.get(cursor.incrementalMarker)
+                        .startsWith(
+                                pathProvider
+                                        .get()
+                                        .remoteV2Prefix(fs.getPrefix(), BackupFileType.SST_V2)))
+            throw new IllegalArgumentException(
+                    "Not an incremental file of this node: " + cursor.incrementalMarker);
+        return metaFile;
+    }
+
+    static void writeList(
+            JsonWriter writer,
+            Iterator<AbstractBackupPath> snapshot,
+            Iterator<AbstractBackupPath> incrementals,
+            ListCursor start,
+            int limit,
+            boolean paged)
+            throws IOException {
+        if (paged) writer.beginObject().name("files");
+        writer.beginArray();
+        int count = 0;
+        int offset = start.offset;
+        String incrementalMarker = start.incrementalMarker;
+        while (limit < 1 || count < limit) {
+            if (snapshot.hasNext()) {
+                writer.value(snapshot.next().getRemotePath());
+                offset++;
+            } else if (incrementals.hasNext()) {
+                incrementalMarker = incrementals.next().getRemotePath();
+                writer.value(incrementalMarker);
+            } else {
+                break;
+            }
+            count++;
+        }
+        writer.endArray();
+        if (paged) {
+            if (snapshot.hasNext() || incrementals.hasNext())
+                writer.name("nextCursor")
+                        .value(
+                                new ListCursor(start.metaFile, offset, incrementalMarker)
+                                        .encode());
+            writer.endObject();
+        }
+    }
+
+    /**
+     * Position in the listing of a backup: the remote path of the meta file, the number of files
+     * of the snapshot already returned and the last incremental file returned, if any. It is
+     * passed around as an opaque url-safe string.
+     */
+    static final class ListCursor {
+        private static final String SEPARATOR = ":";
+        // Remote paths do not contain line breaks.
+        private static final String MARKER_SEPARATOR = "\n";
+        final String metaFile;
+        final int offset;
+        final String incrementalMarker;
+
+        ListCursor(String metaFile, int offset, String incrementalMarker) {
+            this.metaFile = metaFile;
+            this.offset = offset;
+            this.incrementalMarker = incrementalMarker;
+        }
+
+        String encode() {
+            String value = offset + SEPARATOR + metaFile;
+            if (incrementalMarker != null) value += MARKER_SEPARATOR + incrementalMarker;
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @throws IllegalArgumentException if the cursor is malformed. */
+        static ListCursor decode(String cursor) {
+            String value =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = value.indexOf(SEPARATOR);
+            if (index < 1 || index == value.length() - 1)
+                throw new IllegalArgumentException("Malformed cursor: " + cursor);
+            int offset = Integer.parseInt(value.substring(0, index));
+            if (offset < 0) throw new IllegalArgumentException("Negative offset: " + cursor);
+            String metaFile = value.substring(index + 1);
+            String incrementalMarker = null;
+            int markerIndex = metaFile.indexOf(MARKER_SEPARATOR);
+            if (markerIndex >= 0) {
+                incrementalMarker = metaFile.substring(markerIndex + 1);
+                metaFile = metaFile.substring(0, markerIndex);
+                if (metaFile.isEmpty() || incrementalMarker.isEmpty())
+                    throw new IllegalArgumentException("Malformed cursor: " + cursor);
+            }
+            return new ListCursor(metaFile, offset, incrementalMarker);
+        }
+    }
 }
@@ -34,7 +34,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -59,12 +63,15 @@ public class CassandraAdmin {
     private static final String REST_HEADER_CFS = "cfnames";
     private static final String REST_HEADER_TOKEN = "token";
     private static final String REST_SUCCESS = "[\"ok\"]";
+    /** Longest time a poll of an admin operation waits for it to finish. */
+    private static final int MAX_OPERATION_WAIT_SEC = 60;
     private static final Logger logger = LoggerFactory.getLogger(CassandraAdmin.class);
     private IConfiguration config;
     private final ICassandraProcess cassProcess;
     private final Flush flush;
     private final Compaction compaction;
     private final CassandraOperations cassandraOperations;
+    private final AdminOperations adminOperations;
 
     @Inject
     public CassandraAdmin(
@@ -72,12 +79,14 @@ public class CassandraAdmin {
             ICassandraProcess cassProcess,
             Flush flush,
             Compaction compaction,
-            CassandraOperations cassandraOperations) {
+            CassandraOperations cassandraOperations,
+            AdminOperations adminOperations) {
         this.config = config;
         this.cassProcess = cassProcess;
         this.flush = flush;
         this.compaction = compaction;
         this.cassandraOperations = cassandraOperations;
+        this.adminOperations = adminOperations;
     }
 
     @GET
@@ -97,22 +106,31 @@ public class CassandraAdmin {
 
     @GET
     @Path("/refresh")
-    public Response cassRefresh(@QueryParam(REST_HEADER_KEYSPACES) String keyspaces)
+    public Response cassRefresh(
+            @QueryParam(REST_HEADER_KEYSPACES) String keyspaces,
+            @DefaultValue("false") @QueryParam("async") boolean async)
             throws IOException, ExecutionException, InterruptedException, JSONException {
         logger.debug("node tool refresh is being called");
         if (StringUtils.isBlank(keyspaces))
             return Response.status(400).entity("Missing keyspace in request").build();
 
-        JMXNodeTool nodeTool;
-        try {
-            nodeTool = JMXNodeTool.instance(config);
-        } catch (JMXConnectionException e) {
-            logger.error(
-                    "Exception in fetching c* jmx tool .  Msgl: {}", e.getLocalizedMessage(), e);
-            return Response.status(503).entity("JMXConnectionException").build();
-        }
-        nodeTool.refresh(Lists.newArrayList(keyspaces.split(",")));
-        return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+        return runOperation(
+                "refresh " + keyspaces,
+                async,
+                () -> {
+                    JMXNodeTool nodeTool;
+                    try {
+                        nodeTool = JMXNodeTool.instance(config);
+                    } catch (JMXConnectionException e) {
+                        logger.error(
+                                "Exception in fetching c* jmx tool .  Msgl: {}",
+                                e.getLocalizedMessage(),
+                                e);
+                        return Response.status(503).entity("JMXConnectionException").build();
+                    }
+                    nodeTool.refresh(Lists.newArrayList(keyspaces.split(",")));
+                    return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+                });
     }
 
     @GET
@@ -178,58 +196,78 @@ public class CassandraAdmin {
 
     @GET
     @Path("/flush")
-    public Response cassFlush() throws IOException, InterruptedException, ExecutionException {
-        JSONObject rootObj = new JSONObject();
-
-        try {
-            flush.execute();
-            rootObj.put("Flushed", true);
-            return Response.ok().entity(rootObj).build();
-        } catch (Exception e) {
-            try {
-                rootObj.put("status", "ERRROR");
-                rootObj.put("desc", e.getLocalizedMessage());
-            } catch (Exception e1) {
-                return Response.status(503).entity("FlushError").build();
-            }
-            return Response.status(503).entity(rootObj).build();
-        }
+    public Response cassFlush(@DefaultValue("false") @QueryParam("async") boolean async)
+            throws IOException, InterruptedException, ExecutionException {
+        return runOperation(
+                "flush",
+                async,
+                () -> {
+                    JSONObject rootObj = new JSONObject();
+
+                    try {
+                        flush.execute();
+                        rootObj.put("Flushed", true);
+                        return Response.ok().entity(rootObj).build();
+                    } catch (Exception e) {
+                        try {
+                            rootObj.put("status", "ERRROR");
+                            rootObj.put("desc", e.getLocalizedMessage());
+                        } catch (Exception e1) {
+                            return Response.status(503).entity("FlushError").build();
+                        }
+                        return Response.status(503).entity(rootObj).build();
+                    }
+                });
     }
 
     @GET
     @Path("/compact")
-    public Response cassCompact() throws IOException, ExecutionException, InterruptedException {
-        JSONObject rootObj = new JSONObject();
-
-        try {
-            compaction.execute();
-            rootObj.put("Compcated", true);
-            return Response.ok().entity(rootObj).build();
-        } catch (Exception e) {
-            try {
-                rootObj.put("status", "ERRROR");
-                rootObj.put("desc", e.getLocalizedMessage());
-            } catch (Exception e1) {
-                return Response.status(503).entity("CompactionError").build();
-            }
-            return Response.status(503).entity(rootObj).build();
-        }
+    public Response cassCompact(@DefaultValue("false") @QueryParam("async") boolean async)
+            throws IOException, ExecutionException, InterruptedException {
+        return runOperation(
+                "compact",
+                async,
+                () -> {
+                    JSONObject rootObj = new JSONObject();
+
+                    try {
+                        compaction.execute();
+                        rootObj.put("Compcated", true);
+                        return Response.ok().entity(rootObj).build();
+                    } catch (Exception e) {
+                        try {
+                            rootObj.put("status", "ERRROR");
+                            rootObj.put("desc", e.getLocalizedMessage());
+                        } catch (Exception e1) {
+                            return Response.status(503).entity("CompactionError").build();
+                        }
+                        return Response.status(503).entity(rootObj).build();
+                    }
+                });
     }
 
     @GET
     @Path("/cleanup")
-    public Response cassCleanup() throws IOException, ExecutionException, InterruptedException {
-        JMXNodeTool nodeTool;
-        try {
-            nodeTool = JMXNodeTool.instance(config);
-        } catch (JMXConnectionException e) {
-            logger.error(
-                    "Exception in fetching c* jmx tool .  Msgl: {}", e.getLocalizedMessage(), e);
-            return Response.status(503).entity("JMXConnectionException").build();
-        }
-        logger.debug("node tool cleanup being called");
-        nodeTool.cleanup();
-        return Response.ok().build();
+    public Response cassCleanup(@DefaultValue("false") @QueryParam("async") boolean async)
+            throws IOException, ExecutionException, InterruptedException {
+        return runOperation(
+                "cleanup",
+                async,
+                () -> {
+                    JMXNodeTool nodeTool;
+                    try {
+                        nodeTool = JMXNodeTool.instance(config);
+                    } catch (JMXConnectionException e) {
+                        logger.error(
+                                "Exception in fetching c* jmx tool .  Msgl: {}",
+                                e.getLocalizedMessage(),
+                                e);
+                        return Response.status(503).entity("JMXConnectionException").build();
+                    }
+                    logger.debug("node tool cleanup being called");
+                    nodeTool.cleanup();
+                    return Response.ok().build();
+                });
     }
 
     @GET
@@ -237,19 +275,29 @@ public class CassandraAdmin {
     public Response cassRepair(
             @QueryParam("sequential") boolean isSequential,
             @QueryParam("localDC") boolean localDCOnly,
-            @DefaultValue("false") @QueryParam("primaryRange") boolean primaryRange)
+            @DefaultValue("false") @QueryParam("primaryRange") boolean primaryRange,
+            @DefaultValue("false") @QueryParam("async") boolean async)
             throws IOException, ExecutionException, InterruptedException {
-        JMXNodeTool nodeTool;
-        try {
-            nodeTool = JMXNodeTool.instance(config);
-        } catch (JMXConnectionException e) {
-            logger.error(
-                    "Exception in fetching c* jmx tool .  Msgl: {}", e.getLocalizedMessage(), e);
-            return Response.status(503).entity("JMXConnectionException").build();
-        }
-        logger.debug("node tool repair being called");
-        nodeTool.repair(isSequential, localDCOnly, primaryRange);
-        return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+        return runOperation(
+                String.format(
+                        "repair sequential=%s localDC=%s primaryRange=%s",
+                        isSequential, localDCOnly, primaryRange),
+                async,
+                () -> {
+                    JMXNodeTool nodeTool;
+                    try {
+                        nodeTool = JMXNodeTool.instance(config);
+                    } catch (JMXConnectionException e) {
+                        logger.error(
+                                "Exception in fetching c* jmx tool .  Msgl: {}",
+                                e.getLocalizedMessage(),
+                                e);
+                        return Response.status(503).entity("JMXConnectionException").build();
+                    }
+                    logger.debug("node tool repair being called");
+                    nodeTool.repair(isSequential, localDCOnly, primaryRange);
+                    return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+                });
     }
 
     @GET
@@ -509,18 +557,103 @@ public class CassandraAdmin {
 
     @GET
     @Path("/drain")
-    public Response cassDrain() throws IOException, ExecutionException, InterruptedException {
-        JMXNodeTool nodeTool;
+    public Response cassDrain(@DefaultValue("false") @QueryParam("async") boolean async)
+            throws IOException, ExecutionException, InterruptedException {
+        return runOperation(
+                "drain",
+                async,
+                () -> {
+                    JMXNodeTool nodeTool;
+                    try {
+                        nodeTool = JMXNodeTool.instance(config);
+                    } catch (JMXConnectionException e) {
+                        logger.error(
+                                "Exception in fetching c* jmx tool .  Msgl: {}",
+                                e.getLocalizedMessage(),
+                                e);
+                        return Response.status(503).entity("JMXConnectionException").build();
+                    }
+                    logger.debug("node tool drain being called");
+                    nodeTool.drain();
+                    return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+                });
+    }
+
+    /** List the admin operations which are pending or finished recently. */
+    @GET
+    @Path("/operations")
+    public Response operations() throws JSONException {
+        JSONArray operations = new JSONArray();
+        for (AdminOperations.Operation operation : adminOperations.list())
+            operations.put(toJson(operation));
+        return Response.ok(operations, MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Get the state of an admin operation.
+     *
+     * @param id id of the operation, as returned when it was submitted.
+     * @param wait seconds to wait for the operation to finish before responding. This is capped at
+     *     a minute; poll again if the operation is still running.
+     */
+    @GET
+    @Path("/operations/{id}")
+    public Response operation(
+            @PathParam("id") String id, @DefaultValue("0") @QueryParam("wait") int wait)
+            throws JSONException, InterruptedException {
+        Optional<AdminOperations.Operation> operation = adminOperations.get(id);
+        if (!operation.isPresent())
+            return Response.status(404).entity("Unknown operation: " + id).build();
+        if (wait > 0)
+            operation.get().await(Math.min(wait, MAX_OPERATION_WAIT_SEC), TimeUnit.SECONDS);
+        return Response.ok(toJson(operation.get()), MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Run the operation on the admin operation pool. If async, respond right away with the id of
+     * the operation to poll. Otherwise wait for it to finish and respond with its outcome.
+     */
+    private Response runOperation(String name, boolean async, Callable<Response> work)
+            throws InterruptedException {
+        AdminOperations.Operation operation;
         try {
-            nodeTool = JMXNodeTool.instance(config);
-        } catch (JMXConnectionException e) {
-            logger.error(
-                    "Exception in fetching c* jmx tool .  Msgl: {}", e.getLocalizedMessage(), e);
-            return Response.status(503).entity("JMXConnectionException").build();
+            operation = adminOperations.submit(name, work);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Admin operation {} rejected: {}", name, e.getMessage());
+            return Response.status(503).entity("Too many admin operations queued").build();
         }
-        logger.debug("node tool drain being called");
-        nodeTool.drain();
-        return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+        if (async) {
+            try {
+                return Response.status(Response.Status.ACCEPTED)
+                        .entity(toJson(operation))
+                        .type(MediaType.APPLICATION_JSON)
+                        .build();
+            } catch (JSONException e) {
+                return Response.status(Response.Status.ACCEPTED).entity(operation.getId()).build();
+            }
+        }
+        operation.await(-1, TimeUnit.SECONDS);
+        if (operation.getResult() != null) return operation.getResult();
+        return Response.serverError().entity(operation.getError()).build();
+    }
+
+    private static JSONObject toJson(AdminOperations.Operation operation) throws JSONException {
+        JSONObject object = new JSONObject();
+        object.put("id", operation.getId());
+        object.put("name", operation.getName());
+        object.put("status", operation.getStatus().name());
+        object.put("submitted", operation.getSubmitted().toString());
+        if (operation.getStarted() != null)
+            object.put("started", operation.getStarted().toString());
+        if (operation.getFinished() != null)
+            object.put("finished", operation.getFinished().toString());
+        Response result = operation.getResult();
+        if (result != null) {
+            object.put("httpStatus", result.getStatus());
+            if (result.getEntity() != null) object.put("result", result.getEntity().toString());
+        }
+        if (operation.getError() != null) object.put("error", operation.getError());
+        return object;
     }
 
     /*
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.resources;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Response entity which writes its JSON body straight to the connection. Nothing is buffered
+ * beyond the writer itself, so the container sends the response with chunked transfer encoding and
+ * the client sees the first bytes as soon as the first buffer is flushed.
+ */
+class JsonStreamingOutput implements StreamingOutput {
+    /** Writes the body of the response. */
+    interface Body {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private final boolean compact;
+    private final Body body;
+
+    /**
+     * @param compact if true, no whitespace is written between the tokens. Otherwise the output is
+     *     indented the same way as the rest of the API.
+     * @param body writer of the body of the response.
+     */
+    JsonStreamingOutput(boolean compact, Body body) {
+        this.compact = compact;
+        this.body = body;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        JsonWriter writer =
+                new JsonWriter(
+                        new BufferedWriter(
+                                new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        writer.setHtmlSafe(false);
+        if (!compact) writer.setIndent("  ");
+        body.write(writer);
+        // Do not close the writer as the container owns the output stream.
+        writer.flush();
+    }
+}
@@ -20,6 +20,7 @@ import com.google.inject.Inject;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.IPriamInstanceFactory;
 import com.netflix.priam.identity.PriamInstance;
+import com.netflix.priam.identity.PriamInstanceRegistry;
 import com.netflix.priam.identity.config.InstanceInfo;
 import java.net.URI;
 import java.util.List;
@@ -39,15 +40,20 @@ public class PriamInstanceResource {
     private final IConfiguration config;
     private final IPriamInstanceFactory<PriamInstance> factory;
     private final InstanceInfo instanceInfo;
+    private final PriamInstanceRegistry instanceRegistry;
 
     @Inject
     // Note: do not parameterize the generic type variable to an implementation as it confuses
     // Guice in the binding.
     public PriamInstanceResource(
-            IConfiguration config, IPriamInstanceFactory factory, InstanceInfo instanceInfo) {
+            IConfiguration config,
+            IPriamInstanceFactory factory,
+            InstanceInfo instanceInfo,
+            PriamInstanceRegistry instanceRegistry) {
         this.config = config;
         this.factory = factory;
         this.instanceInfo = instanceInfo;
+        this.instanceRegistry = instanceRegistry;
     }
 
     /**
@@ -104,6 +110,7 @@ public class PriamInstanceResource {
         PriamInstance instance =
                 factory.create(
                         config.getAppName(), id, instanceID, hostname, ip, rack, null, token);
+        instanceRegistry.invalidate(config.getAppName());
         URI uri = UriBuilder.fromPath("/{id}").build(instance.getId());
         return Response.created(uri).build();
     }
@@ -119,6 +126,7 @@ public class PriamInstanceResource {
     public Response deleteInstance(@PathParam("id") int id) {
         PriamInstance instance = getByIdIfFound(id);
         factory.delete(instance);
+        instanceRegistry.invalidate(config.getAppName());
         return Response.noContent().build();
     }
 
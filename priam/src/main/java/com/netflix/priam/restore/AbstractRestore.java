@@ -65,6 +65,7 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
     private final InstanceState instanceState;
     private final MetaData metaData;
     private final IPostRestoreHook postRestoreHook;
+    private final RestoreScheduler restoreScheduler;
 
     @Inject
     @Named("v1")
@@ -101,6 +102,12 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
                 new BackupRestoreUtil(
                         config.getRestoreIncludeCFList(), config.getRestoreExcludeCFList());
         this.postRestoreHook = postRestoreHook;
+        this.restoreScheduler =
+                new RestoreScheduler(
+                        fs,
+                        config.getRestoreKeyspacePriority(),
+                        config.isRestoreLargestFileFirst(),
+                        config.getRestoreThreads());
     }
 
     public static final boolean isRestoreEnabled(IConfiguration conf, InstanceInfo instanceInfo) {
@@ -120,15 +127,7 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
         List<Future<Path>> futureList = new ArrayList<>();
         while (fsIterator.hasNext()) {
             AbstractBackupPath temp = fsIterator.next();
-            if (backupRestoreUtil.isFiltered(
-                    temp.getKeyspace(), temp.getColumnFamily())) { // is filtered?
-                logger.info(
-                        "Bypassing restoring file \"{}\" as it is part of the keyspace.columnfamily filter list.  Its keyspace:cf is: {}:{}",
-                        temp.newRestoreFile(),
-                        temp.getKeyspace(),
-                        temp.getColumnFamily());
-                continue;
-            }
+            if (isFiltered(temp)) continue;
 
             File localFileHandler = temp.newRestoreFile();
             if (logger.isDebugEnabled())
@@ -146,6 +145,16 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
         return futureList;
     }
 
+    private boolean isFiltered(AbstractBackupPath temp) {
+        if (!backupRestoreUtil.isFiltered(temp.getKeyspace(), temp.getColumnFamily())) return false;
+        logger.info(
+                "Bypassing restoring file \"{}\" as it is part of the keyspace.columnfamily filter list.  Its keyspace:cf is: {}:{}",
+                temp.newRestoreFile(),
+                temp.getKeyspace(),
+                temp.getColumnFamily());
+        return true;
+    }
+
     private void waitForCompletion(List<Future<Path>> futureList) throws Exception {
         for (Future<Path> future : futureList) future.get();
     }
@@ -247,9 +256,14 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
                     BackupRestoreUtil.getAllFiles(
                             latestValidMetaFile.get(), dateRange, metaProxy, pathProvider);
 
-            // Download snapshot which is listed in the meta file.
+            // Download snapshot which is listed in the meta file, in the order of priority.
+            allFiles.removeIf(this::isFiltered);
+            allFiles = restoreScheduler.schedule(allFiles);
+            RestoreProgress progress =
+                    new RestoreProgress(instanceState.getRestoreStatus(), allFiles);
+            for (AbstractBackupPath path : allFiles)
+                progress.add(downloadFile(path, path.newRestoreFile()));
             List<Future<Path>> futureList = new ArrayList<>();
-            futureList.addAll(download(allFiles.iterator(), false));
 
             // Downloading CommitLogs
             // Note for Backup V2.0 we do not backup commit logs, as saving them is cost-expensive.
@@ -270,6 +284,7 @@ public abstract class AbstractRestore extends Task implements IRestoreStrategy {
             }
 
             // Wait for all the futures to finish.
+            progress.await();
             waitForCompletion(futureList);
 
             // Given that files are restored now, kick off post restore hook
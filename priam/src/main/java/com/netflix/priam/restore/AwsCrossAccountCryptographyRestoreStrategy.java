@@ -20,7 +20,6 @@ import com.google.inject.name.Named;
 import com.netflix.priam.aws.S3CrossAccountFileSystem;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.MetaData;
-import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cred.ICredentialGeneric;
 import com.netflix.priam.cryptography.IFileCryptography;
@@ -54,7 +53,6 @@ public class AwsCrossAccountCryptographyRestoreStrategy extends EncryptedRestore
             Sleeper sleeper,
             @Named("filecryptoalgorithm") IFileCryptography fileCryptography,
             @Named("pgpcredential") ICredentialGeneric credential,
-            ICompression compress,
             Provider<AbstractBackupPath> pathProvider,
             InstanceIdentity id,
             RestoreTokenSelector tokenSelector,
@@ -73,7 +71,6 @@ public class AwsCrossAccountCryptographyRestoreStrategy extends EncryptedRestore
                 tokenSelector,
                 credential,
                 fileCryptography,
-                compress,
                 metaData,
                 instanceState,
                 postRestoreHook);
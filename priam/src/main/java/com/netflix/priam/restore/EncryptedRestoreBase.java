@@ -32,7 +32,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
-import org.bouncycastle.util.io.Streams;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,7 +43,6 @@ public abstract class EncryptedRestoreBase extends AbstractRestore {
     private final String jobName;
     private final ICredentialGeneric pgpCredential;
     private final IFileCryptography fileCryptography;
-    private final ICompression compress;
     private final ThreadPoolExecutor executor;
 
     protected EncryptedRestoreBase(
@@ -57,7 +56,6 @@ public abstract class EncryptedRestoreBase extends AbstractRestore {
             RestoreTokenSelector tokenSelector,
             ICredentialGeneric pgpCredential,
             IFileCryptography fileCryptography,
-            ICompression compress,
             MetaData metaData,
             InstanceState instanceState,
             IPostRestoreHook postRestoreHook) {
@@ -77,14 +75,12 @@ public abstract class EncryptedRestoreBase extends AbstractRestore {
         this.jobName = jobName;
         this.pgpCredential = pgpCredential;
         this.fileCryptography = fileCryptography;
-        this.compress = compress;
         executor = new NamedThreadPoolExecutor(config.getRestoreThreads(), jobName);
         executor.allowCoreThreadTimeOut(true);
         logger.info(
-                "Trying to restore cassandra cluster with filesystem: {}, RestoreStrategy: {}, Encryption: ON, Compression: {}",
+                "Trying to restore cassandra cluster with filesystem: {}, RestoreStrategy: {}, Encryption: ON",
                 fs.getClass(),
-                jobName,
-                compress.getClass());
+                jobName);
     }
 
     @Override
@@ -93,105 +89,50 @@ public abstract class EncryptedRestoreBase extends AbstractRestore {
         final char[] passPhrase =
                 new String(this.pgpCredential.getValue(ICredentialGeneric.KEY.PGP_PASSWORD))
                         .toCharArray();
-        File tempFile = new File(restoreLocation.getAbsolutePath() + ".tmp");
 
         return executor.submit(
                 new RetryableCallable<Path>() {
 
                     @Override
                     public Path retriableCall() throws Exception {
+                        // == stream the object from source bucket, decrypt it and uncompress it
+                        // straight into the FINAL destination. No intermediate file is written.
+                        logger.info(
+                                "Start downloading, decrypting and uncompressing file: {} to the FINAL destination: {}",
+                                path.getRemotePath(),
+                                restoreLocation.getAbsolutePath());
+                        restoreLocation.getParentFile().mkdirs();
 
-                        // == download object from source bucket
-                        try {
-                            // Not retrying to download file here as it is already in RetryCallable.
-                            fs.downloadFile(
-                                    Paths.get(path.getRemotePath()),
-                                    Paths.get(tempFile.getAbsolutePath()),
-                                    0);
-                        } catch (Exception ex) {
-                            // This behavior is retryable; therefore, lets get to a clean state
-                            // before each retry.
-                            if (tempFile.exists()) {
-                                tempFile.createNewFile();
-                            }
-
-                            throw new Exception(
-                                    "Exception downloading file from: "
-                                            + path.getRemotePath()
-                                            + " to: "
-                                            + tempFile.getAbsolutePath(),
-                                    ex);
-                        }
-
-                        // == object downloaded successfully from source, decrypt it.
-                        File decryptedFile = new File(tempFile.getAbsolutePath() + ".decrypted");
-                        try (OutputStream fOut =
-                                        new BufferedOutputStream(
-                                                new FileOutputStream(
-                                                        decryptedFile)); // destination file after
-                                // decryption)
-                                InputStream in =
+                        try (InputStream encryptedStream =
                                         new BufferedInputStream(
-                                                new FileInputStream(tempFile.getAbsolutePath()))) {
-                            InputStream encryptedDataInputStream =
+                                                fs.openRemoteStream(
+                                                        Paths.get(path.getRemotePath())));
+                                OutputStream finalDestination =
+                                        new BufferedOutputStream(
+                                                new FileOutputStream(restoreLocation))) {
+                            InputStream decryptedStream =
                                     fileCryptography.decryptStream(
-                                            in, passPhrase, tempFile.getAbsolutePath());
-                            Streams.pipeAll(encryptedDataInputStream, fOut);
-                            logger.info(
-                                    "Completed decrypting file: {} to final file dest: {}",
-                                    tempFile.getAbsolutePath(),
-                                    decryptedFile.getAbsolutePath());
-
+                                            encryptedStream, passPhrase, path.getRemotePath());
+                            ICompression.getCompression(path.getCompression())
+                                    .decompressAndClose(decryptedStream, finalDestination);
                         } catch (Exception ex) {
                             // This behavior is retryable; therefore, lets get to a clean state
                             // before each retry.
-                            if (tempFile.exists()) {
-                                tempFile.createNewFile();
-                            }
+                            FileUtils.deleteQuietly(restoreLocation);
 
-                            if (decryptedFile.exists()) {
-                                decryptedFile.createNewFile();
-                            }
-
-                            throw new Exception(
-                                    "Exception during decryption file:  "
-                                            + decryptedFile.getAbsolutePath(),
-                                    ex);
-                        }
-
-                        // == object downloaded and decrypted successfully, now uncompress it
-                        logger.info(
-                                "Start uncompressing file: {} to the FINAL destination stream",
-                                decryptedFile.getAbsolutePath());
-
-                        try (InputStream is =
-                                        new BufferedInputStream(
-                                                new FileInputStream(decryptedFile));
-                                BufferedOutputStream finalDestination =
-                                        new BufferedOutputStream(
-                                                new FileOutputStream(restoreLocation))) {
-                            compress.decompressAndClose(is, finalDestination);
-                        } catch (Exception ex) {
                             throw new Exception(
-                                    "Exception uncompressing file: "
-                                            + decryptedFile.getAbsolutePath()
-                                            + " to the FINAL destination stream",
+                                    "Exception restoring file from: "
+                                            + path.getRemotePath()
+                                            + " to: "
+                                            + restoreLocation.getAbsolutePath(),
                                     ex);
                         }
 
                         logger.info(
-                                "Completed uncompressing file: {} to the FINAL destination stream "
-                                        + " current worker: {}",
-                                decryptedFile.getAbsolutePath(),
+                                "Completed restoring file: {} to the FINAL destination: {} current worker: {}",
+                                path.getRemotePath(),
+                                restoreLocation.getAbsolutePath(),
                                 Thread.currentThread().getName());
-                        // if here, everything was successful for this object, lets remove unneeded
-                        // file(s)
-                        if (tempFile.exists()) tempFile.delete();
-
-                        if (decryptedFile.exists()) {
-                            decryptedFile.delete();
-                        }
-
                         return Paths.get(path.getRemotePath());
                     }
                 });
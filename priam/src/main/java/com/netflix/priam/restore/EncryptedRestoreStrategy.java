@@ -20,7 +20,6 @@ import com.google.inject.name.Named;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.IBackupFileSystem;
 import com.netflix.priam.backup.MetaData;
-import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cred.ICredentialGeneric;
 import com.netflix.priam.cryptography.IFileCryptography;
@@ -49,7 +48,6 @@ public class EncryptedRestoreStrategy extends EncryptedRestoreBase {
             Sleeper sleeper,
             @Named("filecryptoalgorithm") IFileCryptography fileCryptography,
             @Named("pgpcredential") ICredentialGeneric credential,
-            ICompression compress,
             Provider<AbstractBackupPath> pathProvider,
             InstanceIdentity id,
             RestoreTokenSelector tokenSelector,
@@ -68,7 +66,6 @@ public class EncryptedRestoreStrategy extends EncryptedRestoreBase {
                 tokenSelector,
                 credential,
                 fileCryptography,
-                compress,
                 metaData,
                 instanceState,
                 postRestoreHook);
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.restore;
+
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.health.InstanceState;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Follows the downloads of a restore and reports the files and bytes restored, and the estimated
+ * end of the restore, in the restore status. Downloads are counted in the order they were
+ * scheduled, so a download is counted once all the downloads scheduled before it are done. As the
+ * largest files are scheduled first this stays close to the real progress.
+ *
+ * <p>The size of a snapshot file is its size on disk, from the meta file, while the size of an
+ * incremental file is its size on the remote file system. So the bytes of the snapshot and of the
+ * incremental files are counted apart.
+ */
+class RestoreProgress {
+    private final InstanceState.RestoreStatus restoreStatus;
+    private final List<AbstractBackupPath> files;
+    private final List<Future<Path>> downloads;
+    private final long startNanos = System.nanoTime();
+    private final Count snapshot = new Count();
+    private final Count incrementals = new Count();
+    private int filesRestored;
+
+    /**
+     * @param restoreStatus status to report the progress in.
+     * @param files all the files to restore, in the order their downloads are started.
+     */
+    RestoreProgress(InstanceState.RestoreStatus restoreStatus, List<AbstractBackupPath> files) {
+        this.restoreStatus = restoreStatus;
+        this.files = files;
+        this.downloads = new ArrayList<>(files.size());
+        for (AbstractBackupPath file : files)
+            getCount(file).addToRestore(RestoreScheduler.getSize(file));
+        restoreStatus.setToRestore(
+                files.size(), snapshot.bytesToRestore, incrementals.bytesToRestore);
+    }
+
+    /** Follow the download of the next file and count any downloads which are done. */
+    void add(Future<Path> download) throws Exception {
+        downloads.add(download);
+        update(false);
+    }
+
+    /**
+     * Wait for all the downloads to finish.
+     *
+     * @throws Exception the error of the first download that failed, in scheduled order.
+     */
+    void await() throws Exception {
+        update(true);
+    }
+
+    private void update(boolean wait) throws Exception {
+        while (filesRestored < downloads.size()
+                && (wait || downloads.get(filesRestored).isDone())) {
+            downloads.get(filesRestored).get();
+            AbstractBackupPath file = files.get(filesRestored);
+            getCount(file).addRestored(RestoreScheduler.getSize(file));
+            filesRestored++;
+            // Report every download, as waiting for all of them can take most of the restore.
+            restoreStatus.setRestored(
+                    filesRestored,
+                    snapshot.bytesRestored,
+                    incrementals.bytesRestored,
+                    estimateEndTime());
+        }
+    }
+
+    private Count getCount(AbstractBackupPath file) {
+        return RestoreScheduler.isIncremental(file) ? incrementals : snapshot;
+    }
+
+    private LocalDateTime estimateEndTime() {
+        // The progress of the snapshot and of the incremental files, by their number of files.
+        double fractionDone =
+                (snapshot.getFractionDone() * snapshot.filesToRestore
+                                + incrementals.getFractionDone() * incrementals.filesToRestore)
+                        / files.size();
+        if (fractionDone <= 0) return null;
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long remainingNanos = (long) (elapsedNanos * (1 - fractionDone) / fractionDone);
+        return LocalDateTime.now().plus(Duration.ofNanos(remainingNanos));
+    }
+
+    /** Files and bytes of one kind of files. */
+    private static class Count {
+        private int filesToRestore, filesRestored;
+        private long bytesToRestore, bytesRestored;
+
+        void addToRestore(long bytes) {
+            filesToRestore++;
+            bytesToRestore += bytes;
+        }
+
+        void addRestored(long bytes) {
+            filesRestored++;
+            bytesRestored += bytes;
+        }
+
+        double getFractionDone() {
+            // Sizes are not known if the largest files are not restored first, count files then.
+            if (bytesToRestore > 0) return (double) bytesRestored / bytesToRestore;
+            return filesToRestore > 0 ? (double) filesRestored / filesToRestore : 0;
+        }
+    }
+}
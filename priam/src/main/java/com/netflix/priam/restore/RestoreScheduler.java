@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.restore;
+
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
+import com.netflix.priam.backup.IBackupFileSystem;
+import com.netflix.priam.scheduler.NamedThreadPoolExecutor;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides the order in which the files of a restore are downloaded. The files of the keyspaces
+ * with a priority come first, in the order of the priority, so that e.g. the system keyspaces are
+ * available early. Then the largest files come first, within each keyspace with a priority and
+ * across all the other keyspaces together: the restore threads take the files in order, so this
+ * spreads the bytes evenly across the threads and a few large files do not hold up the end of the
+ * restore.
+ *
+ * <p>The size of the snapshot files comes from the meta file. The incremental files are listed
+ * without their size, so it is looked up on the remote file system.
+ */
+public class RestoreScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RestoreScheduler.class);
+    private final IBackupFileSystem fs;
+    private final List<String> keyspacePriority;
+    private final boolean largestFirst;
+    private final int threads;
+
+    /**
+     * @param fs file system to look up the size of the incremental files.
+     * @param keyspacePriority keyspaces to restore first, in this order.
+     * @param largestFirst true to restore the largest files first.
+     * @param threads number of threads to look up the size of the incremental files.
+     */
+    public RestoreScheduler(
+            IBackupFileSystem fs,
+            List<String> keyspacePriority,
+            boolean largestFirst,
+            int threads) {
+        this.fs = fs;
+        this.keyspacePriority = keyspacePriority;
+        this.largestFirst = largestFirst;
+        this.threads = threads;
+    }
+
+    /**
+     * @param files files to restore.
+     * @return the files in the order in which they should be downloaded.
+     */
+    public List<AbstractBackupPath> schedule(List<AbstractBackupPath> files) throws Exception {
+        Comparator<AbstractBackupPath> order = Comparator.comparingInt(this::getPriority);
+        if (largestFirst) {
+            resolveSizes(files);
+            order =
+                    order.thenComparing(
+                            Comparator.comparingLong(RestoreScheduler::getSize).reversed());
+        }
+        List<AbstractBackupPath> scheduled = new ArrayList<>(files);
+        scheduled.sort(order);
+        logger.info(
+                "Scheduled {} files of {} bytes to restore, keyspace priority: {}",
+                scheduled.size(),
+                scheduled.stream().mapToLong(RestoreScheduler::getSize).sum(),
+                keyspacePriority);
+        return scheduled;
+    }
+
+    /** @return size of the file on the remote file system, or 0 if not known. */
+    public static long getSize(AbstractBackupPath path) {
+        return path.getCompressedFileSize() > 0 ? path.getCompressedFileSize() : path.getSize();
+    }
+
+    private int getPriority(AbstractBackupPath path) {
+        int priority =
+                path.getKeyspace() == null ? -1 : keyspacePriority.indexOf(path.getKeyspace());
+        return priority < 0 ? keyspacePriority.size() : priority;
+    }
+
+    private void resolveSizes(List<AbstractBackupPath> files) throws Exception {
+        List<AbstractBackupPath> unknown =
+                files.stream()
+                        .filter(path -> isIncremental(path) && getSize(path) <= 0)
+                        .collect(Collectors.toList());
+        if (unknown.isEmpty()) return;
+
+        ExecutorService executor = new NamedThreadPoolExecutor(threads, "RestoreScheduler");
+        try {
+            List<Future<?>> futures = new ArrayList<>(unknown.size());
+            for (AbstractBackupPath path : unknown)
+                futures.add(executor.submit(() -> resolveSize(path)));
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static boolean isIncremental(AbstractBackupPath path) {
+        return path.getType() == BackupFileType.SST || path.getType() == BackupFileType.SST_V2;
+    }
+
+    private void resolveSize(AbstractBackupPath path) {
+        try {
+            path.setCompressedFileSize(fs.getFileSize(Paths.get(path.getRemotePath())));
+        } catch (Exception e) {
+            // The file is restored after the files of known size, the download reports any real
+            // error.
+            logger.warn(
+                    "Unable to find the size of {}: {}", path.getRemotePath(), e.getMessage());
+        }
+    }
+}
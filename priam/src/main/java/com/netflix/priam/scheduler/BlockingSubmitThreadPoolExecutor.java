@@ -16,80 +16,204 @@
  */
 package com.netflix.priam.scheduler;
 
+import com.netflix.priam.merics.Metrics;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * {@link ThreadPoolExecutor} that will block in the {@code submit()} method until the task can be
  * successfully added to the queue.
+ *
+ * <p>All the threads of the pool are started upfront and the tasks are put on the work queue
+ * directly, so a blocked submitter is woken up by the queue as soon as a worker takes a task from
+ * it. The time spent by the submitters waiting for room in the queue is recorded, as it is a direct
+ * measure of the back pressure of the pool.
  */
 public class BlockingSubmitThreadPoolExecutor extends ThreadPoolExecutor {
-    private static final long DEFAULT_SLEEP = 100;
     private static final long DEFAULT_KEEP_ALIVE = 100;
     private static final Logger logger =
             LoggerFactory.getLogger(BlockingSubmitThreadPoolExecutor.class);
     private final BlockingQueue<Runnable> queue;
     private final long giveupTime;
-    private final AtomicInteger active;
+    // Number of tasks accepted which did not complete yet.
+    private int active = 0;
+    private final ReentrantLock activeLock = new ReentrantLock();
+    private final Condition idle = activeLock.newCondition();
+    private final LongAdder queueWaitTimeNanos = new LongAdder();
+    private final LongAdder queueWaitCount = new LongAdder();
+    private final AtomicLong maxQueueWaitTimeNanos = new AtomicLong();
 
     public BlockingSubmitThreadPoolExecutor(
             int maximumPoolSize, BlockingQueue<Runnable> workQueue, long timeoutAdding) {
         super(maximumPoolSize, maximumPoolSize, DEFAULT_KEEP_ALIVE, TimeUnit.SECONDS, workQueue);
         this.queue = workQueue;
         this.giveupTime = timeoutAdding;
-        this.active = new AtomicInteger(0);
+        prestartAllCoreThreads();
     }
 
     /**
+     * Submit the task, waiting for room in the queue for at most the timeout given at construction.
      * This is a thread safe way to avoid rejection exception... this is implemented because we
      * might want to hold the incoming requests till there is a free thread.
+     *
+     * @throws RejectedExecutionException if there was no room in the queue before the timeout, if
+     *     the calling thread was interrupted or if the executor is shut down.
      */
     @Override
-    public <T> Future<T> submit(Callable<T> task) {
-        synchronized (this) {
-            active.incrementAndGet();
-            long timeout = 0;
-            while (queue.remainingCapacity() == 0) {
-                try {
-                    if (timeout <= giveupTime) {
-                        Thread.sleep(DEFAULT_SLEEP);
-                        timeout += DEFAULT_SLEEP;
-                    } else {
-                        throw new RuntimeException("Timed out because TPE is too busy...");
-                    }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+    public void execute(Runnable command) {
+        try {
+            enqueue(command, giveupTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to submit a task", e);
+        } catch (TimeoutException e) {
+            throw new RejectedExecutionException("Timed out because TPE is too busy...", e);
+        }
+    }
+
+    /**
+     * Submit the task, waiting for room in the queue for at most the given time.
+     *
+     * @param task the task to submit.
+     * @param timeout maximum time to wait for room in the queue.
+     * @param unit unit of the timeout.
+     * @return a Future representing the pending completion of the task.
+     * @throws InterruptedException if interrupted while waiting for room in the queue.
+     * @throws TimeoutException if there was no room in the queue before the timeout.
+     * @throws RejectedExecutionException if the executor is shut down.
+     */
+    public <T> Future<T> submit(Callable<T> task, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (task == null) throw new NullPointerException();
+        RunnableFuture<T> future = newTaskFor(task);
+        enqueue(future, timeout, unit);
+        return future;
+    }
+
+    private void enqueue(Runnable command, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (command == null) throw new NullPointerException();
+        if (isShutdown()) throw new RejectedExecutionException("Executor is shut down");
+
+        // Count the task before it is queued, as a worker may complete it before offer returns.
+        updateActive(1);
+        boolean queued = false;
+        try {
+            queued = queue.offer(command);
+            if (!queued) {
+                long start = System.nanoTime();
+                queued = queue.offer(command, timeout, unit);
+                recordQueueWait(System.nanoTime() - start);
+                if (!queued)
+                    throw new TimeoutException(
+                            "No room in the queue after waiting for " + timeout + " " + unit);
+            }
+            // The workers may have exited before seeing the task.
+            if (isShutdown() && queue.remove(command)) {
+                queued = false;
+                throw new RejectedExecutionException("Executor is shut down");
             }
-            return super.submit(task);
+        } finally {
+            if (!queued) updateActive(-1);
+        }
+    }
+
+    private void recordQueueWait(long nanos) {
+        queueWaitTimeNanos.add(nanos);
+        queueWaitCount.increment();
+        maxQueueWaitTimeNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void updateActive(int delta) {
+        activeLock.lock();
+        try {
+            active += delta;
+            if (active <= 0) idle.signalAll();
+        } finally {
+            activeLock.unlock();
         }
     }
 
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
-        active.decrementAndGet();
+        updateActive(-1);
+    }
+
+    @Override
+    protected void terminated() {
+        super.terminated();
+        // Tasks drained by shutdownNow never run, do not leave anyone waiting for them.
+        activeLock.lock();
+        try {
+            active = 0;
+            idle.signalAll();
+        } finally {
+            activeLock.unlock();
+        }
     }
 
     /** blocking call to test if the threads are done or not. */
     public void sleepTillEmpty() {
-        long timeout = 0;
-
-        while (!queue.isEmpty() || (active.get() > 0)) {
-            try {
-                if (timeout <= giveupTime) {
-                    Thread.sleep(DEFAULT_SLEEP);
-                    timeout += DEFAULT_SLEEP;
-                    logger.debug(
-                            "After Sleeping for empty: {}, Count: {}", +queue.size(), active.get());
-                } else {
+        activeLock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(giveupTime);
+            while (active > 0) {
+                if (remaining <= 0)
                     throw new RuntimeException("Timed out because TPE is too busy...");
-                }
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                logger.debug("Waiting for empty: {}, Count: {}", queue.size(), active);
+                remaining = idle.awaitNanos(remaining);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            activeLock.unlock();
         }
     }
+
+    /**
+     * Publish the time the submitters waited for room in the queue, so the back pressure of the
+     * pool can be followed over time.
+     *
+     * @param registry registry to publish the meters to.
+     * @param pool name of the pool, used to tag the meters.
+     */
+    public void registerMetrics(Registry registry, String pool) {
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "executor.queue.wait.time")
+                .withTag("pool", pool)
+                .monitorMonotonicCounter(
+                        this, BlockingSubmitThreadPoolExecutor::getQueueWaitTimeMs);
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "executor.queue.wait.count")
+                .withTag("pool", pool)
+                .monitorMonotonicCounter(this, BlockingSubmitThreadPoolExecutor::getQueueWaitCount);
+        PolledMeter.using(registry)
+                .withName(Metrics.METRIC_PREFIX + "executor.queue.wait.max")
+                .withTag("pool", pool)
+                .monitorValue(this, BlockingSubmitThreadPoolExecutor::getMaxQueueWaitTimeMs);
+    }
+
+    /** @return total time in milliseconds the submitters waited for room in the queue. */
+    public long getQueueWaitTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(queueWaitTimeNanos.sum());
+    }
+
+    /** @return longest time in milliseconds a submitter waited for room in the queue. */
+    public long getMaxQueueWaitTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitTimeNanos.get());
+    }
+
+    /** @return number of submissions which had to wait for room in the queue. */
+    public long getQueueWaitCount() {
+        return queueWaitCount.sum();
+    }
 }
@@ -75,9 +75,13 @@ public class SystemUtils {
     }
 
     public static byte[] md5(byte[] buf) {
+        return md5(buf, 0, buf.length);
+    }
+
+    public static byte[] md5(byte[] buf, int offset, int length) {
         try {
             MessageDigest mdigest = MessageDigest.getInstance("MD5");
-            mdigest.update(buf, 0, buf.length);
+            mdigest.update(buf, offset, length);
             return mdigest.digest();
         } catch (Exception e) {
             throw new RuntimeException(e);
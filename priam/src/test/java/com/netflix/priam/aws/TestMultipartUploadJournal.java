@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.aws;
+
+import com.amazonaws.services.s3.model.PartETag;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link MultipartUploadJournal}. */
+public class TestMultipartUploadJournal {
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "casstestbackup/1049_fake-app/1808575600/SST_V2/file.db";
+    private Path directory;
+    private File localFile;
+    private MultipartUploadJournal journal;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        localFile = directory.resolve("file.db").toFile();
+        FileUtils.writeStringToFile(localFile, "data", StandardCharsets.UTF_8);
+        journal = new MultipartUploadJournal(directory.resolve("uploads"));
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        Assert.assertNull(journal.get(BUCKET, KEY));
+        MultipartUploadJournal.Upload upload =
+                journal.start(BUCKET, KEY, "uploadId", localFile, 1024, "SNAPPY");
+        upload.addPart(new PartETag(1, "etag1"));
+        upload.addPart(new PartETag(3, "etag3"));
+
+        // A new instance reads the journal from disk, e.g. after a restart.
+        upload = new MultipartUploadJournal(directory.resolve("uploads")).get(BUCKET, KEY);
+        Assert.assertNotNull(upload);
+        Assert.assertEquals("uploadId", upload.getUploadId());
+        Assert.assertEquals(KEY, upload.getKey());
+        Assert.assertEquals(2, upload.getPartCount());
+        Assert.assertEquals("etag1", upload.getETag(1));
+        Assert.assertNull(upload.getETag(2));
+        Assert.assertEquals("etag3", upload.getETag(3));
+        Assert.assertTrue(upload.isSameSource(localFile, 1024, "SNAPPY"));
+        Assert.assertFalse(upload.isSameSource(localFile, 2048, "SNAPPY"));
+        Assert.assertFalse(upload.isSameSource(localFile, 1024, "LZ4"));
+        Assert.assertTrue(upload.isSourceAvailable());
+
+        upload.delete();
+        Assert.assertNull(journal.get(BUCKET, KEY));
+        Assert.assertTrue(journal.list().isEmpty());
+    }
+
+    @Test
+    public void testModifiedSource() throws IOException {
+        journal.start(BUCKET, KEY, "uploadId", localFile, 1024, "SNAPPY");
+        FileUtils.writeStringToFile(localFile, "more data", StandardCharsets.UTF_8);
+
+        MultipartUploadJournal.Upload upload = journal.list().get(0);
+        Assert.assertFalse(upload.isSameSource(localFile, 1024, "SNAPPY"));
+        Assert.assertFalse(upload.isSourceAvailable());
+    }
+
+    @Test
+    public void testPartialLine() throws IOException {
+        MultipartUploadJournal.Upload upload =
+                journal.start(BUCKET, KEY, "uploadId", localFile, 1024, "SNAPPY");
+        upload.addPart(new PartETag(1, "etag1"));
+        // Simulate a crash in the middle of journaling the second part.
+        Files.write(
+                directory.resolve("uploads").toFile().listFiles()[0].toPath(),
+                "2".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        upload = journal.get(BUCKET, KEY);
+        Assert.assertEquals(1, upload.getPartCount());
+        Assert.assertNull(upload.getETag(2));
+    }
+}
@@ -23,6 +23,7 @@ import com.google.inject.Provider;
 import com.netflix.priam.backup.AbstractBackupPath;
 import com.netflix.priam.backup.AbstractBackupPath.BackupFileType;
 import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.cryptography.IFileCryptography;
 import com.netflix.priam.utils.DateUtil;
@@ -181,6 +182,27 @@ public class TestRemoteBackupPath {
         validateAbstractBackupPath(abstractBackupPath, abstractBackupPath2);
     }
 
+    @Test
+    public void testV2BackupPathCompression() throws ParseException {
+        Path path =
+                Paths.get(
+                        configuration.getDataFileLocation(),
+                        "keyspace1",
+                        "columnfamily1",
+                        "backup",
+                        "mc-1234-Data.db");
+        AbstractBackupPath abstractBackupPath = pathFactory.get();
+        abstractBackupPath.parseLocal(path.toFile(), BackupFileType.SST_V2);
+        abstractBackupPath.setCompression(ICompression.CompressionAlgorithm.ZSTD);
+
+        // Verify the compression survives toRemote and parseRemote.
+        AbstractBackupPath abstractBackupPath2 = pathFactory.get();
+        abstractBackupPath2.parseRemote(abstractBackupPath.getRemotePath());
+        Assert.assertEquals(
+                ICompression.CompressionAlgorithm.ZSTD, abstractBackupPath2.getCompression());
+        validateAbstractBackupPath(abstractBackupPath, abstractBackupPath2);
+    }
+
     @Test
     public void testV2BackupPathMeta() throws ParseException {
         Path path = Paths.get(configuration.getDataFileLocation(), "meta_v2_201801011201.json");
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.aws;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backup.BackupRestoreException;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.RemoteObjectIndex;
+import com.netflix.priam.compress.ICompression;
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.cred.ICredential;
+import com.netflix.priam.cryptography.pgp.PgpCryptography;
+import com.netflix.priam.identity.config.InstanceInfo;
+import com.netflix.priam.utils.SystemUtils;
+import com.netflix.priam.utils.ThreadSleeper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import mockit.Mock;
+import mockit.MockUp;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPEncryptedData;
+import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPKeyRingGenerator;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for the streaming upload of {@link S3EncryptedFileSystem}. */
+public class TestS3EncryptedFileSystem {
+    private static final char[] PASSPHRASE = "passphrase".toCharArray();
+    // Not a backup path, so the file is compressed with the default algorithm.
+    private static final Path REMOTE_PATH = Paths.get("casstestbackup/encrypted/file.db");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private File publicKeyFile;
+    private File privateKeyFile;
+    private PgpCryptography cryptography;
+    private S3EncryptedFileSystem fs;
+    private MockAmazonS3Client s3Client;
+
+    @BeforeClass
+    public static void addProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        publicKeyFile = new File(folder.getRoot(), "public.key");
+        privateKeyFile = new File(folder.getRoot(), "private.key");
+        writeKeys();
+        cryptography = new PgpCryptography(new PgpConfiguration());
+
+        s3Client = new MockAmazonS3Client();
+        Injector injector = Guice.createInjector(new BRTestModule());
+        fs =
+                new S3EncryptedFileSystem(
+                        injector.getProvider(AbstractBackupPath.class),
+                        injector.getInstance(IConfiguration.class),
+                        injector.getInstance(ICredential.class),
+                        cryptography,
+                        injector.getInstance(InstanceInfo.class),
+                        injector.getInstance(RemoteObjectIndex.class),
+                        injector.getInstance(BandwidthGovernor.class));
+    }
+
+    @Test
+    public void testUploadRoundTrip() throws Exception {
+        // Random data does not compress, large enough for a few parts of ciphertext.
+        byte[] data = new byte[25 * 1024 * 1024];
+        new Random(1).nextBytes(data);
+        File localFile = folder.newFile("file.db");
+        Files.write(localFile.toPath(), data);
+
+        long uploaded =
+                fs.uploadFileImpl(
+                        localFile.toPath(),
+                        REMOTE_PATH,
+                        BandwidthGovernor.TransferClass.of(
+                                AbstractBackupPath.BackupFileType.SST_V2, true));
+
+        Assert.assertTrue(s3Client.parts.size() > 1);
+        Assert.assertEquals(1, s3Client.completed.get());
+        Assert.assertEquals(0, s3Client.aborted.get());
+
+        // The parts put together are the compressed file encrypted as a single message.
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (byte[] part : s3Client.parts.values()) object.write(part, 0, part.length);
+        Assert.assertEquals(object.size(), uploaded);
+
+        InputStream decrypted =
+                cryptography.decryptStream(
+                        new ByteArrayInputStream(object.toByteArray()),
+                        PASSPHRASE,
+                        REMOTE_PATH.toString());
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        ICompression.getCompression(ICompression.CompressionAlgorithm.SNAPPY)
+                .decompressAndClose(decrypted, decompressed);
+        Assert.assertArrayEquals(data, decompressed.toByteArray());
+    }
+
+    @Test
+    public void testUploadAbortedOnPartFailure() throws Exception {
+        // The part is retried and fails every time, no need to wait between the attempts.
+        new MockUp<ThreadSleeper>() {
+            @Mock
+            public void sleep(long waitTimeMs) {}
+        };
+        s3Client.failingPart = 2;
+        byte[] data = new byte[25 * 1024 * 1024];
+        new Random(1).nextBytes(data);
+        File localFile = folder.newFile("file.db");
+        Files.write(localFile.toPath(), data);
+
+        try {
+            fs.uploadFileImpl(
+                    localFile.toPath(),
+                    REMOTE_PATH,
+                    BandwidthGovernor.TransferClass.of(
+                            AbstractBackupPath.BackupFileType.SST_V2, true));
+            Assert.fail("Expected the upload to fail");
+        } catch (BackupRestoreException e) {
+            // expected
+        }
+
+        Assert.assertFalse(s3Client.parts.containsKey(2));
+        Assert.assertEquals(0, s3Client.completed.get());
+        Assert.assertEquals(1, s3Client.aborted.get());
+    }
+
+    private void writeKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(1024);
+        PGPKeyPair keyPair =
+                new PGPKeyPair(PGPPublicKey.RSA_GENERAL, generator.generateKeyPair(), new Date());
+        PGPKeyRingGenerator keyRingGenerator =
+                new PGPKeyRingGenerator(
+                        PGPSignature.POSITIVE_CERTIFICATION,
+                        keyPair,
+                        "priam",
+                        PGPEncryptedData.CAST5,
+                        PASSPHRASE,
+                        true,
+                        null,
+                        null,
+                        new SecureRandom(),
+                        "BC");
+        try (OutputStream out = new FileOutputStream(publicKeyFile)) {
+            keyRingGenerator.generatePublicKeyRing().encode(out);
+        }
+        try (OutputStream out = new FileOutputStream(privateKeyFile)) {
+            keyRingGenerator.generateSecretKeyRing().encode(out);
+        }
+    }
+
+    private class PgpConfiguration extends FakeConfiguration {
+        @Override
+        public String getPgpPublicKeyLoc() {
+            return publicKeyFile.getAbsolutePath();
+        }
+
+        @Override
+        public String getPrivateKeyLocation() {
+            return privateKeyFile.getAbsolutePath();
+        }
+    }
+
+    /** Keeps the uploaded parts in memory, by part number. */
+    private static class MockAmazonS3Client extends MockUp<AmazonS3Client> {
+        final Map<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger aborted = new AtomicInteger();
+        volatile int failingPart;
+
+        @Mock
+        public InitiateMultipartUploadResult initiateMultipartUpload(
+                InitiateMultipartUploadRequest request) {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("uploadId");
+            return result;
+        }
+
+        @Mock
+        public UploadPartResult uploadPart(UploadPartRequest request) throws Exception {
+            if (request.getPartNumber() == failingPart)
+                throw new RuntimeException("Unable to reach AWS");
+            byte[] part = IOUtils.toByteArray(request.getInputStream());
+            parts.put(request.getPartNumber(), part);
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(SystemUtils.toHex(SystemUtils.md5(part)));
+            return result;
+        }
+
+        @Mock
+        public CompleteMultipartUploadResult completeMultipartUpload(
+                CompleteMultipartUploadRequest request) {
+            completed.incrementAndGet();
+            CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+            result.setETag("etag");
+            return result;
+        }
+
+        @Mock
+        public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborted.incrementAndGet();
+        }
+    }
+}
@@ -24,8 +24,10 @@ import com.netflix.priam.aws.RemoteBackupPath;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.merics.BackupMetrics;
 import com.netflix.priam.notification.BackupNotificationMgr;
+import java.io.ByteArrayInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.*;
 import org.json.simple.JSONArray;
@@ -35,6 +37,7 @@ public class FakeBackupFileSystem extends AbstractFileSystem {
     private List<AbstractBackupPath> flist = new ArrayList<>();
     public Set<String> downloadedFiles = new HashSet<>();
     public Set<String> uploadedFiles = new HashSet<>();
+    public Map<String, BandwidthGovernor.TransferClass> uploadTransferClasses = new HashMap<>();
     private String baseDir;
     private String region;
     private String clusterName;
@@ -61,6 +64,7 @@ public class FakeBackupFileSystem extends AbstractFileSystem {
         flist.clear();
         downloadedFiles.clear();
         uploadedFiles.clear();
+        uploadTransferClasses.clear();
     }
 
     public void addFile(String file) {
@@ -115,7 +119,7 @@ public class FakeBackupFileSystem extends AbstractFileSystem {
     }
 
     @Override
-    public boolean doesRemoteFileExist(Path remotePath) {
+    public synchronized boolean doesRemoteFileExist(Path remotePath) {
         for (AbstractBackupPath abstractBackupPath : flist) {
             if (abstractBackupPath.getRemotePath().equalsIgnoreCase(remotePath.toString()))
                 return true;
@@ -165,8 +169,17 @@ public class FakeBackupFileSystem extends AbstractFileSystem {
     }
 
     @Override
-    protected long uploadFileImpl(Path localPath, Path remotePath) throws BackupRestoreException {
+    public InputStream openRemoteStream(Path remotePath) throws BackupRestoreException {
+        downloadedFiles.add(remotePath.toString());
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    protected synchronized long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         uploadedFiles.add(localPath.toFile().getAbsolutePath());
+        uploadTransferClasses.put(localPath.toFile().getAbsolutePath(), transferClass);
         addFile(remotePath.toString());
         return localPath.toFile().length();
     }
@@ -20,6 +20,8 @@ package com.netflix.priam.backup;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.netflix.priam.config.IConfiguration;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Iterator;
@@ -61,13 +63,20 @@ public class NullBackupFileSystem extends AbstractFileSystem {
     protected void downloadFileImpl(Path remotePath, Path localPath)
             throws BackupRestoreException {}
 
+    @Override
+    public InputStream openRemoteStream(Path remotePath) throws BackupRestoreException {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
     @Override
     protected boolean doesRemoteFileExist(Path remotePath) {
         return false;
     }
 
     @Override
-    protected long uploadFileImpl(Path localPath, Path remotePath) throws BackupRestoreException {
+    protected long uploadFileImpl(
+            Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
+            throws BackupRestoreException {
         return 0;
     }
 }
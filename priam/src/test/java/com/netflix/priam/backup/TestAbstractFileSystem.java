@@ -319,7 +319,8 @@ public class TestAbstractFileSystem {
         }
 
         @Override
-        protected long uploadFileImpl(Path localPath, Path remotePath)
+        protected long uploadFileImpl(
+                Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
                 throws BackupRestoreException {
             throw new BackupRestoreException(
                     "User injected failure file system error for testing upload. Local path: "
@@ -351,7 +352,8 @@ public class TestAbstractFileSystem {
         }
 
         @Override
-        protected long uploadFileImpl(Path localPath, Path remotePath)
+        protected long uploadFileImpl(
+                Path localPath, Path remotePath, BandwidthGovernor.TransferClass transferClass)
                 throws BackupRestoreException {
             try {
                 Thread.sleep(random.nextInt(20));
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link BackupDirectoryWalker}. */
+public class TestBackupDirectoryWalker {
+    private Path dataDir;
+
+    @Before
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("walker");
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(dataDir.toFile());
+    }
+
+    @Test
+    public void testWalk() throws Exception {
+        Set<String> expected = new HashSet<>();
+        for (int ks = 0; ks < 5; ks++) {
+            for (int cf = 0; cf < 50; cf++) {
+                expected.add(createBackupDir("ks" + ks, "cf" + cf + "-1234", "backups"));
+            }
+        }
+        // Not backup directories.
+        createBackupDir("ks0", "cf_without_backups-1234", "snapshots");
+        createBackupDir(BackupRestoreUtil.FILTER_KEYSPACE.get(0), "cf-1234", "backups");
+        Files.createFile(dataDir.resolve("file_in_data_dir"));
+        Files.createFile(dataDir.resolve("ks0").resolve("file_in_keyspace_dir"));
+
+        Set<String> visited = new HashSet<>();
+        new BackupDirectoryWalker(dataDir, "backups", 4)
+                .walk(
+                        (keyspace, columnFamilyDir, backupDir) -> {
+                            Assert.assertEquals("backups", backupDir.getName());
+                            Assert.assertTrue(backupDir.isDirectory());
+                            Assert.assertTrue(visited.add(keyspace + "/" + columnFamilyDir));
+                        });
+        Assert.assertEquals(expected, visited);
+    }
+
+    @Test
+    public void testEmptyDataDir() throws Exception {
+        AtomicInteger visited = new AtomicInteger();
+        new BackupDirectoryWalker(dataDir, "backups", 2)
+                .walk((keyspace, columnFamilyDir, backupDir) -> visited.incrementAndGet());
+        Assert.assertEquals(0, visited.get());
+    }
+
+    @Test
+    public void testVisitorFailureStopsWalk() throws Exception {
+        for (int cf = 0; cf < 100; cf++) createBackupDir("ks", "cf" + cf + "-1234", "backups");
+        AtomicInteger visited = new AtomicInteger();
+        try {
+            new BackupDirectoryWalker(dataDir, "backups", 2)
+                    .walk(
+                            (keyspace, columnFamilyDir, backupDir) -> {
+                                visited.incrementAndGet();
+                                throw new BackupRestoreException("upload failed");
+                            });
+            Assert.fail("The failure of the visitor should be thrown");
+        } catch (BackupRestoreException e) {
+            Assert.assertEquals("upload failed", e.getMessage());
+        }
+        Assert.assertEquals(1, visited.get());
+    }
+
+    private String createBackupDir(String keyspace, String columnFamilyDir, String folder)
+            throws IOException {
+        File backupDir =
+                dataDir.resolve(keyspace).resolve(columnFamilyDir).resolve(folder).toFile();
+        FileUtils.forceMkdir(backupDir);
+        return keyspace + "/" + columnFamilyDir;
+    }
+}
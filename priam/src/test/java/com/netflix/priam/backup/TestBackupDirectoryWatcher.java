@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link BackupDirectoryWatcher}. */
+public class TestBackupDirectoryWatcher {
+    private Path dataDir;
+    private BackupDirectoryWatcher watcher;
+
+    @Before
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("watcher");
+        watcher = new BackupDirectoryWatcher();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        watcher.close();
+        FileUtils.deleteQuietly(dataDir.toFile());
+    }
+
+    @Test
+    public void testNewFiles() throws Exception {
+        Path backupDir1 = createBackupDir("cf1-1234");
+        Path backupDir2 = createBackupDir("cf2-1234");
+        watcher.register(backupDir1);
+        watcher.register(backupDir2);
+        // Registering twice is a no-op.
+        watcher.register(backupDir1);
+        Assert.assertEquals(2, watcher.getWatchedDirectoryCount());
+
+        // Nothing changed.
+        Assert.assertTrue(watcher.poll(100, TimeUnit.MILLISECONDS).isEmpty());
+
+        Files.createFile(backupDir1.resolve("mc-1-big-Data.db"));
+        Files.createFile(backupDir1.resolve("mc-1-big-Index.db"));
+        Files.createFile(backupDir2.resolve("mc-1-big-Data.db"));
+
+        Set<Path> changed = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (changed.size() < 2 && System.currentTimeMillis() < deadline)
+            changed.addAll(watcher.poll(1, TimeUnit.SECONDS));
+        Assert.assertTrue(changed.contains(backupDir1));
+        Assert.assertTrue(changed.contains(backupDir2));
+        Assert.assertEquals(2, changed.size());
+    }
+
+    @Test
+    public void testDeletedDirectory() throws Exception {
+        Path backupDir = createBackupDir("cf1-1234");
+        watcher.register(backupDir);
+        FileUtils.deleteDirectory(backupDir.toFile());
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (watcher.getWatchedDirectoryCount() > 0 && System.currentTimeMillis() < deadline)
+            Assert.assertTrue(watcher.poll(1, TimeUnit.SECONDS).isEmpty());
+        Assert.assertEquals(0, watcher.getWatchedDirectoryCount());
+    }
+
+    private Path createBackupDir(String columnFamilyDir) {
+        File backupDir =
+                dataDir.resolve("keyspace1")
+                        .resolve(columnFamilyDir)
+                        .resolve(AbstractBackup.INCREMENTAL_BACKUP_FOLDER)
+                        .toFile();
+        Assert.assertTrue(backupDir.mkdirs());
+        return backupDir.toPath();
+    }
+}
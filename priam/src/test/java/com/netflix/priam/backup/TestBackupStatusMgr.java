@@ -20,14 +20,24 @@ package com.netflix.priam.backup;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.health.InstanceState;
 import com.netflix.priam.utils.DateUtil;
 import com.netflix.priam.utils.DateUtil.DateRange;
+import com.netflix.priam.utils.MaxSizeHashMap;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.commons.io.FileUtils;
 import org.joda.time.DateTime;
@@ -44,6 +54,7 @@ public class TestBackupStatusMgr {
     private static final Logger logger = LoggerFactory.getLogger(TestBackupStatusMgr.class);
     private static IConfiguration configuration;
     private static IBackupStatusMgr backupStatusMgr;
+    private static InstanceState instanceState;
     private final String backupDate = "201812011000";
 
     @BeforeClass
@@ -52,6 +63,7 @@ public class TestBackupStatusMgr {
         // cleanup old saved file, if any
         configuration = injector.getInstance(IConfiguration.class);
         backupStatusMgr = injector.getInstance(IBackupStatusMgr.class);
+        instanceState = injector.getInstance(InstanceState.class);
     }
 
     @Before
@@ -219,6 +231,8 @@ public class TestBackupStatusMgr {
 
     @Test
     public void getLatestBackupFailure() throws Exception {
+        // The status of the other tests is kept in memory by the shared status manager.
+        IBackupStatusMgr backupStatusMgr = new FileSnapshotStatusMgr(configuration, instanceState);
         Optional<BackupMetadata> backupMetadata =
                 backupStatusMgr
                         .getLatestBackupMetadata(
@@ -240,6 +254,61 @@ public class TestBackupStatusMgr {
         Assert.assertFalse(backupMetadata.isPresent());
     }
 
+    @Test
+    public void testJournalReplay() throws Exception {
+        // Seconds and millis of the start date are a part of the identity of the snapshot.
+        Instant start = DateUtil.parseInstant(backupDate).plusMillis(12345);
+        FileSnapshotStatusMgr statusMgr = new FileSnapshotStatusMgr(configuration, instanceState);
+        BackupMetadata finished = getBackupMetaData(start, Status.STARTED);
+        statusMgr.start(finished);
+        statusMgr.finish(finished);
+        statusMgr.start(getBackupMetaData(start.plus(1, ChronoUnit.HOURS), Status.STARTED));
+
+        // A record torn by a crash in the middle of an append.
+        Files.write(
+                Paths.get(configuration.getBackupStatusFileLoc()),
+                "{\"snapshotDate\":\"2018".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        for (int i = 0; i < 2; i++) {
+            // The second time around the journal was compacted without the torn record.
+            statusMgr = new FileSnapshotStatusMgr(configuration, instanceState);
+            List<BackupMetadata> metadataList = statusMgr.locate(finished.getSnapshotDate());
+            Assert.assertEquals(2, metadataList.size());
+            Assert.assertEquals(Status.STARTED, metadataList.get(0).getStatus());
+            Assert.assertEquals(finished, metadataList.get(1));
+            Assert.assertEquals(Status.FINISHED, metadataList.get(1).getStatus());
+            Assert.assertEquals(finished.getCompleted(), metadataList.get(1).getCompleted());
+        }
+    }
+
+    @Test
+    public void testLegacyStatusFile() throws Exception {
+        Instant start = DateUtil.parseInstant(backupDate);
+        BackupMetadata backupMetadata = getBackupMetaData(start, Status.FINISHED);
+        Map<String, LinkedList<BackupMetadata>> legacy = new MaxSizeHashMap<>(60);
+        legacy.put(backupMetadata.getSnapshotDate(), new LinkedList<>());
+        legacy.get(backupMetadata.getSnapshotDate()).add(backupMetadata);
+        new File(configuration.getBackupStatusFileLoc()).getParentFile().mkdirs();
+        try (ObjectOutputStream out =
+                new ObjectOutputStream(
+                        new FileOutputStream(configuration.getBackupStatusFileLoc()))) {
+            out.writeObject(legacy);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            // The second time around the status is read from the converted journal.
+            FileSnapshotStatusMgr statusMgr =
+                    new FileSnapshotStatusMgr(configuration, instanceState);
+            List<BackupMetadata> metadataList =
+                    statusMgr.getLatestBackupMetadata(
+                            BackupVersion.SNAPSHOT_BACKUP,
+                            new DateRange(backupDate + "," + backupDate));
+            Assert.assertEquals(1, metadataList.size());
+            Assert.assertEquals(backupMetadata, metadataList.get(0));
+        }
+    }
+
     @Test
     public void getLatestBackupMetadata() throws Exception {
         prepare();
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.netflix.priam.backup.BandwidthGovernor.TransferClass;
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.spectator.api.DefaultRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link BandwidthGovernor}. */
+public class TestBandwidthGovernor {
+    private static final long MAX_RATE = 1_000_000;
+    private static final double DELTA = 1;
+    private volatile double latencyMicros = 0;
+
+    @Test
+    public void testDisabled() throws Exception {
+        BandwidthGovernor governor = newGovernor(-1, 0);
+        Assert.assertEquals(0, governor.getCurrentRate(), 0);
+        governor.acquire(TransferClass.SNAPSHOT, 10L * MAX_RATE);
+
+        InputStream in =
+                governor.throttle(new ByteArrayInputStream(new byte[1000]), TransferClass.RESTORE);
+        Assert.assertEquals(1000, IOUtils.toByteArray(in).length);
+        Assert.assertEquals(10L * MAX_RATE, governor.getBytesTransferred(TransferClass.SNAPSHOT));
+        Assert.assertEquals(1000, governor.getBytesTransferred(TransferClass.RESTORE));
+    }
+
+    @Test
+    public void testShareByWeight() {
+        BandwidthGovernor governor = newGovernor(MAX_RATE, 0);
+        // Nothing is active, every class may use all the bandwidth.
+        Assert.assertEquals(MAX_RATE, governor.getRate(TransferClass.TTL), DELTA);
+
+        governor.acquire(TransferClass.SNAPSHOT, 1);
+        governor.acquire(TransferClass.INCREMENTAL, 1);
+        Assert.assertEquals(MAX_RATE * 4 / 12.0, governor.getRate(TransferClass.SNAPSHOT), DELTA);
+        Assert.assertEquals(
+                MAX_RATE * 8 / 12.0, governor.getRate(TransferClass.INCREMENTAL), DELTA);
+        // An idle class gets the share it would have if it became active.
+        Assert.assertEquals(MAX_RATE / 13.0, governor.getRate(TransferClass.TTL), DELTA);
+    }
+
+    @Test
+    public void testAdjustToLatency() {
+        BandwidthGovernor governor = newGovernor(MAX_RATE, 10);
+        governor.acquire(TransferClass.SNAPSHOT, 1);
+
+        latencyMicros = 20_000;
+        adjustOnce(governor);
+        Assert.assertEquals(MAX_RATE * 0.7, governor.getCurrentRate(), DELTA);
+
+        // Never below a tenth of the limit.
+        for (int i = 0; i < 10; i++) adjustOnce(governor);
+        Assert.assertEquals(MAX_RATE * 0.1, governor.getCurrentRate(), DELTA);
+
+        latencyMicros = 1_000;
+        adjustOnce(governor);
+        Assert.assertEquals(MAX_RATE * 0.15, governor.getCurrentRate(), DELTA);
+        Assert.assertEquals(MAX_RATE * 0.15, governor.getRate(TransferClass.SNAPSHOT), DELTA);
+    }
+
+    // The latency is checked once every 5 adjustments.
+    private void adjustOnce(BandwidthGovernor governor) {
+        for (int i = 0; i < 5; i++) governor.adjust();
+    }
+
+    private BandwidthGovernor newGovernor(long throttle, int latencyTargetMs) {
+        return new BandwidthGovernor(
+                new FakeConfiguration() {
+                    @Override
+                    public long getTransferThrottle() {
+                        return throttle;
+                    }
+
+                    @Override
+                    public int getTransferThrottleLatencyTargetMs() {
+                        return latencyTargetMs;
+                    }
+                },
+                new DefaultRegistry(),
+                () -> latencyMicros);
+    }
+}
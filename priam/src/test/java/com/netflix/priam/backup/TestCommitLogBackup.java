@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.merics.BackupMetrics;
+import com.netflix.priam.notification.BackupNotificationMgr;
+import com.netflix.spectator.api.Registry;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link CommitLogBackup}. */
+public class TestCommitLogBackup {
+    private static final Injector injector = Guice.createInjector(new BRTestModule());
+    private Path archiveDir;
+
+    @Before
+    public void setup() throws IOException {
+        archiveDir = Files.createTempDirectory("commitlog");
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(archiveDir.toFile());
+    }
+
+    @Test
+    public void testUploadInSegmentOrder() throws Exception {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            File segment = archiveDir.resolve("CommitLog-6-" + (1000 + i) + ".log").toFile();
+            FileUtils.writeStringToFile(segment, "segment" + i, "UTF-8");
+            // The order of the segment ids, not the modification times, is the order to record.
+            segment.setLastModified(now - 1000L * i);
+        }
+
+        CommitLogBackup commitLogBackup = injector.getInstance(CommitLogBackup.class);
+        List<AbstractBackupPath> bps = commitLogBackup.upload(archiveDir.toString(), null);
+
+        List<String> names =
+                bps.stream().map(AbstractBackupPath::getFileName).collect(Collectors.toList());
+        Assert.assertEquals(20, names.size());
+        for (int i = 0; i < 20; i++)
+            Assert.assertEquals("CommitLog-6-" + (1000 + i) + ".log", names.get(i));
+        FakeBackupFileSystem fs =
+                (FakeBackupFileSystem)
+                        injector.getInstance(
+                                Key.get(IBackupFileSystem.class, Names.named("backup")));
+        for (AbstractBackupPath bp : bps)
+            Assert.assertTrue(fs.uploadedFiles.contains(bp.getBackupFile().getAbsolutePath()));
+        // Segments are deleted once recorded.
+        Assert.assertEquals(0, archiveDir.toFile().list().length);
+        Assert.assertEquals(0, commitLogBackup.getUploadLagMillis());
+    }
+
+    @Test
+    public void testFailedSegmentHoldsBackNewerOnes() throws Exception {
+        long now = System.currentTimeMillis();
+        File[] segments = new File[5];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = archiveDir.resolve("CommitLog-6-" + (1000 + i) + ".log").toFile();
+            FileUtils.writeStringToFile(segments[i], "segment" + i, "UTF-8");
+            segments[i].setLastModified(now - 60000L + 1000L * i);
+        }
+        FailingFileSystem fs = injector.getInstance(FailingFileSystem.class);
+        CommitLogBackup commitLogBackup =
+                new CommitLogBackup(
+                        injector.getProvider(AbstractBackupPath.class),
+                        fs,
+                        injector.getInstance(IConfiguration.class),
+                        injector.getInstance(Registry.class));
+
+        // The middle segment fails, the newer ones are uploaded but neither recorded nor deleted.
+        fs.failing.add(segments[2].getAbsolutePath());
+        List<AbstractBackupPath> bps = commitLogBackup.upload(archiveDir.toString(), null);
+        Assert.assertEquals(
+                Arrays.asList("CommitLog-6-1000.log", "CommitLog-6-1001.log"), names(bps));
+        for (int i = 0; i < segments.length; i++) {
+            Assert.assertEquals(i < 2, !segments[i].exists());
+            Assert.assertEquals(i == 2 ? 0 : 1, fs.uploads(segments[i]));
+        }
+        long lagBefore = System.currentTimeMillis() - segments[2].lastModified();
+        long lag = commitLogBackup.getUploadLagMillis();
+        long lagAfter = System.currentTimeMillis() - segments[2].lastModified();
+        Assert.assertTrue(lag >= lagBefore && lag <= lagAfter);
+
+        // The next run records the newer segments without uploading them again.
+        fs.failing.clear();
+        bps = commitLogBackup.upload(archiveDir.toString(), null);
+        Assert.assertEquals(
+                Arrays.asList(
+                        "CommitLog-6-1002.log", "CommitLog-6-1003.log", "CommitLog-6-1004.log"),
+                names(bps));
+        for (File segment : segments) Assert.assertEquals(1, fs.uploads(segment));
+        Assert.assertEquals(0, archiveDir.toFile().list().length);
+        Assert.assertEquals(0, commitLogBackup.getUploadLagMillis());
+    }
+
+    @Test
+    public void testEmptyArchive() throws Exception {
+        CommitLogBackup commitLogBackup = injector.getInstance(CommitLogBackup.class);
+        Assert.assertTrue(commitLogBackup.upload(archiveDir.toString(), null).isEmpty());
+        Assert.assertEquals(0, commitLogBackup.getUploadLagMillis());
+    }
+
+    private static List<String> names(List<AbstractBackupPath> bps) {
+        return bps.stream().map(AbstractBackupPath::getFileName).collect(Collectors.toList());
+    }
+
+    /** File system failing the uploads of the given files, and counting the other uploads. */
+    private static class FailingFileSystem extends FakeBackupFileSystem {
+        private final Set<String> failing = ConcurrentHashMap.newKeySet();
+        private final Map<String, Integer> uploads = new ConcurrentHashMap<>();
+
+        @Inject
+        FailingFileSystem(
+                IConfiguration configuration,
+                BackupMetrics backupMetrics,
+                BackupNotificationMgr backupNotificationMgr,
+                Provider<AbstractBackupPath> pathProvider) {
+            super(configuration, backupMetrics, backupNotificationMgr, pathProvider);
+        }
+
+        @Override
+        public void uploadFile(
+                Path localPath,
+                Path remotePath,
+                AbstractBackupPath path,
+                int retry,
+                boolean deleteAfterSuccessfulUpload)
+                throws FileNotFoundException, BackupRestoreException {
+            String file = localPath.toFile().getAbsolutePath();
+            if (failing.contains(file))
+                throw new BackupRestoreException("Failed to upload " + file);
+            super.uploadFile(localPath, remotePath, path, retry, deleteAfterSuccessfulUpload);
+            uploads.merge(file, 1, Integer::sum);
+        }
+
+        int uploads(File file) {
+            return uploads.getOrDefault(file.getAbsolutePath(), 0);
+        }
+    }
+}
@@ -20,12 +20,18 @@ package com.netflix.priam.backup;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import com.netflix.priam.compress.Chunk;
+import com.netflix.priam.compress.ChunkBufferPool;
+import com.netflix.priam.compress.CompressedInputStream;
 import com.netflix.priam.compress.ICompression;
 import com.netflix.priam.compress.SnappyCompression;
 import com.netflix.priam.utils.SystemUtils;
 import java.io.*;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -111,6 +117,97 @@ public class TestCompression {
         testCompressor(compress);
     }
 
+    @Test
+    public void lz4Test() throws IOException {
+        testCompressor(ICompression.getCompression(ICompression.CompressionAlgorithm.LZ4));
+    }
+
+    @Test
+    public void zstdTest() throws IOException {
+        testCompressor(ICompression.getCompression(ICompression.CompressionAlgorithm.ZSTD));
+    }
+
+    @Test
+    public void compressedInputStreamTest() throws IOException {
+        ICompression compress = new SnappyCompression();
+        File decompressedTempOutput = new File("/tmp/compress-test-out.txt");
+        try {
+            // Use a tiny chunk size so the stream has to move across many chunks.
+            compress.decompressAndClose(
+                    new CompressedInputStream(
+                            compress,
+                            new FileInputStream(randomContentFile),
+                            64,
+                            new ChunkBufferPool(1)),
+                    new FileOutputStream(decompressedTempOutput));
+            String md1 = SystemUtils.md5(randomContentFile);
+            String md2 = SystemUtils.md5(decompressedTempOutput);
+            assertEquals(md1, md2);
+        } finally {
+            FileUtils.deleteQuietly(decompressedTempOutput);
+        }
+    }
+
+    @Test
+    public void pooledChunksTest() throws IOException {
+        // No compression, so that the content spans several chunks.
+        ICompression compress =
+                ICompression.getCompression(ICompression.CompressionAlgorithm.NONE);
+        ChunkBufferPool pool = new ChunkBufferPool(2);
+        File compressedOutputFile = new File("/tmp/test1.compress");
+        File decompressedTempOutput = new File("/tmp/compress-test-out.txt");
+        try {
+            Iterator<Chunk> it =
+                    compress.compress(new FileInputStream(randomContentFile), 1024, pool);
+            Set<byte[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+            int chunks = 0;
+            try (FileOutputStream ostream = new FileOutputStream(compressedOutputFile)) {
+                while (it.hasNext()) {
+                    Chunk chunk = it.next();
+                    chunks++;
+                    buffers.add(chunk.getBuffer());
+                    ostream.write(chunk.getBuffer(), 0, chunk.getLength());
+                    chunk.release();
+                }
+            }
+            // Released buffers are handed out again instead of allocating one for every chunk.
+            assertTrue(chunks > 2);
+            assertTrue(buffers.size() < chunks);
+            assertTrue(pool.getPooledBuffers() <= 2);
+
+            compress.decompressAndClose(
+                    new FileInputStream(compressedOutputFile),
+                    new FileOutputStream(decompressedTempOutput));
+            assertEquals(
+                    SystemUtils.md5(randomContentFile), SystemUtils.md5(decompressedTempOutput));
+        } finally {
+            FileUtils.deleteQuietly(compressedOutputFile);
+            FileUtils.deleteQuietly(decompressedTempOutput);
+        }
+    }
+
+    @Test
+    public void pooledBuffersBySizeTest() {
+        ChunkBufferPool pool = new ChunkBufferPool(2);
+        byte[] small = pool.acquire(1024);
+        byte[] large = pool.acquire(4096);
+        pool.release(small);
+        pool.release(large);
+
+        // A request for one size does not throw away the free buffers of the other size.
+        assertTrue(large == pool.acquire(4096));
+        assertTrue(small == pool.acquire(1024));
+        assertEquals(0, pool.getPooledBuffers());
+
+        // When the pool is full, the free buffer of another size makes room for the new one.
+        byte[] other = pool.acquire(2048);
+        pool.release(small);
+        pool.release(large);
+        pool.release(other);
+        assertEquals(2, pool.getPooledBuffers());
+        assertTrue(other == pool.acquire(2048));
+    }
+
     private void testCompressor(ICompression compress) throws IOException {
         File compressedOutputFile = new File("/tmp/test1.compress");
         File decompressedTempOutput = new File("/tmp/compress-test-out.txt");
@@ -18,8 +18,17 @@
 package com.netflix.priam.backup;
 
 import com.netflix.priam.scheduler.BlockingSubmitThreadPoolExecutor;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -69,4 +78,50 @@ public class TestCustomizedTPE {
         }
         Assert.assertTrue("Failure to timeout...", success);
     }
+
+    @Test
+    public void testTimedSubmit() throws Exception {
+        BlockingSubmitThreadPoolExecutor executor =
+                new BlockingSubmitThreadPoolExecutor(1, new ArrayBlockingQueue<>(1), TIME_OUT);
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            // One task running and one in the queue.
+            executor.submit(
+                    (Callable<Boolean>)
+                            () -> {
+                                started.countDown();
+                                return latch.await(TIME_OUT, TimeUnit.MILLISECONDS);
+                            });
+            // The queue only has room once the first task was taken out of it.
+            started.await();
+            executor.submit((Callable<Boolean>) () -> true);
+
+            boolean timedOut = false;
+            try {
+                executor.submit(() -> true, 100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timedOut = true;
+            }
+            Assert.assertTrue(timedOut);
+            Assert.assertEquals(1, executor.getQueueWaitCount());
+            Assert.assertTrue(executor.getQueueWaitTimeMs() >= 100);
+
+            Registry registry = new DefaultRegistry();
+            executor.registerMetrics(registry, "test");
+            PolledMeter.update(registry);
+            Gauge maxWait =
+                    registry.gauge(
+                            registry.createId("priam.executor.queue.wait.max", "pool", "test"));
+            Assert.assertTrue(maxWait.value() >= 100);
+
+            // The submitter is woken up as soon as the running task completes.
+            latch.countDown();
+            Future<Boolean> future = executor.submit(() -> true, TIME_OUT, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(future.get());
+            executor.sleepTillEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backup;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.priam.config.IConfiguration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link LocalFileSystem}. */
+public class TestLocalFileSystem {
+    private final File localDir = new File("target/local_file_system");
+    private IConfiguration configuration;
+    private Injector injector;
+    private LocalFileSystem fs;
+
+    @Before
+    public void setup() {
+        cleanup();
+        injector = Guice.createInjector(new BRTestModule());
+        configuration = injector.getInstance(IConfiguration.class);
+        Provider<AbstractBackupPath> pathProvider = injector.getProvider(AbstractBackupPath.class);
+        fs =
+                new LocalFileSystem(
+                        configuration,
+                        pathProvider,
+                        RemoteObjectIndex.disabled(),
+                        injector.getInstance(BandwidthGovernor.class));
+        localDir.mkdirs();
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(localDir);
+        if (configuration != null)
+            FileUtils.deleteQuietly(new File(configuration.getLocalBackupRoot()));
+    }
+
+    @Test
+    public void testUploadDownload() throws Exception {
+        byte[] content = new byte[100003];
+        new Random().nextBytes(content);
+        Path localFile = localDir.toPath().resolve("ks-cf-ka-1-Data.db");
+        Files.write(localFile, content);
+        Path remotePath = Paths.get("casstestbackup/1049_fake-app/1808575600/ks-cf-ka-1-Data.db");
+
+        long compressedSize =
+                fs.uploadFileImpl(localFile, remotePath, BandwidthGovernor.TransferClass.SNAPSHOT);
+        Assert.assertTrue(fs.doesRemoteFileExist(remotePath));
+        Assert.assertEquals(compressedSize, fs.getFileSize(remotePath));
+        // No temporary file is left behind.
+        Assert.assertEquals(
+                Collections.singletonList(remotePath.toString()),
+                Lists.newArrayList(fs.listFileSystem("casstestbackup/", null, null)));
+
+        Path downloaded = localDir.toPath().resolve("downloaded");
+        fs.downloadFileImpl(remotePath, downloaded);
+        Assert.assertArrayEquals(content, Files.readAllBytes(downloaded));
+    }
+
+    @Test
+    public void testRestoreSurvivesDataDirCleanup() throws Exception {
+        byte[] content = new byte[1003];
+        new Random().nextBytes(content);
+        Path localFile = localDir.toPath().resolve("ks-cf-ka-2-Data.db");
+        Files.write(localFile, content);
+        Path remotePath = Paths.get("casstestbackup/1049_fake-app/1808575600/ks-cf-ka-2-Data.db");
+        fs.uploadFileImpl(localFile, remotePath, BandwidthGovernor.TransferClass.SNAPSHOT);
+
+        // Restore wipes the data dir before it looks for the backup.
+        File dataDir = new File(configuration.getDataFileLocation());
+        dataDir.mkdirs();
+        FileUtils.cleanDirectory(dataDir);
+
+        Assert.assertTrue(fs.doesRemoteFileExist(remotePath));
+        Path downloaded = localDir.toPath().resolve("restored");
+        fs.downloadFileImpl(remotePath, downloaded);
+        Assert.assertArrayEquals(content, Files.readAllBytes(downloaded));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRootUnderDataDir() {
+        newFileSystem(
+                new FakeConfiguration() {
+                    @Override
+                    public String getLocalBackupRoot() {
+                        return getDataFileLocation() + "/local_backups";
+                    }
+                });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRootNotConfigured() {
+        newFileSystem(
+                new FakeConfiguration() {
+                    @Override
+                    public String getLocalBackupRoot() {
+                        return "";
+                    }
+                });
+    }
+
+    private void newFileSystem(IConfiguration config) {
+        new LocalFileSystem(
+                config,
+                injector.getProvider(AbstractBackupPath.class),
+                RemoteObjectIndex.disabled(),
+                injector.getInstance(BandwidthGovernor.class));
+    }
+
+    @Test
+    public void testListFileSystem() throws Exception {
+        for (String key : Arrays.asList("base/a/1", "base/b/c/3", "base/a-b", "base/a/2", "x/4"))
+            upload(key);
+
+        Assert.assertEquals(
+                Arrays.asList("base/a-b", "base/a/1", "base/a/2", "base/b/c/3"),
+                Lists.newArrayList(fs.listFileSystem("base/", null, null)));
+        Assert.assertEquals(
+                Arrays.asList("base/a-b", "base/a/1", "base/a/2"),
+                Lists.newArrayList(fs.listFileSystem("base/a", null, null)));
+        Assert.assertEquals(
+                Arrays.asList("base/a/2", "base/b/c/3"),
+                Lists.newArrayList(fs.listFileSystem("base/", null, "base/a/1")));
+        Assert.assertEquals(
+                Collections.singletonList("base/a-b"),
+                Lists.newArrayList(fs.listFileSystem("base/", "/", null)));
+        Assert.assertFalse(fs.listFileSystem("missing/", null, null).hasNext());
+    }
+
+    @Test
+    public void testDeleteFiles() throws Exception {
+        for (String key : Arrays.asList("base/a/1", "base/a/2", "base/b/3")) upload(key);
+
+        fs.deleteFiles(Arrays.asList(Paths.get("base/a/1"), Paths.get("base/a/2")));
+        Assert.assertFalse(fs.doesRemoteFileExist(Paths.get("base/a/1")));
+        Assert.assertEquals(
+                Collections.singletonList("base/b/3"),
+                Lists.newArrayList(fs.listFileSystem("", null, null)));
+        // Empty directories are removed along with the files.
+        Path bucketDir = Paths.get(configuration.getLocalBackupRoot(), fs.getShard());
+        Assert.assertFalse(Files.exists(bucketDir.resolve("base/a")));
+        Assert.assertTrue(Files.exists(bucketDir.resolve("base/b")));
+    }
+
+    private void upload(String key) throws IOException, BackupRestoreException {
+        Path localFile = localDir.toPath().resolve("file");
+        Files.write(localFile, key.getBytes());
+        fs.uploadFileImpl(localFile, Paths.get(key), BandwidthGovernor.TransferClass.SNAPSHOT);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.backup;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import mockit.Mock;
+import mockit.MockUp;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link ParallelRangeReadInputStream}. */
+public class TestParallelRangeReadInputStream {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private static final String REMOTE_PATH = "casstestbackup/1049_fake-app/1808575600/file.db";
+
+    @AfterClass
+    public static void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadInOrder() throws IOException {
+        byte[] content = new byte[100003];
+        new Random().nextBytes(content);
+        AtomicInteger requests = new AtomicInteger();
+        AmazonS3 s3Client = new MockAmazonS3(content, requests).getMockInstance();
+
+        try (InputStream is =
+                new ParallelRangeReadInputStream(
+                        s3Client, "bucket", content.length, REMOTE_PATH, 1000, 4, executor)) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(is));
+        }
+        // 100 full ranges and one partial range.
+        Assert.assertEquals(101, requests.get());
+    }
+
+    @Test
+    public void testSingleByteRead() throws IOException {
+        byte[] content = new byte[] {1, 2, (byte) 250};
+        AmazonS3 s3Client = new MockAmazonS3(content, new AtomicInteger()).getMockInstance();
+
+        try (InputStream is =
+                new ParallelRangeReadInputStream(
+                        s3Client, "bucket", content.length, REMOTE_PATH, 2, 2, executor)) {
+            Assert.assertEquals(1, is.read());
+            Assert.assertEquals(2, is.read());
+            Assert.assertEquals(250, is.read());
+            Assert.assertEquals(-1, is.read());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        AmazonS3 s3Client = new MockAmazonS3(new byte[0], requests).getMockInstance();
+
+        try (InputStream is =
+                new ParallelRangeReadInputStream(
+                        s3Client, "bucket", 0, REMOTE_PATH, 1000, 4, executor)) {
+            Assert.assertEquals(-1, is.read(new byte[10], 0, 10));
+        }
+        Assert.assertEquals(0, requests.get());
+    }
+
+    static class MockAmazonS3 extends MockUp<AmazonS3> {
+        private final byte[] content;
+        private final AtomicInteger requests;
+
+        MockAmazonS3(byte[] content, AtomicInteger requests) {
+            this.content = content;
+            this.requests = requests;
+        }
+
+        @Mock
+        public S3Object getObject(GetObjectRequest request) {
+            requests.incrementAndGet();
+            long[] range = request.getRange();
+            int length = (int) (range[1] - range[0] + 1);
+            S3Object s3Object = new S3Object();
+            // S3ObjectInputStream aborts the request on close if the stream was not read to the end.
+            s3Object.setObjectContent(
+                    new S3ObjectInputStream(
+                            new ByteArrayInputStream(content, (int) range[0], length),
+                            new HttpGet()));
+            return s3Object;
+        }
+    }
+}
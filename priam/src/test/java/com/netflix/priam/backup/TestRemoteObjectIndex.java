@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link RemoteObjectIndex}. */
+public class TestRemoteObjectIndex {
+    private final File indexDir = new File("target/remote_object_index");
+    private final Path indexFile = indexDir.toPath().resolve("remote_object.index");
+
+    @Before
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(indexDir);
+    }
+
+    @Test
+    public void testAddRemove() {
+        RemoteObjectIndex index = new RemoteObjectIndex(indexFile, true);
+        index.add("bucket:base/app/token/SST_V2/1/ks/cf/SNAPPY/PLAINTEXT/a-Data.db", 100, 10);
+        RemoteObjectIndex.RemoteObject object =
+                index.get("bucket:base/app/token/SST_V2/1/ks/cf/SNAPPY/PLAINTEXT/a-Data.db");
+        Assert.assertEquals(100, object.getSize());
+        Assert.assertEquals(10, object.getLastModified());
+
+        index.remove(
+                Collections.singletonList(
+                        "bucket:base/app/token/SST_V2/1/ks/cf/SNAPPY/PLAINTEXT/a-Data.db"));
+        Assert.assertNull(
+                index.get("bucket:base/app/token/SST_V2/1/ks/cf/SNAPPY/PLAINTEXT/a-Data.db"));
+        Assert.assertFalse(index.isComplete("bucket:base/app/token/SST_V2/1/ks/cf/b-Data.db"));
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        RemoteObjectIndex index = new RemoteObjectIndex(indexFile, true);
+        index.add("bucket:file1", 1, 1);
+        index.add("bucket:file2", 2, 2);
+        index.remove(Collections.singletonList("bucket:file1"));
+        index.reconcile(
+                "bucket:prefix/", Collections.singletonList("bucket:prefix/file3").iterator());
+
+        // Simulate a record which was only partially written before a crash.
+        Files.write(
+                indexFile, "+\t3\t".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        RemoteObjectIndex reloaded = new RemoteObjectIndex(indexFile, true);
+        Assert.assertEquals(2, reloaded.size());
+        Assert.assertNull(reloaded.get("bucket:file1"));
+        Assert.assertEquals(2, reloaded.get("bucket:file2").getSize());
+        Assert.assertNotNull(reloaded.get("bucket:prefix/file3"));
+        Assert.assertTrue(reloaded.isComplete("bucket:prefix/file4"));
+        Assert.assertFalse(reloaded.isComplete("bucket:file4"));
+    }
+
+    @Test
+    public void testReconcile() {
+        RemoteObjectIndex index = new RemoteObjectIndex(indexFile, true);
+        index.add("bucket:prefix/deleted", 1, 1);
+        index.add("bucket:prefix/present", 1, 1);
+        index.add("bucket:prefix/zdeleted", 1, 1);
+        index.add("bucket:other/deleted", 1, 1);
+
+        index.reconcile(
+                "bucket:prefix/",
+                Arrays.asList("bucket:prefix/new", "bucket:prefix/present").iterator());
+
+        Assert.assertNull(index.get("bucket:prefix/deleted"));
+        Assert.assertNull(index.get("bucket:prefix/zdeleted"));
+        Assert.assertEquals(1, index.get("bucket:prefix/present").getSize());
+        Assert.assertEquals(RemoteObjectIndex.UNKNOWN, index.get("bucket:prefix/new").getSize());
+        // Objects outside of the prefix are left alone.
+        Assert.assertNotNull(index.get("bucket:other/deleted"));
+        Assert.assertTrue(index.isComplete("bucket:prefix/missing"));
+    }
+
+    @Test
+    public void testReconcileUnsorted() {
+        RemoteObjectIndex index = new RemoteObjectIndex(indexFile, true);
+        index.add("bucket:prefix/b", 1, 1);
+
+        // The listing is not in order, so the index cannot tell which objects are gone.
+        index.reconcile(
+                "bucket:prefix/", Arrays.asList("bucket:prefix/a", "bucket:prefix/0").iterator());
+
+        Assert.assertNotNull(index.get("bucket:prefix/a"));
+        Assert.assertNotNull(index.get("bucket:prefix/0"));
+        Assert.assertNotNull(index.get("bucket:prefix/b"));
+        Assert.assertFalse(index.isComplete("bucket:prefix/missing"));
+    }
+
+    @Test
+    public void testDisabled() {
+        RemoteObjectIndex index = RemoteObjectIndex.disabled();
+        index.add("bucket:file1", 1, 1);
+        index.reconcile("bucket:", Collections.singletonList("bucket:file2").iterator());
+        Assert.assertNull(index.get("bucket:file1"));
+        Assert.assertFalse(index.isComplete("bucket:file2"));
+        Assert.assertFalse(indexFile.toFile().exists());
+    }
+}
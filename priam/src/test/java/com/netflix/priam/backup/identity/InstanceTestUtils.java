@@ -38,6 +38,7 @@ abstract class InstanceTestUtils {
     private IMembership membership;
     FakeConfiguration config;
     IPriamInstanceFactory factory;
+    PriamInstanceRegistry instanceRegistry;
     InstanceIdentity identity;
     private Sleeper sleeper;
     ITokenManager tokenManager;
@@ -61,6 +62,7 @@ abstract class InstanceTestUtils {
         instanceInfo = new FakeInstanceInfo("fakeinstance1", "az1", region);
         tokenManager = new TokenManager(config);
         factory = new FakePriamInstanceFactory(instanceInfo);
+        instanceRegistry = new PriamInstanceRegistry(factory, config);
         sleeper = new FakeSleeper();
         identity = createInstanceIdentity(instanceInfo.getRac(), instanceInfo.getInstanceId());
     }
@@ -98,6 +100,7 @@ abstract class InstanceTestUtils {
                 deadTokenRetriever,
                 preGeneratedTokenRetriever,
                 newTokenRetriever,
-                newInstanceInfo);
+                newInstanceInfo,
+                instanceRegistry);
     }
 }
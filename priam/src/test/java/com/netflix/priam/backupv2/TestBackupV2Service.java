@@ -130,6 +130,10 @@ public class TestBackupV2Service {
                 result = "0 0 0/1 1/1 * ? *";
                 backupRestoreConfig.enableV2Backups();
                 result = true;
+                backupRestoreConfig.enableRemoteObjectIndex();
+                result = true;
+                backupRestoreConfig.getRemoteObjectIndexReconcilePeriodInSec();
+                result = 600;
                 configuration.isIncrementalBackupEnabled();
                 result = true;
                 configuration.getBackupCronExpression();
@@ -144,7 +148,7 @@ public class TestBackupV2Service {
                         snapshotMetaTask,
                         cassandraTunerService);
         backupService.scheduleService();
-        Assert.assertEquals(4, scheduler.getScheduler().getJobKeys(null).size());
+        Assert.assertEquals(5, scheduler.getScheduler().getJobKeys(null).size());
     }
 
     @Test
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.backupv2;
+
+import com.netflix.priam.compress.ICompression;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link BinaryMetaFile}. */
+public class TestBinaryMetaFile {
+    private Path directory;
+    private Path metaFilePath;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("binarymeta");
+        metaFilePath = directory.resolve(MetaFileInfo.getMetaFileName(Instant.now()));
+    }
+
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    @Test
+    public void testStreamAllColumnfamilies() throws Exception {
+        writeMetaFile(3, 4);
+        List<ColumnfamilyResult> read = new ArrayList<>();
+        MetaFileReader reader =
+                new MetaFileReader() {
+                    @Override
+                    public void process(ColumnfamilyResult columnfamilyResult) {
+                        read.add(columnfamilyResult);
+                    }
+                };
+        reader.readMeta(metaFilePath);
+
+        Assert.assertEquals("fake-app", reader.getMetaFileInfo().getAppName());
+        Assert.assertEquals("us-east-1", reader.getMetaFileInfo().getRegion());
+        Assert.assertEquals(
+                Collections.singletonList("1234"), reader.getMetaFileInfo().getBackupIdentifier());
+        Assert.assertEquals(12, read.size());
+        for (int i = 0; i < read.size(); i++)
+            assertColumnfamily(read.get(i), "ks" + (i / 4), "cf" + (i % 4));
+    }
+
+    @Test
+    public void testReadSingleColumnfamily() throws Exception {
+        writeMetaFile(3, 4);
+        Assert.assertTrue(BinaryMetaFile.isBinaryMetaFile(metaFilePath));
+        Optional<ColumnfamilyResult> result =
+                MetaFileReader.readColumnfamily(metaFilePath, "ks2", "cf1");
+        Assert.assertTrue(result.isPresent());
+        assertColumnfamily(result.get(), "ks2", "cf1");
+        Assert.assertFalse(MetaFileReader.readColumnfamily(metaFilePath, "ks2", "cf9").isPresent());
+    }
+
+    @Test
+    public void testJsonIsNotBinary() throws Exception {
+        Files.write(metaFilePath, "{\"info\":{}, \"data\":[]}".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(BinaryMetaFile.isBinaryMetaFile(metaFilePath));
+        Files.write(metaFilePath, new byte[0]);
+        Assert.assertFalse(BinaryMetaFile.isBinaryMetaFile(metaFilePath));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws Exception {
+        writeMetaFile(1, 2);
+        try (RandomAccessFile file = new RandomAccessFile(metaFilePath.toFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        BinaryMetaFile.readColumnfamily(metaFilePath, "ks0", "cf0");
+    }
+
+    private void writeMetaFile(int keyspaces, int columnfamilies) throws IOException {
+        MetaFileInfo info =
+                new MetaFileInfo(
+                        "fake-app", "us-east-1", "az1", Collections.singletonList("1234"));
+        try (BinaryMetaFile.Writer writer = new BinaryMetaFile.Writer(metaFilePath, info)) {
+            for (int ks = 0; ks < keyspaces; ks++)
+                for (int cf = 0; cf < columnfamilies; cf++)
+                    writer.addColumnfamilyResult(getColumnfamilyResult("ks" + ks, "cf" + cf));
+            writer.finish();
+        }
+    }
+
+    private ColumnfamilyResult getColumnfamilyResult(String keyspace, String columnfamily) {
+        ColumnfamilyResult result = new ColumnfamilyResult(keyspace, columnfamily);
+        for (int i = 0; i < 3; i++) {
+            ColumnfamilyResult.SSTableResult sstable = new ColumnfamilyResult.SSTableResult();
+            sstable.setPrefix("mc-" + i + "-big");
+            List<FileUploadResult> components = new ArrayList<>();
+            for (String component : new String[] {"Data.db", "Index.db"}) {
+                FileUploadResult fileUploadResult =
+                        new FileUploadResult(
+                                Paths.get("mc-" + i + "-big-" + component),
+                                keyspace,
+                                columnfamily,
+                                Instant.ofEpochMilli(1000L * i),
+                                Instant.ofEpochMilli(500L * i),
+                                100L * i);
+                fileUploadResult.setUploaded(i > 0 ? true : null);
+                fileUploadResult.setCompression(ICompression.CompressionAlgorithm.SNAPPY);
+                fileUploadResult.setBackupPath(
+                        keyspace + "/" + columnfamily + "/mc-" + i + "-big-" + component);
+                components.add(fileUploadResult);
+            }
+            sstable.setSstableComponents(components);
+            result.addSstable(sstable);
+        }
+        return result;
+    }
+
+    private void assertColumnfamily(
+            ColumnfamilyResult result, String keyspace, String columnfamily) {
+        Assert.assertEquals(keyspace, result.getKeyspaceName());
+        Assert.assertEquals(columnfamily, result.getColumnfamilyName());
+        Assert.assertEquals(3, result.getSstables().size());
+        ColumnfamilyResult.SSTableResult sstable = result.getSstables().get(2);
+        Assert.assertEquals("mc-2-big", sstable.getPrefix());
+        Assert.assertEquals(2, sstable.getSstableComponents().size());
+        FileUploadResult component = sstable.getSstableComponents().get(1);
+        Assert.assertEquals(Paths.get("mc-2-big-Index.db"), component.getFileName());
+        Assert.assertEquals(Instant.ofEpochMilli(2000), component.getLastModifiedTime());
+        Assert.assertEquals(Instant.ofEpochMilli(1000), component.getFileCreationTime());
+        Assert.assertEquals(200, component.getFileSizeOnDisk());
+        Assert.assertTrue(component.getUploaded());
+        Assert.assertEquals(ICompression.CompressionAlgorithm.SNAPPY, component.getCompression());
+        Assert.assertEquals(
+                keyspace + "/" + columnfamily + "/mc-2-big-Index.db", component.getBackupPath());
+        Assert.assertNull(result.getSstables().get(0).getSstableComponents().get(0).getUploaded());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.backupv2;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link FileReferenceSet}. */
+public class TestFileReferenceSet {
+    private static final String PREFIX =
+            "casstestbackup/1049_fake-app/1808575600/SST_V2/1859817645000/ks/cf/SNAPPY/PLAINTEXT/";
+
+    @Test
+    public void testContains() {
+        FileReferenceSet set = new FileReferenceSet();
+        Assert.assertTrue(set.isEmpty());
+        // Enough files to grow the backing array.
+        for (int i = 0; i < 5000; i++) set.add(PREFIX + "mc-" + i + "-big-Data.db");
+        // Duplicates are only counted once.
+        set.add(PREFIX + "mc-0-big-Data.db");
+
+        Assert.assertEquals(5000, set.size());
+        for (int i = 0; i < 5000; i++)
+            Assert.assertTrue(set.contains(PREFIX + "mc-" + i + "-big-Data.db"));
+        Assert.assertFalse(set.contains(PREFIX + "mc-5000-big-Data.db"));
+        Assert.assertFalse(set.contains(PREFIX + "mc-1-big-Index.db"));
+
+        // Adding after a lookup keeps the set consistent.
+        set.add(PREFIX + "mc-5000-big-Data.db");
+        Assert.assertTrue(set.contains(PREFIX + "mc-5000-big-Data.db"));
+        Assert.assertEquals(5001, set.size());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.backupv2;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.utils.DateUtil;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for the incremental listing of {@link MetaV1Proxy}. */
+public class TestMetaV1Proxy {
+    private static final String PREFIX =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SST";
+    private static final DateUtil.DateRange DATE_RANGE =
+            new DateUtil.DateRange("201108110000,201108120000");
+    private final List<AbstractBackupPath> incrementals = new ArrayList<>();
+    private IMetaProxy metaProxy;
+
+    @Before
+    public void setUp() {
+        Injector injector = Guice.createInjector(new BRTestModule());
+        for (int i = 0; i < 3; i++) {
+            AbstractBackupPath path = injector.getInstance(AbstractBackupPath.class);
+            path.parseRemote(PREFIX + "/ks1/cf1/mc-" + i + "-Data.db");
+            incrementals.add(path);
+        }
+        new MockUp<MetaV1Proxy>() {
+            @Mock
+            public Iterator<AbstractBackupPath> getIncrementals(DateUtil.DateRange dateRange) {
+                return incrementals.iterator();
+            }
+        };
+        metaProxy = injector.getInstance(MetaV1Proxy.class);
+    }
+
+    @Test
+    public void testIncrementalsAfterMarker() throws Exception {
+        Assert.assertEquals(
+                incrementals, Lists.newArrayList(metaProxy.getIncrementals(DATE_RANGE, null)));
+        Assert.assertEquals(
+                incrementals.subList(2, 3),
+                Lists.newArrayList(
+                        metaProxy.getIncrementals(
+                                DATE_RANGE, incrementals.get(1).getRemotePath())));
+        Assert.assertFalse(
+                metaProxy
+                        .getIncrementals(DATE_RANGE, incrementals.get(2).getRemotePath())
+                        .hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMarker() throws Exception {
+        // The listing must not end as if all the files were seen already.
+        metaProxy.getIncrementals(DATE_RANGE, PREFIX + "/ks1/cf1/mc-9-Data.db");
+    }
+}
@@ -30,11 +30,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -120,6 +122,10 @@ public class TestMetaV2Proxy {
         List<String> filesFromMeta = metaProxy.getSSTFilesFromMeta(metaPath);
         filesFromMeta.removeAll(remoteFiles);
         Assert.assertTrue(filesFromMeta.isEmpty());
+        // Same files in the same order, with their size.
+        Assert.assertEquals(
+                metaProxy.getSSTFilesFromMeta(metaPath),
+                new ArrayList<>(metaProxy.getSSTFileSizesFromMeta(metaPath).keySet()));
     }
 
     @Test
@@ -154,7 +160,54 @@ public class TestMetaV2Proxy {
     }
 
     @Test
-    public void testFindLatestValidMetaFile() {}
+    public void testFindLatestValidMetaFile() throws Exception {
+        Instant snapshotInstant = DateUtil.getInstant();
+        List<String> invalidFiles = getRemoteFakeFiles();
+        invalidFiles.add(
+                Paths.get(
+                                getPrefix(),
+                                AbstractBackupPath.BackupFileType.SST_V2.toString(),
+                                "1859817645000",
+                                "keyspace1",
+                                "columnfamily1",
+                                "SNAPPY",
+                                "PLAINTEXT",
+                                "file9.Data.db")
+                        .toString());
+
+        // Newest and oldest meta files are missing a file, the one in between is valid.
+        List<AbstractBackupPath> metas = new ArrayList<>();
+        metas.add(getMetaPath(backupUtils.createMeta(invalidFiles, snapshotInstant)));
+        metas.add(
+                getMetaPath(
+                        backupUtils.createMeta(
+                                getRemoteFakeFiles(),
+                                snapshotInstant.minus(10, ChronoUnit.MINUTES))));
+        metas.add(
+                getMetaPath(
+                        backupUtils.createMeta(
+                                invalidFiles, snapshotInstant.minus(20, ChronoUnit.MINUTES))));
+
+        Optional<AbstractBackupPath> latest = metaProxy.findLatestValidMetaFile(metas);
+        Assert.assertTrue(latest.isPresent());
+        Assert.assertEquals(metas.get(1), latest.get());
+
+        // No valid meta file.
+        metas.clear();
+        metas.add(getMetaPath(backupUtils.createMeta(invalidFiles, snapshotInstant)));
+        metas.add(
+                getMetaPath(
+                        backupUtils.createMeta(
+                                invalidFiles, snapshotInstant.minus(10, ChronoUnit.MINUTES))));
+        Assert.assertFalse(metaProxy.findLatestValidMetaFile(metas).isPresent());
+    }
+
+    private AbstractBackupPath getMetaPath(Path localMetaPath) throws ParseException {
+        AbstractBackupPath abstractBackupPath = abstractBackupPathProvider.get();
+        abstractBackupPath.parseLocal(
+                localMetaPath.toFile(), AbstractBackupPath.BackupFileType.META_V2);
+        return abstractBackupPath;
+    }
 
     private String getPrefix() {
         return "casstestbackup/1049_fake-app/1808575600";
@@ -20,15 +20,21 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.netflix.priam.backup.AbstractBackup;
 import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backup.BandwidthGovernor;
+import com.netflix.priam.backup.FakeBackupFileSystem;
 import com.netflix.priam.config.IBackupRestoreConfig;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.config.InstanceInfo;
 import com.netflix.priam.scheduler.TaskTimer;
 import com.netflix.priam.utils.BackupFileUtils;
 import com.netflix.priam.utils.DateUtil;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -45,6 +51,7 @@ public class TestSnapshotMetaTask {
     private final SnapshotMetaTask snapshotMetaService;
     private final TestMetaFileReader metaFileReader;
     private final InstanceInfo instanceInfo;
+    private final FakeBackupFileSystem fs;
 
     public TestSnapshotMetaTask() {
         Injector injector = Guice.createInjector(new BRTestModule());
@@ -54,6 +61,7 @@ public class TestSnapshotMetaTask {
         snapshotMetaService = injector.getInstance(SnapshotMetaTask.class);
         metaFileReader = new TestMetaFileReader();
         instanceInfo = injector.getInstance(InstanceInfo.class);
+        fs = injector.getInstance(FakeBackupFileSystem.class);
     }
 
     @Before
@@ -123,6 +131,47 @@ public class TestSnapshotMetaTask {
         test(1000, 2, 2);
     }
 
+    @Test
+    public void testSnapshotFilesUploadedAsSnapshot() throws Exception {
+        Instant snapshotInstant = DateUtil.getInstant();
+        String snapshotName = snapshotMetaService.generateSnapshotName(snapshotInstant);
+        BackupFileUtils.generateDummyFiles(
+                dummyDataDirectoryLocation,
+                1,
+                1,
+                2,
+                AbstractBackup.SNAPSHOT_FOLDER,
+                snapshotName,
+                true);
+        snapshotMetaService.setSnapshotName(snapshotName);
+        snapshotMetaService.processSnapshot(snapshotInstant).getMetaFilePath().toFile().delete();
+        long noOfFiles;
+        try (Stream<Path> files = Files.walk(dummyDataDirectoryLocation)) {
+            noOfFiles =
+                    files.map(file -> file.getParent().getFileName().toString())
+                            .filter(directory -> directory.startsWith("snap_v2_"))
+                            .count();
+        }
+        Assert.assertTrue(noOfFiles > 0);
+
+        // The files of the snapshot are uploaded as SST_V2, like the incremental files.
+        snapshotMetaService.uploadFiles();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (getUploadTransferClasses().size() < noOfFiles
+                && System.currentTimeMillis() < deadline) Thread.sleep(100);
+        Map<String, BandwidthGovernor.TransferClass> transferClasses = getUploadTransferClasses();
+        Assert.assertEquals(noOfFiles, transferClasses.size());
+        for (BandwidthGovernor.TransferClass transferClass : transferClasses.values())
+            Assert.assertEquals(BandwidthGovernor.TransferClass.SNAPSHOT, transferClass);
+        BackupFileUtils.cleanupDir(dummyDataDirectoryLocation);
+    }
+
+    private Map<String, BandwidthGovernor.TransferClass> getUploadTransferClasses() {
+        synchronized (fs) {
+            return new HashMap<>(fs.uploadTransferClasses);
+        }
+    }
+
     static class TestMetaFileReader extends MetaFileReader {
 
         private int noOfSstables;
@@ -72,6 +72,16 @@ public class FakeConfiguration implements IConfiguration {
         return "target/data";
     }
 
+    @Override
+    public String getPriamStateLocation() {
+        return "target/priam";
+    }
+
+    @Override
+    public String getLocalBackupRoot() {
+        return "target/local_backups";
+    }
+
     @Override
     public String getLogDirLocation() {
         return null;
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.connection;
+
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.health.CassandraMonitor;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.Mocked;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link JMXConnectionPool}. */
+public class TestJMXConnectionPool {
+    @Mocked private JMXNodeTool nodeTool;
+    private final AtomicInteger connects = new AtomicInteger();
+    private volatile boolean refuseConnection = false;
+
+    @Before
+    public void setup() {
+        new MockUp<CassandraMonitor>() {
+            @Mock
+            Boolean hasCassadraStarted() {
+                return true;
+            }
+        };
+        new MockUp<JMXNodeTool>() {
+            @Mock
+            JMXNodeTool createConnection(IConfiguration config) throws JMXConnectionException {
+                connects.incrementAndGet();
+                if (refuseConnection) throw new JMXConnectionException("Connection refused");
+                return nodeTool;
+            }
+        };
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        JMXConnectionPool pool = new JMXConnectionPool(new FakeConfiguration());
+        JMXNodeTool connection = pool.getConnection();
+        Assert.assertSame(connection, pool.getConnection());
+        Assert.assertEquals(1, connects.get());
+
+        pool.invalidate(connection);
+        Assert.assertSame(nodeTool, pool.getConnection());
+        Assert.assertEquals(2, connects.get());
+    }
+
+    @Test
+    public void testBackoff() {
+        refuseConnection = true;
+        JMXConnectionPool pool = new JMXConnectionPool(new PoolConfiguration(1, 60));
+        for (int i = 0; i < 3; i++) {
+            try {
+                pool.getConnection();
+                Assert.fail("Expected the connection to fail");
+            } catch (JMXConnectionException e) {
+                // expected
+            }
+        }
+        // The next attempt waits for the backoff.
+        Assert.assertEquals(1, connects.get());
+    }
+
+    @Test(expected = JMXConnectionException.class)
+    public void testCallTimeout() throws Exception {
+        JMXConnectionPool pool = new JMXConnectionPool(new PoolConfiguration(1, 1));
+        pool.call(
+                connection -> {
+                    Thread.sleep(10000);
+                    return null;
+                });
+    }
+
+    @Test
+    public void testCallReplacesBrokenConnection() throws Exception {
+        JMXConnectionPool pool = new JMXConnectionPool(new FakeConfiguration());
+        Assert.assertSame(nodeTool, pool.call(connection -> connection));
+        Assert.assertEquals(1, connects.get());
+
+        try {
+            pool.call(
+                    connection -> {
+                        throw new IOException("Connection reset");
+                    });
+            Assert.fail("Expected the call to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        // The connection of this pool was dropped, so the next call connects again.
+        pool.call(connection -> connection);
+        Assert.assertEquals(2, connects.get());
+    }
+
+    private static class PoolConfiguration extends FakeConfiguration {
+        private final int poolSize;
+        private final int callTimeout;
+
+        PoolConfiguration(int poolSize, int callTimeout) {
+            this.poolSize = poolSize;
+            this.callTimeout = callTimeout;
+        }
+
+        @Override
+        public int getJmxConnectionPoolSize() {
+            return poolSize;
+        }
+
+        @Override
+        public int getJmxCallTimeoutInSec() {
+            return callTimeout;
+        }
+    }
+}
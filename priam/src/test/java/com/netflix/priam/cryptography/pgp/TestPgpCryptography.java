@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.cryptography.pgp;
+
+import com.netflix.priam.config.FakeConfiguration;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPEncryptedData;
+import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPKeyRingGenerator;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link PgpCryptography}. */
+public class TestPgpCryptography {
+    private static final char[] PASSPHRASE = "passphrase".toCharArray();
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private File publicKeyFile;
+    private File privateKeyFile;
+
+    @BeforeClass
+    public static void addProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        publicKeyFile = new File(folder.getRoot(), "public.key");
+        privateKeyFile = new File(folder.getRoot(), "private.key");
+        writeKeys();
+    }
+
+    @Test
+    public void testKeyFilesReadAgainWhenChanged() throws Exception {
+        PgpCryptography cryptography = new PgpCryptography(new PgpConfiguration(2));
+        byte[] data = "some data".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(data, decrypt(cryptography, encrypt(cryptography, data)));
+
+        // A new pair of keys in place of the old ones, the data is only readable if both the
+        // public and the private keys are read again.
+        writeKeys();
+        long lastModified = System.currentTimeMillis() + 60000;
+        Assert.assertTrue(publicKeyFile.setLastModified(lastModified));
+        Assert.assertTrue(privateKeyFile.setLastModified(lastModified));
+        Assert.assertArrayEquals(data, decrypt(cryptography, encrypt(cryptography, data)));
+    }
+
+    @Test
+    public void testChunksInOrder() throws Exception {
+        PgpCryptography cryptography = new PgpCryptography(new PgpConfiguration(2));
+        // Large enough for a few chunks of ciphertext.
+        byte[] data = new byte[25 * 1024 * 1024];
+        new Random(1).nextBytes(data);
+
+        List<byte[]> chunks = new ArrayList<>();
+        cryptography
+                .encryptStream(new ByteArrayInputStream(data), "file")
+                .forEachRemaining(chunks::add);
+        Assert.assertTrue(chunks.size() > 1);
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) encrypted.write(chunk, 0, chunk.length);
+        Assert.assertArrayEquals(data, decrypt(cryptography, encrypted.toByteArray()));
+    }
+
+    @Test
+    public void testErrorFromHasNext() {
+        PgpCryptography cryptography = new PgpCryptography(new PgpConfiguration(2));
+        InputStream failing =
+                new InputStream() {
+                    private int remaining = 1024 * 1024;
+
+                    @Override
+                    public int read() throws IOException {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        if (remaining <= 0) throw new IOException("Disk failure");
+                        int count = Math.min(len, remaining);
+                        remaining -= count;
+                        return count;
+                    }
+                };
+
+        Iterator<byte[]> chunks = cryptography.encryptStream(failing, "file");
+        try {
+            while (chunks.hasNext()) chunks.next();
+            Assert.fail("Expected the error of the source stream");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testCloseReleasesEncryptionThread() throws Exception {
+        // A single thread, so the next file can only be encrypted once the first one let go of it.
+        PgpCryptography cryptography = new PgpCryptography(new PgpConfiguration(1));
+        AtomicLong bytesRead = new AtomicLong();
+        InputStream endless =
+                new InputStream() {
+                    @Override
+                    public int read() {
+                        bytesRead.incrementAndGet();
+                        return 0;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) {
+                        bytesRead.addAndGet(len);
+                        return len;
+                    }
+                };
+
+        Iterator<byte[]> chunks = cryptography.encryptStream(endless, "endless");
+        Assert.assertTrue(chunks.hasNext());
+        chunks.next();
+        ((Closeable) chunks).close();
+        long bytesReadOnClose = bytesRead.get();
+
+        byte[] data = "some data".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(data, decrypt(cryptography, encrypt(cryptography, data)));
+        // The source is no longer read once the stream is closed.
+        Assert.assertEquals(bytesReadOnClose, bytesRead.get());
+    }
+
+    private static byte[] encrypt(PgpCryptography cryptography, byte[] data) {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        Iterator<byte[]> chunks =
+                cryptography.encryptStream(new ByteArrayInputStream(data), "file");
+        while (chunks.hasNext()) {
+            byte[] chunk = chunks.next();
+            encrypted.write(chunk, 0, chunk.length);
+        }
+        return encrypted.toByteArray();
+    }
+
+    private static byte[] decrypt(PgpCryptography cryptography, byte[] encrypted)
+            throws Exception {
+        InputStream decrypted =
+                cryptography.decryptStream(new ByteArrayInputStream(encrypted), PASSPHRASE, "file");
+        return IOUtils.toByteArray(decrypted);
+    }
+
+    private void writeKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(1024);
+        PGPKeyPair keyPair =
+                new PGPKeyPair(PGPPublicKey.RSA_GENERAL, generator.generateKeyPair(), new Date());
+        PGPKeyRingGenerator keyRingGenerator =
+                new PGPKeyRingGenerator(
+                        PGPSignature.POSITIVE_CERTIFICATION,
+                        keyPair,
+                        "priam",
+                        PGPEncryptedData.CAST5,
+                        PASSPHRASE,
+                        true,
+                        null,
+                        null,
+                        new SecureRandom(),
+                        "BC");
+        try (OutputStream out = new FileOutputStream(publicKeyFile)) {
+            keyRingGenerator.generatePublicKeyRing().encode(out);
+        }
+        try (OutputStream out = new FileOutputStream(privateKeyFile)) {
+            keyRingGenerator.generateSecretKeyRing().encode(out);
+        }
+    }
+
+    private class PgpConfiguration extends FakeConfiguration {
+        private final int encryptionThreads;
+
+        PgpConfiguration(int encryptionThreads) {
+            this.encryptionThreads = encryptionThreads;
+        }
+
+        @Override
+        public String getPgpPublicKeyLoc() {
+            return publicKeyFile.getAbsolutePath();
+        }
+
+        @Override
+        public String getPrivateKeyLocation() {
+            return privateKeyFile.getAbsolutePath();
+        }
+
+        @Override
+        public int getPgpEncryptionThreads() {
+            return encryptionThreads;
+        }
+    }
+}
@@ -24,8 +24,6 @@ import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.connection.JMXNodeTool;
 import com.netflix.priam.defaultimpl.ICassandraProcess;
 import com.netflix.priam.merics.CassMonitorMetrics;
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import mockit.*;
 import org.apache.cassandra.tools.NodeProbe;
 import org.junit.Assert;
@@ -34,15 +32,15 @@ import org.junit.Test;
 
 /** Created by aagrawal on 7/18/17. */
 public class TestCassandraMonitor {
-    private static CassandraMonitor monitor;
     private static InstanceState instanceState;
     private static CassMonitorMetrics cassMonitorMetrics;
 
     private IConfiguration config;
+    private CassandraMonitor monitor;
 
-    @Mocked private Process mockProcess;
     @Mocked private NodeProbe nodeProbe;
     @Mocked private ICassandraProcess cassProcess;
+    @Mocked private CassandraProcessTracker processTracker;
 
     @Before
     public void setUp() {
@@ -51,12 +49,19 @@ public class TestCassandraMonitor {
         if (instanceState == null) instanceState = injector.getInstance(InstanceState.class);
         if (cassMonitorMetrics == null)
             cassMonitorMetrics = injector.getInstance(CassMonitorMetrics.class);
-        if (monitor == null)
-            monitor = new CassandraMonitor(config, instanceState, cassProcess, cassMonitorMetrics);
+        monitor =
+                new CassandraMonitor(
+                        config, instanceState, cassProcess, cassMonitorMetrics, processTracker);
     }
 
     @Test
     public void testCassandraMonitor() throws Exception {
+        new Expectations() {
+            {
+                processTracker.isAlive();
+                result = false;
+            }
+        };
         monitor.execute();
 
         Assert.assertFalse(CassandraMonitor.hasCassadraStarted());
@@ -76,11 +81,10 @@ public class TestCassandraMonitor {
                 return nodeProbe;
             }
         };
-        final InputStream mockOutput = new ByteArrayInputStream("a process".getBytes());
         new Expectations() {
             {
-                mockProcess.getInputStream();
-                result = mockOutput;
+                processTracker.isAlive();
+                result = true;
                 nodeProbe.isGossipRunning();
                 result = true;
                 nodeProbe.isNativeTransportRunning();
@@ -89,17 +93,6 @@ public class TestCassandraMonitor {
                 result = true;
             }
         };
-        // Mock out the ps call
-        final Runtime r = Runtime.getRuntime();
-        String[] cmd = {
-            "/bin/sh", "-c", "ps -ef |grep -v \"\\sgrep\\s\" | grep " + config.getCassProcessName()
-        };
-        new Expectations(r) {
-            {
-                r.exec(cmd);
-                result = mockProcess;
-            }
-        };
         instanceState.setShouldCassandraBeAlive(false);
         instanceState.setCassandraProcessAlive(false);
 
@@ -107,6 +100,7 @@ public class TestCassandraMonitor {
 
         Assert.assertTrue(!instanceState.shouldCassandraBeAlive());
         Assert.assertTrue(instanceState.isCassandraProcessAlive());
+        Assert.assertTrue(instanceState.isGossipActive());
         new Verifications() {
             {
                 cassProcess.start(anyBoolean);
@@ -116,40 +110,67 @@ public class TestCassandraMonitor {
     }
 
     @Test
-    public void testAutoRemediationRateLimit() throws Exception {
-        final InputStream mockOutput = new ByteArrayInputStream("".getBytes());
-        instanceState.setShouldCassandraBeAlive(true);
-        instanceState.markLastAttemptedStartTime();
+    public void testServicesCheckedLessOften() throws Exception {
+        new MockUp<JMXNodeTool>() {
+            @Mock
+            NodeProbe instance(IConfiguration config) {
+                return nodeProbe;
+            }
+        };
         new Expectations() {
             {
-                // 6 calls to execute should = 12 calls to getInputStream();
-                mockProcess.getInputStream();
-                result = mockOutput;
-                times = 12;
-                cassProcess.start(true);
-                times = 2;
+                processTracker.isAlive();
+                returns(false, true, true, true);
+                // Only when the process is found, not on every check of the process.
+                nodeProbe.isGossipRunning();
+                result = true;
+                times = 1;
             }
         };
-        // Mock out the ps call
-        final Runtime r = Runtime.getRuntime();
-        String[] cmd = {
-            "/bin/sh", "-c", "ps -ef |grep -v \"\\sgrep\\s\" | grep " + config.getCassProcessName()
-        };
-        new Expectations(r) {
+        for (int i = 0; i < 4; i++) monitor.execute();
+        Assert.assertTrue(instanceState.isGossipActive());
+    }
+
+    @Test
+    public void testServicesCheckedAgainAfterFailure() throws Exception {
+        new Expectations() {
             {
-                r.exec(cmd);
-                result = mockProcess;
+                processTracker.isAlive();
+                returns(false, true, true, false);
+                // Cassandra may not answer over JMX right after the process is found.
+                nodeProbe.isGossipRunning();
+                result = new RuntimeException("Not yet");
+                result = true;
+                times = 2;
             }
         };
-        // Sleep ahead to ensure we have permits in the rate limiter
-        monitor.execute();
-        Thread.sleep(1500);
+        for (int i = 0; i < 3; i++) monitor.execute();
+        Assert.assertTrue(instanceState.isGossipActive());
         monitor.execute();
+    }
+
+    @Test
+    public void testAutoRemediationRateLimit() throws Exception {
+        // Cassandra was never started by this instance state.
+        InstanceState instanceState =
+                Guice.createInjector(new BRTestModule()).getInstance(InstanceState.class);
+        monitor =
+                new CassandraMonitor(
+                        config, instanceState, cassProcess, cassMonitorMetrics, processTracker);
+        instanceState.setShouldCassandraBeAlive(true);
+        new Expectations() {
+            {
+                processTracker.isAlive();
+                result = false;
+                cassProcess.start(true);
+                times = 1;
+            }
+        };
         monitor.execute();
+        // The configured rate is a second, but there are at least 10 seconds between two starts.
         Thread.sleep(1500);
         monitor.execute();
         monitor.execute();
-        monitor.execute();
 
         new Verifications() {};
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.health;
+
+import com.netflix.priam.config.FakeConfiguration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link CassandraProcessTracker}, using a fake proc file system. */
+public class TestCassandraProcessTracker {
+    private final File procRoot = new File("target/fake_proc");
+    private final File pidFile = new File("target/cassandra.pid");
+
+    @Before
+    @After
+    public void cleanup() {
+        FileUtils.deleteQuietly(procRoot);
+        FileUtils.deleteQuietly(pidFile);
+    }
+
+    @Test
+    public void testFindByName() throws IOException {
+        CassandraProcessTracker tracker =
+                new CassandraProcessTracker(new FakeConfiguration(), procRoot.toPath());
+        Assert.assertFalse(tracker.isAlive());
+
+        addProcess("self", "java\0-jar\0priam.jar");
+        addProcess("100", "java\0-jar\0priam.jar");
+        addProcess("200", "java\0-cp\0lib/*\0org.apache.cassandra.service.CassandraDaemon");
+        Assert.assertEquals(200, tracker.getPid().getAsLong());
+
+        // Process exited.
+        FileUtils.deleteQuietly(procRoot.toPath().resolve("200").toFile());
+        Assert.assertFalse(tracker.isAlive());
+
+        // Restarted with a new pid.
+        addProcess("300", "java\0org.apache.cassandra.service.CassandraDaemon");
+        Assert.assertEquals(300, tracker.getPid().getAsLong());
+    }
+
+    @Test
+    public void testPidFile() throws IOException {
+        FileUtils.writeStringToFile(pidFile, "300\n", StandardCharsets.US_ASCII);
+        CassandraProcessTracker tracker =
+                new CassandraProcessTracker(
+                        new FakeConfiguration() {
+                            @Override
+                            public String getCassPidFile() {
+                                return pidFile.getPath();
+                            }
+                        },
+                        procRoot.toPath());
+        addProcess("200", "org.apache.cassandra.service.CassandraDaemon");
+        addProcess("300", "org.apache.cassandra.service.CassandraDaemon");
+        Assert.assertEquals(300, tracker.getPid().getAsLong());
+
+        // A stale pid file falls back to the process name.
+        FileUtils.writeStringToFile(pidFile, "400\n", StandardCharsets.US_ASCII);
+        FileUtils.deleteQuietly(procRoot.toPath().resolve("300").toFile());
+        Assert.assertEquals(200, tracker.getPid().getAsLong());
+    }
+
+    private void addProcess(String pid, String cmdline) throws IOException {
+        Path process = procRoot.toPath().resolve(pid);
+        Files.createDirectories(process);
+        Files.write(process.resolve("cmdline"), cmdline.getBytes(StandardCharsets.UTF_8));
+    }
+}
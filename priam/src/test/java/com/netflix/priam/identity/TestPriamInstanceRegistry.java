@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.identity;
+
+import com.netflix.priam.config.FakeConfiguration;
+import com.netflix.priam.identity.config.FakeInstanceInfo;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link PriamInstanceRegistry}. */
+public class TestPriamInstanceRegistry {
+    private static final String APP = "fake-app";
+    private CountingInstanceFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new CountingInstanceFactory();
+        factory.create(APP, 1, "fakeinstance1", "host1", "1.1.1.1", "az1", null, "1");
+    }
+
+    @Test
+    public void testCachedUntilInvalidated() {
+        PriamInstanceRegistry registry = new PriamInstanceRegistry(factory, new TtlConfig(3600));
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+        Assert.assertEquals(1, factory.loads.get());
+
+        factory.create(APP, 2, "fakeinstance2", "host2", "1.1.1.2", "az2", null, "2");
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+
+        registry.invalidate(APP);
+        Assert.assertEquals(2, registry.getAllIds(APP).size());
+        Assert.assertEquals(2, factory.loads.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        PriamInstanceRegistry registry = new PriamInstanceRegistry(factory, new TtlConfig(0));
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+        factory.create(APP, 2, "fakeinstance2", "host2", "1.1.1.2", "az2", null, "2");
+        Assert.assertEquals(2, registry.getAllIds(APP).size());
+        Assert.assertEquals(2, factory.loads.get());
+    }
+
+    @Test
+    public void testStaleServedWhenReloadFails() throws Exception {
+        PriamInstanceRegistry registry = new PriamInstanceRegistry(factory, new TtlConfig(1));
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+
+        factory.fail = true;
+        Thread.sleep(1100);
+        // The expired instances are returned right away while they are reloaded.
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+        Thread.sleep(200);
+        // The failed reload keeps the instances.
+        Assert.assertEquals(1, registry.getAllIds(APP).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailureWithoutCachedInstances() {
+        factory.fail = true;
+        new PriamInstanceRegistry(factory, new TtlConfig(3600)).getAllIds(APP);
+    }
+
+    private static class TtlConfig extends FakeConfiguration {
+        private final int ttl;
+
+        TtlConfig(int ttl) {
+            super(APP);
+            this.ttl = ttl;
+        }
+
+        @Override
+        public int getInstanceRegistryCacheTtlInSec() {
+            return ttl;
+        }
+    }
+
+    private static class CountingInstanceFactory extends FakePriamInstanceFactory {
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile boolean fail = false;
+
+        CountingInstanceFactory() {
+            super(new FakeInstanceInfo("fakeinstance1", "az1", "us-east-1"));
+        }
+
+        @Override
+        public List<PriamInstance> getAllIds(String appName) {
+            if (fail) throw new IllegalStateException("registry unavailable");
+            loads.incrementAndGet();
+            return super.getAllIds(appName);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.netflix.priam.identity.IMembership;
 import com.netflix.priam.identity.IPriamInstanceFactory;
 import com.netflix.priam.identity.InstanceIdentity;
 import com.netflix.priam.identity.PriamInstance;
+import com.netflix.priam.identity.PriamInstanceRegistry;
 import com.netflix.priam.identity.config.InstanceInfo;
 import com.netflix.priam.utils.ITokenManager;
 import com.netflix.priam.utils.Sleeper;
@@ -73,7 +74,8 @@ public class AssignedTokenRetrieverTest {
                         deadTokenRetriever,
                         preGeneratedTokenRetriever,
                         newTokenRetriever,
-                        instanceInfo);
+                        instanceInfo,
+                        new PriamInstanceRegistry(factory, config));
 
         Assert.assertEquals(false, instanceIdentity.isReplace());
     }
@@ -143,7 +145,8 @@ public class AssignedTokenRetrieverTest {
                         deadTokenRetriever,
                         preGeneratedTokenRetriever,
                         newTokenRetriever,
-                        instanceInfo);
+                        instanceInfo,
+                        new PriamInstanceRegistry(factory, config));
 
         Assert.assertEquals(deadInstance.getHostIP(), instanceIdentity.getReplacedIp());
         Assert.assertEquals(true, instanceIdentity.isReplace());
@@ -198,7 +201,8 @@ public class AssignedTokenRetrieverTest {
                         deadTokenRetriever,
                         preGeneratedTokenRetriever,
                         newTokenRetriever,
-                        instanceInfo);
+                        instanceInfo,
+                        new PriamInstanceRegistry(factory, config));
 
         Assert.assertTrue(StringUtils.isEmpty(instanceIdentity.getReplacedIp()));
         Assert.assertEquals(false, instanceIdentity.isReplace());
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.resources;
+
+import com.google.common.collect.Iterators;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backupv2.MetaV2Proxy;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.utils.DateUtil;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import javax.ws.rs.core.Response;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackupServletV2Test {
+    private static final String META_FILE = "casstestbackup/1049_fake-app/1808575600/META_V2/meta";
+    private static final String PREFIX = "casstestbackup/1049_fake-app/1808575600";
+    private static final String DATE_RANGE = "201901010000,201901020000";
+    private static final String MARKER =
+            Paths.get(
+                            PREFIX,
+                            "SST_V2",
+                            "1546337100000",
+                            "keyspace1",
+                            "columnfamily1",
+                            "SNAPPY",
+                            "PLAINTEXT",
+                            "mc-1-Data.db")
+                    .toString();
+    private final List<AbstractBackupPath> files = new ArrayList<>();
+    private BackupServletV2 servlet;
+
+    @Before
+    public void setUp() throws Exception {
+        Injector injector = Guice.createInjector(new BRTestModule());
+        Provider<AbstractBackupPath> pathProvider = injector.getProvider(AbstractBackupPath.class);
+        IConfiguration configuration = injector.getInstance(IConfiguration.class);
+        servlet = injector.getInstance(BackupServletV2.class);
+        for (int i = 0; i < 5; i++) {
+            AbstractBackupPath path = pathProvider.get();
+            path.parseLocal(
+                    Paths.get(
+                                    configuration.getDataFileLocation(),
+                                    "keyspace1",
+                                    "columnfamily1",
+                                    "backup",
+                                    "mc-" + i + "-Data.db")
+                            .toFile(),
+                    AbstractBackupPath.BackupFileType.SST_V2);
+            path.setLastModified(DateUtil.getInstant());
+            files.add(path);
+        }
+    }
+
+    @Test
+    public void testCursor() {
+        BackupServletV2.ListCursor cursor =
+                BackupServletV2.ListCursor.decode(
+                        new BackupServletV2.ListCursor(META_FILE, 42, null).encode());
+        Assert.assertEquals(META_FILE, cursor.metaFile);
+        Assert.assertEquals(42, cursor.offset);
+        Assert.assertNull(cursor.incrementalMarker);
+
+        String marker = files.get(0).getRemotePath();
+        cursor =
+                BackupServletV2.ListCursor.decode(
+                        new BackupServletV2.ListCursor(META_FILE, 42, marker).encode());
+        Assert.assertEquals(META_FILE, cursor.metaFile);
+        Assert.assertEquals(42, cursor.offset);
+        Assert.assertEquals(marker, cursor.incrementalMarker);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedCursor() {
+        BackupServletV2.ListCursor.decode("not a cursor");
+    }
+
+    @Test
+    public void testCursorMetaFile() {
+        String metaFile = getMetaFile(PREFIX, "201901011000");
+        AbstractBackupPath path =
+                servlet.parseCursorMetaFile(
+                        new BackupServletV2.ListCursor(metaFile, 0, MARKER),
+                        new DateUtil.DateRange(DATE_RANGE));
+        Assert.assertEquals(AbstractBackupPath.BackupFileType.META_V2, path.getType());
+        Assert.assertEquals(metaFile, path.getRemotePath());
+    }
+
+    @Test
+    public void testInvalidCursor() throws Exception {
+        String metaFile = getMetaFile(PREFIX, "201901011000");
+        List<BackupServletV2.ListCursor> cursors = new ArrayList<>();
+        // Meta file of another node.
+        cursors.add(
+                new BackupServletV2.ListCursor(
+                        getMetaFile("casstestbackup/1049_fake-app/1234", "201901011000"),
+                        0,
+                        null));
+        // Not a meta file.
+        cursors.add(new BackupServletV2.ListCursor(files.get(0).getRemotePath(), 0, null));
+        // Meta file out of the date range.
+        cursors.add(
+                new BackupServletV2.ListCursor(getMetaFile(PREFIX, "201901031000"), 0, null));
+        // Way out of the backups of this node.
+        cursors.add(
+                new BackupServletV2.ListCursor(
+                        PREFIX + "/META_V2/../../../other" + metaFile.substring(PREFIX.length()),
+                        0,
+                        null));
+        // Incremental file of another node.
+        cursors.add(
+                new BackupServletV2.ListCursor(
+                        metaFile, 0, "casstestbackup/1049_fake-app/1234/SST_V2/1546337100000"));
+
+        for (BackupServletV2.ListCursor cursor : cursors)
+            Assert.assertEquals(
+                    Response.Status.BAD_REQUEST.getStatusCode(),
+                    servlet.list(DATE_RANGE, cursor.encode(), 2, false).getStatus());
+    }
+
+    @Test
+    public void testUnknownMarker() throws Exception {
+        new MockUp<MetaV2Proxy>() {
+            @Mock
+            public Iterator<AbstractBackupPath> getIncrementals(
+                    DateUtil.DateRange dateRange, String lastSeen) {
+                throw new IllegalArgumentException("Incremental file not found: " + lastSeen);
+            }
+        };
+        BackupServletV2.ListCursor cursor =
+                new BackupServletV2.ListCursor(getMetaFile(PREFIX, "201901011000"), 0, MARKER);
+        Assert.assertEquals(
+                Response.Status.BAD_REQUEST.getStatusCode(),
+                servlet.list(DATE_RANGE, cursor.encode(), 2, false).getStatus());
+    }
+
+    @Test
+    public void testUnpagedList() throws Exception {
+        JsonArray list =
+                new JsonParser()
+                        .parse(
+                                write(
+                                        files.iterator(),
+                                        Collections.emptyIterator(),
+                                        new BackupServletV2.ListCursor(META_FILE, 0, null),
+                                        0,
+                                        false))
+                        .getAsJsonArray();
+        Assert.assertEquals(files.size(), list.size());
+        for (int i = 0; i < files.size(); i++)
+            Assert.assertEquals(files.get(i).getRemotePath(), list.get(i).getAsString());
+    }
+
+    @Test
+    public void testPagedList() throws Exception {
+        // The last files are incrementals, so a page spans the end of the snapshot.
+        List<AbstractBackupPath> snapshotFiles = files.subList(0, 3);
+        List<AbstractBackupPath> incrementalFiles = files.subList(3, files.size());
+        List<String> listed = new ArrayList<>();
+        BackupServletV2.ListCursor cursor = new BackupServletV2.ListCursor(META_FILE, 0, null);
+        int pages = 0;
+        while (cursor != null) {
+            Iterator<AbstractBackupPath> snapshot = Collections.emptyIterator();
+            if (cursor.incrementalMarker == null) {
+                snapshot = snapshotFiles.iterator();
+                Iterators.advance(snapshot, cursor.offset);
+            }
+            // Resume the incrementals after the marker, like the remote file system listing.
+            int resumeAt = 0;
+            for (int i = 0; i < incrementalFiles.size(); i++)
+                if (incrementalFiles.get(i).getRemotePath().equals(cursor.incrementalMarker))
+                    resumeAt = i + 1;
+            Iterator<AbstractBackupPath> incrementals = incrementalFiles.listIterator(resumeAt);
+            JsonObject page =
+                    new JsonParser()
+                            .parse(write(snapshot, incrementals, cursor, 2, true))
+                            .getAsJsonObject();
+            page.getAsJsonArray("files").forEach(file -> listed.add(file.getAsString()));
+            cursor =
+                    page.has("nextCursor")
+                            ? BackupServletV2.ListCursor.decode(
+                                    page.get("nextCursor").getAsString())
+                            : null;
+            pages++;
+        }
+        Assert.assertEquals(3, pages);
+        Assert.assertEquals(files.size(), listed.size());
+        for (int i = 0; i < files.size(); i++)
+            Assert.assertEquals(files.get(i).getRemotePath(), listed.get(i));
+    }
+
+    private String getMetaFile(String prefix, String time) {
+        String millis = String.valueOf(DateUtil.parseInstant(time).toEpochMilli());
+        String fileName = "meta_v2_" + time + ".json";
+        return Paths.get(prefix, "META_V2", millis, "SNAPPY", "PLAINTEXT", fileName).toString();
+    }
+
+    private String write(
+            Iterator<AbstractBackupPath> snapshot,
+            Iterator<AbstractBackupPath> incrementals,
+            BackupServletV2.ListCursor cursor,
+            int limit,
+            boolean paged)
+            throws Exception {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        BackupServletV2.writeList(writer, snapshot, incrementals, cursor, limit, paged);
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.netflix.priam.config.IConfiguration;
 import com.netflix.priam.identity.IPriamInstanceFactory;
 import com.netflix.priam.identity.PriamInstance;
+import com.netflix.priam.identity.PriamInstanceRegistry;
 import com.netflix.priam.identity.config.InstanceInfo;
 import java.util.List;
 import javax.ws.rs.WebApplicationException;
@@ -47,7 +48,9 @@ public class PriamInstanceResourceTest {
 
     @Before
     public void setUp() {
-        resource = new PriamInstanceResource(config, factory, instanceInfo);
+        resource =
+                new PriamInstanceResource(
+                        config, factory, instanceInfo, new PriamInstanceRegistry(factory, config));
     }
 
     @Test
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.resources;
+
+import com.netflix.priam.config.FakeConfiguration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAdminOperations {
+    private final AdminOperations adminOperations = new AdminOperations(new Configuration());
+
+    @Test
+    public void testSucceeded() throws Exception {
+        AdminOperations.Operation operation =
+                adminOperations.submit("flush", () -> Response.ok("done").build());
+        Assert.assertTrue(operation.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(AdminOperations.Status.SUCCEEDED, operation.getStatus());
+        Assert.assertEquals("done", operation.getResult().getEntity());
+        Assert.assertNotNull(operation.getFinished());
+        Assert.assertSame(operation, adminOperations.get(operation.getId()).get());
+    }
+
+    @Test
+    public void testFailed() throws Exception {
+        AdminOperations.Operation thrown =
+                adminOperations.submit(
+                        "cleanup",
+                        () -> {
+                            throw new IllegalStateException("JMX is down");
+                        });
+        AdminOperations.Operation unavailable =
+                adminOperations.submit("drain", () -> Response.status(503).build());
+        Assert.assertTrue(thrown.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(unavailable.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(AdminOperations.Status.FAILED, thrown.getStatus());
+        Assert.assertEquals("JMX is down", thrown.getError());
+        Assert.assertNull(thrown.getResult());
+        Assert.assertEquals(AdminOperations.Status.FAILED, unavailable.getStatus());
+        Assert.assertEquals(503, unavailable.getResult().getStatus());
+    }
+
+    @Test
+    public void testDedupAndReject() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AdminOperations.Operation running =
+                adminOperations.submit(
+                        "repair",
+                        () -> {
+                            release.await();
+                            return Response.ok().build();
+                        });
+        // The pending repair is returned instead of running a second one.
+        Assert.assertSame(running, adminOperations.submit("repair", () -> null));
+
+        // One operation is running and one is queued, so the next one is rejected.
+        AdminOperations.Operation queued =
+                adminOperations.submit("flush", () -> Response.ok().build());
+        try {
+            adminOperations.submit("compact", () -> Response.ok().build());
+            Assert.fail("Expected the operation to be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        Assert.assertFalse(running.await(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(AdminOperations.Status.QUEUED, queued.getStatus());
+
+        release.countDown();
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(queued.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, adminOperations.list().size());
+        Assert.assertNotSame(
+                running, adminOperations.submit("repair", () -> Response.ok().build()));
+    }
+
+    private static class Configuration extends FakeConfiguration {
+        @Override
+        public int getAdminOperationThreads() {
+            return 1;
+        }
+
+        @Override
+        public int getAdminOperationQueueSize() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.netflix.priam.restore;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backup.MetaData;
+import com.netflix.priam.backup.NullBackupFileSystem;
+import com.netflix.priam.compress.ICompression;
+import com.netflix.priam.config.IConfiguration;
+import com.netflix.priam.cred.ICredentialGeneric;
+import com.netflix.priam.cryptography.IFileCryptography;
+import com.netflix.priam.defaultimpl.ICassandraProcess;
+import com.netflix.priam.health.InstanceState;
+import com.netflix.priam.identity.InstanceIdentity;
+import com.netflix.priam.utils.Sleeper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for the download of {@link EncryptedRestoreBase}. */
+public class TestEncryptedRestoreBase {
+    private static final String REMOTE_PATH =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SNAP/ks1/cf1/file.db";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Injector injector;
+    private byte[] data;
+    private byte[] compressed;
+    private File restoreLocation;
+    private FakeRemoteFileSystem fs;
+    private EncryptedRestoreBase restore;
+
+    @Before
+    public void setUp() throws Exception {
+        injector = Guice.createInjector(new BRTestModule());
+        data = new byte[1024 * 1024];
+        new Random(1).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Iterator<byte[]> chunks =
+                ICompression.getCompression(ICompression.CompressionAlgorithm.SNAPPY)
+                        .compress(new ByteArrayInputStream(data), 64 * 1024);
+        while (chunks.hasNext()) {
+            byte[] chunk = chunks.next();
+            out.write(chunk, 0, chunk.length);
+        }
+        compressed = out.toByteArray();
+        restoreLocation = new File(folder.getRoot(), "ks1/cf1/file.db");
+
+        fs =
+                new FakeRemoteFileSystem(
+                        injector.getInstance(IConfiguration.class),
+                        injector.getProvider(AbstractBackupPath.class));
+        restore =
+                new EncryptedRestoreStrategy(
+                        injector.getInstance(IConfiguration.class),
+                        injector.getInstance(ICassandraProcess.class),
+                        fs,
+                        injector.getInstance(Sleeper.class),
+                        new FakeCryptography(),
+                        new FakeCredential(),
+                        injector.getProvider(AbstractBackupPath.class),
+                        injector.getInstance(InstanceIdentity.class),
+                        injector.getInstance(RestoreTokenSelector.class),
+                        injector.getInstance(MetaData.class),
+                        injector.getInstance(InstanceState.class),
+                        injector.getInstance(IPostRestoreHook.class));
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        restore.downloadFile(getPath(), restoreLocation).get();
+        Assert.assertEquals(1, fs.opened);
+        Assert.assertArrayEquals(data, Files.readAllBytes(restoreLocation.toPath()));
+    }
+
+    @Test
+    public void testPartialFileDeletedBeforeRetry() throws Exception {
+        fs.failingAttempts = 1;
+        restore.downloadFile(getPath(), restoreLocation).get();
+
+        Assert.assertEquals(2, fs.opened);
+        // Some data was written before the failure, the retry started from an empty file.
+        Assert.assertTrue(fs.partialLength > 0);
+        Assert.assertFalse(fs.existedOnRetry);
+        Assert.assertArrayEquals(data, Files.readAllBytes(restoreLocation.toPath()));
+    }
+
+    @Test
+    public void testPartialFileDeletedOnFailure() throws Exception {
+        fs.failingAttempts = Integer.MAX_VALUE;
+        try {
+            restore.downloadFile(getPath(), restoreLocation).get();
+            Assert.fail("Expected the download to fail");
+        } catch (ExecutionException e) {
+            // expected
+        }
+
+        Assert.assertTrue(fs.opened > 1);
+        Assert.assertTrue(fs.partialLength > 0);
+        Assert.assertFalse(restoreLocation.exists());
+    }
+
+    private AbstractBackupPath getPath() {
+        AbstractBackupPath path = injector.getInstance(AbstractBackupPath.class);
+        path.parseRemote(REMOTE_PATH);
+        path.setCompression(ICompression.CompressionAlgorithm.SNAPPY);
+        return path;
+    }
+
+    /**
+     * Serves the compressed data of the file. The first attempts fail half way through the file,
+     * once some of the data has been written to the restore location.
+     */
+    private class FakeRemoteFileSystem extends NullBackupFileSystem {
+        volatile int failingAttempts;
+        volatile int opened;
+        volatile long partialLength;
+        volatile boolean existedOnRetry;
+
+        FakeRemoteFileSystem(
+                IConfiguration configuration, Provider<AbstractBackupPath> pathProvider) {
+            super(configuration, pathProvider);
+        }
+
+        @Override
+        public InputStream openRemoteStream(Path remotePath) {
+            if (opened++ > 0) existedOnRetry |= restoreLocation.exists();
+            InputStream in = new ByteArrayInputStream(compressed);
+            if (opened > failingAttempts) return in;
+            return new FilterInputStream(in) {
+                private long remaining = compressed.length / 2;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining-- <= 0) throw fail();
+                    return super.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (remaining <= 0) throw fail();
+                    int count = super.read(b, off, (int) Math.min(len, remaining));
+                    if (count > 0) remaining -= count;
+                    return count;
+                }
+
+                private IOException fail() {
+                    partialLength = restoreLocation.length();
+                    return new IOException("Connection reset");
+                }
+            };
+        }
+    }
+
+    /** The data is not encrypted, only its path through the download is of interest. */
+    private static class FakeCryptography implements IFileCryptography {
+        @Override
+        public InputStream decryptStream(InputStream in, char[] passwd, String objectName) {
+            return in;
+        }
+
+        @Override
+        public Iterator<byte[]> encryptStream(InputStream is, String fileName) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class FakeCredential implements ICredentialGeneric {
+        @Override
+        public byte[] getValue(KEY key) {
+            return "passphrase".getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public AWSCredentialsProvider getAwsCredentialProvider() {
+            return null;
+        }
+    }
+}
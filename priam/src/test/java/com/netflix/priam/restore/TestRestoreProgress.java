@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.restore;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.health.InstanceState;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for {@link RestoreProgress}. */
+public class TestRestoreProgress {
+    private static final String SNAPSHOT_PREFIX =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SNAP";
+    private static final String INCREMENTAL_PREFIX =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SST";
+    private static Injector injector;
+
+    @BeforeClass
+    public static void setup() {
+        injector = Guice.createInjector(new BRTestModule());
+    }
+
+    @Test
+    public void testSnapshotAndIncrementalBytesApart() throws Exception {
+        InstanceState.RestoreStatus restoreStatus = new InstanceState.RestoreStatus();
+        List<AbstractBackupPath> files =
+                Arrays.asList(
+                        getPath(SNAPSHOT_PREFIX, "ks1/cf1/large.db", 1000),
+                        getPath(INCREMENTAL_PREFIX, "ks1/cf1/small.db", 10));
+        RestoreProgress progress = new RestoreProgress(restoreStatus, files);
+        Assert.assertEquals(2, restoreStatus.getFilesToRestore());
+        Assert.assertEquals(1000, restoreStatus.getBytesToRestore());
+        Assert.assertEquals(10, restoreStatus.getIncrementalBytesToRestore());
+
+        for (int i = 0; i < files.size(); i++)
+            progress.add(CompletableFuture.completedFuture((Path) null));
+        Assert.assertEquals(2, restoreStatus.getFilesRestored());
+        Assert.assertEquals(1000, restoreStatus.getBytesRestored());
+        Assert.assertEquals(10, restoreStatus.getIncrementalBytesRestored());
+        Assert.assertNotNull(restoreStatus.getEstimatedExecutionEndTime());
+    }
+
+    @Test
+    public void testProgressReportedWhileWaiting() throws Exception {
+        InstanceState.RestoreStatus restoreStatus = new InstanceState.RestoreStatus();
+        List<AbstractBackupPath> files =
+                Arrays.asList(
+                        getPath(SNAPSHOT_PREFIX, "ks1/cf1/large.db", 1000),
+                        getPath(SNAPSHOT_PREFIX, "ks1/cf1/small.db", 10));
+        RestoreProgress progress = new RestoreProgress(restoreStatus, files);
+        CompletableFuture<Path> first = new CompletableFuture<>();
+        CompletableFuture<Path> second = new CompletableFuture<>();
+        progress.add(first);
+        progress.add(second);
+        Assert.assertEquals(0, restoreStatus.getFilesRestored());
+
+        CompletableFuture<Void> await =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                progress.await();
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        first.complete(null);
+        // The first download is reported while the second one is still going on.
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (restoreStatus.getFilesRestored() < 1 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        Assert.assertEquals(1, restoreStatus.getFilesRestored());
+        Assert.assertEquals(1000, restoreStatus.getBytesRestored());
+        Assert.assertFalse(await.isDone());
+
+        second.complete(null);
+        await.get();
+        Assert.assertEquals(2, restoreStatus.getFilesRestored());
+        Assert.assertEquals(1010, restoreStatus.getBytesRestored());
+    }
+
+    private AbstractBackupPath getPath(String prefix, String file, long size) {
+        AbstractBackupPath path = injector.getInstance(AbstractBackupPath.class);
+        path.parseRemote(prefix + "/" + file);
+        path.setCompressedFileSize(size);
+        return path;
+    }
+}
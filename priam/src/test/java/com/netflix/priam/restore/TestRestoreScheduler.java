@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.netflix.priam.restore;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.netflix.priam.backup.AbstractBackupPath;
+import com.netflix.priam.backup.BRTestModule;
+import com.netflix.priam.backup.FakeBackupFileSystem;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import mockit.Mock;
+import mockit.MockUp;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for {@link RestoreScheduler}. */
+public class TestRestoreScheduler {
+    private static final String PREFIX =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SNAP";
+    private static final String INCREMENTAL_PREFIX =
+            "test_backup/us-east-1/fakecluster/123456/201108110030/SST";
+    private static Injector injector;
+    private static FakeBackupFileSystem fs;
+
+    @BeforeClass
+    public static void setup() {
+        injector = Guice.createInjector(new BRTestModule());
+        fs = injector.getInstance(FakeBackupFileSystem.class);
+    }
+
+    @Test
+    public void testPriorityThenLargestFirst() throws Exception {
+        List<AbstractBackupPath> files = new ArrayList<>();
+        files.add(getPath("ks1/cf1/small.db", 10));
+        files.add(getPath("system_auth/roles/auth.db", 5));
+        files.add(getPath("ks1/cf2/large.db", 1000));
+        files.add(getPath("system/local/local.db", 1));
+        files.add(getPath("ks2/cf1/medium.db", 100));
+
+        List<AbstractBackupPath> scheduled =
+                new RestoreScheduler(fs, Arrays.asList("system", "system_auth"), true, 2)
+                        .schedule(files);
+        Assert.assertEquals(
+                Arrays.asList("local.db", "auth.db", "large.db", "medium.db", "small.db"),
+                getFileNames(scheduled));
+    }
+
+    @Test
+    public void testKeepOrderWithoutLargestFirst() throws Exception {
+        List<AbstractBackupPath> files = new ArrayList<>();
+        files.add(getPath("ks1/cf1/small.db", 10));
+        files.add(getPath("ks1/cf2/large.db", 1000));
+        files.add(getPath("system/local/local.db", 1));
+
+        List<AbstractBackupPath> scheduled =
+                new RestoreScheduler(fs, Arrays.asList("system"), false, 2).schedule(files);
+        Assert.assertEquals(
+                Arrays.asList("local.db", "small.db", "large.db"), getFileNames(scheduled));
+    }
+
+    @Test
+    public void testLookupUnknownSize() throws Exception {
+        new MockUp<FakeBackupFileSystem>() {
+            @Mock
+            public long getFileSize(Path remotePath) {
+                return remotePath.toString().endsWith("large.db") ? 1000 : 10;
+            }
+        };
+        List<AbstractBackupPath> files = new ArrayList<>();
+        files.add(getPath(INCREMENTAL_PREFIX, "ks1/cf1/small.db", 0));
+        files.add(getPath(INCREMENTAL_PREFIX, "ks1/cf2/large.db", 0));
+
+        List<AbstractBackupPath> scheduled =
+                new RestoreScheduler(fs, Arrays.asList("system"), true, 2).schedule(files);
+        Assert.assertEquals(Arrays.asList("large.db", "small.db"), getFileNames(scheduled));
+        Assert.assertEquals(1000, RestoreScheduler.getSize(scheduled.get(0)));
+    }
+
+    @Test
+    public void testNoLookupForSnapshotFiles() throws Exception {
+        new MockUp<FakeBackupFileSystem>() {
+            @Mock
+            public long getFileSize(Path remotePath) {
+                throw new AssertionError("Unexpected lookup of " + remotePath);
+            }
+        };
+        List<AbstractBackupPath> files = new ArrayList<>();
+        files.add(getPath("ks1/cf1/unknown.db", 0));
+        files.add(getPath("ks1/cf2/large.db", 1000));
+
+        List<AbstractBackupPath> scheduled =
+                new RestoreScheduler(fs, Arrays.asList("system"), true, 2).schedule(files);
+        Assert.assertEquals(Arrays.asList("large.db", "unknown.db"), getFileNames(scheduled));
+    }
+
+    private AbstractBackupPath getPath(String file, long size) {
+        return getPath(PREFIX, file, size);
+    }
+
+    private AbstractBackupPath getPath(String prefix, String file, long size) {
+        AbstractBackupPath path = injector.getInstance(AbstractBackupPath.class);
+        path.parseRemote(prefix + "/" + file);
+        path.setCompressedFileSize(size);
+        return path;
+    }
+
+    private List<String> getFileNames(List<AbstractBackupPath> paths) {
+        return paths.stream().map(AbstractBackupPath::getFileName).collect(Collectors.toList());
+    }
+}